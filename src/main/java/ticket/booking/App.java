@@ -1,7 +1,13 @@
 package ticket.booking;
 
+import ticket.booking.entities.SeatClass;
+import ticket.booking.entities.Ticket;
 import ticket.booking.entities.Train;
 import ticket.booking.entities.User;
+import ticket.booking.services.BookingHistory;
+import ticket.booking.services.FareEngine;
+import ticket.booking.services.ReplicationPrimary;
+import ticket.booking.services.SessionManager;
 import ticket.booking.services.UserBookingService;
 import ticket.booking.util.UserServiceUtil;
 
@@ -26,7 +32,26 @@ public class App {
             System.out.println("There is something wrong");
             return;
         }
+        SessionManager sessionManager = new SessionManager(userBookingService);
+        String replicationPort = System.getProperty("replication.port");
+        if (replicationPort != null){
+            try{
+                ReplicationPrimary primary = new ReplicationPrimary(userBookingService.getBookingJournal(),
+                        userBookingService.getTrainService(), Integer.parseInt(replicationPort),
+                        ReplicationPrimary.Mode.ASYNC, 100);
+                primary.start();
+                System.out.println("Replicating bookings on port " + primary.getPort());
+            }catch(IOException ex){
+                System.out.println("Could not start replication: " + ex.getMessage());
+            }
+        }
+        String sessionToken = null;
+        String searchedSource = null;
+        String searchedDestination = null;
         while(option!=7){
+            userBookingService.setUser(sessionManager.getSession(sessionToken)
+                    .map(SessionManager.Session::getUser)
+                    .orElse(null));
             System.out.println("Choose option");
             System.out.println("1. Sign up");
             System.out.println("2. Login");
@@ -52,26 +77,56 @@ public class App {
                     String nameToLogin = scanner.nextLine();
                     System.out.println("Enter the password to signup");
                     String passwordToLogin = scanner.nextLine();
-                    User userToLogin = new User(nameToLogin, passwordToLogin, UserServiceUtil.hashPassword(passwordToLogin), new ArrayList<>(), UUID.randomUUID().toString());
-                    try{
-                        userBookingService = new UserBookingService(userToLogin);
-                    }catch (IOException ex){
-                        return;
+                    sessionManager.logout(sessionToken);
+                    sessionToken = sessionManager.login(nameToLogin, passwordToLogin).orElse(null);
+                    if (sessionToken == null){
+                        System.out.println("Invalid username or password");
+                    }else{
+                        System.out.println("Logged in");
                     }
                     break;
                 case 3:
                     System.out.println("Fetching your bookings");
-                    userBookingService.fetchBookings();
+                    if (sessionManager.getSession(sessionToken).isEmpty()){
+                        System.out.println("Please login first");
+                        break;
+                    }
+                    String cursor = null;
+                    do {
+                        BookingHistory.Page page = userBookingService.fetchBookings(cursor, BookingHistory.DEFAULT_PAGE_SIZE);
+                        for (Ticket ticket: page.tickets()){
+                            System.out.println(ticket.getTicketInfo());
+                        }
+                        cursor = page.nextCursor();
+                        if (cursor != null){
+                            System.out.println("Type 1 to see more bookings, 0 to stop");
+                            if (scanner.nextInt() != 1){
+                                cursor = null;
+                            }
+                        }
+                    } while (cursor != null);
                     break;
                 case 4:
                     System.out.println("Type your source station");
                     String source = scanner.next();
                     System.out.println("Type your destination station");
                     String dest = scanner.next();
+                    searchedSource = source;
+                    searchedDestination = dest;
                     List<Train> trains = userBookingService.getTrains(source, dest);
+                    if (trains.isEmpty()){
+                        System.out.println("No trains found. Did you mean: "
+                                + userBookingService.suggestStations(source, 5) + " -> "
+                                + userBookingService.suggestStations(dest, 5));
+                        break;
+                    }
                     int index = 1;
                     for (Train t: trains){
                         System.out.println(index+" Train id : "+t.getTrainId());
+                        long fare = userBookingService.quoteFare(t, source, dest, SeatClass.SL);
+                        if (fare >= 0){
+                            System.out.println("fare ("+SeatClass.SL.getCode()+"): "+FareEngine.formatFare(fare));
+                        }
                         for (Map.Entry<String, String> entry: t.getStationTimes().entrySet()){
                             System.out.println("station "+entry.getKey()+" time: "+entry.getValue());
                         }
@@ -93,8 +148,11 @@ public class App {
                     int row = scanner.nextInt();
                     System.out.println("Enter the column");
                     int col = scanner.nextInt();
+                    System.out.println("Enter the date of travel (yyyy-mm-dd)");
+                    String dateOfTravel = scanner.next();
                     System.out.println("Booking your seat....");
-                    Boolean booked = userBookingService.bookTrainSeat(trainSelectedForBooking, row, col);
+                    Boolean booked = userBookingService.bookTrainSeat(trainSelectedForBooking, searchedSource,
+                            searchedDestination, dateOfTravel, row, col);
                     if(booked.equals(Boolean.TRUE)){
                         System.out.println("Booked! Enjoy your journey");
                     }else{
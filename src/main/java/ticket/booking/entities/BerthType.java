@@ -0,0 +1,32 @@
+package ticket.booking.entities;
+
+public enum BerthType {
+    LOWER,
+    MIDDLE,
+    UPPER,
+    SIDE_LOWER,
+    SIDE_UPPER,
+    WINDOW,
+    AISLE;
+
+    private static final BerthType[] SLEEPER_BAY = {LOWER, MIDDLE, UPPER, LOWER, MIDDLE, UPPER, SIDE_LOWER, SIDE_UPPER};
+    private static final BerthType[] TWO_TIER_BAY = {LOWER, UPPER, LOWER, UPPER, SIDE_LOWER, SIDE_UPPER};
+    private static final BerthType[] CHAIR_ROW = {WINDOW, MIDDLE, AISLE, AISLE, MIDDLE, WINDOW};
+
+    /**
+     * Berth type of the seat at the given column of a coach row, following the usual
+     * bay layout of the class.
+     */
+    public static BerthType forPosition(SeatClass seatClass, int column) {
+        BerthType[] pattern = switch (seatClass) {
+            case SL, AC3 -> SLEEPER_BAY;
+            case AC2 -> TWO_TIER_BAY;
+            case CC -> CHAIR_ROW;
+        };
+        return pattern[column % pattern.length];
+    }
+
+    public boolean isLower() {
+        return this == LOWER || this == SIDE_LOWER;
+    }
+}
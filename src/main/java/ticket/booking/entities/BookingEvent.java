@@ -0,0 +1,128 @@
+package ticket.booking.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * A committed change to seat inventory: one seat booked or released on a train.
+ * Sequence numbers are assigned by the BookingJournal and increase by one per event.
+ * A cancel of a ticket that held no seat has row and column -1.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingEvent {
+
+    public enum Type {
+        BOOK,
+        CANCEL
+    }
+
+    private long sequence;
+
+    private Type type;
+
+    private String trainId;
+
+    private int row;
+
+    private int column;
+
+    private String ticketId;
+
+    private String userId;
+
+    private long timestamp;
+
+    private String idempotencyKey;
+
+    public BookingEvent(){}
+
+    public BookingEvent(Type type, String trainId, int row, int column, String ticketId, String userId){
+        this.type = type;
+        this.trainId = trainId;
+        this.row = row;
+        this.column = column;
+        this.ticketId = ticketId;
+        this.userId = userId;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public long getSequence(){
+        return sequence;
+    }
+
+    public void setSequence(long sequence){
+        this.sequence = sequence;
+    }
+
+    public Type getType(){
+        return type;
+    }
+
+    public void setType(Type type){
+        this.type = type;
+    }
+
+    public String getTrainId(){
+        return trainId;
+    }
+
+    public void setTrainId(String trainId){
+        this.trainId = trainId;
+    }
+
+    public int getRow(){
+        return row;
+    }
+
+    public void setRow(int row){
+        this.row = row;
+    }
+
+    public int getColumn(){
+        return column;
+    }
+
+    public void setColumn(int column){
+        this.column = column;
+    }
+
+    public String getTicketId(){
+        return ticketId;
+    }
+
+    public void setTicketId(String ticketId){
+        this.ticketId = ticketId;
+    }
+
+    public String getUserId(){
+        return userId;
+    }
+
+    public void setUserId(String userId){
+        this.userId = userId;
+    }
+
+    public long getTimestamp(){
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp){
+        this.timestamp = timestamp;
+    }
+
+    public String getIdempotencyKey(){
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey){
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getEventInfo(){
+        return String.format("#%d %s train %s seat %d,%d", sequence, type, trainId, row, column);
+    }
+}
@@ -0,0 +1,69 @@
+package ticket.booking.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * A coach of one seat class, covering rowCount rows of the train's seat grid starting
+ * at firstRow.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class Coach {
+
+    public static final String DEFAULT_COACH_ID = "D1";
+
+    private String coachId;
+
+    private SeatClass seatClass;
+
+    private int firstRow;
+
+    private int rowCount;
+
+    public Coach(){}
+
+    public Coach(String coachId, SeatClass seatClass, int firstRow, int rowCount){
+        this.coachId = coachId;
+        this.seatClass = seatClass;
+        this.firstRow = firstRow;
+        this.rowCount = rowCount;
+    }
+
+    public String getCoachId(){
+        return coachId;
+    }
+
+    public void setCoachId(String coachId){
+        this.coachId = coachId;
+    }
+
+    public SeatClass getSeatClass(){
+        return seatClass;
+    }
+
+    public void setSeatClass(SeatClass seatClass){
+        this.seatClass = seatClass;
+    }
+
+    public int getFirstRow(){
+        return firstRow;
+    }
+
+    public void setFirstRow(int firstRow){
+        this.firstRow = firstRow;
+    }
+
+    public int getRowCount(){
+        return rowCount;
+    }
+
+    public void setRowCount(int rowCount){
+        this.rowCount = rowCount;
+    }
+
+    public boolean containsRow(int row){
+        return row >= firstRow && row < firstRow + rowCount;
+    }
+}
@@ -0,0 +1,38 @@
+package ticket.booking.entities;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum SeatClass {
+    SL("SL", "Sleeper"),
+    AC3("3A", "AC 3 Tier"),
+    AC2("2A", "AC 2 Tier"),
+    CC("CC", "AC Chair Car");
+
+    private final String code;
+    private final String displayName;
+
+    SeatClass(String code, String displayName) {
+        this.code = code;
+        this.displayName = displayName;
+    }
+
+    @JsonValue
+    public String getCode() {
+        return code;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @JsonCreator
+    public static SeatClass fromCode(String code) {
+        for (SeatClass seatClass : values()) {
+            if (seatClass.code.equalsIgnoreCase(code) || seatClass.name().equalsIgnoreCase(code)) {
+                return seatClass;
+            }
+        }
+        throw new IllegalArgumentException("Unknown seat class: " + code);
+    }
+}
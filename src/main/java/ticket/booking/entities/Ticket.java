@@ -1,39 +1,56 @@
 package ticket.booking.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import ticket.booking.util.SymbolTable;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
 public class Ticket{
 
+    public static final long UNKNOWN_TRAVEL_TIME = Long.MIN_VALUE;
+
     private String ticketId;
 
     private String userId;
 
-    private String source;
+    private int sourceId = SymbolTable.UNKNOWN;
 
-    private String destination;
+    private int destinationId = SymbolTable.UNKNOWN;
 
     private String dateOfTravel;
 
+    private long travelEpochSecond = UNKNOWN_TRAVEL_TIME;
+
     private Train train;
 
+    private String coachId;
+
+    private Integer seatRow;
+
+    private Integer seatColumn;
+
     public Ticket(){}
 
     public Ticket(String ticketId, String userId, String source, String destination, String dateOfTravel, Train train){
         this.ticketId = ticketId;
         this.userId = userId;
-        this.source = source;
-        this.destination = destination;
-        this.dateOfTravel = dateOfTravel;
+        setSource(source);
+        setDestination(destination);
+        setDateOfTravel(dateOfTravel);
         this.train = train;
     }
 
     public String getTicketInfo(){
-        return String.format("Ticket ID: %s belongs to User %s from %s to %s on %s", ticketId, userId, source, destination, dateOfTravel);
+        return String.format("Ticket ID: %s belongs to User %s from %s to %s on %s", ticketId, userId, getSource(), getDestination(), dateOfTravel);
     }
 
     public String getTicketId(){
@@ -45,11 +62,16 @@ public class Ticket{
     }
 
     public String getSource(){
-        return source;
+        return SymbolTable.STATIONS.name(sourceId);
+    }
+
+    @JsonIgnore
+    public int getSourceId(){
+        return sourceId;
     }
 
     public void setSource(String source){
-        this.source = source;
+        this.sourceId = SymbolTable.STATIONS.intern(source);
     }
 
     public String getUserId(){
@@ -61,11 +83,16 @@ public class Ticket{
     }
 
     public String getDestination(){
-        return destination;
+        return SymbolTable.STATIONS.name(destinationId);
+    }
+
+    @JsonIgnore
+    public int getDestinationId(){
+        return destinationId;
     }
 
     public void setDestination(String destination){
-        this.destination = destination;
+        this.destinationId = SymbolTable.STATIONS.intern(destination);
     }
 
     public String getDateOfTravel(){
@@ -74,6 +101,63 @@ public class Ticket{
 
     public void setDateOfTravel(String dateOfTravel){
         this.dateOfTravel = dateOfTravel;
+        this.travelEpochSecond = parseTravelTime(dateOfTravel);
+    }
+
+    /**
+     * Travel time in seconds since the epoch, or UNKNOWN_TRAVEL_TIME if dateOfTravel is
+     * missing or not an ISO instant or date. Dates without a time count from midnight UTC.
+     */
+    @JsonIgnore
+    public long getTravelEpochSecond(){
+        return travelEpochSecond;
+    }
+
+    @JsonIgnore
+    public long getTravelEpochDay(){
+        return travelEpochSecond == UNKNOWN_TRAVEL_TIME ? UNKNOWN_TRAVEL_TIME : Math.floorDiv(travelEpochSecond, 86_400L);
+    }
+
+    private static long parseTravelTime(String dateOfTravel){
+        if (dateOfTravel == null || dateOfTravel.isEmpty()) {
+            return UNKNOWN_TRAVEL_TIME;
+        }
+        try {
+            return Instant.parse(dateOfTravel).getEpochSecond();
+        } catch (DateTimeParseException ex) {
+            try {
+                return LocalDate.parse(dateOfTravel).toEpochDay() * 86_400L;
+            } catch (DateTimeParseException ignored) {
+                return UNKNOWN_TRAVEL_TIME;
+            }
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getCoachId(){
+        return coachId;
+    }
+
+    public void setCoachId(String coachId){
+        this.coachId = coachId;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Integer getSeatRow(){
+        return seatRow;
+    }
+
+    public void setSeatRow(Integer seatRow){
+        this.seatRow = seatRow;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Integer getSeatColumn(){
+        return seatColumn;
+    }
+
+    public void setSeatColumn(Integer seatColumn){
+        this.seatColumn = seatColumn;
     }
 
     public Train getTrain(){
@@ -2,13 +2,16 @@ package ticket.booking.entities;
 import java.sql.Time;
 import java.util.*;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.NoArgsConstructor;
+import ticket.booking.util.SymbolTable;
 
 import java.sql.Date;
 import java.sql.Time;
@@ -17,31 +20,76 @@ import java.util.Map;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
-@Builder
 public class Train {
 
+    /** Seat grid values. A held seat is reserved while payment completes. */
+    public static final int SEAT_FREE = 0;
+    public static final int SEAT_BOOKED = 1;
+    public static final int SEAT_HELD = 2;
+
     private String trainId;
 
+    private int trainKey = SymbolTable.UNKNOWN;
+
     private String trainNo;
 
     private List<List<Integer>> seats;
 
     private Map<String, String> stationTimes;
 
-    private List<String> stations;
+    private int[] stationIds;
+
+    private List<Integer> segmentDistances;
+
+    private List<Coach> coaches;
+
+    private long version;
+
+    private long catalogVersion;
 
     public Train(){}
 
+    @Builder
     public Train(String trainId, String trainNo, List<List<Integer>> seats, Map<String, String> stationTimes, List<String> stations){
-        this.trainId = trainId;
+        setTrainId(trainId);
         this.trainNo = trainNo;
         this.seats = seats;
-        this.stationTimes = stationTimes;
-        this.stations = stations;
+        setStationTimes(stationTimes);
+        setStations(stations);
     }
 
     public List<String> getStations(){
-        return stations;
+        if (stationIds == null) {
+            return null;
+        }
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return SymbolTable.STATIONS.name(stationIds[index]);
+            }
+
+            @Override
+            public int size() {
+                return stationIds.length;
+            }
+        };
+    }
+
+    @JsonIgnore
+    public int[] getStationIds(){
+        return stationIds;
+    }
+
+    public int indexOfStation(int stationId){
+        if (stationIds == null || stationId == SymbolTable.UNKNOWN) {
+            return -1;
+        }
+        for (int i = 0; i < stationIds.length; i++) {
+            if (stationIds[i] == stationId) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     public List<List<Integer>> getSeats() {
@@ -56,6 +104,11 @@ public class Train {
         return trainId;
     }
 
+    @JsonIgnore
+    public int getTrainKey(){
+        return trainKey;
+    }
+
     public Map<String, String> getStationTimes(){
         return stationTimes;
     }
@@ -68,20 +121,125 @@ public class Train {
         this.trainNo = trainNo;
     }
 
+    /**
+     * Keeps the id as given for display and interns only its lowercase form as the key.
+     */
     public void setTrainId(String trainId){
         this.trainId = trainId;
+        this.trainKey = trainId == null ? SymbolTable.UNKNOWN : SymbolTable.TRAINS.intern(trainId.toLowerCase());
     }
 
     public void setStationTimes(Map<String, String> stationTimes){
-        this.stationTimes = stationTimes;
+        if (stationTimes == null) {
+            this.stationTimes = null;
+            return;
+        }
+        Map<String, String> interned = new LinkedHashMap<>(stationTimes.size() * 2);
+        for (Map.Entry<String, String> entry : stationTimes.entrySet()) {
+            interned.put(SymbolTable.STATIONS.canonical(entry.getKey()), entry.getValue());
+        }
+        this.stationTimes = interned;
     }
 
     public void setStations(List<String> stations){
-        this.stations = stations;
+        if (stations == null) {
+            this.stationIds = null;
+            return;
+        }
+        int[] ids = new int[stations.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = SymbolTable.STATIONS.intern(stations.get(i));
+        }
+        this.stationIds = ids;
+    }
+
+    /**
+     * Distance in km between each pair of consecutive stations, so it has one entry
+     * fewer than getStations(). Null when the timetable has no distances.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public List<Integer> getSegmentDistances(){
+        return segmentDistances;
+    }
+
+    public void setSegmentDistances(List<Integer> segmentDistances){
+        this.segmentDistances = segmentDistances;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public List<Coach> getCoaches(){
+        return coaches;
+    }
+
+    public void setCoaches(List<Coach> coaches){
+        this.coaches = coaches;
+    }
+
+    /**
+     * Coaches of this train. Trains stored without coaches are treated as a single
+     * sleeper coach covering the whole seat grid.
+     */
+    @JsonIgnore
+    public List<Coach> getCoachLayout(){
+        if (coaches != null && !coaches.isEmpty()) {
+            return coaches;
+        }
+        int rows = seats == null ? 0 : seats.size();
+        return List.of(new Coach(Coach.DEFAULT_COACH_ID, SeatClass.SL, 0, rows));
+    }
+
+    public long getVersion(){
+        return version;
+    }
+
+    public void setVersion(long version){
+        this.version = version;
+    }
+
+    /**
+     * Catalog version at which this train was last added or changed; see
+     * TrainService.changesSince.
+     */
+    public long getCatalogVersion(){
+        return catalogVersion;
+    }
+
+    public void setCatalogVersion(long catalogVersion){
+        this.catalogVersion = catalogVersion;
+    }
+
+    /**
+     * Returns a copy with its own seat grid, safe to modify and pass back to
+     * TrainService.updateTrain.
+     */
+    public Train copy(){
+        Train copy = new Train();
+        copy.trainId = trainId;
+        copy.trainKey = trainKey;
+        copy.trainNo = trainNo;
+        copy.seats = copySeats();
+        copy.stationTimes = stationTimes;
+        copy.stationIds = stationIds;
+        copy.segmentDistances = segmentDistances;
+        copy.coaches = coaches;
+        copy.version = version;
+        copy.catalogVersion = catalogVersion;
+        return copy;
+    }
+
+    public List<List<Integer>> copySeats(){
+        if (seats == null) {
+            return null;
+        }
+        List<List<Integer>> copy = new ArrayList<>(seats.size());
+        for (List<Integer> row : seats) {
+            copy.add(new ArrayList<>(row));
+        }
+        return copy;
     }
 
     public String getTrainInfo(){
         return String.format("Train ID: %s Train No: %s", trainId, trainNo);
     }
 
-}
\ No newline at end of file
+}
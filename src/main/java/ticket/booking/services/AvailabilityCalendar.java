@@ -0,0 +1,225 @@
+package ticket.booking.services;
+
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.util.SymbolTable;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Free seats per day over the booking horizon between two stations, for one train or
+ * every train on a route. Each train keeps a counter per day and leg of the seats
+ * taken on it, moved by add and remove as tickets are issued and cancelled and dated
+ * holds are taken and given back, so a query reads counters only and never a seat
+ * grid. A journey's free seats are those left on its busiest leg. Tickets and holds
+ * without a date are not on any day and are not counted.
+ *
+ * Counters live in a ring of RING_DAYS days per train. A change for a day older than
+ * the one its slot already holds is dropped, so days that far apart never mix.
+ */
+public class AvailabilityCalendar {
+
+    public static final int DEFAULT_HORIZON_DAYS = OffHeapSeatInventory.DEFAULT_HORIZON_DAYS;
+    public static final int RING_DAYS = 512;
+
+    private final StationIndex stationIndex;
+    private final int horizonDays;
+    private final ConcurrentHashMap<Integer, TrainDays> byTrain = new ConcurrentHashMap<>();
+
+    public AvailabilityCalendar() {
+        this(DEFAULT_HORIZON_DAYS);
+    }
+
+    public AvailabilityCalendar(int horizonDays) {
+        this(new StationIndex(), horizonDays);
+    }
+
+    /**
+     * Resolves station names through the given index, e.g. TrainService's, so aliases
+     * work as they do in search.
+     */
+    public AvailabilityCalendar(StationIndex stationIndex, int horizonDays) {
+        this.stationIndex = stationIndex;
+        this.horizonDays = Math.min(horizonDays, RING_DAYS);
+    }
+
+    /**
+     * Counts a ticket, or a dated hold, against the stored train it travels on.
+     */
+    public void add(Train train, Ticket ticket) {
+        change(train, ticket, 1);
+    }
+
+    /**
+     * Stops counting a ticket or hold that add counted.
+     */
+    public void remove(Train train, Ticket ticket) {
+        change(train, ticket, -1);
+    }
+
+    public Availability forTrain(Train train, LocalDate firstDay) {
+        return forTrains(List.of(train), null, null, firstDay);
+    }
+
+    public Availability forTrain(Train train, String source, String destination, LocalDate firstDay) {
+        return forTrains(List.of(train), source, destination, firstDay);
+    }
+
+    /**
+     * Free seats per day over each train's whole route, summed over the trains.
+     */
+    public Availability forTrains(List<Train> trains, LocalDate firstDay) {
+        return forTrains(trains, null, null, firstDay);
+    }
+
+    /**
+     * Free seats per day from source to destination summed over the given trains,
+     * starting at firstDay. A null station stands for the end of the route; a train
+     * that does not run from source to destination adds nothing.
+     */
+    public Availability forTrains(List<Train> trains, String source, String destination, LocalDate firstDay) {
+        int[] free = new int[horizonDays];
+        int sourceId = source == null ? SymbolTable.UNKNOWN : SymbolTable.STATIONS.lookup(stationIndex.resolve(source));
+        int destinationId = destination == null ? SymbolTable.UNKNOWN
+                : SymbolTable.STATIONS.lookup(stationIndex.resolve(destination));
+        long fromEpochDay = firstDay.toEpochDay();
+        for (Train train : trains) {
+            int stations = train.getStationIds() == null ? 0 : train.getStationIds().length;
+            int fromLeg = source == null ? 0 : train.indexOfStation(sourceId);
+            int toLeg = destination == null ? stations - 1 : train.indexOfStation(destinationId);
+            if (fromLeg < 0 || toLeg <= fromLeg) {
+                continue;
+            }
+            TrainDays days = byTrain.get(train.getTrainKey());
+            if (days == null) {
+                int capacity = capacity(train);
+                for (int day = 0; day < horizonDays; day++) {
+                    free[day] += capacity;
+                }
+            } else {
+                days.addFree(fromEpochDay, fromLeg, toLeg, free);
+            }
+        }
+        return new Availability(firstDay, free);
+    }
+
+    public int getHorizonDays() {
+        return horizonDays;
+    }
+
+    private void change(Train train, Ticket ticket, int seats) {
+        long epochDay = ticket.getTravelEpochDay();
+        int stations = train.getStationIds() == null ? 0 : train.getStationIds().length;
+        if (epochDay == Ticket.UNKNOWN_TRAVEL_TIME || stations < 2) {
+            return;
+        }
+        int fromLeg = train.indexOfStation(ticket.getSourceId());
+        int toLeg = train.indexOfStation(ticket.getDestinationId());
+        if (fromLeg < 0 || toLeg <= fromLeg) {
+            fromLeg = 0; // not on the route; take it to cover all of it
+            toLeg = stations - 1;
+        }
+        byTrain.computeIfAbsent(train.getTrainKey(), key -> new TrainDays(capacity(train), stations - 1))
+                .change(epochDay, fromLeg, toLeg, seats);
+    }
+
+    private static int capacity(Train train) {
+        int capacity = 0;
+        if (train.getSeats() != null) {
+            for (List<Integer> row : train.getSeats()) {
+                capacity += row.size();
+            }
+        }
+        return capacity;
+    }
+
+    /**
+     * Seats taken per day and leg of one train, in a ring of RING_DAYS days.
+     */
+    private static class TrainDays {
+        private final int capacity;
+        private final int legs;
+        private final long[] dayOf = new long[RING_DAYS];
+        private final int[] taken;
+
+        private TrainDays(int capacity, int legs) {
+            this.capacity = capacity;
+            this.legs = legs;
+            this.taken = new int[RING_DAYS * legs];
+            Arrays.fill(dayOf, Long.MIN_VALUE);
+        }
+
+        private synchronized void change(long epochDay, int fromLeg, int toLeg, int seats) {
+            int slot = (int) Math.floorMod(epochDay, (long) RING_DAYS);
+            if (dayOf[slot] != epochDay) {
+                if (dayOf[slot] > epochDay) {
+                    return;
+                }
+                dayOf[slot] = epochDay;
+                Arrays.fill(taken, slot * legs, (slot + 1) * legs, 0);
+            }
+            for (int leg = fromLeg; leg < toLeg; leg++) {
+                taken[slot * legs + leg] = Math.max(taken[slot * legs + leg] + seats, 0);
+            }
+        }
+
+        private synchronized void addFree(long fromEpochDay, int fromLeg, int toLeg, int[] free) {
+            for (int day = 0; day < free.length; day++) {
+                int slot = (int) Math.floorMod(fromEpochDay + day, (long) RING_DAYS);
+                int busiest = 0;
+                if (dayOf[slot] == fromEpochDay + day) {
+                    for (int leg = fromLeg; leg < toLeg; leg++) {
+                        busiest = Math.max(busiest, taken[slot * legs + leg]);
+                    }
+                }
+                free[day] += Math.max(capacity - busiest, 0);
+            }
+        }
+    }
+
+    public static class Availability {
+        private final LocalDate firstDay;
+        private final int[] free;
+
+        private Availability(LocalDate firstDay, int[] free) {
+            this.firstDay = firstDay;
+            this.free = free;
+        }
+
+        public LocalDate getFirstDay() {
+            return firstDay;
+        }
+
+        public int getDays() {
+            return free.length;
+        }
+
+        public int getFreeSeats(int day) {
+            return free[day];
+        }
+
+        /**
+         * Free seats on the given date, or 0 outside the horizon.
+         */
+        public int getFreeSeats(LocalDate date) {
+            long day = date.toEpochDay() - firstDay.toEpochDay();
+            return day < 0 || day >= free.length ? 0 : free[(int) day];
+        }
+
+        /**
+         * The first date on or after from with at least the given number of free seats.
+         */
+        public Optional<LocalDate> firstDayWith(int seats, LocalDate from) {
+            for (int day = (int) Math.max(from.toEpochDay() - firstDay.toEpochDay(), 0); day < free.length; day++) {
+                if (free[day] >= seats) {
+                    return Optional.of(firstDay.plusDays(day));
+                }
+            }
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package ticket.booking.services;
+
+import ticket.booking.entities.BookingEvent;
+import ticket.booking.util.SymbolTable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts seat availability changes to any number of subscribers through a
+ * lock-free ring buffer. Each change is one packed long: train, row, column and the
+ * new state. Publishers claim a slot with one atomic increment and never wait for
+ * subscribers; each subscriber reads at its own pace from its own cursor.
+ *
+ * Each slot is a seqlock. Its stamp holds the sequence of the change in it, or -1
+ * while a publisher is writing, and a subscriber keeps a value only if the stamp
+ * reads the same sequence before and after it. A publisher waits for the publisher
+ * one full ring ahead of it on the same slot to finish, so two laps never write a
+ * slot at once.
+ *
+ * A subscriber that falls behind gets its backlog coalesced, so it only sees the
+ * latest state of each seat. One that falls a whole ring behind is told via onOverrun
+ * and should reload its view in full.
+ */
+public class AvailabilityFeed {
+
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+    public static final int COALESCE_THRESHOLD = 256;
+    private static final long IN_PROGRESS = -1;
+
+    /**
+     * Receives availability changes. Calls for one subscription come from one thread.
+     * The train id passed to onChange is the lowercase train key, not the display id.
+     */
+    public interface AvailabilityListener {
+
+        void onChange(String trainId, int row, int column, boolean booked);
+
+        /**
+         * Changes were lost because this subscriber fell a full ring behind.
+         */
+        void onOverrun();
+    }
+
+    private final int mask;
+    private final AtomicLongArray values;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final Consumer<BookingEvent> journalListener = this::publish;
+
+    public AvailabilityFeed() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * A feed of every committed booking and cancel in the journal.
+     */
+    public AvailabilityFeed(BookingJournal journal) {
+        this(DEFAULT_CAPACITY);
+        attach(journal);
+    }
+
+    public AvailabilityFeed(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.mask = capacity - 1;
+        this.values = new AtomicLongArray(capacity);
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, i - capacity); // as if a lap before the first had finished
+        }
+    }
+
+    public void attach(BookingJournal journal) {
+        journal.addListener(journalListener);
+    }
+
+    public void detach(BookingJournal journal) {
+        journal.removeListener(journalListener);
+    }
+
+    public void publish(BookingEvent event) {
+        if (event.getRow() < 0) {
+            return;
+        }
+        publish(event.getTrainId(), event.getRow(), event.getColumn(), event.getType() == BookingEvent.Type.BOOK);
+    }
+
+    public void publish(String trainId, int row, int column, boolean booked) {
+        long value = pack(SymbolTable.TRAINS.intern(trainId.toLowerCase()), row, column, booked);
+        long sequence = claimed.getAndIncrement();
+        int slot = (int) (sequence & mask);
+        long previousLap = sequence - (mask + 1);
+        while (published.get(slot) != previousLap) {
+            Thread.onSpinWait();
+        }
+        published.set(slot, IN_PROGRESS);
+        values.set(slot, value);
+        published.set(slot, sequence);
+    }
+
+    /**
+     * Number of changes published so far.
+     */
+    public long getPublished() {
+        return claimed.get();
+    }
+
+    /**
+     * Subscribes from the next change on. Call poll to receive changes on your own
+     * thread, or start to have them pushed from a dedicated one.
+     */
+    public Subscription subscribe(AvailabilityListener listener) {
+        return new Subscription(listener, claimed.get());
+    }
+
+    static long pack(int trainKey, int row, int column, boolean booked) {
+        return ((long) trainKey << 32) | ((long) (row & 0xFFFF) << 16) | ((column & 0x7FFF) << 1) | (booked ? 1 : 0);
+    }
+
+    public class Subscription implements AutoCloseable {
+        private final AvailabilityListener listener;
+        private long next;
+        private volatile boolean running;
+        private Thread pusher;
+        private long overruns;
+
+        private Subscription(AvailabilityListener listener, long next) {
+            this.listener = listener;
+            this.next = next;
+        }
+
+        /**
+         * Delivers every change available now and returns how many were delivered.
+         * A backlog over COALESCE_THRESHOLD is delivered as the last state per seat.
+         */
+        public synchronized int poll() {
+            long end = claimed.get();
+            if (end - next > mask + 1) {
+                overrun(end);
+            }
+            int backlog = (int) Math.min(end - next, mask + 1);
+            Map<Long, Long> latest = backlog > COALESCE_THRESHOLD ? new HashMap<>() : null;
+            int delivered = 0;
+            while (next < end) {
+                int slot = (int) (next & mask);
+                long sequence = published.get(slot);
+                if (sequence < next) {
+                    break; // claimed but not yet written, or being written; pick it up next poll
+                }
+                long value = values.get(slot);
+                if (published.get(slot) != next) {
+                    overrun(claimed.get());
+                    return delivered;
+                }
+                next++;
+                if (latest != null) {
+                    latest.put(value >>> 1, value);
+                } else {
+                    deliver(value);
+                    delivered++;
+                }
+            }
+            if (latest != null) {
+                for (long value : latest.values()) {
+                    deliver(value);
+                }
+                delivered += latest.size();
+            }
+            return delivered;
+        }
+
+        public long getOverruns() {
+            return overruns;
+        }
+
+        /**
+         * Starts a daemon thread that pushes changes to the listener as they arrive.
+         */
+        public synchronized Subscription start() {
+            if (!running) {
+                running = true;
+                pusher = new Thread(this::push, "availability-feed");
+                pusher.setDaemon(true);
+                pusher.start();
+            }
+            return this;
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            Thread thread = pusher;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+
+        private void push() {
+            long idleNanos = 1_000;
+            while (running) {
+                if (poll() > 0) {
+                    idleNanos = 1_000;
+                } else {
+                    LockSupport.parkNanos(idleNanos);
+                    idleNanos = Math.min(idleNanos * 2, 1_000_000);
+                }
+            }
+        }
+
+        private void overrun(long end) {
+            next = end;
+            overruns++;
+            listener.onOverrun();
+        }
+
+        private void deliver(long value) {
+            int trainKey = (int) (value >>> 32);
+            int row = (int) ((value >>> 16) & 0xFFFF);
+            int column = (int) ((value >>> 1) & 0x7FFF);
+            listener.onChange(SymbolTable.TRAINS.name(trainKey), row, column, (value & 1) == 1);
+        }
+    }
+}
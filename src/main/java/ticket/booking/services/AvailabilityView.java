@@ -0,0 +1,105 @@
+package ticket.booking.services;
+
+import ticket.booking.entities.Train;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Seat availability for every train, loaded once from TrainService and then kept up to
+ * date from an AvailabilityFeed, so readers never re-read the seat grids. Reloads
+ * everything if the feed reports an overrun.
+ *
+ * The view subscribes before it loads, so a change made while loading is still
+ * delivered afterwards; replaying it onto a grid that already shows it is harmless. A
+ * train first seen in the feed, e.g. one added after the load, is loaded then.
+ */
+public class AvailabilityView implements AvailabilityFeed.AvailabilityListener {
+
+    private final TrainService trainService;
+    private final ConcurrentHashMap<String, TrainSeats> trains = new ConcurrentHashMap<>();
+    private final AvailabilityFeed.Subscription subscription;
+
+    public AvailabilityView(TrainService trainService, AvailabilityFeed feed) {
+        this.trainService = trainService;
+        this.subscription = feed.subscribe(this);
+        reload();
+    }
+
+    /**
+     * The view's subscription: poll it, or start it to have changes pushed.
+     */
+    public AvailabilityFeed.Subscription getSubscription() {
+        return subscription;
+    }
+
+    public int getFreeSeats(String trainId) {
+        TrainSeats seats = trains.get(trainId.toLowerCase());
+        return seats == null ? 0 : seats.free;
+    }
+
+    public boolean isBooked(String trainId, int row, int column) {
+        TrainSeats seats = trains.get(trainId.toLowerCase());
+        return seats != null && seats.isBooked(row, column);
+    }
+
+    @Override
+    public void onChange(String trainId, int row, int column, boolean booked) {
+        TrainSeats seats = trains.computeIfAbsent(trainId,
+                key -> trainService.getTrain(key).map(train -> new TrainSeats(train.getSeats())).orElse(null));
+        if (seats != null) {
+            seats.set(row, column, booked);
+        }
+    }
+
+    @Override
+    public void onOverrun() {
+        reload();
+    }
+
+    private void reload() {
+        for (Train train : trainService.getTrains()) {
+            trains.put(train.getTrainId().toLowerCase(), new TrainSeats(train.getSeats()));
+        }
+    }
+
+    private static class TrainSeats {
+        private final int columns;
+        private final BitSet booked = new BitSet();
+        private volatile int free;
+
+        private TrainSeats(List<List<Integer>> seats) {
+            int width = 0;
+            int total = 0;
+            for (List<Integer> row : seats) {
+                width = Math.max(width, row.size());
+            }
+            this.columns = width;
+            for (int row = 0; row < seats.size(); row++) {
+                for (int column = 0; column < seats.get(row).size(); column++) {
+                    total++;
+                    if (seats.get(row).get(column) != 0) {
+                        booked.set(row * columns + column);
+                    }
+                }
+            }
+            this.free = total - booked.cardinality();
+        }
+
+        private synchronized void set(int row, int column, boolean isBooked) {
+            if (column >= columns) {
+                return;
+            }
+            int bit = row * columns + column;
+            if (booked.get(bit) != isBooked) {
+                booked.set(bit, isBooked);
+                free += isBooked ? -1 : 1;
+            }
+        }
+
+        private synchronized boolean isBooked(int row, int column) {
+            return column < columns && booked.get(row * columns + column);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package ticket.booking.services;
+
+import ticket.booking.entities.Ticket;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * One user's tickets ordered for display: upcoming trips soonest first, then past
+ * trips newest first. Upcoming trips live in a small separate list so the first page
+ * rarely touches the past ones. Cursors name the last ticket returned, so a page is
+ * found by binary search and stays correct while tickets are added or removed.
+ */
+public class BookingHistory {
+
+    public static final int DEFAULT_PAGE_SIZE = 10;
+
+    private static final Comparator<Entry> UPCOMING_ORDER = Comparator.comparingLong(Entry::travelTime)
+            .thenComparing(Entry::ticketId);
+    private static final Comparator<Entry> PAST_ORDER = Comparator.comparingLong(Entry::travelTime).reversed()
+            .thenComparing(Entry::ticketId);
+
+    private final List<Entry> upcoming = new ArrayList<>();
+    private final List<Entry> past = new ArrayList<>();
+    private long boundary;
+
+    public BookingHistory(List<Ticket> tickets, long nowEpochSecond) {
+        this.boundary = nowEpochSecond;
+        if (tickets != null) {
+            for (Ticket ticket : tickets) {
+                Entry entry = new Entry(ticket.getTravelEpochSecond(), String.valueOf(ticket.getTicketId()), ticket);
+                (entry.travelTime() >= boundary ? upcoming : past).add(entry);
+            }
+        }
+        upcoming.sort(UPCOMING_ORDER);
+        past.sort(PAST_ORDER);
+    }
+
+    public synchronized void add(Ticket ticket) {
+        Entry entry = new Entry(ticket.getTravelEpochSecond(), String.valueOf(ticket.getTicketId()), ticket);
+        List<Entry> segment = entry.travelTime() >= boundary ? upcoming : past;
+        Comparator<Entry> order = segment == upcoming ? UPCOMING_ORDER : PAST_ORDER;
+        int index = Collections.binarySearch(segment, entry, order);
+        segment.add(index < 0 ? -index - 1 : index, entry);
+    }
+
+    public synchronized boolean remove(String ticketId) {
+        return upcoming.removeIf(entry -> entry.ticketId().equals(ticketId))
+                || past.removeIf(entry -> entry.ticketId().equals(ticketId));
+    }
+
+    /**
+     * Moves trips that have started since the last call from the upcoming segment into
+     * the past segment.
+     */
+    public synchronized void advanceTo(long nowEpochSecond) {
+        boundary = nowEpochSecond;
+        while (!upcoming.isEmpty() && upcoming.get(0).travelTime() < boundary) {
+            Entry entry = upcoming.remove(0);
+            int index = Collections.binarySearch(past, entry, PAST_ORDER);
+            past.add(index < 0 ? -index - 1 : index, entry);
+        }
+    }
+
+    public synchronized List<Ticket> upcoming() {
+        List<Ticket> result = new ArrayList<>(upcoming.size());
+        for (Entry entry : upcoming) {
+            result.add(entry.ticket());
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return upcoming.size() + past.size();
+    }
+
+    /**
+     * Returns up to limit tickets following the cursor; pass null for the first page.
+     */
+    public synchronized Page page(String cursor, int limit) {
+        int size = Math.max(limit, 1);
+        boolean inUpcoming = true;
+        int start = 0;
+        if (cursor != null) {
+            Entry last = decode(cursor);
+            inUpcoming = last.travelTime() >= boundary;
+            List<Entry> segment = inUpcoming ? upcoming : past;
+            int index = Collections.binarySearch(segment, last, inUpcoming ? UPCOMING_ORDER : PAST_ORDER);
+            start = index < 0 ? -index - 1 : index + 1;
+        }
+        List<Ticket> tickets = new ArrayList<>(size);
+        Entry lastReturned = null;
+        if (inUpcoming) {
+            for (int i = start; i < upcoming.size() && tickets.size() < size; i++) {
+                lastReturned = upcoming.get(i);
+                tickets.add(lastReturned.ticket());
+            }
+            start = 0;
+        }
+        for (int i = start; i < past.size() && tickets.size() < size; i++) {
+            lastReturned = past.get(i);
+            tickets.add(lastReturned.ticket());
+        }
+        boolean more = lastReturned != null && !isLast(lastReturned);
+        return new Page(tickets, more ? encode(lastReturned) : null);
+    }
+
+    private boolean isLast(Entry entry) {
+        if (!past.isEmpty()) {
+            return past.get(past.size() - 1) == entry;
+        }
+        return !upcoming.isEmpty() && upcoming.get(upcoming.size() - 1) == entry;
+    }
+
+    private static String encode(Entry entry) {
+        String raw = entry.travelTime() + ":" + entry.ticketId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Entry decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new Entry(Long.parseLong(raw.substring(0, separator)), raw.substring(separator + 1), null);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Invalid booking cursor: " + cursor, ex);
+        }
+    }
+
+    public record Page(List<Ticket> tickets, String nextCursor) {
+        public boolean hasMore() {
+            return nextCursor != null;
+        }
+    }
+
+    private record Entry(long travelTime, String ticketId, Ticket ticket) {
+    }
+}
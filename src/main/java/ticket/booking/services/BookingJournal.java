@@ -0,0 +1,310 @@
+package ticket.booking.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ticket.booking.entities.BookingEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Ordered log of committed booking and cancel events. Appending assigns the next
+ * sequence number; once the event is durable it is handed to every listener in sequence
+ * order, one commit at a time, so listeners must be quick (enqueue, don't do I/O). Commit
+ * hooks run afterwards and may block the appending thread, e.g. to wait for a replica. A
+ * bounded tail of recent events is kept for listeners that need to catch up.
+ *
+ * A journal opened on a file also appends each event to it as a JSON line and replays
+ * the file when reopened, so the tail and the sequence numbers survive a restart. Lines
+ * are written under the journal lock but forced outside it with group commit: while one
+ * appender's fsync runs, others keep writing, and the next fsync covers them all. No
+ * append returns, and no listener sees an event, before its line is forced. The file is
+ * rewritten down to the retained tail once it holds twice that many events.
+ *
+ * Only changes to seat inventory are journaled. A rejected booking or cancel changes
+ * nothing, so it is not recorded: replicas and the availability feed never see it, and
+ * after a restart a retry under the same idempotency key is attempted afresh.
+ */
+public class BookingJournal implements AutoCloseable {
+
+    public static final int DEFAULT_RETAINED_EVENTS = 100_000;
+
+    private final int retainedEvents;
+    private final ArrayDeque<BookingEvent> tail = new ArrayDeque<>();
+    private final List<Consumer<BookingEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final List<LongConsumer> commitHooks = new CopyOnWriteArrayList<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path file;
+    private final Object commitLock = new Object();
+    private final ArrayDeque<BookingEvent> uncommitted = new ArrayDeque<>();
+    private FileChannel channel;
+    private int eventsInFile;
+    private long lastSequence;
+    private volatile long committedSequence;
+
+    public BookingJournal() {
+        this(DEFAULT_RETAINED_EVENTS);
+    }
+
+    public BookingJournal(int retainedEvents) {
+        this.retainedEvents = Math.max(retainedEvents, 1);
+        this.file = null;
+    }
+
+    public BookingJournal(Path file) throws IOException {
+        this(file, DEFAULT_RETAINED_EVENTS);
+    }
+
+    public BookingJournal(Path file, int retainedEvents) throws IOException {
+        this.retainedEvents = Math.max(retainedEvents, 1);
+        this.file = file;
+        replay();
+        committedSequence = lastSequence;
+        if (eventsInFile > 2 * this.retainedEvents) {
+            compact();
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    public BookingEvent append(BookingEvent event) {
+        synchronized (this) {
+            event.setSequence(++lastSequence);
+            tail.addLast(event);
+            if (tail.size() > retainedEvents) {
+                tail.removeFirst();
+            }
+            write(event);
+            uncommitted.addLast(event);
+        }
+        commit(event.getSequence());
+        for (LongConsumer hook : commitHooks) {
+            hook.accept(event.getSequence());
+        }
+        return event;
+    }
+
+    /**
+     * Forces everything written so far with one fsync, unless a force that started
+     * after this event was written already covered it, then hands the forced events to
+     * the listeners in order.
+     */
+    private void commit(long sequence) {
+        synchronized (commitLock) {
+            if (committedSequence >= sequence) {
+                return;
+            }
+            List<BookingEvent> batch;
+            FileChannel forced;
+            synchronized (this) {
+                batch = new ArrayList<>(uncommitted);
+                uncommitted.clear();
+                forced = channel;
+            }
+            if (forced != null) {
+                try {
+                    forced.force(false);
+                } catch (ClosedChannelException ex) {
+                    // Compacted meanwhile; the rewritten file was forced with every line.
+                } catch (IOException ex) {
+                    System.out.println("Could not journal booking events up to #" + batch.getLast().getSequence()
+                            + ": " + ex.getMessage());
+                }
+            }
+            for (BookingEvent event : batch) {
+                for (Consumer<BookingEvent> listener : listeners) {
+                    listener.accept(event);
+                }
+            }
+            committedSequence = batch.getLast().getSequence();
+        }
+    }
+
+    public void addListener(Consumer<BookingEvent> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Atomically returns the committed events after the given sequence number and
+     * registers the listener for every later commit, so nothing is missed or seen
+     * twice. Returns null, without registering, if the backlog is no longer retained.
+     */
+    public List<BookingEvent> subscribe(long sequence, Consumer<BookingEvent> listener) {
+        synchronized (commitLock) {
+            List<BookingEvent> backlog = eventsSince(sequence);
+            if (backlog != null) {
+                listeners.add(listener);
+            }
+            return backlog;
+        }
+    }
+
+    public void removeListener(Consumer<BookingEvent> listener) {
+        listeners.remove(listener);
+    }
+
+    public void addCommitHook(LongConsumer hook) {
+        commitHooks.add(hook);
+    }
+
+    public void removeCommitHook(LongConsumer hook) {
+        commitHooks.remove(hook);
+    }
+
+    /**
+     * Sequence of the last committed event, the last one listeners have seen.
+     */
+    public long getLastSequence() {
+        return committedSequence;
+    }
+
+    /**
+     * How many of the most recent events the journal retains.
+     */
+    public int getRetainedEventLimit() {
+        return retainedEvents;
+    }
+
+    /**
+     * Every event still retained, oldest first.
+     */
+    public synchronized List<BookingEvent> getRetainedEvents() {
+        return new ArrayList<>(tail);
+    }
+
+    /**
+     * Committed events after the given sequence number, or null if some of them are no
+     * longer retained and the caller must resynchronize from a snapshot instead.
+     */
+    public synchronized List<BookingEvent> eventsSince(long sequence) {
+        long committed = committedSequence;
+        if (sequence >= committed) {
+            return new ArrayList<>();
+        }
+        if (tail.isEmpty() || tail.peekFirst().getSequence() > sequence + 1) {
+            return null;
+        }
+        List<BookingEvent> events = new ArrayList<>((int) (committed - sequence));
+        for (BookingEvent event : tail) {
+            if (event.getSequence() > committed) {
+                break;
+            }
+            if (event.getSequence() > sequence) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Writes the event's line without forcing it; commit does that for a whole group.
+     */
+    private void write(BookingEvent event) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            byte[] line = toLine(event);
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (++eventsInFile > 2 * retainedEvents) {
+                compact();
+            }
+        } catch (IOException ex) {
+            System.out.println("Could not journal booking event #" + event.getSequence() + ": " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Reads the journal file back into the tail. A torn last line from a crash mid-write
+     * is cut off so later appends start on a clean line.
+     */
+    private void replay() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        int start = 0;
+        for (int end = 0; end < bytes.length; end++) {
+            if (bytes[end] != '\n') {
+                continue;
+            }
+            if (end > start) {
+                BookingEvent event;
+                try {
+                    event = objectMapper.readValue(bytes, start, end - start, BookingEvent.class);
+                } catch (IOException ex) {
+                    break;
+                }
+                lastSequence = Math.max(lastSequence, event.getSequence());
+                tail.addLast(event);
+                if (tail.size() > retainedEvents) {
+                    tail.removeFirst();
+                }
+                eventsInFile++;
+            }
+            start = end + 1;
+        }
+        if (start < bytes.length) {
+            try (FileChannel truncate = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                truncate.truncate(start);
+                truncate.force(true);
+            }
+        }
+    }
+
+    /**
+     * Rewrites the file with just the retained tail and swaps it in atomically.
+     */
+    private void compact() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (BookingEvent event : tail) {
+            out.write(toLine(event));
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel writer = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+            while (buffer.hasRemaining()) {
+                writer.write(buffer);
+            }
+            writer.force(true);
+        }
+        boolean reopen = channel != null;
+        if (reopen) {
+            channel.close();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        eventsInFile = tail.size();
+        if (reopen) {
+            channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    private byte[] toLine(BookingEvent event) throws IOException {
+        String json = objectMapper.writeValueAsString(event);
+        return (json + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+}
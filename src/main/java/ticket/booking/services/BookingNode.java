@@ -0,0 +1,268 @@
+package ticket.booking.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+import ticket.booking.util.ConsistentHashRing;
+import ticket.booking.util.DurableFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One shard of a sharded deployment: serves searches and bookings for the trains the
+ * ring assigns to it, from its own train file, over loopback TCP. ShardRouter is the
+ * client side. A booking is durable once the shard's journal has it; the train file is
+ * only a checkpoint, and bookings after it are replayed from the journal on restart.
+ *
+ * Wire format: frames of (int length, JSON), one Request answered by one Response,
+ * any number of requests per connection.
+ *
+ * Run standalone with:
+ * java ticket.booking.services.BookingNode port shardIndex shardCount [catalogPath] [dataDir]
+ */
+public class BookingNode implements AutoCloseable {
+
+    public enum Op {
+        SEARCH,
+        GET_TRAIN,
+        BOOK
+    }
+
+    public record Request(Op op, String source, String destination, String date, String trainId, int row, int column,
+                          String userId, String idempotencyKey) {
+
+        public static Request search(String source, String destination, String date) {
+            return new Request(Op.SEARCH, source, destination, date, null, 0, 0, null, null);
+        }
+
+        public static Request getTrain(String trainId) {
+            return new Request(Op.GET_TRAIN, null, null, null, trainId, 0, 0, null, null);
+        }
+
+        public static Request book(String userId, String trainId, String source, String destination, String date,
+                                   int row, int column, String idempotencyKey) {
+            return new Request(Op.BOOK, source, destination, date, trainId, row, column, userId, idempotencyKey);
+        }
+    }
+
+    /**
+     * error is set when the node could not serve the request, as opposed to a seat
+     * being taken or a train unknown; the router raises it as an IOException.
+     */
+    public record Response(boolean ok, List<Train> trains, String error) {
+
+        public Response(boolean ok, List<Train> trains) {
+            this(ok, trains, null);
+        }
+    }
+
+    private static final String CATALOG_PATH = "src/main/java/ticket/booking/localDb/trains.json";
+
+    private final UserBookingService bookingService;
+    private final TrainService trainService;
+    private final ServerSocket serverSocket;
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    public BookingNode(int port, String usersPath, TrainService trainService) throws IOException {
+        this.trainService = trainService;
+        this.bookingService = new UserBookingService(usersPath, trainService);
+        // The shard's journal makes each booking durable; the trains file is only checkpointed.
+        trainService.journalSeatChanges(bookingService.getBookingJournal());
+        this.serverSocket = new ServerSocket(port, 64, InetAddress.getLoopbackAddress());
+    }
+
+    public void start() {
+        Thread acceptor = new Thread(this::acceptClients, "shard-accept-" + getPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public TrainService getTrainService() {
+        return trainService;
+    }
+
+    public UserBookingService getBookingService() {
+        return bookingService;
+    }
+
+    /**
+     * The error that stopped this node accepting connections, or null.
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        for (Socket client : clients) {
+            try {
+                client.close();
+            } catch (IOException ignored) {
+            }
+        }
+        trainService.checkpoint();
+    }
+
+    /**
+     * Writes the trains of the catalog that the ring assigns to one shard into the
+     * shard's own train file.
+     */
+    public static List<Train> writeShard(String catalogPath, int shardIndex, int shardCount, String shardPath) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Train> catalog = objectMapper.readValue(new DurableFile(Path.of(catalogPath)).read(), new TypeReference<List<Train>>() {});
+        ConsistentHashRing<String> ring = ShardRouter.ring(shardCount);
+        String shardName = ShardRouter.shardName(shardIndex);
+        List<Train> owned = new ArrayList<>();
+        for (Train train : catalog) {
+            if (shardName.equals(ring.nodeFor(ShardRouter.routingKey(train.getTrainId())))) {
+                owned.add(train);
+            }
+        }
+        new DurableFile(Path.of(shardPath)).write(objectMapper.writeValueAsBytes(owned));
+        return owned;
+    }
+
+    private void acceptClients() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                clients.add(socket);
+                Thread handler = new Thread(() -> serve(socket), "shard-client-" + socket.getPort());
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException ex) {
+                if (!closed) {
+                    // A broken server socket fails every accept; stop instead of spinning.
+                    failure = ex;
+                    close();
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            while (!closed) {
+                byte[] frame = new byte[in.readInt()];
+                in.readFully(frame);
+                Request request = objectMapper.readValue(frame, Request.class);
+                Response response;
+                try {
+                    response = handle(request);
+                } catch (IOException ex) {
+                    response = new Response(false, List.of(), ex.toString());
+                }
+                byte[] bytes = objectMapper.writeValueAsBytes(response);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                out.flush();
+            }
+        } catch (IOException ex) {
+            // Router closed the connection.
+        } finally {
+            clients.remove(socket);
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    Response handle(Request request) throws IOException {
+        switch (request.op()) {
+            case SEARCH:
+                return new Response(true, trainService.searchTrains(request.source(), request.destination(), request.date()));
+            case GET_TRAIN: {
+                Optional<Train> train = trainService.getTrain(request.trainId());
+                return new Response(train.isPresent(), train.map(List::of).orElse(List.of()));
+            }
+            case BOOK: {
+                Optional<Train> train = trainService.getTrain(request.trainId());
+                Optional<User> user = shardUser(request.userId());
+                if (train.isEmpty() || user.isEmpty()) {
+                    return new Response(false, List.of());
+                }
+                Train copy = train.get().copy();
+                boolean booked = bookingService.bookTrainSeat(user.get(), copy, request.source(), request.destination(),
+                        request.date(), request.row(), request.column(), request.idempotencyKey());
+                return new Response(booked, List.of(copy));
+            }
+            default:
+                return new Response(false, List.of());
+        }
+    }
+
+    /**
+     * The shard's record of a user, named after the user id, created on the user's
+     * first booking here. It holds the tickets for this shard's trains only.
+     */
+    private Optional<User> shardUser(String userId) throws IOException {
+        if (userId == null || userId.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<User> user = bookingService.getUserStore().get(userId);
+        if (user.isEmpty()) {
+            bookingService.signUp(new User(userId, null, null, new ArrayList<>(), userId));
+            user = bookingService.getUserStore().get(userId);
+        }
+        return user;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("Usage: BookingNode port shardIndex shardCount [catalogPath] [dataDir]");
+            return;
+        }
+        int port = Integer.parseInt(args[0]);
+        int shardIndex = Integer.parseInt(args[1]);
+        int shardCount = Integer.parseInt(args[2]);
+        String catalogPath = args.length > 3 ? args[3] : CATALOG_PATH;
+        Path dataDir = Path.of(args.length > 4 ? args[4] : "shards");
+
+        // One directory per shard: the users file's journal and user store live beside it.
+        Path shardDir = Files.createDirectories(dataDir.resolve(ShardRouter.shardName(shardIndex)));
+        Path trainsPath = shardDir.resolve("trains.json");
+        if (!Files.exists(trainsPath)) {
+            writeShard(catalogPath, shardIndex, shardCount, trainsPath.toString());
+        }
+        Path usersPath = shardDir.resolve("users.json");
+        if (!Files.exists(usersPath)) {
+            Files.writeString(usersPath, "[]");
+        }
+        TrainService trainService = new TrainService(trainsPath.toString());
+        BookingNode node = new BookingNode(port, usersPath.toString(), trainService);
+        node.start();
+        System.out.println("Shard " + shardIndex + "/" + shardCount + " serving "
+                + trainService.getTrains().size() + " trains on port " + node.getPort());
+        Thread.currentThread().join();
+    }
+}
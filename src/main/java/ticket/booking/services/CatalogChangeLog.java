@@ -0,0 +1,80 @@
+package ticket.booking.services;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The train catalog's version and which trains changed at which version. Only a
+ * train's latest change is kept, in version order, so the log never holds more
+ * entries than there are trains and walking it from the newest end touches only
+ * the changes a caller is missing. Past maxEntries the oldest changes are dropped
+ * and the floor moves up; anyone behind the floor needs a full snapshot.
+ */
+public class CatalogChangeLog {
+
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+    private final int maxEntries;
+    private final LinkedHashMap<Integer, Long> latestByTrain = new LinkedHashMap<>();
+    private long version;
+    private long floor;
+
+    /**
+     * Starts at the given version with an empty log, e.g. the highest catalog version
+     * found in trains.json, so versions keep rising across restarts.
+     */
+    public CatalogChangeLog(long version, int maxEntries) {
+        this.version = version;
+        this.floor = version;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Records a change to a train and returns the new catalog version.
+     */
+    public synchronized long record(int trainKey) {
+        version++;
+        latestByTrain.remove(trainKey);
+        latestByTrain.put(trainKey, version);
+        if (latestByTrain.size() > maxEntries) {
+            Map.Entry<Integer, Long> eldest = latestByTrain.pollFirstEntry();
+            floor = eldest.getValue();
+        }
+        return version;
+    }
+
+    /**
+     * Keys of the trains changed after the given version, oldest change first, or
+     * null if changes that old have been compacted away.
+     */
+    public synchronized List<Integer> changedSince(long since) {
+        if (since < floor) {
+            return null;
+        }
+        List<Integer> changed = new ArrayList<>();
+        for (Map.Entry<Integer, Long> entry : latestByTrain.reversed().entrySet()) {
+            if (entry.getValue() <= since) {
+                break;
+            }
+            changed.add(entry.getKey());
+        }
+        return changed.reversed();
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Oldest version a caller can hold and still be sent only the changes.
+     */
+    public synchronized long getFloor() {
+        return floor;
+    }
+
+    public synchronized int size() {
+        return latestByTrain.size();
+    }
+}
@@ -0,0 +1,57 @@
+package ticket.booking.services;
+
+import ticket.booking.entities.Train;
+
+import java.util.List;
+
+/**
+ * Answer to TrainService.changesSince: either the trains added, changed or removed
+ * after the caller's version, or, when the log no longer reaches back that far, the
+ * whole catalog. Either way the caller upserts the trains by id, drops the removed
+ * ones and keeps getVersion for its next request. A train may already carry a change
+ * newer than getVersion; it will be sent again next time, which is harmless.
+ */
+public class CatalogChanges {
+
+    private final long since;
+    private final long version;
+    private final boolean snapshot;
+    private final List<Train> trains;
+    private final List<String> removedTrainIds;
+
+    CatalogChanges(long since, long version, boolean snapshot, List<Train> trains, List<String> removedTrainIds) {
+        this.since = since;
+        this.version = version;
+        this.snapshot = snapshot;
+        this.trains = trains;
+        this.removedTrainIds = removedTrainIds;
+    }
+
+    public long getSince() {
+        return since;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * True if getTrains is the full catalog and the caller should replace its copy.
+     */
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    public List<Train> getTrains() {
+        return trains;
+    }
+
+    /**
+     * Trains the caller may hold that are no longer in the catalog, e.g. an add rolled
+     * back because it could not be saved. Ids are lowercase, as train ids are matched
+     * case-insensitively. Always empty for a snapshot.
+     */
+    public List<String> getRemovedTrainIds() {
+        return removedTrainIds;
+    }
+}
@@ -0,0 +1,233 @@
+package ticket.booking.services;
+
+import ticket.booking.entities.Coach;
+import ticket.booking.entities.SeatClass;
+import ticket.booking.entities.Train;
+import ticket.booking.util.SymbolTable;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes fares in paise. Each train's cumulative distance from its first station
+ * is precomputed, so the distance, and therefore the fare, between any two stations
+ * is one subtraction. A train without segment distances gets no fare rather than a
+ * guessed one. Surge multipliers are cached per train, by date and class, and a
+ * train's entries are dropped together when it changes.
+ */
+public class FareEngine {
+
+    /** Returned instead of a fare when the train has no distances for the journey. */
+    public static final long NO_FARE = -1;
+    public static final int BASIS_POINTS = 10_000;
+    /** Enough for every class on every day of the booking horizon. */
+    private static final int SURGE_ENTRIES_PER_TRAIN = 512;
+    private static final int[] NO_DISTANCES = new int[0];
+
+    private final Map<SeatClass, FareRule> rules = new EnumMap<>(SeatClass.class);
+    /** Cumulative km by train key; NO_DISTANCES when the timetable has none. */
+    private volatile int[][] cumulativeKm = new int[64][];
+    private final ConcurrentHashMap<Integer, Map<SurgeKey, Integer>> surgeCache = new ConcurrentHashMap<>();
+    private SurgePolicy surgePolicy = FareEngine::occupancySurge;
+
+    public FareEngine() {
+        rules.put(SeatClass.SL, new FareRule(50, 14500, 2000));
+        rules.put(SeatClass.AC3, new FareRule(140, 40000, 4000));
+        rules.put(SeatClass.AC2, new FareRule(210, 60000, 5000));
+        rules.put(SeatClass.CC, new FareRule(110, 30000, 4000));
+    }
+
+    public void setRule(SeatClass seatClass, FareRule rule) {
+        rules.put(seatClass, rule);
+        clearSurgeCache();
+    }
+
+    public FareRule getRule(SeatClass seatClass) {
+        return rules.get(seatClass);
+    }
+
+    public void setSurgePolicy(SurgePolicy surgePolicy) {
+        this.surgePolicy = surgePolicy;
+        clearSurgeCache();
+    }
+
+    /**
+     * Precomputes the distance table for a train. Call again whenever its stations or
+     * distances change; seatsChanged is enough when only its seats did.
+     */
+    public void register(Train train) {
+        int key = train.getTrainKey();
+        if (train.getStationIds() == null || key == SymbolTable.UNKNOWN) {
+            return;
+        }
+        int stations = train.getStationIds().length;
+        List<Integer> distances = train.getSegmentDistances();
+        int[] cumulative = distances != null && distances.size() >= stations - 1 ? new int[stations] : NO_DISTANCES;
+        for (int i = 1; i < cumulative.length; i++) {
+            Integer segment = distances.get(i - 1);
+            if (segment == null || segment < 0) {
+                cumulative = NO_DISTANCES;
+                break;
+            }
+            cumulative[i] = cumulative[i - 1] + segment;
+        }
+        synchronized (this) {
+            if (key >= cumulativeKm.length) {
+                cumulativeKm = Arrays.copyOf(cumulativeKm, Math.max(key + 1, cumulativeKm.length * 2));
+            }
+            cumulativeKm[key] = cumulative;
+        }
+        surgeCache.remove(key);
+    }
+
+    /**
+     * Distance in km between two stations of the train, or -1 if its timetable has no
+     * segment distances.
+     */
+    public int distanceKm(Train train, int sourceIndex, int destinationIndex) {
+        int[] stationIds = train.getStationIds();
+        if (stationIds == null || sourceIndex < 0 || destinationIndex >= stationIds.length || sourceIndex >= destinationIndex) {
+            throw new IllegalArgumentException("Train " + train.getTrainId() + " does not run between stations "
+                    + sourceIndex + " and " + destinationIndex);
+        }
+        int[] cumulative = distanceTable(train);
+        if (cumulative == null) {
+            register(train);
+            cumulative = distanceTable(train);
+        }
+        if (cumulative == null || cumulative.length != stationIds.length) {
+            return -1;
+        }
+        return cumulative[destinationIndex] - cumulative[sourceIndex];
+    }
+
+    /**
+     * Fare before surge in paise, or NO_FARE if the train has no distances.
+     */
+    public long baseFare(Train train, int sourceIndex, int destinationIndex, SeatClass seatClass) {
+        int km = distanceKm(train, sourceIndex, destinationIndex);
+        if (km < 0) {
+            return NO_FARE;
+        }
+        FareRule rule = rules.get(seatClass);
+        return Math.max((long) km * rule.paisePerKm(), rule.minimumFare()) + rule.reservationCharge();
+    }
+
+    /**
+     * Cheapest base fare over the classes the train carries, or NO_FARE.
+     */
+    public long lowestBaseFare(Train train, int sourceIndex, int destinationIndex) {
+        List<Coach> coaches = train.getCoaches();
+        if (coaches == null || coaches.isEmpty()) {
+            return baseFare(train, sourceIndex, destinationIndex, SeatClass.SL);
+        }
+        long lowest = NO_FARE;
+        for (int i = 0; i < coaches.size(); i++) {
+            long fare = baseFare(train, sourceIndex, destinationIndex, coaches.get(i).getSeatClass());
+            if (fare != NO_FARE && (lowest == NO_FARE || fare < lowest)) {
+                lowest = fare;
+            }
+        }
+        return lowest;
+    }
+
+    /**
+     * Fare including any surge for the given travel date, in paise, or NO_FARE.
+     */
+    public long fare(Train train, int sourceIndex, int destinationIndex, SeatClass seatClass, String dateOfTravel) {
+        long base = baseFare(train, sourceIndex, destinationIndex, seatClass);
+        if (base == NO_FARE) {
+            return NO_FARE;
+        }
+        return base * surgeBasisPoints(train, seatClass, dateOfTravel) / BASIS_POINTS;
+    }
+
+    public int surgeBasisPoints(Train train, SeatClass seatClass, String dateOfTravel) {
+        Map<SurgeKey, Integer> forTrain = surgeCache.computeIfAbsent(train.getTrainKey(), key -> newSurgeTable());
+        SurgeKey key = new SurgeKey(dateOfTravel, seatClass);
+        synchronized (forTrain) {
+            Integer cached = forTrain.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        int multiplier = surgePolicy.basisPoints(train, seatClass, dateOfTravel);
+        synchronized (forTrain) {
+            forTrain.put(key, multiplier);
+        }
+        return multiplier;
+    }
+
+    /**
+     * Drops the cached surge of a train whose seats changed but whose route did not,
+     * leaving its distance table in place.
+     */
+    public void seatsChanged(Train train) {
+        surgeCache.remove(train.getTrainKey());
+    }
+
+    public void clearSurgeCache() {
+        surgeCache.clear();
+    }
+
+    private static Map<SurgeKey, Integer> newSurgeTable() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SurgeKey, Integer> eldest) {
+                return size() > SURGE_ENTRIES_PER_TRAIN;
+            }
+        };
+    }
+
+    private int[] distanceTable(Train train) {
+        int[][] tables = cumulativeKm;
+        int key = train.getTrainKey();
+        return key < 0 || key >= tables.length ? null : tables[key];
+    }
+
+    public static String formatFare(long paise) {
+        return String.format("Rs %d.%02d", paise / 100, paise % 100);
+    }
+
+    /**
+     * Default surge: 10% once half the seats are booked, 30% past 80%.
+     */
+    private static int occupancySurge(Train train, SeatClass seatClass, String dateOfTravel) {
+        List<List<Integer>> seats = train.getSeats();
+        if (seats == null) {
+            return BASIS_POINTS;
+        }
+        int total = 0;
+        int booked = 0;
+        for (List<Integer> row : seats) {
+            for (Integer seat : row) {
+                total++;
+                if (seat != 0) {
+                    booked++;
+                }
+            }
+        }
+        if (total == 0) {
+            return BASIS_POINTS;
+        }
+        if (booked * 10 >= total * 8) {
+            return 13_000;
+        }
+        return booked * 2 >= total ? 11_000 : BASIS_POINTS;
+    }
+
+    public record FareRule(int paisePerKm, int minimumFare, int reservationCharge) {
+    }
+
+    @FunctionalInterface
+    public interface SurgePolicy {
+        int basisPoints(Train train, SeatClass seatClass, String dateOfTravel);
+    }
+
+    private record SurgeKey(String date, SeatClass seatClass) {
+    }
+}
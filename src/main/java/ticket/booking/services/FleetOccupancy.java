@@ -0,0 +1,119 @@
+package ticket.booking.services;
+
+import java.util.Arrays;
+
+/**
+ * Fleet-wide load factors computed straight from the packed seat bitsets of an
+ * OffHeapSeatInventory, without touching the per-train seat grids. One pass over the
+ * inventory gives booked seats per run (train and day) and per coach over the horizon.
+ */
+public class FleetOccupancy {
+
+    private final OccupancyKernel kernel;
+
+    public FleetOccupancy() {
+        this(OccupancyKernel.best());
+    }
+
+    public FleetOccupancy(OccupancyKernel kernel) {
+        this.kernel = kernel;
+    }
+
+    public Report report(OffHeapSeatInventory inventory) {
+        int trains = inventory.getTrains();
+        int days = inventory.getHorizonDays();
+        int coaches = inventory.getCoachesPerRun();
+        int wordsPerCoach = inventory.getWordsPerCoach();
+        int runWords = coaches * wordsPerCoach;
+        int[] bookedByRun = new int[trains * days];
+        long[] bookedByCoach = new long[trains * coaches];
+        long[] perWord = new long[runWords];
+        for (int train = 0; train < trains; train++) {
+            Arrays.fill(perWord, 0);
+            for (int day = 0; day < days; day++) {
+                bookedByRun[train * days + day] = (int) kernel.accumulate(inventory.segment(),
+                        inventory.runOffset(train, day), runWords, perWord);
+            }
+            for (int coach = 0; coach < coaches; coach++) {
+                long booked = 0;
+                for (int word = 0; word < wordsPerCoach; word++) {
+                    booked += perWord[coach * wordsPerCoach + word];
+                }
+                bookedByCoach[train * coaches + coach] = booked;
+            }
+        }
+        return new Report(trains, days, coaches, inventory.getSeatsPerCoach(), bookedByRun, bookedByCoach);
+    }
+
+    public static class Report {
+        private final int trains;
+        private final int days;
+        private final int coaches;
+        private final int seatsPerCoach;
+        private final int[] bookedByRun;
+        private final long[] bookedByCoach;
+
+        private Report(int trains, int days, int coaches, int seatsPerCoach, int[] bookedByRun, long[] bookedByCoach) {
+            this.trains = trains;
+            this.days = days;
+            this.coaches = coaches;
+            this.seatsPerCoach = seatsPerCoach;
+            this.bookedByRun = bookedByRun;
+            this.bookedByCoach = bookedByCoach;
+        }
+
+        public int getBookedSeats(int train, int day) {
+            return bookedByRun[train * days + day];
+        }
+
+        public int getFreeSeats(int train, int day) {
+            return coaches * seatsPerCoach - getBookedSeats(train, day);
+        }
+
+        /**
+         * Share of the run's seats that are booked, from 0 to 1.
+         */
+        public double getLoadFactor(int train, int day) {
+            return (double) getBookedSeats(train, day) / (coaches * seatsPerCoach);
+        }
+
+        /**
+         * Share of the train's seats booked across the whole horizon.
+         */
+        public double getLoadFactor(int train) {
+            long booked = 0;
+            for (int day = 0; day < days; day++) {
+                booked += bookedByRun[train * days + day];
+            }
+            return (double) booked / ((long) days * coaches * seatsPerCoach);
+        }
+
+        /**
+         * Share of one coach's seats booked across the horizon, to spot coaches that
+         * run full or empty.
+         */
+        public double getCoachUtilization(int train, int coach) {
+            return (double) bookedByCoach[train * coaches + coach] / ((long) days * seatsPerCoach);
+        }
+
+        public double getFleetLoadFactor() {
+            long booked = 0;
+            for (int run : bookedByRun) {
+                booked += run;
+            }
+            return (double) booked / ((long) trains * days * coaches * seatsPerCoach);
+        }
+
+        public int getTrains() {
+            return trains;
+        }
+
+        public int getHorizonDays() {
+            return days;
+        }
+
+        public int getCoachesPerRun() {
+            return coaches;
+        }
+    }
+}
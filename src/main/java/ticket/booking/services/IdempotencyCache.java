@@ -0,0 +1,128 @@
+package ticket.booking.services;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of requests by client-supplied idempotency key, so a retried
+ * request gets the original answer from a hash lookup instead of running again. A
+ * retry that arrives while the first attempt is still running waits for its outcome.
+ * Keys are kept for a time window and the cache is bounded; the oldest keys go first.
+ */
+public class IdempotencyCache {
+
+    public static final long DEFAULT_WINDOW_MILLIS = TimeUnit.HOURS.toMillis(24);
+    public static final int DEFAULT_MAX_KEYS = 100_000;
+
+    private final long windowMillis;
+    private final int maxKeys;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    private long hits;
+
+    public IdempotencyCache() {
+        this(DEFAULT_WINDOW_MILLIS, DEFAULT_MAX_KEYS, System::currentTimeMillis);
+    }
+
+    public IdempotencyCache(long windowMillis, int maxKeys, LongSupplier clock) {
+        this.windowMillis = windowMillis;
+        this.maxKeys = Math.max(maxKeys, 1);
+        this.clock = clock;
+    }
+
+    /**
+     * Runs the action once per key within the window and returns its outcome; later
+     * calls with the same key return that outcome without running anything. A null
+     * key always runs the action. If the action throws, the key is forgotten so the
+     * request can be retried.
+     */
+    public Boolean execute(String key, Supplier<Boolean> action) {
+        if (key == null) {
+            return action.get();
+        }
+        Entry entry;
+        Entry created = null;
+        synchronized (this) {
+            long now = clock.getAsLong();
+            evict(now);
+            entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+            } else {
+                created = new Entry(now);
+                entries.put(key, created);
+                evict(now);
+            }
+        }
+        if (entry != null) {
+            try {
+                return entry.outcome.join();
+            } catch (CompletionException ex) {
+                return execute(key, action);
+            }
+        }
+        try {
+            Boolean outcome = action.get();
+            created.outcome.complete(outcome);
+            return outcome;
+        } catch (RuntimeException ex) {
+            synchronized (this) {
+                entries.remove(key, created);
+            }
+            created.outcome.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Records an outcome that was reached earlier, e.g. replayed from the journal after
+     * a restart. Ignored if it is already outside the window.
+     */
+    public synchronized void record(String key, Boolean outcome, long atMillis) {
+        long now = clock.getAsLong();
+        if (key == null || now - atMillis >= windowMillis) {
+            return;
+        }
+        Entry entry = new Entry(atMillis);
+        entry.outcome.complete(outcome);
+        entries.put(key, entry);
+        evict(now);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Number of requests answered from the cache.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    private void evict(long now) {
+        Iterator<Map.Entry<String, Entry>> oldest = entries.entrySet().iterator();
+        while (oldest.hasNext()) {
+            Map.Entry<String, Entry> next = oldest.next();
+            if (entries.size() <= maxKeys && now - next.getValue().createdAtMillis < windowMillis) {
+                return;
+            }
+            oldest.remove();
+        }
+    }
+
+    private static class Entry {
+        private final long createdAtMillis;
+        private final CompletableFuture<Boolean> outcome = new CompletableFuture<>();
+
+        private Entry(long createdAtMillis) {
+            this.createdAtMillis = createdAtMillis;
+        }
+    }
+}
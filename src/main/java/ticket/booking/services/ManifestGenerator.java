@@ -0,0 +1,140 @@
+package ticket.booking.services;
+
+import ticket.booking.entities.Ticket;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes passenger charts, one file per train run, reading each run straight from the
+ * TicketIndex. Runs are charted in parallel; a worker holds only the run it is writing,
+ * so the generator adds memory per worker rather than per run. The tickets themselves
+ * are whatever the TicketIndex already holds in memory; charting never loads more.
+ */
+public class ManifestGenerator {
+
+    private static final Comparator<Ticket> SEAT_ORDER = Comparator
+            .comparing(Ticket::getCoachId, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Ticket::getSeatRow, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Ticket::getSeatColumn, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Ticket::getTicketId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final TicketIndex ticketIndex;
+    private final int parallelism;
+
+    public ManifestGenerator(TicketIndex ticketIndex) {
+        this(ticketIndex, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ManifestGenerator(TicketIndex ticketIndex, int parallelism) {
+        this.ticketIndex = ticketIndex;
+        this.parallelism = Math.max(parallelism, 1);
+    }
+
+    /**
+     * Charts every given run into outputDir and returns the number of passengers written.
+     */
+    public long generate(List<TicketIndex.Run> runs, Path outputDir) throws IOException {
+        Files.createDirectories(outputDir);
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<Integer>> results = new ArrayList<>(runs.size());
+            for (TicketIndex.Run run : runs) {
+                results.add(workers.submit(() -> writeChart(run, outputDir.resolve(fileName(run)))));
+            }
+            long passengers = 0;
+            for (Future<Integer> result : results) {
+                passengers += result.get();
+            }
+            return passengers;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Manifest generation interrupted", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw new IOException("Manifest generation failed", ex.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    public long generateAll(Path outputDir) throws IOException {
+        return generate(ticketIndex.runs(), outputDir);
+    }
+
+    private int writeChart(TicketIndex.Run run, Path file) {
+        try (Writer out = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            return writeChart(run, out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Writes one run's chart, passengers ordered by coach, row and seat.
+     */
+    public int writeChart(TicketIndex.Run run, Writer out) throws IOException {
+        List<Ticket> tickets = ticketIndex.ticketsFor(run.trainId(), run.date());
+        tickets.sort(SEAT_ORDER);
+        out.write("Train " + run.trainId() + " on " + run.date() + " - " + tickets.size() + " passengers\n");
+        out.write("coach\trow\tseat\tticket\tuser\tfrom\tto\n");
+        for (Ticket ticket : tickets) {
+            out.write(valueOf(ticket.getCoachId()));
+            out.write('\t');
+            out.write(valueOf(ticket.getSeatRow()));
+            out.write('\t');
+            out.write(valueOf(ticket.getSeatColumn()));
+            out.write('\t');
+            out.write(valueOf(ticket.getTicketId()));
+            out.write('\t');
+            out.write(valueOf(ticket.getUserId()));
+            out.write('\t');
+            out.write(valueOf(ticket.getSource()));
+            out.write('\t');
+            out.write(valueOf(ticket.getDestination()));
+            out.write('\n');
+        }
+        return tickets.size();
+    }
+
+    /**
+     * Chart file name for a run: the train id with letters, digits and '-' kept and
+     * every other UTF-8 byte written as '_' and two hex digits, so distinct ids never
+     * share a file, then '_' and the date.
+     */
+    static String fileName(TicketIndex.Run run) {
+        StringBuilder name = new StringBuilder();
+        for (byte b : run.trainId().getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-') {
+                name.append(c);
+            } else {
+                name.append('_').append(Character.toUpperCase(Character.forDigit(c >> 4, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(c & 0xF, 16)));
+            }
+        }
+        return name.append('_').append(run.date()).append(".tsv").toString();
+    }
+
+    private static String valueOf(Object value) {
+        return value == null ? "-" : value.toString();
+    }
+}
@@ -0,0 +1,27 @@
+package ticket.booking.services;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Counts booked seats in a run of seat-inventory words. Implementations differ only
+ * in speed: VectorOccupancyKernel uses SIMD popcounts, ScalarOccupancyKernel plain
+ * Long.bitCount for JVMs started without the Vector API module.
+ */
+public interface OccupancyKernel {
+
+    /**
+     * Adds the bit count of each of the words at offset into perWord and returns the
+     * total bit count.
+     */
+    long accumulate(MemorySegment segment, long offset, int words, long[] perWord);
+
+    /**
+     * The vector kernel if the jdk.incubator.vector module is loaded, else the scalar one.
+     */
+    static OccupancyKernel best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            return new VectorOccupancyKernel();
+        }
+        return new ScalarOccupancyKernel();
+    }
+}
@@ -0,0 +1,224 @@
+package ticket.booking.services;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Seat inventory for every coach of every train run over the booking horizon, held
+ * outside the Java heap as one bit per seat (1 = booked).
+ *
+ * Layout: a 64 byte header, then runs ordered by (train, day), each run holding its
+ * coaches back to back and each coach padded to whole 64-bit words. Bits are flipped
+ * with compare-and-set on the word, so concurrent bookings need no locks.
+ */
+public class OffHeapSeatInventory implements AutoCloseable {
+
+    public static final int DEFAULT_HORIZON_DAYS = 120;
+
+    private static final long MAGIC = 0x4952435443534541L;
+    private static final long HEADER_BYTES = 64;
+    private static final VarHandle WORD = ValueLayout.JAVA_LONG.varHandle();
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final int trains;
+    private final int horizonDays;
+    private final int coachesPerRun;
+    private final int seatsPerCoach;
+    private final int wordsPerCoach;
+
+    private OffHeapSeatInventory(Arena arena, MemorySegment segment, int trains, int horizonDays,
+                                 int coachesPerRun, int seatsPerCoach) {
+        this.arena = arena;
+        this.segment = segment;
+        this.trains = trains;
+        this.horizonDays = horizonDays;
+        this.coachesPerRun = coachesPerRun;
+        this.seatsPerCoach = seatsPerCoach;
+        this.wordsPerCoach = (seatsPerCoach + 63) / 64;
+    }
+
+    public static OffHeapSeatInventory allocate(int trains, int horizonDays, int coachesPerRun, int seatsPerCoach) {
+        long bytes = byteSize(trains, horizonDays, coachesPerRun, seatsPerCoach);
+        Arena arena = Arena.ofShared();
+        MemorySegment segment = arena.allocate(bytes, Long.BYTES);
+        writeHeader(segment, trains, horizonDays, coachesPerRun, seatsPerCoach);
+        return new OffHeapSeatInventory(arena, segment, trains, horizonDays, coachesPerRun, seatsPerCoach);
+    }
+
+    /**
+     * Opens or creates an inventory backed by a memory-mapped file. Bookings written
+     * through it are in the page cache straight away, and force() flushes them to disk,
+     * so a restart picks up the same inventory without replaying bookings.
+     */
+    public static OffHeapSeatInventory mapped(Path file, int trains, int horizonDays, int coachesPerRun,
+                                              int seatsPerCoach) throws IOException {
+        long bytes = byteSize(trains, horizonDays, coachesPerRun, seatsPerCoach);
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long existing = channel.size();
+            if (existing != 0 && existing != bytes) {
+                throw new IOException("Inventory file " + file + " has size " + existing + ", expected " + bytes);
+            }
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes, arena);
+            if (existing == 0) {
+                writeHeader(segment, trains, horizonDays, coachesPerRun, seatsPerCoach);
+            } else if (segment.get(ValueLayout.JAVA_LONG, 0) != MAGIC
+                    || segment.get(ValueLayout.JAVA_INT, 8) != trains
+                    || segment.get(ValueLayout.JAVA_INT, 12) != horizonDays
+                    || segment.get(ValueLayout.JAVA_INT, 16) != coachesPerRun
+                    || segment.get(ValueLayout.JAVA_INT, 20) != seatsPerCoach) {
+                throw new IOException("Inventory file " + file + " has a different layout");
+            }
+            return new OffHeapSeatInventory(arena, segment, trains, horizonDays, coachesPerRun, seatsPerCoach);
+        } catch (IOException | RuntimeException ex) {
+            arena.close();
+            throw ex;
+        }
+    }
+
+    public static long byteSize(int trains, int horizonDays, int coachesPerRun, int seatsPerCoach) {
+        if (trains <= 0 || horizonDays <= 0 || coachesPerRun <= 0 || seatsPerCoach <= 0) {
+            throw new IllegalArgumentException("Inventory dimensions must be positive");
+        }
+        long words = (long) trains * horizonDays * coachesPerRun * ((seatsPerCoach + 63) / 64);
+        return HEADER_BYTES + words * Long.BYTES;
+    }
+
+    private static void writeHeader(MemorySegment segment, int trains, int horizonDays, int coachesPerRun,
+                                    int seatsPerCoach) {
+        segment.set(ValueLayout.JAVA_INT, 8, trains);
+        segment.set(ValueLayout.JAVA_INT, 12, horizonDays);
+        segment.set(ValueLayout.JAVA_INT, 16, coachesPerRun);
+        segment.set(ValueLayout.JAVA_INT, 20, seatsPerCoach);
+        segment.set(ValueLayout.JAVA_LONG, 0, MAGIC);
+    }
+
+    public boolean tryBook(int train, int day, int coach, int seat) {
+        long offset = wordOffset(train, day, coach, seat);
+        long mask = 1L << (seat & 63);
+        while (true) {
+            long current = (long) WORD.getVolatile(segment, offset);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (WORD.compareAndSet(segment, offset, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    public boolean release(int train, int day, int coach, int seat) {
+        long offset = wordOffset(train, day, coach, seat);
+        long mask = 1L << (seat & 63);
+        while (true) {
+            long current = (long) WORD.getVolatile(segment, offset);
+            if ((current & mask) == 0) {
+                return false;
+            }
+            if (WORD.compareAndSet(segment, offset, current, current & ~mask)) {
+                return true;
+            }
+        }
+    }
+
+    public boolean isBooked(int train, int day, int coach, int seat) {
+        long current = (long) WORD.getVolatile(segment, wordOffset(train, day, coach, seat));
+        return (current & (1L << (seat & 63))) != 0;
+    }
+
+    public int bookedSeats(int train, int day, int coach) {
+        long offset = coachOffset(train, day, coach);
+        int booked = 0;
+        for (int word = 0; word < wordsPerCoach; word++) {
+            booked += Long.bitCount((long) WORD.getVolatile(segment, offset + (long) word * Long.BYTES));
+        }
+        return booked;
+    }
+
+    public int freeSeats(int train, int day, int coach) {
+        return seatsPerCoach - bookedSeats(train, day, coach);
+    }
+
+    public int freeSeats(int train, int day) {
+        int free = 0;
+        for (int coach = 0; coach < coachesPerRun; coach++) {
+            free += freeSeats(train, day, coach);
+        }
+        return free;
+    }
+
+    /**
+     * Copies a coach's booked-seat words into the given array, starting at index from.
+     */
+    public void readCoach(int train, int day, int coach, long[] words, int from) {
+        MemorySegment.copy(segment, ValueLayout.JAVA_LONG, coachOffset(train, day, coach), words, from, wordsPerCoach);
+    }
+
+    /**
+     * Flushes a file-backed inventory to disk. Does nothing for in-memory inventories.
+     */
+    public void force() {
+        if (segment.isMapped()) {
+            segment.force();
+        }
+    }
+
+    public int getTrains() {
+        return trains;
+    }
+
+    public int getHorizonDays() {
+        return horizonDays;
+    }
+
+    public int getCoachesPerRun() {
+        return coachesPerRun;
+    }
+
+    public int getSeatsPerCoach() {
+        return seatsPerCoach;
+    }
+
+    public int getWordsPerCoach() {
+        return wordsPerCoach;
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    MemorySegment segment() {
+        return segment;
+    }
+
+    /**
+     * Byte offset of a run's first coach; the run's coaches follow it back to back.
+     */
+    long runOffset(int train, int day) {
+        return coachOffset(train, day, 0);
+    }
+
+    private long coachOffset(int train, int day, int coach) {
+        if (train < 0 || train >= trains || day < 0 || day >= horizonDays || coach < 0 || coach >= coachesPerRun) {
+            throw new IndexOutOfBoundsException("No coach " + coach + " on train " + train + " day " + day);
+        }
+        long run = (long) train * horizonDays + day;
+        return HEADER_BYTES + (run * coachesPerRun + coach) * wordsPerCoach * Long.BYTES;
+    }
+
+    private long wordOffset(int train, int day, int coach, int seat) {
+        if (seat < 0 || seat >= seatsPerCoach) {
+            throw new IndexOutOfBoundsException("No seat " + seat + " in coach of " + seatsPerCoach);
+        }
+        return coachOffset(train, day, coach) + (long) (seat >>> 6) * Long.BYTES;
+    }
+}
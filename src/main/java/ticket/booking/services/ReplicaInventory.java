@@ -0,0 +1,204 @@
+package ticket.booking.services;
+
+import ticket.booking.entities.BookingEvent;
+import ticket.booking.entities.Train;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A standby's copy of seat inventory: a snapshot of the primary's seat grids, when it
+ * has been seeded with one, plus the seats changed by replicated booking events since.
+ * Events at or below the last applied sequence are ignored, so replays after a
+ * reconnect are harmless.
+ */
+public class ReplicaInventory {
+
+    private static final int MAX_UPDATE_ATTEMPTS = 5;
+
+    private final ConcurrentHashMap<String, int[][]> baseline = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Map<Long, Integer>> changes = new ConcurrentHashMap<>();
+    private volatile long lastSequence;
+    private volatile boolean seeded;
+
+    public synchronized boolean apply(BookingEvent event) {
+        if (event.getSequence() <= lastSequence) {
+            return false;
+        }
+        if (event.getRow() < 0) {
+            lastSequence = event.getSequence(); // a cancel that held no seat
+            return true;
+        }
+        Map<Long, Integer> seats = changes.computeIfAbsent(event.getTrainId().toLowerCase(),
+                id -> new ConcurrentHashMap<>());
+        seats.put(seatKey(event.getRow(), event.getColumn()),
+                event.getType() == BookingEvent.Type.BOOK ? Train.SEAT_BOOKED : Train.SEAT_FREE);
+        lastSequence = event.getSequence();
+        return true;
+    }
+
+    /**
+     * Replaces everything with the primary's snapshot, taken once every event up to
+     * its sequence had been committed. Events after that sequence may already show in
+     * the grids; they only set a seat to the state they describe, so replaying them on
+     * top converges. Holds live only in the primary's memory and arrive as free seats.
+     */
+    public synchronized void seed(Snapshot snapshot) {
+        baseline.clear();
+        changes.clear();
+        for (Map.Entry<String, List<List<Integer>>> train : snapshot.getSeats().entrySet()) {
+            List<List<Integer>> rows = train.getValue();
+            int[][] grid = new int[rows.size()][];
+            for (int row = 0; row < grid.length; row++) {
+                grid[row] = new int[rows.get(row).size()];
+                for (int column = 0; column < grid[row].length; column++) {
+                    grid[row][column] = rows.get(row).get(column) == Train.SEAT_BOOKED ? Train.SEAT_BOOKED : Train.SEAT_FREE;
+                }
+            }
+            baseline.put(train.getKey().toLowerCase(), grid);
+        }
+        lastSequence = snapshot.getSequence();
+        seeded = true;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * True once a snapshot has been loaded; until then only replayed events are known.
+     */
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    public boolean isBooked(String trainId, int row, int column) {
+        String key = trainId.toLowerCase();
+        Map<Long, Integer> seats = changes.get(key);
+        Integer changed = seats == null ? null : seats.get(seatKey(row, column));
+        if (changed != null) {
+            return changed == Train.SEAT_BOOKED;
+        }
+        int[][] grid = baseline.get(key);
+        return grid != null && row < grid.length && column < grid[row].length
+                && grid[row][column] == Train.SEAT_BOOKED;
+    }
+
+    public synchronized int bookedSeats(String trainId) {
+        String key = trainId.toLowerCase();
+        Map<Long, Integer> seats = changes.getOrDefault(key, Map.of());
+        int booked = 0;
+        int[][] grid = baseline.get(key);
+        if (grid != null) {
+            for (int row = 0; row < grid.length; row++) {
+                for (int column = 0; column < grid[row].length; column++) {
+                    if (grid[row][column] == Train.SEAT_BOOKED && !seats.containsKey(seatKey(row, column))) {
+                        booked++;
+                    }
+                }
+            }
+        }
+        for (int state : seats.values()) {
+            booked += state == Train.SEAT_BOOKED ? 1 : 0;
+        }
+        return booked;
+    }
+
+    /**
+     * Brings the trains of a TrainService in line with this inventory, for a standby
+     * that is taking over from the primary. Trains covered by the snapshot take its
+     * grid; then each seat a replicated event touched is set booked or free. Every
+     * other seat, held ones included, keeps the state the standby loaded. Returns
+     * false if some train could not be updated, e.g. because it could not be saved.
+     */
+    public boolean applyTo(TrainService trainService) {
+        boolean applied = true;
+        for (Train train : trainService.getTrains()) {
+            String trainId = train.getTrainId();
+            int[][] grid = baseline.get(trainId.toLowerCase());
+            Map<Long, Integer> seats = changes.getOrDefault(trainId.toLowerCase(), Map.of());
+            if (grid == null && seats.isEmpty()) {
+                continue;
+            }
+            boolean updated = false;
+            for (int attempt = 0; attempt < MAX_UPDATE_ATTEMPTS && !updated; attempt++) {
+                Train current = trainService.getTrain(trainId).orElse(null);
+                if (current == null) {
+                    updated = true;
+                    continue;
+                }
+                Train candidate = current.copy();
+                List<List<Integer>> rows = candidate.getSeats();
+                if (grid != null) {
+                    for (int row = 0; row < Math.min(rows.size(), grid.length); row++) {
+                        for (int column = 0; column < Math.min(rows.get(row).size(), grid[row].length); column++) {
+                            rows.get(row).set(column, grid[row][column]);
+                        }
+                    }
+                }
+                for (Map.Entry<Long, Integer> seat : seats.entrySet()) {
+                    int row = (int) (seat.getKey() >>> 32);
+                    int column = (int) (long) seat.getKey();
+                    if (row < rows.size() && column < rows.get(row).size()) {
+                        rows.get(row).set(column, seat.getValue());
+                    }
+                }
+                updated = trainService.updateTrain(candidate);
+            }
+            applied &= updated;
+        }
+        return applied;
+    }
+
+    private static long seatKey(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Seat grids of every train as of a journal sequence, sent by the primary to a
+     * standby that has no usable backlog.
+     */
+    public static class Snapshot {
+        private long sequence;
+        private Map<String, List<List<Integer>>> seats = new HashMap<>();
+
+        public Snapshot() {
+        }
+
+        public Snapshot(long sequence, Map<String, List<List<Integer>>> seats) {
+            this.sequence = sequence;
+            this.seats = seats;
+        }
+
+        /**
+         * Snapshot of the given trains' current grids, labelled with the sequence the
+         * caller read from the journal before reading them.
+         */
+        public static Snapshot of(long sequence, List<Train> trains) {
+            Map<String, List<List<Integer>>> seats = new HashMap<>();
+            for (Train train : trains) {
+                seats.put(train.getTrainId(), train.getSeats() == null ? new ArrayList<>() : train.copySeats());
+            }
+            return new Snapshot(sequence, seats);
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public void setSequence(long sequence) {
+            this.sequence = sequence;
+        }
+
+        public Map<String, List<List<Integer>>> getSeats() {
+            return seats;
+        }
+
+        public void setSeats(Map<String, List<List<Integer>>> seats) {
+            this.seats = seats;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package ticket.booking.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ticket.booking.entities.BookingEvent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * Hot standby: follows a ReplicationPrimary, applying its booking events to a local
+ * ReplicaInventory and acknowledging each one. Until the inventory is seeded it asks
+ * for a snapshot first, and it loads a new one whenever the primary sends it because
+ * the backlog is gone. Reconnects with its last applied sequence if the connection
+ * drops. Call promote() to stop following and take over.
+ *
+ * Run standalone with: java ticket.booking.services.ReplicationFollower [host] port
+ */
+public class ReplicationFollower implements AutoCloseable {
+
+    private static final long RECONNECT_DELAY_MILLIS = 500;
+
+    private final String host;
+    private final int port;
+    private final ReplicaInventory inventory;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile boolean running;
+    private volatile boolean resyncRequired;
+    private volatile IOException lastFailure;
+    private volatile Socket socket;
+    private Thread worker;
+
+    public ReplicationFollower(String host, int port, ReplicaInventory inventory) {
+        this.host = host;
+        this.port = port;
+        this.inventory = inventory;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::follow, "replication-follower");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public long getLastAppliedSequence() {
+        return inventory.getLastSequence();
+    }
+
+    /**
+     * True when the primary no longer holds the events this standby is missing and
+     * has no snapshot to offer either.
+     */
+    public boolean isResyncRequired() {
+        return resyncRequired;
+    }
+
+    /**
+     * Why the connection to the primary last broke, or null; the follower keeps
+     * reconnecting regardless.
+     */
+    public IOException getLastFailure() {
+        return lastFailure;
+    }
+
+    public ReplicaInventory getInventory() {
+        return inventory;
+    }
+
+    /**
+     * Stops following and returns the inventory, for this node to serve bookings.
+     */
+    public ReplicaInventory promote() {
+        close();
+        return inventory;
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+            }
+        }
+        if (worker != null) {
+            try {
+                worker.join(RECONNECT_DELAY_MILLIS * 4);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void follow() {
+        while (running && !resyncRequired) {
+            try (Socket connection = new Socket(host, port)) {
+                socket = connection;
+                connection.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+                long lastSequence = inventory.getLastSequence();
+                out.writeLong(inventory.isSeeded() || lastSequence > 0 ? lastSequence : ReplicationPrimary.SNAPSHOT_REQUESTED);
+                out.flush();
+                while (running) {
+                    int length = in.readInt();
+                    if (length == ReplicationPrimary.RESYNC_REQUIRED) {
+                        resyncRequired = true;
+                        return;
+                    }
+                    if (length == ReplicationPrimary.SNAPSHOT) {
+                        byte[] bytes = new byte[in.readInt()];
+                        in.readFully(bytes);
+                        inventory.seed(objectMapper.readValue(bytes, ReplicaInventory.Snapshot.class));
+                        out.writeLong(inventory.getLastSequence());
+                        out.flush();
+                        continue;
+                    }
+                    byte[] bytes = new byte[length];
+                    in.readFully(bytes);
+                    BookingEvent event = objectMapper.readValue(bytes, BookingEvent.class);
+                    inventory.apply(event);
+                    if (in.available() == 0) {
+                        out.writeLong(inventory.getLastSequence());
+                        out.flush();
+                    }
+                }
+            } catch (EOFException ex) {
+                // Primary closed the stream; reconnect below.
+            } catch (IOException ex) {
+                if (running) {
+                    lastFailure = ex;
+                }
+            }
+            sleepBeforeReconnect();
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        if (!running) {
+            return;
+        }
+        try {
+            Thread.sleep(RECONNECT_DELAY_MILLIS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: ReplicationFollower [host] port");
+            return;
+        }
+        String host = args.length > 1 ? args[0] : "localhost";
+        int port = Integer.parseInt(args[args.length - 1]);
+        ReplicationFollower follower = new ReplicationFollower(host, port, new ReplicaInventory());
+        follower.start();
+        long reported = -1;
+        IOException reportedFailure = null;
+        while (!follower.isResyncRequired()) {
+            Thread.sleep(1000);
+            long applied = follower.getLastAppliedSequence();
+            if (applied != reported) {
+                System.out.println("Applied up to event " + applied);
+                reported = applied;
+            }
+            IOException failure = follower.getLastFailure();
+            if (failure != null && failure != reportedFailure) {
+                System.out.println("Replication connection lost: " + failure.getMessage());
+                reportedFailure = failure;
+            }
+        }
+        System.out.println("Primary no longer has our backlog and serves no snapshot; reseed this standby");
+    }
+}
@@ -0,0 +1,271 @@
+package ticket.booking.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ticket.booking.entities.BookingEvent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Ships the booking journal to standby nodes over TCP. Each follower gets its own
+ * queue and sender thread, so the commit path only enqueues. In SEMI_SYNC mode a
+ * commit also waits, up to the ack timeout, until some follower has acknowledged it;
+ * on timeout it carries on rather than stall bookings.
+ *
+ * Wire format: the follower sends its last applied sequence as a long, then the
+ * primary sends frames of (int length, JSON event) and the follower answers each with
+ * the sequence it applied. A follower that has never been seeded sends -1 instead of
+ * a sequence. When the primary has a TrainService it answers that, or a request for a
+ * backlog it no longer holds, with a length of -2 and one JSON snapshot frame of the
+ * seat grids before the events that follow it. Without a TrainService it sends a length
+ * of -1: the backlog is gone and the follower needs a snapshot from elsewhere.
+ */
+public class ReplicationPrimary implements AutoCloseable {
+
+    public enum Mode {
+        ASYNC,
+        SEMI_SYNC
+    }
+
+    public static final int RESYNC_REQUIRED = -1;
+    public static final int SNAPSHOT = -2;
+    public static final long SNAPSHOT_REQUESTED = -1;
+    private static final int MAX_QUEUED_EVENTS = 100_000;
+
+    private final BookingJournal journal;
+    private final TrainService trainService;
+    private final Mode mode;
+    private final long ackTimeoutMillis;
+    private final ServerSocket serverSocket;
+    private final List<FollowerLink> followers = new CopyOnWriteArrayList<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Object ackMonitor = new Object();
+    private final LongConsumer commitHook = this::awaitAck;
+    private volatile long ackedSequence;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    public ReplicationPrimary(BookingJournal journal, int port, Mode mode, long ackTimeoutMillis) throws IOException {
+        this(journal, null, port, mode, ackTimeoutMillis);
+    }
+
+    /**
+     * Serves seat snapshots from the given TrainService to followers that need one.
+     */
+    public ReplicationPrimary(BookingJournal journal, TrainService trainService, int port, Mode mode,
+                              long ackTimeoutMillis) throws IOException {
+        this.journal = journal;
+        this.trainService = trainService;
+        this.mode = mode;
+        this.ackTimeoutMillis = ackTimeoutMillis;
+        this.serverSocket = new ServerSocket(port, 16, InetAddress.getLoopbackAddress());
+    }
+
+    public void start() {
+        if (mode == Mode.SEMI_SYNC) {
+            journal.addCommitHook(commitHook);
+        }
+        Thread acceptor = new Thread(this::acceptFollowers, "replication-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int followerCount() {
+        return followers.size();
+    }
+
+    public long getAckedSequence() {
+        return ackedSequence;
+    }
+
+    /**
+     * The error that stopped this primary accepting followers, or null.
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Number of committed events not yet acknowledged by any follower.
+     */
+    public long getLag() {
+        return Math.max(journal.getLastSequence() - ackedSequence, 0);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        journal.removeCommitHook(commitHook);
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        for (FollowerLink follower : followers) {
+            follower.close();
+        }
+        synchronized (ackMonitor) {
+            ackMonitor.notifyAll();
+        }
+    }
+
+    private void acceptFollowers() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                FollowerLink follower = new FollowerLink(socket);
+                Thread handshake = new Thread(follower::run, "replication-follower-" + socket.getPort());
+                handshake.setDaemon(true);
+                handshake.start();
+            } catch (IOException ex) {
+                if (!closed) {
+                    // A broken server socket fails every accept; stop instead of spinning.
+                    failure = ex;
+                    close();
+                }
+            }
+        }
+    }
+
+    private void awaitAck(long sequence) {
+        if (followers.isEmpty()) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ackTimeoutMillis);
+        synchronized (ackMonitor) {
+            while (ackedSequence < sequence && !closed) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(ackMonitor, remaining);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void acknowledged(long sequence) {
+        synchronized (ackMonitor) {
+            if (sequence > ackedSequence) {
+                ackedSequence = sequence;
+                ackMonitor.notifyAll();
+            }
+        }
+    }
+
+    private class FollowerLink {
+        private final Socket socket;
+        private final BlockingQueue<BookingEvent> queue = new LinkedBlockingQueue<>(MAX_QUEUED_EVENTS);
+        private final Consumer<BookingEvent> listener = this::enqueue;
+        private volatile boolean open = true;
+
+        private FollowerLink(Socket socket) {
+            this.socket = socket;
+        }
+
+        private void enqueue(BookingEvent event) {
+            if (!queue.offer(event)) {
+                // Too far behind to keep buffering; drop the link and let it resync.
+                close();
+            }
+        }
+
+        private void run() {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+                long lastApplied = in.readLong();
+                List<BookingEvent> backlog = lastApplied == SNAPSHOT_REQUESTED && trainService != null ? null
+                        : journal.subscribe(Math.max(lastApplied, 0), listener);
+                if (backlog == null && trainService == null) {
+                    out.writeInt(RESYNC_REQUIRED);
+                    out.flush();
+                    return;
+                }
+                if (backlog == null) {
+                    // Fix the sequence first and subscribe from it, then read the grids:
+                    // any change after it is in the grids, in the backlog, or both.
+                    long sequence = journal.getLastSequence();
+                    backlog = journal.subscribe(sequence, listener);
+                    byte[] snapshot = objectMapper.writeValueAsBytes(
+                            ReplicaInventory.Snapshot.of(sequence, trainService.getTrains()));
+                    out.writeInt(SNAPSHOT);
+                    out.writeInt(snapshot.length);
+                    out.write(snapshot);
+                }
+                followers.add(this);
+                Thread ackReader = new Thread(() -> readAcks(in), "replication-ack-" + socket.getPort());
+                ackReader.setDaemon(true);
+                ackReader.start();
+                for (BookingEvent event : backlog) {
+                    write(out, event);
+                }
+                out.flush();
+                while (open && !closed) {
+                    BookingEvent event = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (event == null) {
+                        continue;
+                    }
+                    write(out, event);
+                    // Batch whatever else is already queued into the same flush.
+                    while ((event = queue.poll()) != null) {
+                        write(out, event);
+                    }
+                    out.flush();
+                }
+            } catch (IOException ex) {
+                // Follower went away; it reconnects with its last applied sequence.
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+
+        private void write(DataOutputStream out, BookingEvent event) throws IOException {
+            byte[] bytes = objectMapper.writeValueAsBytes(event);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void readAcks(DataInputStream in) {
+            try {
+                while (open) {
+                    acknowledged(in.readLong());
+                }
+            } catch (IOException ex) {
+                close();
+            }
+        }
+
+        private void close() {
+            open = false;
+            journal.removeListener(listener);
+            followers.remove(this);
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package ticket.booking.services;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Popcounts a run of words one word at a time with Long.bitCount, which the JIT turns
+ * into the CPU's popcount instruction. The fallback when the Vector API is not loaded.
+ */
+public class ScalarOccupancyKernel implements OccupancyKernel {
+
+    @Override
+    public long accumulate(MemorySegment segment, long offset, int words, long[] perWord) {
+        long total = 0;
+        for (int i = 0; i < words; i++) {
+            int bits = Long.bitCount(segment.get(ValueLayout.JAVA_LONG, offset + (long) i * Long.BYTES));
+            perWord[i] += bits;
+            total += bits;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,130 @@
+package ticket.booking.services;
+
+import ticket.booking.entities.Train;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of search results keyed by (source, destination, date), with
+ * stations held as their SymbolTable ids. A result is kept as the keys of the matching
+ * trains, not the trains themselves, so callers resolve each key to the current train
+ * and never see stale seats. Entries are dropped per station pair when a train's
+ * timetable changes.
+ */
+public class SearchCache {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int capacity;
+    private final LinkedHashMap<SearchKey, int[]> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public SearchCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SearchCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SearchKey, int[]> eldest) {
+                if (size() > SearchCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Train keys of the cached result, in search order, or null on a miss.
+     */
+    public synchronized int[] get(int source, int destination, String date) {
+        int[] result = entries.get(new SearchKey(source, destination, date));
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    public synchronized void put(int source, int destination, String date, List<Train> result) {
+        int[] trainKeys = new int[result.size()];
+        for (int i = 0; i < trainKeys.length; i++) {
+            trainKeys[i] = result.get(i).getTrainKey();
+        }
+        entries.put(new SearchKey(source, destination, date), trainKeys);
+    }
+
+    /**
+     * Drops every cached pair the given train serves. Pass both the old and the new
+     * version of a train when its stations change.
+     */
+    public synchronized void invalidate(Train train) {
+        if (train == null || train.getStationIds() == null) {
+            return;
+        }
+        Iterator<SearchKey> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            SearchKey key = keys.next();
+            int sourceIndex = train.indexOfStation(key.source());
+            if (sourceIndex != -1 && train.indexOfStation(key.destination()) > sourceIndex) {
+                keys.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    public synchronized String getStats() {
+        return String.format("size=%d/%d hits=%d misses=%d hitRate=%.2f evictions=%d invalidations=%d",
+                entries.size(), capacity, hits, misses, getHitRate(), evictions, invalidations);
+    }
+
+    private record SearchKey(int source, int destination, String date) {
+    }
+}
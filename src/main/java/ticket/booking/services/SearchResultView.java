@@ -0,0 +1,54 @@
+package ticket.booking.services;
+
+/**
+ * Lightweight view of one search result. Search reuses a single instance per thread,
+ * so a view is only valid inside the visit call; copy out anything you need to keep.
+ */
+public final class SearchResultView {
+
+    private String trainId;
+    private String trainNo;
+    private String departureTime;
+    private String arrivalTime;
+    private int freeSeats;
+    private long fare;
+
+    SearchResultView set(String trainId, String trainNo, String departureTime, String arrivalTime, int freeSeats,
+                         long fare) {
+        this.trainId = trainId;
+        this.trainNo = trainNo;
+        this.departureTime = departureTime;
+        this.arrivalTime = arrivalTime;
+        this.freeSeats = freeSeats;
+        this.fare = fare;
+        return this;
+    }
+
+    public String getTrainId() {
+        return trainId;
+    }
+
+    public String getTrainNo() {
+        return trainNo;
+    }
+
+    public String getDepartureTime() {
+        return departureTime;
+    }
+
+    public String getArrivalTime() {
+        return arrivalTime;
+    }
+
+    public int getFreeSeats() {
+        return freeSeats;
+    }
+
+    /**
+     * Cheapest base fare for the journey in paise, or FareEngine.NO_FARE if the train
+     * has no distances to price it by.
+     */
+    public long getFare() {
+        return fare;
+    }
+}
@@ -0,0 +1,54 @@
+package ticket.booking.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Streams search results straight into a JSON generator as an array of objects, e.g.
+ * {"train_id":"bacs","train_no":"12345","departure":"13:50:00","arrival":"18:00:00","free_seats":24,"fare":104500}.
+ * The fare, in paise, is left out for trains that cannot be priced. Call begin before
+ * the search and end after it.
+ */
+public class SearchResultWriter implements TrainSearchVisitor {
+
+    private final JsonGenerator generator;
+    private int written;
+
+    public SearchResultWriter(JsonGenerator generator) {
+        this.generator = generator;
+    }
+
+    public void begin() throws IOException {
+        generator.writeStartArray();
+    }
+
+    public void end() throws IOException {
+        generator.writeEndArray();
+        generator.flush();
+    }
+
+    public int getWritten() {
+        return written;
+    }
+
+    @Override
+    public void visit(SearchResultView result) {
+        try {
+            generator.writeStartObject();
+            generator.writeStringField("train_id", result.getTrainId());
+            generator.writeStringField("train_no", result.getTrainNo());
+            generator.writeStringField("departure", result.getDepartureTime());
+            generator.writeStringField("arrival", result.getArrivalTime());
+            generator.writeNumberField("free_seats", result.getFreeSeats());
+            if (result.getFare() != FareEngine.NO_FARE) {
+                generator.writeNumberField("fare", result.getFare());
+            }
+            generator.writeEndObject();
+            written++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
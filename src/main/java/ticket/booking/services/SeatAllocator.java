@@ -0,0 +1,265 @@
+package ticket.booking.services;
+
+import ticket.booking.entities.BerthType;
+import ticket.booking.entities.Coach;
+import ticket.booking.entities.SeatClass;
+import ticket.booking.entities.Train;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Free-seat index for one version of a train, split by seat class. Each class numbers
+ * its seats 0..n-1 in coach order and keeps a free bitset overall, one per berth type
+ * and a free count per row, so every strategy answers with a few bitset scans.
+ */
+public class SeatAllocator {
+
+    private final int trainKey;
+    private final Map<SeatClass, ClassIndex> classes = new EnumMap<>(SeatClass.class);
+    private long version;
+
+    public SeatAllocator(Train train) {
+        this.trainKey = train.getTrainKey();
+        rebuild(train);
+    }
+
+    public synchronized void rebuild(Train train) {
+        classes.clear();
+        List<List<Integer>> seats = train.getSeats();
+        for (Coach coach : train.getCoachLayout()) {
+            ClassIndex index = classes.computeIfAbsent(coach.getSeatClass(), ClassIndex::new);
+            int lastRow = Math.min(coach.getFirstRow() + coach.getRowCount(), seats.size());
+            for (int row = coach.getFirstRow(); row < lastRow; row++) {
+                index.addRow(coach.getCoachId(), row, seats.get(row));
+            }
+        }
+        this.version = train.getVersion();
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public int getTrainKey() {
+        return trainKey;
+    }
+
+    public synchronized int freeSeats(SeatClass seatClass) {
+        ClassIndex index = classes.get(seatClass);
+        return index == null ? 0 : index.free.cardinality();
+    }
+
+    public synchronized int freeSeats(SeatClass seatClass, BerthType berthType) {
+        ClassIndex index = classes.get(seatClass);
+        if (index == null) {
+            return 0;
+        }
+        BitSet berths = index.byBerth.get(berthType);
+        return berths == null ? 0 : berths.cardinality();
+    }
+
+    /**
+     * Picks seats without booking them. With a party of more than one the seats are
+     * taken from a single row when any row has room, otherwise from the fewest rows.
+     * The preferred berth type is honoured first, falling back to any free seat.
+     * Returns an empty list when the class does not have enough free seats.
+     */
+    public synchronized List<Seat> choose(SeatClass seatClass, BerthType preference, int partySize) {
+        ClassIndex index = classes.get(seatClass);
+        if (index == null || partySize <= 0 || index.free.cardinality() < partySize) {
+            return new ArrayList<>();
+        }
+        if (partySize == 1) {
+            int seat = -1;
+            BitSet preferred = preference == null ? null : index.byBerth.get(preference);
+            if (preferred != null) {
+                seat = preferred.nextSetBit(0);
+            }
+            if (seat < 0) {
+                seat = index.free.nextSetBit(0);
+            }
+            return List.of(index.seat(seat));
+        }
+        List<Seat> chosen = new ArrayList<>(partySize);
+        int row = index.firstRowWithRoom(partySize);
+        if (row >= 0) {
+            index.takeFromRow(row, preference, partySize, chosen);
+            return chosen;
+        }
+        int[] order = index.rowsByFreeSeatsDescending();
+        for (int i = 0; i < order.length && chosen.size() < partySize; i++) {
+            index.takeFromRow(order[i], preference, partySize - chosen.size(), chosen);
+        }
+        return chosen;
+    }
+
+    /**
+     * Records seats booked through a successful train update so the index follows the
+     * train to its new version without a rebuild.
+     */
+    public synchronized void markBooked(List<Seat> seats, long newVersion) {
+        setFree(seats, false, newVersion);
+    }
+
+    public synchronized void markFree(List<Seat> seats, long newVersion) {
+        setFree(seats, true, newVersion);
+    }
+
+    /**
+     * Like markBooked, but only if the index is still at fromVersion, the version the
+     * update started from. Returns false, leaving the index alone, if another change
+     * or a rebuild moved it in between; the next getSeatAllocator then rebuilds it.
+     */
+    public synchronized boolean markBooked(List<Seat> seats, long fromVersion, long newVersion) {
+        if (version != fromVersion) {
+            return false;
+        }
+        setFree(seats, false, newVersion);
+        return true;
+    }
+
+    public synchronized boolean markFree(List<Seat> seats, long fromVersion, long newVersion) {
+        if (version != fromVersion) {
+            return false;
+        }
+        setFree(seats, true, newVersion);
+        return true;
+    }
+
+    private void setFree(List<Seat> seats, boolean free, long newVersion) {
+        for (Seat seat : seats) {
+            ClassIndex index = classes.get(seat.seatClass());
+            if (index != null) {
+                index.setFree(seat.classIndex(), free);
+            }
+        }
+        this.version = newVersion;
+    }
+
+    /**
+     * Returns the seat at a grid position, or null if no coach covers it.
+     */
+    public synchronized Seat seatAt(int row, int column) {
+        for (ClassIndex index : classes.values()) {
+            Seat seat = index.seatAt(row, column);
+            if (seat != null) {
+                return seat;
+            }
+        }
+        return null;
+    }
+
+    public record Seat(SeatClass seatClass, String coachId, int row, int column, BerthType berthType, int classIndex) {
+    }
+
+    private static class ClassIndex {
+        private final SeatClass seatClass;
+        private final BitSet free = new BitSet();
+        private final Map<BerthType, BitSet> byBerth = new EnumMap<>(BerthType.class);
+        private final List<String> coachIds = new ArrayList<>();
+        private int[] gridRows = new int[16];
+        private int[] rowStart = new int[16];
+        private int[] rowWidth = new int[16];
+        private int[] rowFree = new int[16];
+        private int[] seatRowSlot = new int[64];
+        private int rows;
+        private int seats;
+
+        private ClassIndex(SeatClass seatClass) {
+            this.seatClass = seatClass;
+        }
+
+        private void addRow(String coachId, int gridRow, List<Integer> values) {
+            if (rows == gridRows.length) {
+                gridRows = Arrays.copyOf(gridRows, rows * 2);
+                rowStart = Arrays.copyOf(rowStart, rows * 2);
+                rowWidth = Arrays.copyOf(rowWidth, rows * 2);
+                rowFree = Arrays.copyOf(rowFree, rows * 2);
+            }
+            gridRows[rows] = gridRow;
+            rowStart[rows] = seats;
+            rowWidth[rows] = values.size();
+            coachIds.add(coachId);
+            for (int column = 0; column < values.size(); column++) {
+                if (seats == seatRowSlot.length) {
+                    seatRowSlot = Arrays.copyOf(seatRowSlot, seats * 2);
+                }
+                seatRowSlot[seats] = rows;
+                if (values.get(column) == 0) {
+                    free.set(seats);
+                    byBerth.computeIfAbsent(BerthType.forPosition(seatClass, column), b -> new BitSet()).set(seats);
+                    rowFree[rows]++;
+                }
+                seats++;
+            }
+            rows++;
+        }
+
+        private Seat seat(int classIndex) {
+            int slot = seatRowSlot[classIndex];
+            int column = classIndex - rowStart[slot];
+            return new Seat(seatClass, coachIds.get(slot), gridRows[slot], column,
+                    BerthType.forPosition(seatClass, column), classIndex);
+        }
+
+        private Seat seatAt(int gridRow, int column) {
+            for (int slot = 0; slot < rows; slot++) {
+                if (gridRows[slot] == gridRow) {
+                    return column >= 0 && column < rowWidth[slot] ? seat(rowStart[slot] + column) : null;
+                }
+            }
+            return null;
+        }
+
+        private void setFree(int classIndex, boolean isFree) {
+            if (free.get(classIndex) == isFree) {
+                return;
+            }
+            Seat seat = seat(classIndex);
+            free.set(classIndex, isFree);
+            byBerth.computeIfAbsent(seat.berthType(), b -> new BitSet()).set(classIndex, isFree);
+            rowFree[seatRowSlot[classIndex]] += isFree ? 1 : -1;
+        }
+
+        private int firstRowWithRoom(int partySize) {
+            for (int slot = 0; slot < rows; slot++) {
+                if (rowFree[slot] >= partySize) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private int[] rowsByFreeSeatsDescending() {
+            return IntStream.range(0, rows)
+                    .boxed()
+                    .sorted((a, b) -> Integer.compare(rowFree[b], rowFree[a]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+
+        private void takeFromRow(int slot, BerthType preference, int wanted, List<Seat> chosen) {
+            int from = rowStart[slot];
+            int to = from + rowWidth[slot];
+            BitSet preferred = preference == null ? null : byBerth.get(preference);
+            if (preferred != null) {
+                for (int i = preferred.nextSetBit(from); i >= 0 && i < to && wanted > 0; i = preferred.nextSetBit(i + 1)) {
+                    chosen.add(seat(i));
+                    wanted--;
+                }
+            }
+            for (int i = free.nextSetBit(from); i >= 0 && i < to && wanted > 0; i = free.nextSetBit(i + 1)) {
+                if (preferred == null || !preferred.get(i)) {
+                    chosen.add(seat(i));
+                    wanted--;
+                }
+            }
+        }
+    }
+}
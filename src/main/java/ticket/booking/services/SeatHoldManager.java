@@ -0,0 +1,224 @@
+package ticket.booking.services;
+
+import ticket.booking.util.TimerWheel;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks seats held while payment completes. Each hold gets an id and an expiry on a
+ * hierarchical timer wheel, so expiring a hold costs O(1) however many are
+ * outstanding. A hold leaves the manager exactly once: taken by confirm or release, or
+ * handed to the expiry callback when its time is up.
+ */
+public class SeatHoldManager implements AutoCloseable {
+
+    public static final long DEFAULT_HOLD_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final long TICK_MILLIS = 100;
+    private static final int WHEEL_SIZE = 256;
+
+    private final Consumer<Hold> onExpire;
+    private final LongSupplier clock;
+    private final boolean autoExpire;
+    private final ConcurrentHashMap<String, Hold> holds = new ConcurrentHashMap<>();
+    private final TimerWheel<Hold> expiryWheel;
+    private final SecureRandom random = new SecureRandom();
+    private ScheduledExecutorService ticker;
+
+    /**
+     * Expires holds from a background thread, started with the first hold.
+     */
+    public SeatHoldManager(Consumer<Hold> onExpire) {
+        this(onExpire, System::currentTimeMillis, true);
+    }
+
+    /**
+     * Creates a manager without a background timer; call expireDue to expire holds.
+     */
+    public SeatHoldManager(Consumer<Hold> onExpire, LongSupplier clock) {
+        this(onExpire, clock, false);
+    }
+
+    private SeatHoldManager(Consumer<Hold> onExpire, LongSupplier clock, boolean autoExpire) {
+        this.onExpire = onExpire;
+        this.clock = clock;
+        this.autoExpire = autoExpire;
+        this.expiryWheel = new TimerWheel<>(TICK_MILLIS, WHEEL_SIZE, clock.getAsLong());
+    }
+
+    public Hold register(String trainId, int row, int column, String userId, long holdMillis) {
+        return register(trainId, row, column, userId, null, null, null, holdMillis);
+    }
+
+    /**
+     * Registers a hold for the journey from source to destination on dateOfTravel,
+     * which a confirm then tickets.
+     */
+    public Hold register(String trainId, int row, int column, String userId, String source, String destination,
+                         String dateOfTravel, long holdMillis) {
+        byte[] bytes = new byte[12];
+        random.nextBytes(bytes);
+        long expiresAt = clock.getAsLong() + holdMillis;
+        Hold hold = new Hold(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes),
+                trainId, row, column, userId, source, destination, dateOfTravel, expiresAt);
+        holds.put(hold.holdId, hold);
+        synchronized (expiryWheel) {
+            hold.timeout = expiryWheel.schedule(hold, expiresAt);
+        }
+        startTicker();
+        return hold;
+    }
+
+    /**
+     * Removes and returns a live hold, or null if it is unknown, already taken or
+     * already expired. A hold past its expiry that the timer has not reached yet is
+     * expired here instead.
+     */
+    public Hold take(String holdId) {
+        Hold hold = holdId == null ? null : holds.remove(holdId);
+        if (hold == null) {
+            return null;
+        }
+        synchronized (expiryWheel) {
+            expiryWheel.cancel(hold.timeout);
+        }
+        if (clock.getAsLong() >= hold.expiresAtMillis) {
+            onExpire.accept(hold);
+            return null;
+        }
+        return hold;
+    }
+
+    /**
+     * Puts a taken hold back, for a confirm or release that could not be applied.
+     */
+    public void restore(Hold hold) {
+        holds.put(hold.holdId, hold);
+        synchronized (expiryWheel) {
+            hold.timeout = expiryWheel.schedule(hold, hold.expiresAtMillis);
+        }
+    }
+
+    public int pending() {
+        return holds.size();
+    }
+
+    /**
+     * Hands every hold whose time is up to the expiry callback.
+     */
+    public void expireDue() {
+        List<Hold> due;
+        synchronized (expiryWheel) {
+            due = expiryWheel.advance(clock.getAsLong());
+        }
+        for (Hold hold : due) {
+            if (holds.remove(hold.holdId, hold)) {
+                try {
+                    onExpire.accept(hold);
+                } catch (RuntimeException ex) {
+                    System.out.println("Could not release expired hold " + hold.holdId + ": " + ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the background timer, letting an expiry already running finish its save.
+     */
+    @Override
+    public synchronized void close() {
+        if (ticker == null) {
+            return;
+        }
+        ticker.shutdown();
+        try {
+            ticker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void startTicker() {
+        if (!autoExpire || ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "seat-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::expireDue, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public static class Hold {
+        private final String holdId;
+        private final String trainId;
+        private final int row;
+        private final int column;
+        private final String userId;
+        private final String source;
+        private final String destination;
+        private final String dateOfTravel;
+        private final long expiresAtMillis;
+        private TimerWheel.Timeout<Hold> timeout;
+
+        private Hold(String holdId, String trainId, int row, int column, String userId, String source,
+                     String destination, String dateOfTravel, long expiresAtMillis) {
+            this.holdId = holdId;
+            this.trainId = trainId;
+            this.row = row;
+            this.column = column;
+            this.userId = userId;
+            this.source = source;
+            this.destination = destination;
+            this.dateOfTravel = dateOfTravel;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public String getHoldId() {
+            return holdId;
+        }
+
+        public String getTrainId() {
+            return trainId;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        /**
+         * The journey the hold is for; null stations and date when it has none.
+         */
+        public String getSource() {
+            return source;
+        }
+
+        public String getDestination() {
+            return destination;
+        }
+
+        public String getDateOfTravel() {
+            return dateOfTravel;
+        }
+
+        public long getExpiresAtMillis() {
+            return expiresAtMillis;
+        }
+    }
+}
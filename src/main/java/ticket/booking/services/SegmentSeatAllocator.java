@@ -0,0 +1,254 @@
+package ticket.booking.services;
+
+import ticket.booking.entities.Train;
+import ticket.booking.util.SymbolTable;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Seat inventory per leg of a journey, for bookings that cover only part of a train's
+ * route. Leg i runs from station i to station i + 1 in Train.stations, and each leg has
+ * a bitset of the seats free on it, so the seats free for a whole request are the AND
+ * of its legs' bitsets.
+ *
+ * Best fit picks the seat whose free gap around the request is shortest, so long gaps
+ * stay whole for long journeys instead of being cut into stubs nobody can use. First
+ * fit, the lowest free seat, is kept for comparison.
+ */
+public class SegmentSeatAllocator {
+
+    private final Train train;
+    private final StationIndex stationIndex;
+    private final int legs;
+    private final int[] rowStart;
+    private final BitSet[] freeOnLeg;
+    private final int seatCount;
+
+    /**
+     * Starts from the train's seat grid; seats booked or held there are taken on every leg.
+     * Station names are resolved against the train's own stations only.
+     */
+    public SegmentSeatAllocator(Train train) {
+        this(train, new StationIndex(train.getStations()));
+    }
+
+    /**
+     * Resolves station names through the given index, e.g. TrainService's, so aliases
+     * and case are handled the same way as in search.
+     */
+    public SegmentSeatAllocator(Train train, StationIndex stationIndex) {
+        this.train = train;
+        this.stationIndex = stationIndex;
+        List<String> stations = train.getStations();
+        this.legs = stations == null ? 0 : Math.max(stations.size() - 1, 0);
+        List<List<Integer>> seats = train.getSeats();
+        this.rowStart = new int[seats.size() + 1];
+        for (int row = 0; row < seats.size(); row++) {
+            rowStart[row + 1] = rowStart[row] + seats.get(row).size();
+        }
+        this.seatCount = rowStart[seats.size()];
+        this.freeOnLeg = new BitSet[legs];
+        BitSet free = new BitSet(seatCount);
+        for (int row = 0; row < seats.size(); row++) {
+            for (int column = 0; column < seats.get(row).size(); column++) {
+                if (seats.get(row).get(column) == Train.SEAT_FREE) {
+                    free.set(rowStart[row] + column);
+                }
+            }
+        }
+        for (int leg = 0; leg < legs; leg++) {
+            freeOnLeg[leg] = (BitSet) free.clone();
+        }
+    }
+
+    public int getLegs() {
+        return legs;
+    }
+
+    /**
+     * Best-fit seat between two stations on the route, or null if none is free for the
+     * whole way. Does not book it.
+     */
+    public Pick choose(String source, String destination) {
+        return choose(stationIndex(source), stationIndex(destination), true);
+    }
+
+    public Pick chooseFirstFit(String source, String destination) {
+        return choose(stationIndex(source), stationIndex(destination), false);
+    }
+
+    /**
+     * Picks a seat free from station index from to station index to. With bestFit the
+     * seat whose surrounding free gap is shortest wins, lowest seat first on ties.
+     */
+    public synchronized Pick choose(int from, int to, boolean bestFit) {
+        BitSet candidates = freeBetween(from, to);
+        if (candidates == null || candidates.isEmpty()) {
+            return null;
+        }
+        if (!bestFit) {
+            return pick(candidates.nextSetBit(0), from, to, gapLegs(candidates.nextSetBit(0), from, to));
+        }
+        BitSet exact = (BitSet) candidates.clone();
+        if (from > 0) {
+            exact.andNot(freeOnLeg[from - 1]);
+        }
+        if (to < legs) {
+            exact.andNot(freeOnLeg[to]);
+        }
+        if (!exact.isEmpty()) {
+            return pick(exact.nextSetBit(0), from, to, to - from);
+        }
+        // Count how far each candidate's gap reaches past the request, one leg at a
+        // time on both sides, dropping seats from the sweep as their gap ends.
+        int[] waste = new int[seatCount];
+        BitSet reach = (BitSet) candidates.clone();
+        for (int leg = from - 1; leg >= 0 && !reach.isEmpty(); leg--) {
+            reach.and(freeOnLeg[leg]);
+            for (int seat = reach.nextSetBit(0); seat >= 0; seat = reach.nextSetBit(seat + 1)) {
+                waste[seat]++;
+            }
+        }
+        reach = (BitSet) candidates.clone();
+        for (int leg = to; leg < legs && !reach.isEmpty(); leg++) {
+            reach.and(freeOnLeg[leg]);
+            for (int seat = reach.nextSetBit(0); seat >= 0; seat = reach.nextSetBit(seat + 1)) {
+                waste[seat]++;
+            }
+        }
+        int best = -1;
+        for (int seat = candidates.nextSetBit(0); seat >= 0; seat = candidates.nextSetBit(seat + 1)) {
+            if (best < 0 || waste[seat] < waste[best]) {
+                best = seat;
+            }
+        }
+        return pick(best, from, to, to - from + waste[best]);
+    }
+
+    /**
+     * Takes the seat on every leg between the two station indexes. Returns false,
+     * changing nothing, if it is not free on all of them.
+     */
+    public synchronized boolean book(int row, int column, int from, int to) {
+        int seat = seatIndex(row, column);
+        if (seat < 0 || from < 0 || to > legs || from >= to) {
+            return false;
+        }
+        for (int leg = from; leg < to; leg++) {
+            if (!freeOnLeg[leg].get(seat)) {
+                return false;
+            }
+        }
+        for (int leg = from; leg < to; leg++) {
+            freeOnLeg[leg].clear(seat);
+        }
+        return true;
+    }
+
+    public synchronized void release(int row, int column, int from, int to) {
+        int seat = seatIndex(row, column);
+        if (seat < 0 || from < 0 || to > legs) {
+            return;
+        }
+        for (int leg = from; leg < to; leg++) {
+            freeOnLeg[leg].set(seat);
+        }
+    }
+
+    /**
+     * Seats free for the whole way between two station indexes.
+     */
+    public synchronized int freeSeats(int from, int to) {
+        BitSet free = freeBetween(from, to);
+        return free == null ? 0 : free.cardinality();
+    }
+
+    /**
+     * Free inventory as maximal gaps of consecutive free legs per seat. Gaps shorter
+     * than minLegs are counted as stranded: no request of that length can use them.
+     */
+    public synchronized Fragmentation fragmentation(int minLegs) {
+        long freeSeatLegs = 0;
+        long gaps = 0;
+        long strandedGaps = 0;
+        long strandedSeatLegs = 0;
+        for (int seat = 0; seat < seatCount; seat++) {
+            int run = 0;
+            for (int leg = 0; leg <= legs; leg++) {
+                if (leg < legs && freeOnLeg[leg].get(seat)) {
+                    run++;
+                    continue;
+                }
+                if (run > 0) {
+                    freeSeatLegs += run;
+                    gaps++;
+                    if (run < minLegs) {
+                        strandedGaps++;
+                        strandedSeatLegs += run;
+                    }
+                }
+                run = 0;
+            }
+        }
+        return new Fragmentation(freeSeatLegs, gaps, strandedGaps, strandedSeatLegs);
+    }
+
+    private BitSet freeBetween(int from, int to) {
+        if (from < 0 || to > legs || from >= to) {
+            return null;
+        }
+        BitSet free = (BitSet) freeOnLeg[from].clone();
+        for (int leg = from + 1; leg < to; leg++) {
+            free.and(freeOnLeg[leg]);
+        }
+        return free;
+    }
+
+    private int gapLegs(int seat, int from, int to) {
+        int start = from;
+        while (start > 0 && freeOnLeg[start - 1].get(seat)) {
+            start--;
+        }
+        int end = to;
+        while (end < legs && freeOnLeg[end].get(seat)) {
+            end++;
+        }
+        return end - start;
+    }
+
+    private int stationIndex(String station) {
+        return station == null ? -1 : train.indexOfStation(SymbolTable.STATIONS.lookup(stationIndex.resolve(station)));
+    }
+
+    private int seatIndex(int row, int column) {
+        if (row < 0 || row >= rowStart.length - 1 || column < 0 || column >= rowStart[row + 1] - rowStart[row]) {
+            return -1;
+        }
+        return rowStart[row] + column;
+    }
+
+    private Pick pick(int seat, int from, int to, int gapLegs) {
+        int row = 0;
+        while (rowStart[row + 1] <= seat) {
+            row++;
+        }
+        return new Pick(row, seat - rowStart[row], from, to, gapLegs);
+    }
+
+    /**
+     * A chosen seat and the length, in legs, of the free gap it was taken from.
+     */
+    public record Pick(int row, int column, int from, int to, int gapLegs) {
+    }
+
+    /**
+     * Free seat-legs and how much of them sit in gaps too short to sell.
+     */
+    public record Fragmentation(long freeSeatLegs, long gaps, long strandedGaps, long strandedSeatLegs) {
+
+        public long sellableSeatLegs() {
+            return freeSeatLegs - strandedSeatLegs;
+        }
+    }
+}
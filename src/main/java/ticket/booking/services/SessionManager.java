@@ -0,0 +1,203 @@
+package ticket.booking.services;
+
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.User;
+import ticket.booking.util.TimerWheel;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory login sessions. Credentials are checked once at login; afterwards a
+ * request only needs its opaque token, which is a single map lookup. Idle sessions are
+ * expired by a timer wheel: a session is rescheduled lazily when its timer fires after
+ * recent activity, so touching a session never costs more than a timestamp write.
+ */
+public class SessionManager implements AutoCloseable {
+
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 512;
+
+    private final UserBookingService userBookingService;
+    private final long idleTimeoutMillis;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<Session>> sessionsByUser = new ConcurrentHashMap<>();
+    private final TimerWheel<Session> expiryWheel;
+    private final SecureRandom random = new SecureRandom();
+    private ScheduledExecutorService ticker;
+
+    public SessionManager(UserBookingService userBookingService) {
+        this(userBookingService, DEFAULT_IDLE_TIMEOUT_MILLIS, System::currentTimeMillis);
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::expireIdle, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a manager without a background timer; call expireIdle to evict sessions.
+     */
+    public SessionManager(UserBookingService userBookingService, long idleTimeoutMillis, LongSupplier clock) {
+        this.userBookingService = userBookingService;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.clock = clock;
+        this.expiryWheel = new TimerWheel<>(TICK_MILLIS, WHEEL_SIZE, clock.getAsLong());
+        userBookingService.addTicketListener(this::ticketsChanged);
+    }
+
+    /**
+     * Checks the credentials and opens a session. Returns the session token, or empty
+     * if the name or password is wrong.
+     */
+    public Optional<String> login(String name, String password) {
+        Optional<User> user = userBookingService.authenticate(name, password);
+        if (user.isEmpty()) {
+            return Optional.empty();
+        }
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        long now = clock.getAsLong();
+        Session session = new Session(token, user.get(), now);
+        userBookingService.getUserStore().pin(user.get());
+        sessions.put(token, session);
+        sessionsByUser.computeIfAbsent(user.get().getUserId(), id -> ConcurrentHashMap.newKeySet()).add(session);
+        synchronized (expiryWheel) {
+            expiryWheel.schedule(session, now + idleTimeoutMillis);
+        }
+        return Optional.of(token);
+    }
+
+    public Optional<Session> getSession(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return Optional.empty();
+        }
+        long now = clock.getAsLong();
+        if (now - session.lastAccessMillis >= idleTimeoutMillis) {
+            end(session);
+            return Optional.empty();
+        }
+        session.lastAccessMillis = now;
+        return Optional.of(session);
+    }
+
+    public void logout(String token) {
+        Session session = token == null ? null : sessions.get(token);
+        if (session != null) {
+            end(session);
+        }
+    }
+
+    /**
+     * Evicts sessions that have been idle for longer than the timeout.
+     */
+    public void expireIdle() {
+        long now = clock.getAsLong();
+        synchronized (expiryWheel) {
+            for (Session session : expiryWheel.advance(now)) {
+                if (sessions.get(session.token) != session) {
+                    continue;
+                }
+                long deadline = session.lastAccessMillis + idleTimeoutMillis;
+                if (deadline <= now) {
+                    end(session);
+                } else {
+                    expiryWheel.schedule(session, deadline);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the session and lets its user be evicted from the user cache again.
+     */
+    private void end(Session session) {
+        if (sessions.remove(session.token, session)) {
+            sessionsByUser.computeIfPresent(session.user.getUserId(), (id, userSessions) -> {
+                userSessions.remove(session);
+                return userSessions.isEmpty() ? null : userSessions;
+            });
+            userBookingService.getUserStore().unpin(session.user);
+        }
+    }
+
+    /**
+     * Drops the cached ticket views of every session the user has open.
+     */
+    private void ticketsChanged(User user) {
+        Set<Session> userSessions = sessionsByUser.get(user.getUserId());
+        if (userSessions != null) {
+            userSessions.forEach(Session::invalidateTickets);
+        }
+    }
+
+    public int activeSessions() {
+        return sessions.size();
+    }
+
+    @Override
+    public void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    public static class Session {
+        private final String token;
+        private final User user;
+        private volatile long lastAccessMillis;
+        private volatile List<Ticket> ticketView;
+
+        private Session(String token, User user, long now) {
+            this.token = token;
+            this.user = user;
+            this.lastAccessMillis = now;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public User getUser() {
+            return user;
+        }
+
+        public long getLastAccessMillis() {
+            return lastAccessMillis;
+        }
+
+        /**
+         * Read-only view of the user's tickets, built on first use and kept until the
+         * user's next booking or cancellation invalidates it.
+         */
+        public List<Ticket> getTickets() {
+            List<Ticket> view = ticketView;
+            if (view == null) {
+                List<Ticket> tickets = user.getTicketsBooked();
+                view = tickets == null ? List.of() : List.copyOf(tickets);
+                ticketView = view;
+            }
+            return view;
+        }
+
+        public void invalidateTickets() {
+            ticketView = null;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package ticket.booking.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ticket.booking.entities.Train;
+import ticket.booking.util.ConsistentHashRing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Client side of a sharded deployment. Trains are partitioned across BookingNodes by
+ * consistent hashing of the lowercased train id; single-train calls go to the owning
+ * shard and searches are scattered to every shard and gathered in shard order.
+ * Connections to each shard are pooled and reused.
+ */
+public class ShardRouter implements AutoCloseable {
+
+    private final ConsistentHashRing<String> ring;
+    private final Map<String, InetSocketAddress> addresses;
+    private final Map<String, ConcurrentLinkedQueue<Connection>> pools = new LinkedHashMap<>();
+    private final ExecutorService scatterPool;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Shard i of the list is the ring member shardName(i), so nodes started with the
+     * same shard count agree on who owns which train.
+     */
+    public ShardRouter(List<InetSocketAddress> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.ring = ring(shards.size());
+        this.addresses = new LinkedHashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            addresses.put(shardName(i), shards.get(i));
+            pools.put(shardName(i), new ConcurrentLinkedQueue<>());
+        }
+        this.scatterPool = Executors.newFixedThreadPool(shards.size(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-scatter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static String shardName(int shardIndex) {
+        return "shard-" + shardIndex;
+    }
+
+    public static String routingKey(String trainId) {
+        return trainId.toLowerCase();
+    }
+
+    public static ConsistentHashRing<String> ring(int shardCount) {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>();
+        for (int i = 0; i < shardCount; i++) {
+            ring.addNode(shardName(i));
+        }
+        return ring;
+    }
+
+    public String shardFor(String trainId) {
+        return ring.nodeFor(routingKey(trainId));
+    }
+
+    public int shardCount() {
+        return addresses.size();
+    }
+
+    /**
+     * Searches every shard in parallel and concatenates their results.
+     */
+    public List<Train> searchTrains(String source, String destination, String dateOfTravel) throws IOException {
+        BookingNode.Request request = BookingNode.Request.search(source, destination, dateOfTravel);
+        List<Future<BookingNode.Response>> responses = new ArrayList<>();
+        for (String shard : addresses.keySet()) {
+            responses.add(scatterPool.submit(() -> call(shard, request)));
+        }
+        List<Train> result = new ArrayList<>();
+        for (Future<BookingNode.Response> response : responses) {
+            result.addAll(await(response).trains());
+        }
+        return result;
+    }
+
+    public Optional<Train> getTrain(String trainId) throws IOException {
+        BookingNode.Response response = call(shardFor(trainId), BookingNode.Request.getTrain(trainId));
+        return response.ok() ? Optional.of(response.trains().get(0)) : Optional.empty();
+    }
+
+    /**
+     * Books one seat for a user on the shard that owns the train, which issues the
+     * user's ticket there. A retry with the same idempotency key returns the first
+     * outcome without booking again. Returns false if the seat is taken, out of range,
+     * the train is unknown or no user is given.
+     */
+    public boolean bookSeat(String userId, String trainId, int row, int column, String idempotencyKey) throws IOException {
+        return bookSeat(userId, trainId, null, null, null, row, column, idempotencyKey);
+    }
+
+    /**
+     * Like bookSeat, with the ticket issued for the journey from source to destination
+     * on date; a null station stands for that end of the route.
+     */
+    public boolean bookSeat(String userId, String trainId, String source, String destination, String date,
+                            int row, int column, String idempotencyKey) throws IOException {
+        BookingNode.Request request = BookingNode.Request.book(userId, trainId, source, destination, date, row, column,
+                idempotencyKey);
+        return call(shardFor(trainId), request).ok();
+    }
+
+    @Override
+    public void close() {
+        scatterPool.shutdownNow();
+        for (ConcurrentLinkedQueue<Connection> pool : pools.values()) {
+            Connection connection;
+            while ((connection = pool.poll()) != null) {
+                connection.close();
+            }
+        }
+    }
+
+    private BookingNode.Response call(String shard, BookingNode.Request request) throws IOException {
+        ConcurrentLinkedQueue<Connection> pool = pools.get(shard);
+        Connection connection = pool.poll();
+        if (connection == null) {
+            connection = new Connection(addresses.get(shard));
+        }
+        BookingNode.Response response;
+        try {
+            response = connection.send(request);
+        } catch (IOException ex) {
+            connection.close();
+            throw ex;
+        }
+        pool.offer(connection);
+        if (response.error() != null) {
+            throw new IOException(shard + " failed: " + response.error());
+        }
+        return response;
+    }
+
+    private BookingNode.Response await(Future<BookingNode.Response> response) throws IOException {
+        try {
+            return response.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for shard", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    private class Connection {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        private Connection(InetSocketAddress address) throws IOException {
+            socket = new Socket(address.getAddress(), address.getPort());
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        private BookingNode.Response send(BookingNode.Request request) throws IOException {
+            byte[] bytes = objectMapper.writeValueAsBytes(request);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.flush();
+            byte[] frame = new byte[in.readInt()];
+            in.readFully(frame);
+            return objectMapper.readValue(frame, BookingNode.Response.class);
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
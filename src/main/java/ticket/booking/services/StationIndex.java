@@ -0,0 +1,168 @@
+package ticket.booking.services;
+
+import ticket.booking.util.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Station dictionary backed by a trie. Answers prefix autocomplete and bounded
+ * edit-distance lookups by walking the trie, so cost depends on the query and not on
+ * the number of trains.
+ */
+public class StationIndex {
+
+    public static final int MAX_EDIT_DISTANCE = 2;
+
+    private final Node root = new Node();
+    private int size;
+
+    public StationIndex() {
+    }
+
+    public StationIndex(Collection<String> stations) {
+        addStations(stations);
+    }
+
+    public synchronized void addStations(Collection<String> stations) {
+        if (stations == null) {
+            return;
+        }
+        for (String station : stations) {
+            addStation(station);
+        }
+    }
+
+    public synchronized void addStation(String station) {
+        String name = normalize(station);
+        if (!name.isEmpty()) {
+            insert(name, name);
+        }
+    }
+
+    /**
+     * Registers another name (city alias, old name, short code) for a known station.
+     */
+    public synchronized void addAlias(String alias, String station) {
+        String name = normalize(alias);
+        if (!name.isEmpty()) {
+            insert(name, normalize(station));
+        }
+    }
+
+    /**
+     * Returns the station for an exact name or alias, or null if there is none.
+     */
+    public synchronized String lookup(String input) {
+        Node node = find(normalize(input));
+        return node == null ? null : node.station;
+    }
+
+    /**
+     * Returns the station for an exact name or alias, otherwise the normalized input.
+     */
+    public String resolve(String input) {
+        String station = lookup(input);
+        return station == null ? normalize(input) : station;
+    }
+
+    public synchronized List<String> suggest(String prefix, int limit) {
+        List<String> result = new ArrayList<>();
+        Node node = find(normalize(prefix));
+        if (node != null && limit > 0) {
+            collect(node, result, limit);
+        }
+        return result;
+    }
+
+    /**
+     * Returns stations within maxDistance edits of the input, closest first.
+     */
+    public synchronized List<String> fuzzyMatch(String input, int maxDistance, int limit) {
+        String word = normalize(input);
+        int bound = Math.min(Math.max(maxDistance, 0), MAX_EDIT_DISTANCE);
+        Map<String, Integer> found = new TreeMap<>();
+        int[] firstRow = new int[word.length() + 1];
+        for (int i = 0; i <= word.length(); i++) {
+            firstRow[i] = i;
+        }
+        if (root.station != null && firstRow[word.length()] <= bound) {
+            found.merge(root.station, firstRow[word.length()], Math::min);
+        }
+        for (Map.Entry<Character, Node> child : root.children.entrySet()) {
+            fuzzyWalk(child.getValue(), child.getKey(), word, firstRow, bound, found);
+        }
+        List<String> result = new ArrayList<>(found.keySet());
+        result.sort(Comparator.comparingInt((String station) -> found.get(station)).thenComparing(station -> station));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, Math.max(limit, 0))) : result;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void fuzzyWalk(Node node, char letter, String word, int[] previousRow, int bound, Map<String, Integer> found) {
+        int columns = word.length() + 1;
+        int[] row = new int[columns];
+        row[0] = previousRow[0] + 1;
+        int rowMin = row[0];
+        for (int i = 1; i < columns; i++) {
+            int replace = previousRow[i - 1] + (word.charAt(i - 1) == letter ? 0 : 1);
+            row[i] = Math.min(Math.min(row[i - 1] + 1, previousRow[i] + 1), replace);
+            rowMin = Math.min(rowMin, row[i]);
+        }
+        if (node.station != null && row[columns - 1] <= bound) {
+            found.merge(node.station, row[columns - 1], Math::min);
+        }
+        if (rowMin > bound) {
+            return;
+        }
+        for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+            fuzzyWalk(child.getValue(), child.getKey(), word, row, bound, found);
+        }
+    }
+
+    private void insert(String key, String station) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+        }
+        if (node.station == null) {
+            size++;
+        }
+        node.station = station;
+    }
+
+    private Node find(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        return node;
+    }
+
+    private void collect(Node node, List<String> result, int limit) {
+        if (node.station != null && !result.contains(node.station)) {
+            result.add(node.station);
+        }
+        for (Node child : node.children.values()) {
+            if (result.size() >= limit) {
+                return;
+            }
+            collect(child, result, limit);
+        }
+    }
+
+    private static String normalize(String input) {
+        return input == null ? "" : SymbolTable.foldCase(input);
+    }
+
+    private static class Node {
+        private final TreeMap<Character, Node> children = new TreeMap<>();
+        private String station;
+    }
+}
@@ -0,0 +1,185 @@
+package ticket.booking.services;
+
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+import ticket.booking.util.SymbolTable;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Secondary indexes over every booked ticket: by train run (train, travel day) and by
+ * travel time. Manifests and reminder jobs read a run or a time range directly instead
+ * of walking every user's tickets.
+ *
+ * The index keeps its own compact copy of each ticket: ids, route, travel date and
+ * seat, with the train reduced to a shared stub carrying only its id. A user's full
+ * tickets, with their embedded trains, are not kept alive by the index.
+ */
+public class TicketIndex {
+
+    private final Map<Long, List<Ticket>> byRun = new HashMap<>();
+    private final TreeMap<Long, List<Ticket>> byTime = new TreeMap<>();
+    private final Map<Integer, Train> trainStubs = new HashMap<>();
+    private int size;
+
+    public static TicketIndex build(List<User> users) {
+        TicketIndex index = new TicketIndex();
+        if (users != null) {
+            for (User user : users) {
+                index.addAll(user.getTicketsBooked());
+            }
+        }
+        return index;
+    }
+
+    public synchronized void addAll(List<Ticket> tickets) {
+        if (tickets == null) {
+            return;
+        }
+        for (Ticket ticket : tickets) {
+            add(ticket);
+        }
+    }
+
+    /**
+     * Indexes a compact copy of the ticket. A ticket already indexed under the same id
+     * is left alone, so adding one twice is harmless. Returns whether it was added.
+     */
+    public synchronized boolean add(Ticket ticket) {
+        long time = ticket.getTravelEpochSecond();
+        if (time == Ticket.UNKNOWN_TRAVEL_TIME) {
+            return false;
+        }
+        List<Ticket> atTime = byTime.computeIfAbsent(time, t -> new ArrayList<>(1));
+        if (atTime.stream().anyMatch(indexed -> sameTicket(indexed, ticket))) {
+            return false;
+        }
+        Ticket entry = compact(ticket);
+        atTime.add(entry);
+        int trainKey = trainKey(ticket);
+        if (trainKey != SymbolTable.UNKNOWN) {
+            byRun.computeIfAbsent(runKey(trainKey, ticket.getTravelEpochDay()), k -> new ArrayList<>()).add(entry);
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes the ticket, or the indexed ticket with the same id, since a user read back
+     * from the store carries fresh copies of their tickets.
+     */
+    public synchronized boolean remove(Ticket ticket) {
+        List<Ticket> atTime = byTime.get(ticket.getTravelEpochSecond());
+        if (atTime == null || !atTime.removeIf(indexed -> sameTicket(indexed, ticket))) {
+            return false;
+        }
+        if (atTime.isEmpty()) {
+            byTime.remove(ticket.getTravelEpochSecond());
+        }
+        int trainKey = trainKey(ticket);
+        if (trainKey != SymbolTable.UNKNOWN) {
+            long runKey = runKey(trainKey, ticket.getTravelEpochDay());
+            List<Ticket> run = byRun.get(runKey);
+            if (run != null && run.removeIf(indexed -> sameTicket(indexed, ticket)) && run.isEmpty()) {
+                byRun.remove(runKey);
+            }
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Tickets on one train run, in booking order.
+     */
+    public synchronized List<Ticket> ticketsFor(String trainId, LocalDate date) {
+        int trainKey = trainId == null ? SymbolTable.UNKNOWN : SymbolTable.TRAINS.lookup(trainId.toLowerCase());
+        if (trainKey == SymbolTable.UNKNOWN) {
+            return new ArrayList<>();
+        }
+        List<Ticket> run = byRun.get(runKey(trainKey, date.toEpochDay()));
+        return run == null ? new ArrayList<>() : new ArrayList<>(run);
+    }
+
+    /**
+     * Tickets travelling in [fromEpochSecond, toEpochSecond), ordered by travel time.
+     */
+    public synchronized List<Ticket> ticketsBetween(long fromEpochSecond, long toEpochSecond) {
+        List<Ticket> result = new ArrayList<>();
+        if (fromEpochSecond >= toEpochSecond) {
+            return result;
+        }
+        NavigableMap<Long, List<Ticket>> range = byTime.subMap(fromEpochSecond, true, toEpochSecond, false);
+        for (List<Ticket> tickets : range.values()) {
+            result.addAll(tickets);
+        }
+        return result;
+    }
+
+    /**
+     * The (train id, travel day) runs that have at least one ticket, for batch jobs.
+     */
+    public synchronized List<Run> runs() {
+        List<Run> runs = new ArrayList<>(byRun.size());
+        for (Map.Entry<Long, List<Ticket>> run : byRun.entrySet()) {
+            // Every ticket on a run shares its train stub, which keeps the display id.
+            String trainId = run.getValue().get(0).getTrain().getTrainId();
+            runs.add(new Run(trainId, LocalDate.ofEpochDay((int) (long) run.getKey())));
+        }
+        return runs;
+    }
+
+    /**
+     * Calls the action with every ticket on one run of a train, by train key and
+     * travel day, while holding the index lock; the action must not call back into it.
+     */
+    public synchronized void forEachTicket(int trainKey, long epochDay, Consumer<Ticket> action) {
+        List<Ticket> run = byRun.get(runKey(trainKey, epochDay));
+        if (run != null) {
+            run.forEach(action);
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private Ticket compact(Ticket ticket) {
+        Train stub = null;
+        if (trainKey(ticket) != SymbolTable.UNKNOWN) {
+            stub = trainStubs.computeIfAbsent(trainKey(ticket), k -> {
+                Train train = new Train();
+                train.setTrainId(ticket.getTrain().getTrainId());
+                return train;
+            });
+        }
+        Ticket entry = new Ticket(ticket.getTicketId(), ticket.getUserId(), ticket.getSource(),
+                ticket.getDestination(), ticket.getDateOfTravel(), stub);
+        entry.setCoachId(ticket.getCoachId());
+        entry.setSeatRow(ticket.getSeatRow());
+        entry.setSeatColumn(ticket.getSeatColumn());
+        return entry;
+    }
+
+    private static boolean sameTicket(Ticket indexed, Ticket ticket) {
+        return indexed == ticket || (ticket.getTicketId() != null && ticket.getTicketId().equals(indexed.getTicketId()));
+    }
+
+    private static int trainKey(Ticket ticket) {
+        return ticket.getTrain() == null ? SymbolTable.UNKNOWN : ticket.getTrain().getTrainKey();
+    }
+
+    private static long runKey(int trainKey, long epochDay) {
+        return ((long) trainKey << 32) | (epochDay & 0xFFFFFFFFL);
+    }
+
+    public record Run(String trainId, LocalDate date) {
+    }
+}
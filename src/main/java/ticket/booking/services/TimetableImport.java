@@ -0,0 +1,150 @@
+package ticket.booking.services;
+
+import ticket.booking.entities.Train;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Outcome of a bulk timetable import through TrainService.importTrains: which trains
+ * were added or had their timetable updated, which were dropped as duplicates of an
+ * earlier entry in the same batch, which were rejected and why, keyed by their
+ * position in the batch, and whether the result could be saved.
+ */
+public class TimetableImport {
+
+    private final boolean dryRun;
+    private final List<String> added = new ArrayList<>();
+    private final List<String> updated = new ArrayList<>();
+    private final List<String> duplicates = new ArrayList<>();
+    private final Map<Integer, List<String>> invalid = new LinkedHashMap<>();
+    private boolean saved = true;
+
+    TimetableImport(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    /**
+     * Problems that keep a train out of the catalog; empty if it can be imported.
+     */
+    public static List<String> validate(Train train) {
+        List<String> problems = new ArrayList<>();
+        if (train.getTrainId() == null || train.getTrainId().isBlank()) {
+            problems.add("missing train id");
+        }
+        if (train.getTrainNo() == null || train.getTrainNo().isBlank()) {
+            problems.add("missing train number");
+        }
+        List<String> stations = train.getStations();
+        if (stations == null || stations.size() < 2) {
+            problems.add("needs at least two stations");
+        } else {
+            Set<String> seen = new HashSet<>();
+            for (String station : stations) {
+                if (!seen.add(station)) {
+                    problems.add("visits " + station + " twice");
+                }
+                if (train.getStationTimes() == null || !train.getStationTimes().containsKey(station)) {
+                    problems.add("no time for " + station);
+                }
+            }
+            List<Integer> distances = train.getSegmentDistances();
+            if (distances != null && distances.size() != stations.size() - 1) {
+                problems.add("has " + distances.size() + " segment distances for " + stations.size() + " stations");
+            } else if (distances != null && distances.stream().anyMatch(km -> km == null || km <= 0)) {
+                problems.add("has a segment distance that is not positive");
+            }
+        }
+        List<List<Integer>> seats = train.getSeats();
+        if (seats == null || seats.isEmpty()) {
+            problems.add("has no seats");
+        } else {
+            for (List<Integer> row : seats) {
+                if (row == null || row.isEmpty()) {
+                    problems.add("has an empty seat row");
+                    break;
+                }
+                if (row.stream().anyMatch(seat -> seat != null && seat == Train.SEAT_HELD)) {
+                    problems.add("has a held seat; holds cannot be imported");
+                    break;
+                }
+                if (row.stream().anyMatch(seat -> seat == null || seat < Train.SEAT_FREE || seat > Train.SEAT_BOOKED)) {
+                    problems.add("has an unknown seat state");
+                    break;
+                }
+            }
+        }
+        return problems;
+    }
+
+    void added(Train train) {
+        added.add(train.getTrainId());
+    }
+
+    void updated(Train train) {
+        updated.add(train.getTrainId());
+    }
+
+    void duplicate(Train train) {
+        duplicates.add(train.getTrainId());
+    }
+
+    void invalid(int index, List<String> problems) {
+        invalid.put(index, problems);
+    }
+
+    void unsaved() {
+        saved = false;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public List<String> getAdded() {
+        return added;
+    }
+
+    public List<String> getUpdated() {
+        return updated;
+    }
+
+    public List<String> getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Problems of each rejected train, keyed by its index in the imported batch.
+     */
+    public Map<Integer, List<String>> getInvalid() {
+        return invalid;
+    }
+
+    /**
+     * False if the trains file could not be written and the catalog was left as it was.
+     */
+    public boolean isSaved() {
+        return saved;
+    }
+
+    public void print(PrintStream out) {
+        if (!saved) {
+            out.println("Could not save the trains file; the catalog is unchanged");
+        }
+        boolean applied = saved && !dryRun;
+        out.println((applied ? "Added " : "Would add ") + added.size() + ", "
+                + (applied ? "updated " : "would update ") + updated.size() + ", skipped "
+                + duplicates.size() + " duplicates, rejected " + invalid.size());
+        for (String trainId : duplicates) {
+            out.println("  duplicate: " + trainId);
+        }
+        for (Map.Entry<Integer, List<String>> entry : invalid.entrySet()) {
+            out.println("  invalid: #" + entry.getKey() + " " + String.join("; ", entry.getValue()));
+        }
+    }
+}
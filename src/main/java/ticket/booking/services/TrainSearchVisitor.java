@@ -0,0 +1,11 @@
+package ticket.booking.services;
+
+/**
+ * Receives search results one at a time, without the results being collected into a
+ * list. The view passed in is reused for the next result.
+ */
+@FunctionalInterface
+public interface TrainSearchVisitor {
+
+    void visit(SearchResultView result);
+}
@@ -1,72 +1,631 @@
 package ticket.booking.services;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import ticket.booking.entities.BookingEvent;
+import ticket.booking.entities.SeatClass;
 import ticket.booking.entities.Train;
+import ticket.booking.util.DurableFile;
+import ticket.booking.util.SymbolTable;
 
-import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 public class TrainService {
-    private List<Train> trainList;
+    private volatile List<Train> trainList;
+    private final Object catalogLock = new Object();
+    private final ConcurrentHashMap<Integer, Train> trainsByKey = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, SeatAllocator> seatAllocators = new ConcurrentHashMap<>();
     private ObjectMapper objectMapper = new ObjectMapper();
+    private SearchCache searchCache = new SearchCache();
+    private StationIndex stationIndex = new StationIndex();
+    private FareEngine fareEngine = new FareEngine();
+    private final DurableFile trainFile;
+    private final CatalogChangeLog changeLog;
+    private final Object saveLock = new Object();
+    private final AtomicLong publishedChanges = new AtomicLong();
+    private long savedChanges;
+    private final DurableFile checkpointFile;
+    private volatile BookingJournal seatJournal;
+    private volatile int checkpointInterval;
+    private volatile long checkpointedSequence;
+    public static final int CHECKPOINT_EVENTS = 10_000;
+    private static final ThreadLocal<SearchResultView> RESULT_VIEW = ThreadLocal.withInitial(SearchResultView::new);
     private static final String TRAIN_PATH = "src/main/java/ticket/booking/localDb/trains.json";
     public TrainService() throws IOException {
-        File trains = new File(TRAIN_PATH);
-        trainList = objectMapper.readValue(trains, new TypeReference<List<Train>>() {});
+        this(TRAIN_PATH);
+    }
+
+    public TrainService(String trainPath) throws IOException {
+        this.trainFile = new DurableFile(Path.of(trainPath));
+        this.checkpointFile = new DurableFile(Path.of(trainPath + ".checkpoint"));
+        trainList = new CopyOnWriteArrayList<>(objectMapper.readValue(trainFile.read(), new TypeReference<List<Train>>() {}));
+        long catalogVersion = 0;
+        for (Train train : trainList) {
+            releaseHeldSeats(train);
+            trainsByKey.putIfAbsent(train.getTrainKey(), train);
+            stationIndex.addStations(train.getStations());
+            fareEngine.register(train);
+            catalogVersion = Math.max(catalogVersion, train.getCatalogVersion());
+        }
+        changeLog = new CatalogChangeLog(catalogVersion, CatalogChangeLog.DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Holds live only in the memory of the process that took them, so a seat saved as
+     * held is free again after a restart.
+     */
+    private static void releaseHeldSeats(Train train) {
+        if (train.getSeats() == null) {
+            return;
+        }
+        for (List<Integer> row : train.getSeats()) {
+            for (int column = 0; column < row.size(); column++) {
+                if (row.get(column) == Train.SEAT_HELD) {
+                    row.set(column, Train.SEAT_FREE);
+                }
+            }
+        }
     }
 
     public List<Train> searchTrains(String source, String destination) {
-        return trainList.stream().filter(train -> validTrain(train, source, destination)).collect(Collectors.toList());
+        return searchTrains(source, destination, null);
+    }
+
+    public List<Train> searchTrains(String source, String destination, String dateOfTravel) {
+        int from = SymbolTable.STATIONS.lookup(stationIndex.resolve(source));
+        int to = SymbolTable.STATIONS.lookup(stationIndex.resolve(destination));
+        if (from == SymbolTable.UNKNOWN || to == SymbolTable.UNKNOWN) {
+            return new ArrayList<>();
+        }
+        int[] cached = searchCache.get(from, to, dateOfTravel);
+        if (cached != null) {
+            List<Train> result = new ArrayList<>(cached.length);
+            for (int trainKey : cached) {
+                Train train = trainsByKey.get(trainKey);
+                if (train != null) {
+                    result.add(train);
+                }
+            }
+            return result;
+        }
+        List<Train> result = trainList.stream().filter(train -> validTrain(train, from, to)).collect(Collectors.toList());
+        searchCache.put(from, to, dateOfTravel, result);
+        return result;
+    }
+
+    /**
+     * Streams matching trains to the visitor instead of building a list. Returns the
+     * number of trains visited. Once station names are resolved the scan allocates
+     * nothing, so the visitor decides what, if anything, is kept.
+     */
+    public int visitTrains(String source, String destination, TrainSearchVisitor visitor) {
+        int from = SymbolTable.STATIONS.lookup(stationIndex.resolve(source));
+        int to = SymbolTable.STATIONS.lookup(stationIndex.resolve(destination));
+        if (from == SymbolTable.UNKNOWN || to == SymbolTable.UNKNOWN) {
+            return 0;
+        }
+        String fromName = SymbolTable.STATIONS.name(from);
+        String toName = SymbolTable.STATIONS.name(to);
+        SearchResultView view = RESULT_VIEW.get();
+        int visited = 0;
+        List<Train> trains = trainList;
+        for (int i = 0; i < trains.size(); i++) {
+            Train train = trains.get(i);
+            int sourceIndex = train.indexOfStation(from);
+            int destinationIndex = train.indexOfStation(to);
+            if (sourceIndex == -1 || destinationIndex <= sourceIndex) {
+                continue;
+            }
+            Map<String, String> times = train.getStationTimes();
+            visitor.visit(view.set(train.getTrainId(), train.getTrainNo(),
+                    times == null ? null : times.get(fromName),
+                    times == null ? null : times.get(toName),
+                    freeSeats(train),
+                    fareEngine.lowestBaseFare(train, sourceIndex, destinationIndex)));
+            visited++;
+        }
+        return visited;
+    }
+
+    /**
+     * Writes the search results as a JSON array to the generator as they are found.
+     */
+    public int writeSearchResults(String source, String destination, JsonGenerator generator) throws IOException {
+        SearchResultWriter writer = new SearchResultWriter(generator);
+        writer.begin();
+        int visited = visitTrains(source, destination, writer);
+        writer.end();
+        return visited;
+    }
+
+    private static int freeSeats(Train train) {
+        List<List<Integer>> seats = train.getSeats();
+        int free = 0;
+        for (int row = 0; row < seats.size(); row++) {
+            List<Integer> seatRow = seats.get(row);
+            for (int column = 0; column < seatRow.size(); column++) {
+                if (seatRow.get(column) == 0) {
+                    free++;
+                }
+            }
+        }
+        return free;
+    }
+
+    public SearchCache getSearchCache() {
+        return searchCache;
+    }
+
+    public List<String> suggestStations(String prefix, int limit) {
+        return stationIndex.suggest(prefix, limit);
+    }
+
+    public List<String> matchStations(String input, int limit) {
+        return stationIndex.fuzzyMatch(input, StationIndex.MAX_EDIT_DISTANCE, limit);
+    }
+
+    public StationIndex getStationIndex() {
+        return stationIndex;
+    }
+
+    public FareEngine getFareEngine() {
+        return fareEngine;
     }
-    private boolean validTrain(Train train, String source, String destination) {
-        List<String> stationOrder = train.getStations();
 
-        int sourceIndex = stationOrder.indexOf(source.toLowerCase());
-        int destinationIndex = stationOrder.indexOf(destination.toLowerCase());
+    /**
+     * Fare in paise for travelling on the train between two of its stations, or -1 if
+     * the train does not run from source to destination.
+     */
+    public long quoteFare(Train train, String source, String destination, SeatClass seatClass, String dateOfTravel) {
+        int sourceIndex = train.indexOfStation(SymbolTable.STATIONS.lookup(stationIndex.resolve(source)));
+        int destinationIndex = train.indexOfStation(SymbolTable.STATIONS.lookup(stationIndex.resolve(destination)));
+        if (sourceIndex == -1 || destinationIndex <= sourceIndex) {
+            return -1;
+        }
+        return fareEngine.fare(train, sourceIndex, destinationIndex, seatClass, dateOfTravel);
+    }
+    private boolean validTrain(Train train, int source, int destination) {
+        int sourceIndex = train.indexOfStation(source);
+        int destinationIndex = train.indexOfStation(destination);
 
         return sourceIndex != -1 && destinationIndex != -1 && sourceIndex < destinationIndex;
     }
 
 
-    public void addTrain(Train newTrain) {
-        Optional<Train> existingTrain = trainList.stream()
-                .filter(train -> train.getTrainId().equalsIgnoreCase(newTrain.getTrainId()))
-                .findFirst();
+    public List<Train> getTrains() {
+        return Collections.unmodifiableList(trainList);
+    }
 
-        if (existingTrain.isPresent()) {
-            updateTrain(newTrain);
-        } else {
+    /**
+     * The stored train. Treat it as read-only: to change it, update a copy() and pass
+     * that to updateTrain.
+     */
+    public Optional<Train> getTrain(String trainId) {
+        if (trainId == null) {
+            return Optional.empty();
+        }
+        int key = SymbolTable.TRAINS.lookup(trainId.toLowerCase());
+        return key == SymbolTable.UNKNOWN ? Optional.empty() : Optional.ofNullable(trainsByKey.get(key));
+    }
+
+    /**
+     * Returns the seat allocator for the given version of a train, rebuilding it only
+     * if the train changed through some path that did not keep the allocator in step.
+     */
+    public SeatAllocator getSeatAllocator(Train train) {
+        SeatAllocator allocator = seatAllocators.computeIfAbsent(train.getTrainKey(), key -> new SeatAllocator(train));
+        if (allocator.getVersion() != train.getVersion()) {
+            allocator.rebuild(train);
+        }
+        return allocator;
+    }
 
+    public boolean addTrain(Train newTrain) {
+        if (trainsByKey.putIfAbsent(newTrain.getTrainKey(), newTrain) != null) {
+            boolean replaced = updateTrain(newTrain);
+            if (!replaced && trainsByKey.get(newTrain.getTrainKey()) != newTrain) {
+                System.out.println("Train " + newTrain.getTrainId() + " already exists and was not replaced: version "
+                        + newTrain.getVersion() + " is not the stored version");
+            }
+            return replaced;
+        }
+        synchronized (catalogLock) {
             trainList.add(newTrain);
-            saveTrainListToFile();
         }
+        stationIndex.addStations(newTrain.getStations());
+        fareEngine.register(newTrain);
+        searchCache.invalidate(newTrain);
+        newTrain.setCatalogVersion(changeLog.record(newTrain.getTrainKey()));
+        if (saveTrainListToFile()) {
+            return true;
+        }
+        if (!trainsByKey.remove(newTrain.getTrainKey(), newTrain)) {
+            // An update has already replaced it; that update's save decides.
+            return saveTrainListToFile();
+        }
+        synchronized (catalogLock) {
+            trainList.remove(newTrain);
+        }
+        searchCache.invalidate(newTrain);
+        changeLog.record(newTrain.getTrainKey());
+        return false;
     }
 
-    public void updateTrain(Train updatedTrain) {
-        OptionalInt index = IntStream.range(0, trainList.size())
-                .filter(i -> trainList.get(i).getTrainId().equalsIgnoreCase(updatedTrain.getTrainId()))
-                .findFirst();
+    /**
+     * Replaces a train only if the caller's copy carries the version currently stored,
+     * then bumps the version. Returns false on a version conflict; the caller should
+     * re-read the train with getTrain and retry. The stored instance itself is refused:
+     * changes made to it in place would always match its own version. If the trains
+     * file cannot be saved the previous train is put back and false is returned.
+     */
+    public boolean updateTrain(Train updatedTrain) {
+        return updateTrain(updatedTrain, false);
+    }
+
+    /**
+     * updateTrain for a seat change the caller is about to journal. Once seat changes
+     * are journaled (see journalSeatChanges) the trains file is not rewritten for it;
+     * the journal makes it durable and the next checkpoint saves it.
+     */
+    public boolean updateSeats(Train updatedTrain) {
+        return updateTrain(updatedTrain, true);
+    }
 
-        if (index.isPresent()) {
-            trainList.set(index.getAsInt(), updatedTrain);
-            saveTrainListToFile();
+    private boolean updateTrain(Train updatedTrain, boolean journaled) {
+        Train[] previous = new Train[1];
+        boolean[] present = new boolean[1];
+        boolean[] stored = new boolean[1];
+        trainsByKey.computeIfPresent(updatedTrain.getTrainKey(), (key, current) -> {
+            present[0] = true;
+            if (current == updatedTrain) {
+                stored[0] = true;
+                return current;
+            }
+            if (current.getVersion() != updatedTrain.getVersion()) {
+                return current;
+            }
+            updatedTrain.setVersion(current.getVersion() + 1);
+            synchronized (catalogLock) {
+                int index = trainList.indexOf(current);
+                if (index >= 0) {
+                    trainList.set(index, updatedTrain);
+                }
+            }
+            previous[0] = current;
+            return updatedTrain;
+        });
+
+        if (!present[0]) {
+            return addTrain(updatedTrain);
+        }
+        if (stored[0]) {
+            System.out.println("Train " + updatedTrain.getTrainId() + " is the stored instance; update a copy() instead");
+            return false;
+        }
+        if (previous[0] == null) {
+            return false;
+        }
+        timetableChanged(previous[0], updatedTrain);
+        updatedTrain.setCatalogVersion(changeLog.record(updatedTrain.getTrainKey()));
+        if (journaled && seatJournal != null) {
+            return true;
+        }
+        if (saveTrainListToFile()) {
+            return true;
+        }
+        return rollBack(previous[0], updatedTrain) ? false : saveTrainListToFile();
+    }
+
+    /**
+     * Puts back the train an unsaved update replaced, or drops an unsaved new train
+     * when previous is null. Either way the change is recorded, so a client that was
+     * sent the unsaved train gets the previous one back or is told it was removed.
+     * Returns false if another update has already built on the unsaved one, which then
+     * stands or falls with that update's save.
+     */
+    private boolean rollBack(Train previous, Train unsaved) {
+        boolean[] restored = new boolean[1];
+        trainsByKey.computeIfPresent(unsaved.getTrainKey(), (key, current) -> {
+            if (current != unsaved) {
+                return current;
+            }
+            synchronized (catalogLock) {
+                int index = trainList.indexOf(unsaved);
+                if (index >= 0 && previous != null) {
+                    trainList.set(index, previous);
+                } else if (index >= 0) {
+                    trainList.remove(index);
+                }
+            }
+            restored[0] = true;
+            return previous;
+        });
+        if (restored[0]) {
+            if (previous != null) {
+                timetableChanged(unsaved, previous);
+            } else {
+                searchCache.invalidate(unsaved);
+            }
+            changeLog.record(unsaved.getTrainKey());
+        }
+        return restored[0];
+    }
+
+    /**
+     * Refreshes what depends on a train's timetable after it was replaced. Most
+     * updates only change seats, which leave the search cache and the distance table
+     * as they are; the surge cache is still dropped since surge follows occupancy.
+     */
+    private void timetableChanged(Train previous, Train updated) {
+        boolean sameStations = Arrays.equals(previous.getStationIds(), updated.getStationIds());
+        if (!sameStations) {
+            stationIndex.addStations(updated.getStations());
+        }
+        if (sameStations && Objects.equals(previous.getSegmentDistances(), updated.getSegmentDistances())) {
+            fareEngine.seatsChanged(updated);
         } else {
-            addTrain(updatedTrain);
+            fareEngine.register(updated);
         }
+        if (!sameStations || !Objects.equals(previous.getStationTimes(), updated.getStationTimes())) {
+            searchCache.invalidate(previous);
+            searchCache.invalidate(updated);
+        }
+    }
+
+    public TimetableImport importTrains(List<Train> trains) {
+        return importTrains(trains, false);
     }
 
-    private void saveTrainListToFile() {
+    /**
+     * Adds a batch of trains, or updates the timetable of those already stored under
+     * the same id, with one index update and one save instead of one per train. A
+     * stored train keeps its seat grid and coaches; only its number, stations, times
+     * and distances are taken from the batch. Trains are validated in parallel;
+     * invalid ones are rejected and a train repeating an id seen earlier in the batch
+     * is skipped as a duplicate. If the trains file cannot be saved every train is put
+     * back and the result reports the import as not saved. A dry run only reports
+     * what would happen.
+     */
+    public TimetableImport importTrains(List<Train> trains, boolean dryRun) {
+        TimetableImport result = new TimetableImport(dryRun);
+        List<List<String>> problems = IntStream.range(0, trains.size()).parallel()
+                .mapToObj(i -> TimetableImport.validate(trains.get(i)))
+                .collect(Collectors.toList());
+        ConcurrentHashMap<Integer, Integer> firstIndex = new ConcurrentHashMap<>();
+        IntStream.range(0, trains.size()).parallel()
+                .filter(i -> problems.get(i).isEmpty())
+                .forEach(i -> firstIndex.merge(trains.get(i).getTrainKey(), i, Math::min));
+
+        List<Train> accepted = new ArrayList<>(firstIndex.size());
+        for (int i = 0; i < trains.size(); i++) {
+            Train train = trains.get(i);
+            if (!problems.get(i).isEmpty()) {
+                result.invalid(i, problems.get(i));
+            } else if (firstIndex.get(train.getTrainKey()) != i) {
+                result.duplicate(train);
+            } else {
+                accepted.add(train);
+            }
+        }
+        if (dryRun) {
+            for (Train train : accepted) {
+                if (trainsByKey.containsKey(train.getTrainKey())) {
+                    result.updated(train);
+                } else {
+                    result.added(train);
+                }
+            }
+            return result;
+        }
+
+        List<Train> published = new ArrayList<>(accepted.size());
+        List<Train> replaced = new ArrayList<>(accepted.size());
+        for (Train train : accepted) {
+            Train[] previous = new Train[1];
+            Train stored = trainsByKey.compute(train.getTrainKey(), (key, current) -> {
+                previous[0] = current;
+                return current == null ? train : withTimetable(current, train);
+            });
+            published.add(stored);
+            replaced.add(previous[0]);
+            if (previous[0] == null) {
+                result.added(train);
+            } else {
+                result.updated(train);
+            }
+        }
+        synchronized (catalogLock) {
+            // One pass in stored order; this also drops stored entries that repeat an id.
+            List<Train> rebuilt = new ArrayList<>(trainList.size() + accepted.size());
+            Set<Integer> seen = new HashSet<>();
+            for (Train train : trainList) {
+                Train current = trainsByKey.get(train.getTrainKey());
+                if (current != null && seen.add(train.getTrainKey())) {
+                    rebuilt.add(current);
+                }
+            }
+            for (Train train : accepted) {
+                Train current = trainsByKey.get(train.getTrainKey());
+                if (current != null && seen.add(train.getTrainKey())) {
+                    rebuilt.add(current);
+                }
+            }
+            trainList = new CopyOnWriteArrayList<>(rebuilt);
+        }
+        stationIndex.addStations(accepted.parallelStream()
+                .flatMap(train -> train.getStations().stream())
+                .collect(Collectors.toSet()));
+        accepted.parallelStream().forEach(fareEngine::register);
+        searchCache.clear();
+        for (Train stored : published) {
+            stored.setCatalogVersion(changeLog.record(stored.getTrainKey()));
+        }
+        if (!saveTrainListToFile()) {
+            boolean restored = true;
+            for (int i = published.size() - 1; i >= 0; i--) {
+                restored &= rollBack(replaced.get(i), published.get(i));
+            }
+            if (!restored) {
+                saveTrainListToFile();
+            }
+            result.unsaved();
+        }
+        return result;
+    }
+
+    /**
+     * A new version of a stored train with the imported train's timetable and the
+     * stored seat grid, so re-importing a timetable never touches sold seats.
+     */
+    private static Train withTimetable(Train current, Train imported) {
+        Train merged = current.copy();
+        merged.setTrainNo(imported.getTrainNo());
+        merged.setStations(imported.getStations());
+        merged.setStationTimes(imported.getStationTimes());
+        merged.setSegmentDistances(imported.getSegmentDistances());
+        merged.setVersion(current.getVersion() + 1);
+        return merged;
+    }
+
+    public long getCatalogVersion() {
+        return changeLog.getVersion();
+    }
+
+    /**
+     * Trains added, changed or removed since the caller's catalog version, so clients
+     * and caches fetch only what moved. Falls back to the whole catalog if the change
+     * log has been compacted past that version or the caller's version is from the
+     * future. Every change is recorded in the log only after its train is fully
+     * published, or fully taken back, so a train listed up to the returned version is
+     * always read in that state or a newer one. A changed train no longer stored, e.g.
+     * an add rolled back when the trains file could not be saved, is listed as removed.
+     */
+    public CatalogChanges changesSince(long since) {
+        long version = changeLog.getVersion();
+        List<Integer> changed = since > version ? null : changeLog.changedSince(since);
+        if (changed == null) {
+            return new CatalogChanges(since, version, true, new ArrayList<>(trainList), List.of());
+        }
+        List<Train> trains = new ArrayList<>(changed.size());
+        List<String> removed = new ArrayList<>();
+        for (int key : changed) {
+            Train train = trainsByKey.get(key);
+            if (train != null) {
+                trains.add(train);
+            } else {
+                removed.add(SymbolTable.TRAINS.name(key));
+            }
+        }
+        return new CatalogChanges(since, version, false, trains, removed);
+    }
+
+    public CatalogChangeLog getChangeLog() {
+        return changeLog;
+    }
+
+    /**
+     * Makes the journal the durability point for seat changes made through updateSeats,
+     * so a booking costs one journal fsync instead of a rewrite of the trains file. The
+     * file is then saved as a checkpoint every CHECKPOINT_EVENTS journaled events, or
+     * sooner if the journal retains fewer, with the last sequence it covers recorded
+     * beside it. Events after that sequence are replayed onto the seat grids here, so
+     * call this once, before the trains are used.
+     */
+    public synchronized void journalSeatChanges(BookingJournal journal) throws IOException {
+        long checkpoint = 0;
+        byte[] recorded = Files.exists(checkpointFile.getPath()) ? checkpointFile.read() : new byte[0];
+        if (recorded.length > 0) {
+            checkpoint = Long.parseLong(new String(recorded, StandardCharsets.UTF_8).trim());
+        }
+        List<BookingEvent> missed = journal.eventsSince(checkpoint);
+        if (missed == null) {
+            System.out.println("Journal no longer holds every seat change since #" + checkpoint
+                    + "; replaying what it retains");
+            missed = journal.getRetainedEvents();
+        }
+        for (BookingEvent event : missed) {
+            Train train = getTrain(event.getTrainId()).orElse(null);
+            List<List<Integer>> seats = train == null ? null : train.getSeats();
+            if (seats == null || event.getRow() < 0 || event.getRow() >= seats.size()
+                    || event.getColumn() < 0 || event.getColumn() >= seats.get(event.getRow()).size()) {
+                continue;
+            }
+            seats.get(event.getRow()).set(event.getColumn(),
+                    event.getType() == BookingEvent.Type.BOOK ? Train.SEAT_BOOKED : Train.SEAT_FREE);
+        }
+        fareEngine.clearSurgeCache();
+        checkpointedSequence = checkpoint;
+        checkpointInterval = Math.max(Math.min(CHECKPOINT_EVENTS, journal.getRetainedEventLimit() / 2), 1);
+        seatJournal = journal;
+        journal.addCommitHook(sequence -> {
+            if (sequence - checkpointedSequence >= checkpointInterval) {
+                checkpoint();
+            }
+        });
+    }
+
+    /**
+     * Saves the trains file and, when seat changes are journaled, records the journal
+     * sequence it covers. Returns false if either write failed.
+     */
+    public synchronized boolean checkpoint() {
+        BookingJournal journal = seatJournal;
+        // Every event up to here was journaled after its update was published, so the save covers it.
+        long sequence = journal == null ? 0 : journal.getLastSequence();
+        if (!saveTrainListToFile()) {
+            return false;
+        }
+        if (journal == null || sequence <= checkpointedSequence) {
+            return true;
+        }
         try {
-            objectMapper.writeValue(new File(TRAIN_PATH), trainList);
-        } catch (IOException e) {
-            e.printStackTrace();
+            checkpointFile.write(Long.toString(sequence).getBytes(StandardCharsets.UTF_8));
+            checkpointedSequence = sequence;
+            return true;
+        } catch (IOException ex) {
+            System.out.println("Could not record trains checkpoint #" + sequence + ": " + ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Saves every change published so far and returns whether the caller's change is
+     * on disk. Saves are coalesced: changes made while one save is writing are all
+     * covered by the next, so a burst of bookings costs a few file writes rather than
+     * one each. On failure the previous file is still intact.
+     */
+    private boolean saveTrainListToFile() {
+        long change = publishedChanges.incrementAndGet();
+        synchronized (saveLock) {
+            if (savedChanges >= change) {
+                return true;
+            }
+            long covered = publishedChanges.get();
+            try {
+                trainFile.write(objectMapper.writeValueAsBytes(trainList));
+                savedChanges = covered;
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
         }
     }
 }
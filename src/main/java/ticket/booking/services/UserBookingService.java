@@ -2,85 +2,318 @@ package ticket.booking.services;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import ticket.booking.entities.BerthType;
+import ticket.booking.entities.BookingEvent;
+import ticket.booking.entities.SeatClass;
+import ticket.booking.entities.Ticket;
 import ticket.booking.entities.Train;
 import ticket.booking.entities.User;
+import ticket.booking.util.DurableFile;
+import ticket.booking.util.SymbolTable;
 import ticket.booking.util.UserServiceUtil;
 
-import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 
 public class UserBookingService {
     private User user;
-    private List<User> usersList;
+    private UserStore userStore;
+    private TrainService trainService;
+    private final DurableFile usersFile;
+    private final Map<String, BookingHistory> bookingHistories = Collections.synchronizedMap(newHistoryTable());
+    private final Object ticketIndexLock = new Object();
+    private volatile TicketIndex ticketIndex;
+    private final AvailabilityCalendar availabilityCalendar;
+    private final BookingJournal bookingJournal;
+    private final AvailabilityFeed availabilityFeed;
+    private final IdempotencyCache idempotencyCache = new IdempotencyCache();
+    private final SeatHoldManager seatHolds = new SeatHoldManager(this::expireHold);
+    private final List<Consumer<User>> ticketListeners = new CopyOnWriteArrayList<>();
 
     private ObjectMapper objectMapper = new ObjectMapper();
     private static final String USERS_PATH = "src/main/java/ticket/booking/localDb/users.json";
+    private static final String JOURNAL_FILE = "bookings.journal";
+    private static final String USER_STORE_FILE = "users.store";
+    private static final int MAX_BOOKING_ATTEMPTS = 5;
+    private static final int MAX_BOOKING_HISTORIES = 10_000;
 
 
 
     public UserBookingService(User user1) throws IOException {
-        this.user = user1;
-        loadUsers();
+        this(user1, USERS_PATH, null, null);
     }
 
     public UserBookingService() throws IOException {
+        this(null, USERS_PATH, null, null);
+    }
+
+    public UserBookingService(String usersPath, TrainService trainService) throws IOException {
+        this(null, usersPath, trainService, null);
+    }
+
+    /**
+     * Shares one journal between services working on the same users file; otherwise
+     * each service opens the journal next to the users file.
+     */
+    public UserBookingService(String usersPath, TrainService trainService, BookingJournal bookingJournal) throws IOException {
+        this(null, usersPath, trainService, bookingJournal);
+    }
+
+    private UserBookingService(User user1, String usersPath, TrainService trainService, BookingJournal bookingJournal)
+            throws IOException {
+        this.user = user1;
+        this.usersFile = new DurableFile(Path.of(usersPath));
+        this.trainService = trainService;
+        this.bookingJournal = bookingJournal != null ? bookingJournal
+                : new BookingJournal(Path.of(usersPath).resolveSibling(JOURNAL_FILE));
+        this.availabilityFeed = new AvailabilityFeed(this.bookingJournal);
+        this.availabilityCalendar = new AvailabilityCalendar(getTrainService().getStationIndex(),
+                AvailabilityCalendar.DEFAULT_HORIZON_DAYS);
         loadUsers();
+        for (BookingEvent event : this.bookingJournal.getRetainedEvents()) {
+            String key = scopedKey(event.getType(), event.getUserId(), event.getIdempotencyKey());
+            idempotencyCache.record(key, Boolean.TRUE, event.getTimestamp());
+        }
     }
 
+    /**
+     * Opens the user store next to the users file. On first use of a data directory
+     * the users file is imported into it as seed data; after that the store is the
+     * source of truth and only users in use are loaded. The ticket index is built
+     * from the store the first time it is asked for, not here.
+     */
     private void loadUsers() throws IOException {
-        File users = new File(USERS_PATH);
-        usersList = objectMapper.readValue(users, new TypeReference<List<User>>() {
-        });
+        userStore = UserStore.open(usersFile.getPath().resolveSibling(USER_STORE_FILE));
+        synchronized (userStore) {
+            if (userStore.size() == 0) {
+                userStore.putAllAbsent(objectMapper.readValue(usersFile.read(), new TypeReference<List<User>>() {
+                }));
+            }
+        }
+    }
+
+    public UserStore getUserStore() {
+        return userStore;
+    }
+
+    /**
+     * Index of every booked ticket, built by reading each stored user once on first
+     * use and kept up to date by bookings and cancels after that. The build also counts
+     * the tickets into the availability calendar.
+     */
+    public TicketIndex getTicketIndex() {
+        TicketIndex index = ticketIndex;
+        if (index != null) {
+            return index;
+        }
+        synchronized (ticketIndexLock) {
+            if (ticketIndex == null) {
+                TicketIndex built = new TicketIndex();
+                try {
+                    userStore.forEach(user1 -> built.addAll(user1.getTicketsBooked()));
+                } catch (IOException ex) {
+                    System.out.println("Could not index stored tickets: " + ex.getMessage());
+                }
+                for (TicketIndex.Run run : built.runs()) {
+                    findTrain(run.trainId()).ifPresent(train -> built.ticketsFor(run.trainId(), run.date())
+                            .forEach(ticket -> availabilityCalendar.add(train, ticket)));
+                }
+                ticketIndex = built;
+            }
+            return ticketIndex;
+        }
+    }
+
+    /**
+     * Applies a change to the ticket index if it has been built; otherwise the
+     * eventual build reads the change from the store.
+     */
+    private void updateTicketIndex(Consumer<TicketIndex> change) {
+        TicketIndex index = ticketIndex;
+        if (index == null) {
+            synchronized (ticketIndexLock) {
+                index = ticketIndex; // waits out a build that may have missed the change
+            }
+        }
+        if (index != null) {
+            change.accept(index);
+        }
+    }
+
+    /**
+     * Indexes a ticket and counts it in the availability calendar only if the index
+     * did not have it yet, so a ticket its build already read is not counted twice.
+     */
+    private void indexTicket(TicketIndex index, Ticket ticket) {
+        if (index.add(ticket) && ticket.getTrain() != null) {
+            findTrain(ticket.getTrain().getTrainId()).ifPresent(train -> availabilityCalendar.add(train, ticket));
+        }
+    }
+
+    private void unindexTicket(TicketIndex index, Ticket ticket) {
+        if (index.remove(ticket) && ticket.getTrain() != null) {
+            findTrain(ticket.getTrain().getTrainId()).ifPresent(train -> availabilityCalendar.remove(train, ticket));
+        }
+    }
+
+    /**
+     * Histories of recently active users, least recently used dropped first; a dropped
+     * one is rebuilt from the user's tickets when next asked for.
+     */
+    private static Map<String, BookingHistory> newHistoryTable() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BookingHistory> eldest) {
+                return size() > MAX_BOOKING_HISTORIES;
+            }
+        };
+    }
+
+    public BookingJournal getBookingJournal() {
+        return bookingJournal;
+    }
+
+    public IdempotencyCache getIdempotencyCache() {
+        return idempotencyCache;
+    }
+
+    /**
+     * Feed of seat changes from this service's bookings and cancels; subscribe to it
+     * instead of polling fetchSeats.
+     */
+    public AvailabilityFeed getAvailabilityFeed() {
+        return availabilityFeed;
+    }
+
+    /**
+     * Calls the listener with the user whenever a booking or cancellation changes
+     * that user's tickets, e.g. to drop cached ticket views.
+     */
+    public void addTicketListener(Consumer<User> listener) {
+        ticketListeners.add(listener);
     }
 
     public boolean login() {
-        Optional<User> foundUser = usersList.stream()
-                .filter(
-                        user1 -> {
-                            return user1.getName().equals(user.getName()) &&  UserServiceUtil.checkPassword(user1.getHashedPassword(), user.getPassword());
-                        }
-                ).findFirst();
-        return foundUser.isPresent();
+        return authenticate(user.getName(), user.getPassword()).isPresent();
+    }
+
+    /**
+     * Returns the stored user if the name and password match.
+     */
+    public Optional<User> authenticate(String name, String password) {
+        if (name == null || password == null) {
+            return Optional.empty();
+        }
+        try {
+            return userStore.get(name)
+                    .filter(user1 -> user1.getHashedPassword() != null
+                            && UserServiceUtil.checkPassword(password, user1.getHashedPassword()));
+        } catch (IOException ex) {
+            System.out.println("Could not load user " + name + ": " + ex.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
     }
 
     public Boolean signUp(User user1) {
+        if (userStore.contains(user1.getName())) {
+            System.out.println("User " + user1.getName() + " already exists.");
+            return Boolean.FALSE;
+        }
         try {
-            usersList.add(user1);
-            saveUserListToFile();
+            userStore.put(user1);
+            if (user1.getTicketsBooked() != null) {
+                updateTicketIndex(index -> user1.getTicketsBooked().forEach(ticket -> indexTicket(index, ticket)));
+            }
             return Boolean.TRUE;
         } catch (IOException ex) {
             return Boolean.FALSE;
         }
     }
 
-
-    private void saveUserListToFile() throws IOException {
-        File usersFile = new File(USERS_PATH);
-        objectMapper.writeValue(usersFile, usersList);
+    private void saveUser(User user1) {
+        try {
+            userStore.put(user1);
+        } catch (IOException ex) {
+            System.out.println("Could not save user " + user1.getName() + ": " + ex.getMessage());
+        }
     }
 
-    public void fetchBookings() {
-        Optional<User> userFetched = usersList.stream().filter(user1 -> {
-            return user1.getName().equals(user.getName()) && UserServiceUtil.checkPassword(user.getPassword(), user1.getHashedPassword());
-        }).findFirst();
-        if (userFetched.isPresent()) {
-            userFetched.get().printTickets();
+    /**
+     * Returns a page of the logged-in user's bookings, upcoming trips first. Pass the
+     * previous page's nextCursor to continue, or null to start.
+     */
+    public BookingHistory.Page fetchBookings(String cursor, int limit) {
+        if (user == null) {
+            return new BookingHistory.Page(new ArrayList<>(), null);
         }
+        return getBookingHistory(user).page(cursor, limit);
+    }
+
+    private BookingHistory getBookingHistory(User user1) {
+        long now = Instant.now().getEpochSecond();
+        BookingHistory history = bookingHistories.computeIfAbsent(user1.getUserId(),
+                id -> new BookingHistory(user1.getTicketsBooked(), now));
+        history.advanceTo(now);
+        return history;
     }
 
     public Boolean cancelBooking(String ticketId) {
+        return cancelBooking(ticketId, null);
+    }
+
+    /**
+     * Cancels a ticket once per idempotency key: a retry with the same key gets the
+     * first attempt's outcome back without cancelling again.
+     */
+    public Boolean cancelBooking(String ticketId, String idempotencyKey) {
+        String key = scopedKey(BookingEvent.Type.CANCEL, user == null ? null : user.getUserId(), idempotencyKey);
+        return idempotencyCache.execute(key, () -> cancel(ticketId, idempotencyKey));
+    }
+
+    private Boolean cancel(String ticketId, String idempotencyKey) {
         if (ticketId == null || ticketId.isEmpty()) {
             System.out.println("Ticket ID cannot be null or empty.");
             return Boolean.FALSE;
         }
         String finalTicketId1 = ticketId;  //Because strings are immutable
-        boolean removed = user.getTicketsBooked().removeIf(ticket -> ticket.getTicketId().equals(finalTicketId1));
+        Optional<Ticket> cancelled = user.getTicketsBooked().stream()
+                .filter(ticket -> ticket.getTicketId().equals(finalTicketId1))
+                .findFirst();
+        boolean removed = cancelled.isPresent() && user.getTicketsBooked().remove(cancelled.get());
         if (removed) {
+            updateTicketIndex(index -> unindexTicket(index, cancelled.get()));
+            saveUser(user);
+            if (!releaseSeat(cancelled.get(), idempotencyKey)) {
+                Train train = cancelled.get().getTrain();
+                publish(BookingEvent.Type.CANCEL, train == null ? null : train.getTrainId(), -1, -1, ticketId, idempotencyKey);
+            }
+            BookingHistory history = bookingHistories.get(user.getUserId());
+            if (history != null) {
+                history.remove(ticketId);
+            }
+            ticketsChanged(user);
             System.out.println("Ticket with ID " + ticketId + " has been canceled.");
             return Boolean.TRUE;
         } else {
@@ -90,35 +323,479 @@ public class UserBookingService {
     }
     public List<Train> getTrains(String source, String destination){
         try{
-            TrainService trainService = new TrainService();
-            return trainService.searchTrains(source, destination);
+            return getTrainService().searchTrains(source, destination);
+        }catch(IOException ex){
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Free seats per day from today across the booking horizon, summed over every train
+     * from source to destination. Use it to find a day with seats before fetchSeats.
+     */
+    public AvailabilityCalendar.Availability getAvailability(String source, String destination){
+        return getAvailabilityCalendar().forTrains(getTrains(source, destination), source, destination, LocalDate.now());
+    }
+
+    public AvailabilityCalendar.Availability getAvailability(Train train){
+        return getAvailabilityCalendar().forTrain(train, LocalDate.now());
+    }
+
+    /**
+     * The calendar behind getAvailability. It counts every dated ticket this service
+     * issues or cancels, and every dated hold while it lasts; stored tickets are
+     * counted with the ticket index, which this builds if need be.
+     */
+    public AvailabilityCalendar getAvailabilityCalendar() {
+        getTicketIndex();
+        return availabilityCalendar;
+    }
+
+    public List<String> suggestStations(String input, int limit){
+        try{
+            TrainService trainService = getTrainService();
+            List<String> suggestions = trainService.suggestStations(input, limit);
+            return suggestions.isEmpty() ? trainService.matchStations(input, limit) : suggestions;
         }catch(IOException ex){
             return new ArrayList<>();
         }
     }
+
+    public long quoteFare(Train train, String source, String destination, SeatClass seatClass){
+        try{
+            return getTrainService().quoteFare(train, source, destination, seatClass, null);
+        }catch(IOException ex){
+            return -1;
+        }
+    }
+
+    public synchronized TrainService getTrainService() throws IOException {
+        if (trainService == null) {
+            trainService = new TrainService();
+        }
+        return trainService;
+    }
+
     public List<List<Integer>> fetchSeats(Train train){
         return train.getSeats();
     }
     public Boolean bookTrainSeat(Train train, int row, int seat) {
+        return bookTrainSeat(train, row, seat, null);
+    }
+
+    /**
+     * Books a seat once per idempotency key: a retry with the same key gets the first
+     * attempt's outcome back without booking again. Only bookings that went through are
+     * journaled, so after a restart a retry of a rejected attempt is tried afresh.
+     */
+    public Boolean bookTrainSeat(Train train, int row, int seat, String idempotencyKey) {
+        return bookTrainSeat(user, train, row, seat, idempotencyKey);
+    }
+
+    /**
+     * Books a seat for the journey from source to destination on dateOfTravel, which
+     * the ticket records so it shows up in the train's manifest and calendar for that
+     * day. Stations are resolved like a search; the train must run from source to
+     * destination.
+     */
+    public Boolean bookTrainSeat(Train train, String source, String destination, String dateOfTravel, int row, int seat) {
+        return bookTrainSeat(user, train, source, destination, dateOfTravel, row, seat, null);
+    }
+
+    /**
+     * Books a seat for the given user instead of the logged-in one, so a server can
+     * book for many users at once through one service.
+     */
+    public Boolean bookTrainSeat(User user1, Train train, int row, int seat, String idempotencyKey) {
+        return bookTrainSeat(user1, train, null, null, null, row, seat, idempotencyKey);
+    }
+
+    public Boolean bookTrainSeat(User user1, Train train, String source, String destination, String dateOfTravel,
+                                 int row, int seat, String idempotencyKey) {
+        String key = scopedKey(BookingEvent.Type.BOOK, user1 == null ? null : user1.getUserId(), idempotencyKey);
+        return idempotencyCache.execute(key,
+                () -> bookSeat(user1, train, source, destination, dateOfTravel, row, seat, idempotencyKey));
+    }
+
+    private Boolean bookSeat(User user1, Train train, String source, String destination, String dateOfTravel,
+                             int row, int seat, String idempotencyKey) {
         try{
-            TrainService trainService = new TrainService();
-            List<List<Integer>> seats = train.getSeats();
-            if (row >= 0 && row < seats.size() && seat >= 0 && seat < seats.get(row).size()) {
-                if (seats.get(row).get(seat) == 0) {
-                    seats.get(row).set(seat, 1);
-                    train.setSeats(seats);
-                    trainService.addTrain(train);
-                    return true; // Booking successful
-                } else {
+            TrainService trainService = getTrainService();
+            String[] journey = journey(train, source, destination);
+            if (journey == null) {
+                return false; // The train does not run from source to destination
+            }
+            for (int attempt = 0; attempt < MAX_BOOKING_ATTEMPTS; attempt++) {
+                Train latest = trainService.getTrain(train.getTrainId()).orElse(train);
+                Train candidate = latest.copy();
+                List<List<Integer>> seats = candidate.getSeats();
+                if (row < 0 || row >= seats.size() || seat < 0 || seat >= seats.get(row).size()) {
+                    return false; // Invalid row or seat index
+                }
+                if (seats.get(row).get(seat) != 0) {
+                    refresh(train, latest);
                     return false; // Seat is already booked
                 }
-            } else {
-                return false; // Invalid row or seat index
+                seats.get(row).set(seat, 1);
+                if (trainService.updateSeats(candidate)) {
+                    refresh(train, candidate);
+                    Ticket ticket = issueTicket(user1, candidate, journey, dateOfTravel, row, seat, null);
+                    publish(user1, BookingEvent.Type.BOOK, candidate.getTrainId(), row, seat,
+                            ticket == null ? null : ticket.getTicketId(), idempotencyKey);
+                    return true; // Booking successful
+                }
+                // Someone else updated this train since we read it, retry on the new version
             }
+            return false;
         }catch (IOException ex){
             return Boolean.FALSE;
         }
     }
 
+    /**
+     * Books partySize seats of a class, letting the class allocator pick them with the
+     * given berth preference and keeping the party in one row where possible. Returns
+     * the booked seats, or an empty list if the class cannot seat the party.
+     */
+    public List<SeatAllocator.Seat> bookSeats(Train train, SeatClass seatClass, BerthType preference, int partySize) {
+        return bookSeats(train, null, null, null, seatClass, preference, partySize);
+    }
+
+    /**
+     * Like bookSeats, with every ticket issued for the journey from source to
+     * destination on dateOfTravel.
+     */
+    public List<SeatAllocator.Seat> bookSeats(Train train, String source, String destination, String dateOfTravel,
+                                              SeatClass seatClass, BerthType preference, int partySize) {
+        try{
+            TrainService trainService = getTrainService();
+            String[] journey = journey(train, source, destination);
+            if (journey == null) {
+                return new ArrayList<>();
+            }
+            for (int attempt = 0; attempt < MAX_BOOKING_ATTEMPTS; attempt++) {
+                Train latest = trainService.getTrain(train.getTrainId()).orElse(train);
+                SeatAllocator allocator = trainService.getSeatAllocator(latest);
+                List<SeatAllocator.Seat> chosen = allocator.choose(seatClass, preference, partySize);
+                if (chosen.isEmpty()) {
+                    refresh(train, latest);
+                    return chosen;
+                }
+                Train candidate = latest.copy();
+                boolean allFree = true;
+                for (SeatAllocator.Seat seat : chosen) {
+                    List<Integer> seatRow = candidate.getSeats().get(seat.row());
+                    allFree &= seatRow.get(seat.column()) == Train.SEAT_FREE;
+                    seatRow.set(seat.column(), Train.SEAT_BOOKED);
+                }
+                if (!allFree) {
+                    // The allocator disagrees with the grid it claims to index; rebuild and choose again.
+                    allocator.rebuild(latest);
+                    continue;
+                }
+                if (trainService.updateSeats(candidate)) {
+                    allocator.markBooked(chosen, latest.getVersion(), candidate.getVersion());
+                    refresh(train, candidate);
+                    for (SeatAllocator.Seat seat : chosen) {
+                        Ticket ticket = issueTicket(user, candidate, journey, dateOfTravel, seat.row(), seat.column(),
+                                seat.coachId());
+                        publish(BookingEvent.Type.BOOK, candidate.getTrainId(), seat.row(), seat.column(),
+                                ticket == null ? null : ticket.getTicketId(), null);
+                    }
+                    return chosen;
+                }
+            }
+            return new ArrayList<>();
+        }catch (IOException ex){
+            return new ArrayList<>();
+        }
+    }
+
+    public Optional<SeatHoldManager.Hold> holdSeat(Train train, int row, int seat) {
+        return holdSeat(train, row, seat, SeatHoldManager.DEFAULT_HOLD_MILLIS);
+    }
+
+    public Optional<SeatHoldManager.Hold> holdSeat(Train train, int row, int seat, long holdMillis) {
+        return holdSeat(train, null, null, null, row, seat, holdMillis);
+    }
+
+    /**
+     * Holds a free seat for holdMillis while payment completes, for the journey from
+     * source to destination on dateOfTravel. The seat is taken out of availability
+     * until the hold is confirmed, released or expires; on expiry it goes straight back
+     * to the free index. Returns empty if the seat is not free or the train does not
+     * run from source to destination.
+     */
+    public Optional<SeatHoldManager.Hold> holdSeat(Train train, String source, String destination, String dateOfTravel,
+                                                   int row, int seat, long holdMillis) {
+        String[] journey = journey(train, source, destination);
+        if (journey == null) {
+            return Optional.empty();
+        }
+        Train held = transitionSeat(train.getTrainId(), row, seat, Train.SEAT_FREE, Train.SEAT_HELD);
+        if (held == null) {
+            findTrain(train.getTrainId()).ifPresent(latest -> refresh(train, latest));
+            return Optional.empty();
+        }
+        refresh(train, held);
+        String userId = user == null ? null : user.getUserId();
+        SeatHoldManager.Hold hold = seatHolds.register(held.getTrainId(), row, seat, userId, journey[0], journey[1],
+                dateOfTravel, holdMillis);
+        availabilityCalendar.add(held, heldTicket(hold));
+        return Optional.of(hold);
+    }
+
+    /**
+     * The ticket a hold stands for while it lasts, as the availability calendar counts it.
+     */
+    private static Ticket heldTicket(SeatHoldManager.Hold hold) {
+        return new Ticket(hold.getHoldId(), hold.getUserId(), hold.getSource(), hold.getDestination(),
+                hold.getDateOfTravel(), null);
+    }
+
+    /**
+     * Books a held seat for the user who holds it. Returns false if the hold is unknown,
+     * has expired or belongs to another user.
+     */
+    public Boolean confirmHold(String holdId) {
+        return confirmHold(holdId, null, null, null);
+    }
+
+    /**
+     * Books a held seat with the ticket issued for the journey from source to
+     * destination on dateOfTravel; when all three are null the hold's own journey is
+     * used. Returns false if the hold is unknown, has expired or belongs to another
+     * user, or the train does not run from source to destination.
+     */
+    public Boolean confirmHold(String holdId, String source, String destination, String dateOfTravel) {
+        SeatHoldManager.Hold hold = seatHolds.take(holdId);
+        if (hold == null) {
+            return Boolean.FALSE;
+        }
+        if (!Objects.equals(hold.getUserId(), user == null ? null : user.getUserId())) {
+            seatHolds.restore(hold);
+            return Boolean.FALSE;
+        }
+        if (source == null && destination == null && dateOfTravel == null) {
+            source = hold.getSource();
+            destination = hold.getDestination();
+            dateOfTravel = hold.getDateOfTravel();
+        }
+        Optional<Train> held = findTrain(hold.getTrainId());
+        String[] journey = held.isEmpty() ? null : journey(held.get(), source, destination);
+        if (journey == null) {
+            seatHolds.restore(hold);
+            return Boolean.FALSE;
+        }
+        Train booked = transitionSeat(hold.getTrainId(), hold.getRow(), hold.getColumn(), Train.SEAT_HELD, Train.SEAT_BOOKED);
+        if (booked == null) {
+            seatHolds.restore(hold);
+            return Boolean.FALSE;
+        }
+        availabilityCalendar.remove(booked, heldTicket(hold));
+        Ticket ticket = issueTicket(user, booked, journey, dateOfTravel, hold.getRow(), hold.getColumn(), null);
+        publish(BookingEvent.Type.BOOK, booked.getTrainId(), hold.getRow(), hold.getColumn(),
+                ticket == null ? null : ticket.getTicketId(), null);
+        return Boolean.TRUE;
+    }
+
+    /**
+     * Gives a held seat back, e.g. when payment fails.
+     */
+    public Boolean releaseHold(String holdId) {
+        SeatHoldManager.Hold hold = seatHolds.take(holdId);
+        return hold != null && freeHeldSeat(hold);
+    }
+
+    public SeatHoldManager getSeatHolds() {
+        return seatHolds;
+    }
+
+    private void expireHold(SeatHoldManager.Hold hold) {
+        freeHeldSeat(hold);
+    }
+
+    private boolean freeHeldSeat(SeatHoldManager.Hold hold) {
+        Train freed = transitionSeat(hold.getTrainId(), hold.getRow(), hold.getColumn(), Train.SEAT_HELD, Train.SEAT_FREE);
+        if (freed == null) {
+            return false;
+        }
+        availabilityCalendar.remove(freed, heldTicket(hold));
+        return true;
+    }
+
+    /**
+     * Moves one seat from one state to another with a versioned train update, keeping
+     * the seat allocator and the availability feed in step. Returns the committed
+     * train, or null if the seat was not in the expected state.
+     */
+    private Train transitionSeat(String trainId, int row, int column, int from, int to) {
+        try{
+            TrainService trainService = getTrainService();
+            for (int attempt = 0; attempt < MAX_BOOKING_ATTEMPTS; attempt++) {
+                Optional<Train> latest = trainService.getTrain(trainId);
+                if (latest.isEmpty()) {
+                    return null;
+                }
+                SeatAllocator allocator = trainService.getSeatAllocator(latest.get());
+                long fromVersion = latest.get().getVersion();
+                Train candidate = latest.get().copy();
+                List<List<Integer>> seats = candidate.getSeats();
+                if (row < 0 || row >= seats.size() || column < 0 || column >= seats.get(row).size()
+                        || seats.get(row).get(column) != from) {
+                    return null;
+                }
+                seats.get(row).set(column, to);
+                if (trainService.updateSeats(candidate)) {
+                    SeatAllocator.Seat seat = allocator.seatAt(row, column);
+                    if (seat != null && to == Train.SEAT_FREE) {
+                        allocator.markFree(List.of(seat), fromVersion, candidate.getVersion());
+                    } else if (seat != null) {
+                        allocator.markBooked(List.of(seat), fromVersion, candidate.getVersion());
+                    }
+                    if (from == Train.SEAT_FREE || to == Train.SEAT_FREE) {
+                        availabilityFeed.publish(candidate.getTrainId(), row, column, to != Train.SEAT_FREE);
+                    }
+                    return candidate;
+                }
+            }
+            return null;
+        }catch (IOException ex){
+            return null;
+        }
+    }
+
+    private Optional<Train> findTrain(String trainId) {
+        try{
+            return getTrainService().getTrain(trainId);
+        }catch (IOException ex){
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Frees the seat held by a cancelled ticket, if the ticket records one. Returns
+     * whether a cancel was journaled.
+     */
+    private boolean releaseSeat(Ticket ticket, String idempotencyKey) {
+        if (ticket.getTrain() == null || ticket.getSeatRow() == null || ticket.getSeatColumn() == null) {
+            return false;
+        }
+        int row = ticket.getSeatRow();
+        int column = ticket.getSeatColumn();
+        try{
+            TrainService trainService = getTrainService();
+            for (int attempt = 0; attempt < MAX_BOOKING_ATTEMPTS; attempt++) {
+                Optional<Train> latest = trainService.getTrain(ticket.getTrain().getTrainId());
+                if (latest.isEmpty()) {
+                    return false;
+                }
+                Train candidate = latest.get().copy();
+                List<List<Integer>> seats = candidate.getSeats();
+                if (row >= seats.size() || column >= seats.get(row).size() || seats.get(row).get(column) != Train.SEAT_BOOKED) {
+                    return false;
+                }
+                seats.get(row).set(column, 0);
+                if (trainService.updateSeats(candidate)) {
+                    publish(BookingEvent.Type.CANCEL, candidate.getTrainId(), row, column, ticket.getTicketId(), idempotencyKey);
+                    return true;
+                }
+            }
+        }catch (IOException ex){
+            System.out.println("Could not release seat for ticket " + ticket.getTicketId());
+        }
+        return false;
+    }
+
+    /**
+     * The stations a ticket on the train runs between: source and destination resolved
+     * as in a search, with a null station standing for that end of the route. Returns
+     * null if the train does not run from source to destination.
+     */
+    private String[] journey(Train train, String source, String destination) {
+        List<String> route = train.getStations();
+        if (route == null || route.isEmpty()) {
+            return source == null && destination == null ? new String[2] : null;
+        }
+        if (source == null && destination == null) {
+            return new String[] {route.get(0), route.get(route.size() - 1)};
+        }
+        StationIndex stations;
+        try{
+            stations = getTrainService().getStationIndex();
+        }catch (IOException ex){
+            return null;
+        }
+        int from = source == null ? 0 : train.indexOfStation(SymbolTable.STATIONS.lookup(stations.resolve(source)));
+        int to = destination == null ? route.size() - 1
+                : train.indexOfStation(SymbolTable.STATIONS.lookup(stations.resolve(destination)));
+        if (from < 0 || to <= from) {
+            return null;
+        }
+        return new String[] {route.get(from), route.get(to)};
+    }
+
+    /**
+     * Gives the user a ticket for a seat just booked on the train, for the journey's
+     * stations on dateOfTravel, and saves the user. Returns null when there is no user.
+     */
+    private Ticket issueTicket(User user1, Train train, String[] journey, String dateOfTravel, int row, int column,
+                               String coachId) {
+        if (user1 == null) {
+            return null;
+        }
+        Ticket ticket = new Ticket(UUID.randomUUID().toString(), user1.getUserId(), journey[0], journey[1],
+                dateOfTravel, train);
+        ticket.setCoachId(coachId);
+        ticket.setSeatRow(row);
+        ticket.setSeatColumn(column);
+        synchronized (user1) {
+            if (user1.getTicketsBooked() == null) {
+                user1.setTicketsBooked(new ArrayList<>());
+            }
+            user1.getTicketsBooked().add(ticket);
+            saveUser(user1);
+        }
+        updateTicketIndex(index -> indexTicket(index, ticket));
+        BookingHistory history = bookingHistories.get(user1.getUserId());
+        if (history != null) {
+            history.add(ticket);
+        }
+        ticketsChanged(user1);
+        return ticket;
+    }
+
+    private void ticketsChanged(User user1) {
+        for (Consumer<User> listener : ticketListeners) {
+            listener.accept(user1);
+        }
+    }
+
+    private void publish(BookingEvent.Type type, String trainId, int row, int column, String ticketId, String idempotencyKey) {
+        publish(user, type, trainId, row, column, ticketId, idempotencyKey);
+    }
+
+    private void publish(User user1, BookingEvent.Type type, String trainId, int row, int column, String ticketId,
+                         String idempotencyKey) {
+        String userId = user1 == null ? null : user1.getUserId();
+        BookingEvent event = new BookingEvent(type, trainId, row, column, ticketId, userId);
+        event.setIdempotencyKey(idempotencyKey);
+        bookingJournal.append(event);
+    }
+
+    /**
+     * Idempotency keys are the client's, so they are scoped per user and operation.
+     */
+    private static String scopedKey(BookingEvent.Type type, String userId, String idempotencyKey) {
+        return idempotencyKey == null ? null : type + "/" + userId + "/" + idempotencyKey;
+    }
+
+    private void refresh(Train stale, Train latest) {
+        if (stale != latest) {
+            stale.setSeats(latest.copySeats());
+            stale.setVersion(latest.getVersion());
+        }
+    }
+
 }
 
@@ -0,0 +1,215 @@
+package ticket.booking.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ticket.booking.entities.User;
+import ticket.booking.util.PagedStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Users by name in two tiers: every account lives in a PagedStore on disk, and only
+ * recently used ones are kept in memory, in an LRU cache bounded by their serialized
+ * size. Users with an open session are pinned so the session and the store never hold
+ * two diverging copies; eviction skips them. Heap therefore follows active users, not
+ * registrations. Writes go through to disk before the cache is updated.
+ */
+public class UserStore implements AutoCloseable {
+
+    public static final long DEFAULT_CACHE_BYTES = 32L * 1024 * 1024;
+    /** Rough heap cost of a cached user beyond its JSON size: object headers, map entry. */
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+    private static final Map<Path, UserStore> OPEN = new ConcurrentHashMap<>();
+
+    private final Path path;
+    private final PagedStore store;
+    private final long maxCacheBytes;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LinkedHashMap<String, CachedUser> hot = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+    private long coldLoads;
+
+    public UserStore(Path path, long maxCacheBytes) throws IOException {
+        this.path = path;
+        this.store = new PagedStore(path);
+        this.maxCacheBytes = maxCacheBytes;
+    }
+
+    /**
+     * The store for the given file, shared by every service in this process that uses
+     * it so they see the same cached users.
+     */
+    public static synchronized UserStore open(Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        UserStore existing = OPEN.get(key);
+        if (existing == null) {
+            existing = new UserStore(key, DEFAULT_CACHE_BYTES);
+            OPEN.put(key, existing);
+        }
+        return existing;
+    }
+
+    public Optional<User> get(String name) throws IOException {
+        if (name == null) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            CachedUser cached = hot.get(name);
+            if (cached != null) {
+                return Optional.of(cached.user);
+            }
+        }
+        byte[] bytes = store.get(name);
+        if (bytes == null) {
+            return Optional.empty();
+        }
+        User loaded = objectMapper.readValue(bytes, User.class);
+        synchronized (this) {
+            CachedUser cached = hot.get(name);
+            if (cached != null) {
+                return Optional.of(cached.user); // another thread loaded it first
+            }
+            coldLoads++;
+            cache(name, loaded, bytes.length);
+            return Optional.of(loaded);
+        }
+    }
+
+    public boolean contains(String name) {
+        return name != null && store.contains(name);
+    }
+
+    public synchronized void put(User user) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(user);
+        store.put(user.getName(), bytes);
+        cache(user.getName(), user, bytes.length);
+    }
+
+    /**
+     * Adds users that are not stored yet, with one disk sync for the batch. They are
+     * not cached. Returns how many were added.
+     */
+    public synchronized int putAllAbsent(List<User> users) throws IOException {
+        Map<String, byte[]> records = new LinkedHashMap<>();
+        for (User user : users) {
+            if (user.getName() != null && !store.contains(user.getName()) && !records.containsKey(user.getName())) {
+                records.put(user.getName(), objectMapper.writeValueAsBytes(user));
+            }
+        }
+        store.putAll(records);
+        return records.size();
+    }
+
+    /**
+     * Keeps a user in memory until unpinned, e.g. for the length of a session.
+     */
+    public synchronized void pin(User user) {
+        CachedUser cached = hot.get(user.getName());
+        if (cached == null || cached.user != user) {
+            try {
+                cache(user.getName(), user, objectMapper.writeValueAsBytes(user).length);
+            } catch (IOException ex) {
+                cache(user.getName(), user, 0);
+            }
+            cached = hot.get(user.getName());
+        }
+        cached.pins++;
+    }
+
+    public synchronized void unpin(User user) {
+        CachedUser cached = hot.get(user.getName());
+        if (cached != null && cached.user == user && cached.pins > 0) {
+            cached.pins--;
+            evict();
+        }
+    }
+
+    /**
+     * Visits every stored user, reading cold ones from disk without caching them.
+     */
+    public void forEach(Consumer<User> action) throws IOException {
+        store.forEach((name, bytes) -> {
+            User user;
+            synchronized (this) {
+                CachedUser cached = hot.get(name);
+                user = cached == null ? null : cached.user;
+            }
+            action.accept(user != null ? user : objectMapper.readValue(bytes, User.class));
+        });
+    }
+
+    /**
+     * Number of registered users, cached or not.
+     */
+    public int size() {
+        return store.size();
+    }
+
+    public synchronized int getCachedUsers() {
+        return hot.size();
+    }
+
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * Number of lookups that had to read the user from disk.
+     */
+    public synchronized long getColdLoads() {
+        return coldLoads;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        OPEN.remove(path, this);
+        hot.clear();
+        cachedBytes = 0;
+        store.close();
+    }
+
+    private void cache(String name, User user, int serializedBytes) {
+        CachedUser entry = new CachedUser(user, serializedBytes + ENTRY_OVERHEAD_BYTES);
+        CachedUser previous = hot.put(name, entry);
+        if (previous != null) {
+            cachedBytes -= previous.weight;
+            if (previous.user == user) {
+                entry.pins = previous.pins;
+            }
+        }
+        cachedBytes += entry.weight;
+        evict();
+    }
+
+    /**
+     * Drops least recently used unpinned users until the cache fits its budget.
+     */
+    private void evict() {
+        Iterator<CachedUser> eldest = hot.values().iterator();
+        while (cachedBytes > maxCacheBytes && eldest.hasNext()) {
+            CachedUser entry = eldest.next();
+            if (entry.pins == 0) {
+                eldest.remove();
+                cachedBytes -= entry.weight;
+            }
+        }
+    }
+
+    private static class CachedUser {
+        private final User user;
+        private final long weight;
+        private int pins;
+
+        private CachedUser(User user, long weight) {
+            this.user = user;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ticket.booking.services;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteOrder;
+
+/**
+ * Popcounts a run of words a vector at a time, straight from the inventory segment.
+ * The ragged tail is handled with a lane mask rather than a scalar loop. Needs
+ * --add-modules jdk.incubator.vector.
+ */
+public class VectorOccupancyKernel implements OccupancyKernel {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public long accumulate(MemorySegment segment, long offset, int words, long[] perWord) {
+        LongVector total = LongVector.zero(SPECIES);
+        int lanes = SPECIES.length();
+        int i = 0;
+        for (int bound = SPECIES.loopBound(words); i < bound; i += lanes) {
+            LongVector counts = LongVector.fromMemorySegment(SPECIES, segment, offset + (long) i * Long.BYTES,
+                    ByteOrder.nativeOrder()).lanewise(VectorOperators.BIT_COUNT);
+            LongVector.fromArray(SPECIES, perWord, i).add(counts).intoArray(perWord, i);
+            total = total.add(counts);
+        }
+        if (i < words) {
+            VectorMask<Long> tail = SPECIES.indexInRange(i, words);
+            LongVector counts = LongVector.fromMemorySegment(SPECIES, segment, offset + (long) i * Long.BYTES,
+                    ByteOrder.nativeOrder(), tail).lanewise(VectorOperators.BIT_COUNT);
+            LongVector.fromArray(SPECIES, perWord, i, tail).add(counts).intoArray(perWord, i, tail);
+            total = total.add(counts);
+        }
+        return total.reduceLanes(VectorOperators.ADD);
+    }
+}
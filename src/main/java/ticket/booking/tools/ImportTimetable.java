@@ -0,0 +1,45 @@
+package ticket.booking.tools;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ticket.booking.entities.Train;
+import ticket.booking.services.TimetableImport;
+import ticket.booking.services.TrainService;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads a season's timetable (a JSON array of trains, as in trains.json) into the
+ * train catalog in one commit.
+ *
+ * Usage: ImportTimetable timetable.json [trainsPath] [--dry-run]
+ */
+public class ImportTimetable {
+
+    public static void main(String[] args) throws Exception {
+        List<String> paths = new ArrayList<>();
+        boolean dryRun = false;
+        for (String arg : args) {
+            if (arg.equals("--dry-run")) {
+                dryRun = true;
+            } else {
+                paths.add(arg);
+            }
+        }
+        if (paths.isEmpty() || paths.size() > 2) {
+            System.out.println("Usage: ImportTimetable timetable.json [trainsPath] [--dry-run]");
+            System.exit(2);
+        }
+        List<Train> trains = new ObjectMapper().readValue(new File(paths.get(0)), new TypeReference<List<Train>>() {});
+        TrainService trainService = paths.size() > 1 ? new TrainService(paths.get(1)) : new TrainService();
+        long start = System.nanoTime();
+        TimetableImport result = trainService.importTrains(trains, dryRun);
+        result.print(System.out);
+        System.out.printf("%d trains in %.1f ms%n", trains.size(), (System.nanoTime() - start) / 1e6);
+        if (!result.getInvalid().isEmpty() || !result.isSaved()) {
+            System.exit(1);
+        }
+    }
+}
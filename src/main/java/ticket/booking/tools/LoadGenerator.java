@@ -0,0 +1,340 @@
+package ticket.booking.tools;
+
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+import ticket.booking.services.BookingJournal;
+import ticket.booking.services.SessionManager;
+import ticket.booking.services.TrainService;
+import ticket.booking.services.UserBookingService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator that drives UserBookingService and TrainService in-process
+ * against a synthetic fleet, the way a sale window hits them. Requests arrive on a
+ * fixed schedule whether or not earlier ones have finished, and each latency is taken
+ * from the request's scheduled start, so a stall shows up as the queueing delay real
+ * users would see instead of being hidden by the generator slowing down.
+ *
+ * Run with: java ticket.booking.tools.LoadGenerator [--rate=500] [--duration=10]
+ * [--threads=8] [--trains=200] [--users=500] [--stations=50] [--seed=42]
+ * [--arrivals=uniform|poisson] [--mix=search:70,login:10,book:15,cancel:5]
+ */
+public class LoadGenerator {
+
+    public enum Operation {
+        SEARCH,
+        LOGIN,
+        BOOK,
+        CANCEL
+    }
+
+    public static class Config {
+        public int rate = 500;
+        public int durationSeconds = 10;
+        public int threads = 8;
+        public int trains = 200;
+        public int users = 500;
+        public int stations = 50;
+        public long seed = 42;
+        public boolean poisson = false;
+        public Map<Operation, Integer> mix = new EnumMap<>(Map.of(
+                Operation.SEARCH, 70, Operation.LOGIN, 10, Operation.BOOK, 15, Operation.CANCEL, 5));
+
+        public static Config parse(String[] args) {
+            Config config = new Config();
+            for (String arg : args) {
+                String[] parts = arg.replaceFirst("^--", "").split("=", 2);
+                String value = parts.length > 1 ? parts[1] : "";
+                switch (parts[0]) {
+                    case "rate" -> config.rate = Integer.parseInt(value);
+                    case "duration" -> config.durationSeconds = Integer.parseInt(value);
+                    case "threads" -> config.threads = Integer.parseInt(value);
+                    case "trains" -> config.trains = Integer.parseInt(value);
+                    case "users" -> config.users = Integer.parseInt(value);
+                    case "stations" -> config.stations = Integer.parseInt(value);
+                    case "seed" -> config.seed = Long.parseLong(value);
+                    case "arrivals" -> config.poisson = value.equalsIgnoreCase("poisson");
+                    case "mix" -> {
+                        config.mix = new EnumMap<>(Operation.class);
+                        for (String entry : value.split(",")) {
+                            String[] weight = entry.split(":");
+                            config.mix.put(Operation.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+                        }
+                    }
+                    default -> throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+            return config;
+        }
+    }
+
+    public static class Report {
+        private final Map<Operation, LatencyHistogram> responseTimes = new EnumMap<>(Operation.class);
+        private final Map<Operation, LatencyHistogram> serviceTimes = new EnumMap<>(Operation.class);
+        private final LatencyHistogram allResponseTimes = new LatencyHistogram();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final int targetRate;
+        private long elapsedNanos;
+
+        private Report(int targetRate) {
+            this.targetRate = targetRate;
+            for (Operation operation : Operation.values()) {
+                responseTimes.put(operation, new LatencyHistogram());
+                serviceTimes.put(operation, new LatencyHistogram());
+            }
+        }
+
+        private void record(Operation operation, long scheduled, long started, long finished) {
+            responseTimes.get(operation).record(finished - scheduled);
+            serviceTimes.get(operation).record(finished - started);
+            allResponseTimes.record(finished - scheduled);
+        }
+
+        /**
+         * Latency from each request's scheduled start, including any time it queued.
+         */
+        public LatencyHistogram getResponseTimes(Operation operation) {
+            return responseTimes.get(operation);
+        }
+
+        /**
+         * Latency from when a worker actually started each request.
+         */
+        public LatencyHistogram getServiceTimes(Operation operation) {
+            return serviceTimes.get(operation);
+        }
+
+        public LatencyHistogram getAllResponseTimes() {
+            return allResponseTimes;
+        }
+
+        public long getFailures() {
+            return failures.get();
+        }
+
+        public long getErrors() {
+            return errors.get();
+        }
+
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : allResponseTimes.count() * 1e9 / elapsedNanos;
+        }
+
+        public void print(PrintStream out) {
+            out.printf("Completed %d requests in %.2f s: %.1f req/s (target %d/s), %d refused, %d errors%n",
+                    allResponseTimes.count(), elapsedNanos / 1e9, getThroughput(), targetRate, getFailures(), getErrors());
+            out.println("Response time from scheduled start, ms:");
+            out.printf("%-8s %8s %9s %9s %9s %9s%n", "op", "count", "p50", "p99", "p999", "max");
+            for (Operation operation : Operation.values()) {
+                printRow(out, operation.name().toLowerCase(), responseTimes.get(operation));
+            }
+            printRow(out, "all", allResponseTimes);
+            out.println("Service time once started, ms:");
+            for (Operation operation : Operation.values()) {
+                printRow(out, operation.name().toLowerCase(), serviceTimes.get(operation));
+            }
+        }
+
+        private static void printRow(PrintStream out, String name, LatencyHistogram histogram) {
+            out.printf("%-8s %8d %9.3f %9.3f %9.3f %9.3f%n", name, histogram.count(),
+                    histogram.percentile(0.50) / 1e6, histogram.percentile(0.99) / 1e6,
+                    histogram.percentile(0.999) / 1e6, histogram.max() / 1e6);
+        }
+    }
+
+    private final Config config;
+    private final SyntheticFleet fleet;
+    private final TrainService trainService;
+    private final SessionManager sessionManager;
+    private final List<Worker> workers = new ArrayList<>();
+
+    /**
+     * Writes a synthetic fleet into dataDir and loads the services from it.
+     */
+    public LoadGenerator(Config config, Path dataDir) throws IOException {
+        this.config = config;
+        this.fleet = new SyntheticFleet(config.stations, config.trains, config.users, config.seed);
+        fleet.writeTo(dataDir);
+        String usersPath = dataDir.resolve("users.json").toString();
+        this.trainService = new TrainService(dataDir.resolve("trains.json").toString());
+        BookingJournal journal = new BookingJournal(dataDir.resolve("bookings.journal"));
+        this.sessionManager = new SessionManager(new UserBookingService(usersPath, trainService, journal),
+                SessionManager.DEFAULT_IDLE_TIMEOUT_MILLIS, System::currentTimeMillis);
+        for (int i = 0; i < config.threads; i++) {
+            workers.add(new Worker(i, new UserBookingService(usersPath, trainService, journal)));
+        }
+    }
+
+    public Report run() throws InterruptedException {
+        long[] schedule = schedule();
+        Report report = new Report(config.rate);
+        AtomicInteger next = new AtomicInteger();
+        PrintStream console = System.out;
+        // The services print on every cancel; keep that out of the measurement.
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long start = System.nanoTime() + 10_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        try {
+            for (Worker worker : workers) {
+                Thread thread = new Thread(() -> worker.run(schedule, start, next, report), "load-" + worker.index);
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } finally {
+            System.setOut(console);
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        sessionManager.close();
+        return report;
+    }
+
+    /**
+     * Scheduled start of every request, in nanoseconds after the run starts.
+     */
+    private long[] schedule() {
+        int total = config.rate * config.durationSeconds;
+        long[] schedule = new long[total];
+        double meanGapNanos = 1e9 / config.rate;
+        Random random = new Random(config.seed);
+        double at = 0;
+        for (int i = 0; i < total; i++) {
+            schedule[i] = (long) at;
+            at += config.poisson ? -Math.log(1 - random.nextDouble()) * meanGapNanos : meanGapNanos;
+        }
+        return schedule;
+    }
+
+    private class Worker {
+        private final int index;
+        private final UserBookingService bookingService;
+        private final List<User> ownUsers = new ArrayList<>();
+        private final Random random;
+
+        private Worker(int index, UserBookingService bookingService) {
+            this.index = index;
+            this.bookingService = bookingService;
+            this.random = new Random(config.seed + index);
+            // Each worker owns a slice of the users, so no user's tickets are shared.
+            for (int i = index; i < fleet.getUsers().size(); i += config.threads) {
+                ownUsers.add(fleet.getUsers().get(i));
+            }
+        }
+
+        private void run(long[] schedule, long start, AtomicInteger next, Report report) {
+            int i;
+            while ((i = next.getAndIncrement()) < schedule.length) {
+                long scheduled = start + schedule[i];
+                long wait;
+                while ((wait = scheduled - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Operation operation = pick();
+                long started = System.nanoTime();
+                try {
+                    if (!execute(operation)) {
+                        report.failures.incrementAndGet();
+                    }
+                } catch (RuntimeException ex) {
+                    report.errors.incrementAndGet();
+                }
+                report.record(operation, scheduled, started, System.nanoTime());
+            }
+        }
+
+        private Operation pick() {
+            int totalWeight = 0;
+            for (int weight : config.mix.values()) {
+                totalWeight += weight;
+            }
+            int roll = random.nextInt(Math.max(totalWeight, 1));
+            for (Map.Entry<Operation, Integer> entry : config.mix.entrySet()) {
+                roll -= entry.getValue();
+                if (roll < 0) {
+                    return entry.getKey();
+                }
+            }
+            return Operation.SEARCH;
+        }
+
+        private boolean execute(Operation operation) {
+            switch (operation) {
+                case SEARCH: {
+                    List<String> stations = fleet.getStations();
+                    String source = stations.get(random.nextInt(stations.size()));
+                    String destination = stations.get(random.nextInt(stations.size()));
+                    trainService.searchTrains(source, destination);
+                    return true;
+                }
+                case LOGIN: {
+                    int userIndex = random.nextInt(fleet.getUsers().size());
+                    Optional<String> token = sessionManager.login(SyntheticFleet.userName(userIndex),
+                            SyntheticFleet.password(userIndex));
+                    token.ifPresent(sessionManager::logout);
+                    return token.isPresent();
+                }
+                case BOOK:
+                    return book();
+                case CANCEL:
+                    return cancel();
+                default:
+                    return false;
+            }
+        }
+
+        private boolean book() {
+            if (ownUsers.isEmpty()) {
+                return false;
+            }
+            User user = ownUsers.get(random.nextInt(ownUsers.size()));
+            Train train = fleet.getTrains().get(random.nextInt(fleet.getTrains().size()));
+            int row = random.nextInt(SyntheticFleet.ROWS);
+            int column = random.nextInt(SyntheticFleet.COLUMNS);
+            bookingService.setUser(user);
+            Train latest = trainService.getTrain(train.getTrainId()).orElse(train).copy();
+            return bookingService.bookTrainSeat(latest, row, column);
+        }
+
+        private boolean cancel() {
+            if (ownUsers.isEmpty()) {
+                return false;
+            }
+            int offset = random.nextInt(ownUsers.size());
+            for (int i = 0; i < ownUsers.size(); i++) {
+                User user = ownUsers.get((offset + i) % ownUsers.size());
+                if (!user.getTicketsBooked().isEmpty()) {
+                    bookingService.setUser(user);
+                    return bookingService.cancelBooking(user.getTicketsBooked().get(0).getTicketId());
+                }
+            }
+            return false;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config config = Config.parse(args);
+        Path dataDir = Files.createTempDirectory("irctc-load");
+        System.out.println("Generating " + config.trains + " trains and " + config.users + " users in " + dataDir);
+        LoadGenerator generator = new LoadGenerator(config, dataDir);
+        System.out.println("Running " + config.rate + " req/s for " + config.durationSeconds + " s on "
+                + config.threads + " threads, mix " + config.mix);
+        generator.run().print(System.out);
+    }
+}
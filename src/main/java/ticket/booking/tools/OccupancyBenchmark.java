@@ -0,0 +1,72 @@
+package ticket.booking.tools;
+
+import ticket.booking.services.FleetOccupancy;
+import ticket.booking.services.OccupancyKernel;
+import ticket.booking.services.OffHeapSeatInventory;
+import ticket.booking.services.ScalarOccupancyKernel;
+
+import java.util.Random;
+
+/**
+ * Times a fleet-wide occupancy report with the scalar and the best available kernel
+ * over a randomly booked inventory.
+ *
+ * Usage: OccupancyBenchmark [trains] [days] [coaches] [seatsPerCoach] [fill]
+ * Run with --add-modules jdk.incubator.vector to include the vector kernel.
+ */
+public class OccupancyBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 20;
+
+    public static void main(String[] args) {
+        int trains = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int days = args.length > 1 ? Integer.parseInt(args[1]) : OffHeapSeatInventory.DEFAULT_HORIZON_DAYS;
+        int coaches = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int seats = args.length > 3 ? Integer.parseInt(args[3]) : 72;
+        double fill = args.length > 4 ? Double.parseDouble(args[4]) : 0.6;
+
+        try (OffHeapSeatInventory inventory = OffHeapSeatInventory.allocate(trains, days, coaches, seats)) {
+            Random random = new Random(42);
+            for (int train = 0; train < trains; train++) {
+                for (int day = 0; day < days; day++) {
+                    for (int coach = 0; coach < coaches; coach++) {
+                        for (int seat = 0; seat < seats; seat++) {
+                            if (random.nextDouble() < fill) {
+                                inventory.tryBook(train, day, coach, seat);
+                            }
+                        }
+                    }
+                }
+            }
+            long bytes = OffHeapSeatInventory.byteSize(trains, days, coaches, seats);
+            System.out.printf("Fleet of %d trains x %d days x %d coaches x %d seats, %.1f MiB of bitsets%n",
+                    trains, days, coaches, seats, bytes / (1024.0 * 1024.0));
+            OccupancyKernel best = OccupancyKernel.best();
+            double scalar = time(new FleetOccupancy(new ScalarOccupancyKernel()), inventory, "scalar", bytes);
+            if (best instanceof ScalarOccupancyKernel) {
+                System.out.println("Vector API not available; start with --add-modules jdk.incubator.vector");
+                return;
+            }
+            double vector = time(new FleetOccupancy(best), inventory, "vector", bytes);
+            System.out.printf("Speed-up: %.2fx%n", scalar / vector);
+        }
+    }
+
+    private static double time(FleetOccupancy occupancy, OffHeapSeatInventory inventory, String name, long bytes) {
+        double checksum = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            checksum += occupancy.report(inventory).getFleetLoadFactor();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            checksum += occupancy.report(inventory).getFleetLoadFactor();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double millis = best / 1e6;
+        System.out.printf("%-7s %8.2f ms per report, %6.2f GB/s, fleet load %.3f%n",
+                name, millis, bytes / (best / 1e9) / 1e9, checksum / (WARMUP_ROUNDS + MEASURED_ROUNDS));
+        return millis;
+    }
+}
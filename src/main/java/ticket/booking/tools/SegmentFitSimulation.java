@@ -0,0 +1,110 @@
+package ticket.booking.tools;
+
+import ticket.booking.entities.Train;
+import ticket.booking.services.SegmentSeatAllocator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Replays one random stream of partial-journey requests against first-fit and best-fit
+ * allocation on identical trains, and reports how much sellable inventory best fit
+ * recovers and how long a pick takes.
+ *
+ * Usage: SegmentFitSimulation [stations] [coaches] [seatsPerCoach] [requests] [minLegs]
+ */
+public class SegmentFitSimulation {
+
+    public static void main(String[] args) {
+        int stations = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int coaches = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int seats = args.length > 2 ? Integer.parseInt(args[2]) : 72;
+        int requests = args.length > 3 ? Integer.parseInt(args[3]) : 60_000;
+        int minLegs = args.length > 4 ? Integer.parseInt(args[4]) : 3;
+
+        int[][] stream = requests(stations, requests, new Random(42));
+        Result first = run(train(stations, coaches, seats), stream, false, minLegs);
+        Result best = run(train(stations, coaches, seats), stream, true, minLegs);
+        System.out.printf("%d stations, %d seats, %d requests, gaps under %d legs count as stranded%n",
+                stations, coaches * seats, requests, minLegs);
+        print("first-fit", first);
+        print("best-fit", best);
+        System.out.printf("Best fit sold %d more seat-legs (%+.1f%%) and stranded %d fewer%n",
+                best.soldSeatLegs - first.soldSeatLegs,
+                100.0 * (best.soldSeatLegs - first.soldSeatLegs) / Math.max(first.soldSeatLegs, 1),
+                first.fragmentation.strandedSeatLegs() - best.fragmentation.strandedSeatLegs());
+    }
+
+    static Train train(int stations, int coaches, int seatsPerCoach) {
+        List<String> route = new ArrayList<>();
+        for (int i = 0; i < stations; i++) {
+            route.add("stop-" + i);
+        }
+        List<List<Integer>> seats = new ArrayList<>();
+        for (int coach = 0; coach < coaches; coach++) {
+            List<Integer> row = new ArrayList<>();
+            for (int seat = 0; seat < seatsPerCoach; seat++) {
+                row.add(Train.SEAT_FREE);
+            }
+            seats.add(row);
+        }
+        return new Train("SIM1", "1", seats, new HashMap<>(), route);
+    }
+
+    private static int[][] requests(int stations, int count, Random random) {
+        int[][] stream = new int[count][];
+        for (int i = 0; i < count; i++) {
+            int from = random.nextInt(stations - 1);
+            int to = from + 1 + random.nextInt(stations - 1 - from);
+            // A share of cancellations keeps gaps opening in the middle of journeys.
+            stream[i] = new int[] {from, to, random.nextInt(4) == 0 ? 1 : 0};
+        }
+        return stream;
+    }
+
+    private static Result run(Train train, int[][] stream, boolean bestFit, int minLegs) {
+        SegmentSeatAllocator allocator = new SegmentSeatAllocator(train);
+        List<SegmentSeatAllocator.Pick> held = new ArrayList<>();
+        Random random = new Random(7);
+        Result result = new Result();
+        long nanos = 0;
+        for (int[] request : stream) {
+            if (request[2] == 1 && !held.isEmpty()) {
+                SegmentSeatAllocator.Pick cancelled = held.remove(random.nextInt(held.size()));
+                allocator.release(cancelled.row(), cancelled.column(), cancelled.from(), cancelled.to());
+                result.soldSeatLegs -= cancelled.to() - cancelled.from();
+                continue;
+            }
+            long start = System.nanoTime();
+            SegmentSeatAllocator.Pick pick = allocator.choose(request[0], request[1], bestFit);
+            nanos += System.nanoTime() - start;
+            result.picks++;
+            if (pick == null) {
+                result.rejected++;
+                continue;
+            }
+            allocator.book(pick.row(), pick.column(), pick.from(), pick.to());
+            held.add(pick);
+            result.soldSeatLegs += pick.to() - pick.from();
+        }
+        result.meanPickMicros = nanos / 1_000.0 / Math.max(result.picks, 1);
+        result.fragmentation = allocator.fragmentation(minLegs);
+        return result;
+    }
+
+    private static void print(String name, Result result) {
+        System.out.printf("%-9s sold %,d seat-legs, rejected %,d, sellable %,d, stranded %,d in %,d gaps, %.1f us/pick%n",
+                name, result.soldSeatLegs, result.rejected, result.fragmentation.sellableSeatLegs(),
+                result.fragmentation.strandedSeatLegs(), result.fragmentation.strandedGaps(), result.meanPickMicros);
+    }
+
+    private static class Result {
+        private long picks;
+        private long rejected;
+        private long soldSeatLegs;
+        private double meanPickMicros;
+        private SegmentSeatAllocator.Fragmentation fragmentation;
+    }
+}
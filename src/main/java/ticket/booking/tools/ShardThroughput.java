@@ -0,0 +1,131 @@
+package ticket.booking.tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ticket.booking.entities.Train;
+import ticket.booking.services.BookingNode;
+import ticket.booking.services.ShardRouter;
+import ticket.booking.services.TrainService;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures routed booking throughput against 1, 2 and 4 booking nodes started in this
+ * JVM over loopback TCP. The same clients book the same distinct seats, each for its
+ * own user with an idempotency key, through a ShardRouter; only the node count changes.
+ *
+ * A booking is durable once its shard's journal has forced it; the trains file is only
+ * checkpointed. What still serializes each node is the user store write that issues
+ * the ticket, two fsyncs per booking under the store lock, so adding nodes scales
+ * with the disk's sync rate, and only while there are cores for every node.
+ *
+ * Usage: ShardThroughput [nodeCounts] [trains] [clients] [bookingsPerClient]
+ * e.g. ShardThroughput 1,2,4 64 16 500
+ */
+public class ShardThroughput {
+
+    private static final int ROWS = 8;
+    private static final int COLUMNS = 72;
+
+    public static void main(String[] args) throws Exception {
+        String[] nodeCounts = (args.length > 0 ? args[0] : "1,2,4").split(",");
+        int trains = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int bookingsPerClient = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+        if ((long) clients * bookingsPerClient > (long) trains * ROWS * COLUMNS) {
+            System.out.println("More bookings than seats; add trains or book less");
+            return;
+        }
+
+        System.out.printf("%d trains of %d seats, %d clients x %d bookings%n",
+                trains, ROWS * COLUMNS, clients, bookingsPerClient);
+        for (String nodeCount : nodeCounts) {
+            int nodes = Integer.parseInt(nodeCount.trim());
+            Path dir = Files.createTempDirectory("shard-throughput");
+            double perSecond = run(dir, nodes, trains, clients, bookingsPerClient);
+            System.out.printf("%d node(s): %,10.0f bookings/s%n", nodes, perSecond);
+        }
+    }
+
+    /**
+     * Books every client's share of seats and returns successful bookings per second.
+     */
+    static double run(Path dir, int nodeCount, int trains, int clients, int bookingsPerClient) throws Exception {
+        Path catalog = dir.resolve("catalog.json");
+        new ObjectMapper().writeValue(catalog.toFile(), catalog(trains));
+        List<BookingNode> nodes = new ArrayList<>();
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            for (int shard = 0; shard < nodeCount; shard++) {
+                Path shardDir = Files.createDirectories(dir.resolve(ShardRouter.shardName(shard)));
+                Path trainsPath = shardDir.resolve("trains.json");
+                Path usersPath = shardDir.resolve("users.json");
+                BookingNode.writeShard(catalog.toString(), shard, nodeCount, trainsPath.toString());
+                Files.writeString(usersPath, "[]");
+                BookingNode node = new BookingNode(0, usersPath.toString(), new TrainService(trainsPath.toString()));
+                node.start();
+                nodes.add(node);
+                addresses.add(new InetSocketAddress("127.0.0.1", node.getPort()));
+            }
+            try (ShardRouter router = new ShardRouter(addresses)) {
+                List<Future<Integer>> results = new ArrayList<>();
+                long start = System.nanoTime();
+                for (int client = 0; client < clients; client++) {
+                    int id = client;
+                    results.add(pool.submit(() -> book(router, id, clients, trains, bookingsPerClient)));
+                }
+                int booked = 0;
+                for (Future<Integer> result : results) {
+                    booked += result.get();
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                if (booked != clients * bookingsPerClient) {
+                    System.out.println("Only " + booked + " of " + clients * bookingsPerClient + " bookings succeeded");
+                }
+                return booked / seconds;
+            }
+        } finally {
+            pool.shutdownNow();
+            nodes.forEach(BookingNode::close);
+        }
+    }
+
+    private static int book(ShardRouter router, int client, int clients, int trains, int bookings) throws IOException {
+        int booked = 0;
+        String userId = "client-" + client;
+        for (int i = 0; i < bookings; i++) {
+            int seat = i * clients + client;
+            int train = seat % trains;
+            int index = seat / trains;
+            if (router.bookSeat(userId, "TP" + train, index / COLUMNS, index % COLUMNS, userId + "-" + i)) {
+                booked++;
+            }
+        }
+        return booked;
+    }
+
+    private static List<Train> catalog(int trains) {
+        List<Train> catalog = new ArrayList<>();
+        for (int t = 0; t < trains; t++) {
+            List<List<Integer>> seats = new ArrayList<>();
+            for (int row = 0; row < ROWS; row++) {
+                List<Integer> values = new ArrayList<>();
+                for (int column = 0; column < COLUMNS; column++) {
+                    values.add(Train.SEAT_FREE);
+                }
+                seats.add(values);
+            }
+            catalog.add(new Train("TP" + t, String.valueOf(t), seats, new HashMap<>(), List.of("pune", "goa")));
+        }
+        return catalog;
+    }
+}
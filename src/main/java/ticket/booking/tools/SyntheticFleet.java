@@ -0,0 +1,111 @@
+package ticket.booking.tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mindrot.jbcrypt.BCrypt;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates a random but reproducible fleet of trains and user base and writes them as
+ * trains.json and users.json in a directory, for load runs that must not touch the
+ * real data. Every user starts with one booked ticket so there is something to cancel.
+ */
+public class SyntheticFleet {
+
+    public static final int ROWS = 10;
+    public static final int COLUMNS = 6;
+    /** BCrypt cost for synthetic users; low so sign-up is quick, login still does real work. */
+    private static final int PASSWORD_COST = 4;
+
+    private final List<String> stations = new ArrayList<>();
+    private final List<Train> trains = new ArrayList<>();
+    private final List<User> users = new ArrayList<>();
+
+    public SyntheticFleet(int stationCount, int trainCount, int userCount, long seed) {
+        Random random = new Random(seed);
+        for (int i = 0; i < stationCount; i++) {
+            stations.add("station-" + i);
+        }
+        for (int i = 0; i < trainCount; i++) {
+            trains.add(newTrain("load-" + i, random));
+        }
+        String salt = BCrypt.gensalt(PASSWORD_COST, new SecureRandom());
+        for (int i = 0; i < userCount; i++) {
+            String name = userName(i);
+            List<Ticket> tickets = new ArrayList<>();
+            Train train = trains.get(random.nextInt(trains.size()));
+            int row = random.nextInt(ROWS);
+            int column = random.nextInt(COLUMNS);
+            if (train.getSeats().get(row).get(column) == 0) {
+                train.getSeats().get(row).set(column, 1);
+                List<String> route = train.getStations();
+                Ticket ticket = new Ticket("ticket-" + i, "id-" + i, route.get(0), route.get(route.size() - 1),
+                        LocalDate.of(2026, 1, 1).plusDays(random.nextInt(120)).toString(), train);
+                ticket.setSeatRow(row);
+                ticket.setSeatColumn(column);
+                tickets.add(ticket);
+            }
+            users.add(new User(name, null, BCrypt.hashpw(password(i), salt), tickets, "id-" + i));
+        }
+    }
+
+    public static String userName(int index) {
+        return "user-" + index;
+    }
+
+    public static String password(int index) {
+        return "pass-" + index;
+    }
+
+    public List<String> getStations() {
+        return stations;
+    }
+
+    public List<Train> getTrains() {
+        return trains;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    /**
+     * Writes trains.json and users.json into the directory.
+     */
+    public void writeTo(Path directory) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.writeValue(directory.resolve("trains.json").toFile(), trains);
+        objectMapper.writeValue(directory.resolve("users.json").toFile(), users);
+    }
+
+    private Train newTrain(String trainId, Random random) {
+        List<String> route = new ArrayList<>(stations);
+        Collections.shuffle(route, random);
+        route = new ArrayList<>(route.subList(0, Math.min(route.size(), 4 + random.nextInt(7))));
+        List<List<Integer>> seats = new ArrayList<>();
+        for (int row = 0; row < ROWS; row++) {
+            List<Integer> seatRow = new ArrayList<>();
+            for (int column = 0; column < COLUMNS; column++) {
+                seatRow.add(0);
+            }
+            seats.add(seatRow);
+        }
+        Map<String, String> times = new HashMap<>();
+        for (int stop = 0; stop < route.size(); stop++) {
+            times.put(route.get(stop), String.format("%02d:%02d:00", (6 + stop * 2) % 24, random.nextInt(60)));
+        }
+        return new Train(trainId, String.valueOf(10000 + random.nextInt(90000)), seats, times, route);
+    }
+}
@@ -0,0 +1,88 @@
+package ticket.booking.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maps keys onto nodes with consistent hashing. Each node is placed on the ring at
+ * several virtual points so load evens out, and adding or removing a node only moves
+ * the keys that land next to its points.
+ */
+public class ConsistentHashRing<N> {
+
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final TreeMap<Long, N> ring = new TreeMap<>();
+    private final List<N> nodes = new ArrayList<>();
+    private final int virtualNodes;
+
+    public ConsistentHashRing() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ConsistentHashRing(int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes must be positive");
+        }
+        this.virtualNodes = virtualNodes;
+    }
+
+    public synchronized void addNode(N node) {
+        if (nodes.contains(node)) {
+            return;
+        }
+        nodes.add(node);
+        for (int i = 0; i < virtualNodes; i++) {
+            ring.put(hash(node + "#" + i), node);
+        }
+    }
+
+    public synchronized void removeNode(N node) {
+        if (!nodes.remove(node)) {
+            return;
+        }
+        for (int i = 0; i < virtualNodes; i++) {
+            ring.remove(hash(node + "#" + i), node);
+        }
+    }
+
+    /**
+     * Returns the node owning the key, or null if the ring is empty.
+     */
+    public synchronized N nodeFor(String key) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, N> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    public synchronized List<N> getNodes() {
+        return List.copyOf(nodes);
+    }
+
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    /**
+     * 64-bit FNV-1a with a murmur finalizer, so that similar keys like "shard-1#7" and
+     * "shard-1#8" still spread across the ring.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
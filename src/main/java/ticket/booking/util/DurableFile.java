@@ -0,0 +1,240 @@
+package ticket.booking.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * A data file that is replaced atomically and checked on load. Each write goes to a
+ * temp file that is fsynced and renamed over the target, so a crash leaves either the
+ * old or the new contents, never a mix. A sidecar (name.crc) holds a CRC32C per block
+ * of the data, and the previous good version is kept as name.bak with its own sidecar.
+ *
+ * On read the data is verified block by block; a torn or corrupted file falls back to
+ * the newest version that verifies. A file that has never had a sidecar, such as the
+ * checked-in seed data, is read as it is.
+ */
+public class DurableFile {
+
+    public static final int BLOCK_SIZE = 64 * 1024;
+    private static final int MAGIC = 0x43524343;
+
+    private final Path target;
+    private final Path checksums;
+    private final Path backup;
+    private final Path backupChecksums;
+    private final Path tempData;
+    private final Path tempChecksums;
+    private boolean targetGood;
+
+    public DurableFile(Path target) {
+        this.target = target;
+        String name = target.getFileName().toString();
+        this.checksums = target.resolveSibling(name + ".crc");
+        this.backup = target.resolveSibling(name + ".bak");
+        this.backupChecksums = target.resolveSibling(name + ".bak.crc");
+        this.tempData = target.resolveSibling(name + ".tmp");
+        this.tempChecksums = target.resolveSibling(name + ".crc.tmp");
+    }
+
+    public Path getPath() {
+        return target;
+    }
+
+    /**
+     * Returns the newest verified contents: the target, the target with a sidecar left
+     * behind by an interrupted write, or the backup. Throws if none of them verify.
+     */
+    public synchronized byte[] read() throws IOException {
+        if (!Files.exists(target) && !Files.exists(backup)) {
+            throw new NoSuchFileException(target.toString());
+        }
+        if (Files.exists(target)) {
+            byte[] data = Files.readAllBytes(target);
+            if (matches(data, checksums) || matches(data, tempChecksums) || !Files.exists(checksums)) {
+                targetGood = true;
+                return data;
+            }
+            System.out.println("Checksum mismatch in " + target + " at block " + firstBadBlock(data)
+                    + ", recovering from " + backup.getFileName());
+        }
+        targetGood = false;
+        if (Files.exists(backup)) {
+            byte[] data = Files.readAllBytes(backup);
+            if (!Files.exists(backupChecksums) || matches(data, backupChecksums)) {
+                return data;
+            }
+        }
+        throw new IOException("No intact copy of " + target);
+    }
+
+    /**
+     * Atomically replaces the file with the given contents. When this returns the new
+     * contents and their checksums are on disk.
+     */
+    public synchronized void write(byte[] data) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        writeSynced(tempData, data);
+        writeSynced(tempChecksums, encodeChecksums(data));
+
+        // Keep the current version as the last good snapshot, unless it failed to verify.
+        if (targetGood && Files.exists(target)) {
+            link(target, backup);
+            if (Files.exists(checksums)) {
+                link(checksums, backupChecksums);
+            } else {
+                Files.deleteIfExists(backupChecksums);
+            }
+        }
+        move(tempData, target);
+        move(tempChecksums, checksums);
+        syncDirectory(directory);
+        targetGood = true;
+    }
+
+    /**
+     * Returns the index of the first block that does not match the sidecar, or -1 if
+     * every block matches. A truncated file reports the block where it was cut.
+     */
+    public synchronized int firstBadBlock(byte[] data) throws IOException {
+        if (!Files.exists(checksums)) {
+            return -1;
+        }
+        int[] expected = decodeChecksums(Files.readAllBytes(checksums), -1);
+        if (expected == null) {
+            return 0;
+        }
+        int blocks = blockCount(data.length);
+        for (int block = 0; block < Math.min(blocks, expected.length); block++) {
+            if (blockChecksum(data, block) != expected[block]) {
+                return block;
+            }
+        }
+        return blocks == expected.length ? -1 : Math.min(blocks, expected.length);
+    }
+
+    private static boolean matches(byte[] data, Path sidecar) throws IOException {
+        if (!Files.exists(sidecar)) {
+            return false;
+        }
+        int[] expected = decodeChecksums(Files.readAllBytes(sidecar), data.length);
+        if (expected == null) {
+            return false;
+        }
+        for (int block = 0; block < expected.length; block++) {
+            if (blockChecksum(data, block) != expected[block]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int blockChecksum(byte[] data, int block) {
+        CRC32C crc = new CRC32C();
+        int offset = block * BLOCK_SIZE;
+        crc.update(data, offset, Math.min(BLOCK_SIZE, data.length - offset));
+        return (int) crc.getValue();
+    }
+
+    private static int blockCount(long length) {
+        return (int) ((length + BLOCK_SIZE - 1) / BLOCK_SIZE);
+    }
+
+    /**
+     * Sidecar layout: magic, block size, data length, block count, one CRC32C per
+     * block, then a CRC32C of everything before it.
+     */
+    static byte[] encodeChecksums(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        int blocks = blockCount(data.length);
+        out.writeInt(MAGIC);
+        out.writeInt(BLOCK_SIZE);
+        out.writeLong(data.length);
+        out.writeInt(blocks);
+        for (int block = 0; block < blocks; block++) {
+            out.writeInt(blockChecksum(data, block));
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Returns the per-block checksums, or null if the sidecar is damaged or describes
+     * data of a different length. A dataLength of -1 skips the length check.
+     */
+    private static int[] decodeChecksums(byte[] sidecar, long dataLength) throws IOException {
+        if (sidecar.length < 24) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(sidecar, 0, sidecar.length - 4);
+        if ((int) crc.getValue() != ByteBuffer.wrap(sidecar, sidecar.length - 4, 4).getInt()) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(sidecar));
+        if (in.readInt() != MAGIC || in.readInt() != BLOCK_SIZE) {
+            return null;
+        }
+        long length = in.readLong();
+        int blocks = in.readInt();
+        if ((dataLength != -1 && length != dataLength) || blocks != blockCount(length) || sidecar.length != 24 + 4 * blocks) {
+            return null;
+        }
+        int[] checksums = new int[blocks];
+        for (int block = 0; block < blocks; block++) {
+            checksums[block] = in.readInt();
+        }
+        return checksums;
+    }
+
+    private static void writeSynced(Path path, byte[] data) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    private static void link(Path existing, Path link) throws IOException {
+        Files.deleteIfExists(link);
+        try {
+            Files.createLink(link, existing);
+        } catch (UnsupportedOperationException | IOException ex) {
+            Files.copy(existing, link, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void syncDirectory(Path directory) {
+        // Makes the renames durable; not every platform lets a directory be opened.
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package ticket.booking.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Key-value records on disk. Records are written to the end of a data file in whole
+ * pages, each page run starting with a header carrying the key, the length and a
+ * CRC32C, and an index log (name.idx) maps each key to its latest page run. Only the
+ * index is kept in memory, so a lookup is one positioned read of the record's pages.
+ *
+ * Writes never overwrite a live record: the new version goes to fresh pages and is
+ * fsynced before its index entry, so a crash leaves the old version readable. When
+ * superseded pages outnumber live ones the file is compacted into a new generation.
+ * If the index is lost or belongs to another generation it is rebuilt by scanning the
+ * data file, where the last valid record for each key wins.
+ */
+public class PagedStore implements AutoCloseable {
+
+    public static final int PAGE_SIZE = 4096;
+    private static final int FILE_MAGIC = 0x50475354;
+    private static final int INDEX_MAGIC = 0x50474958;
+    private static final int RECORD_MAGIC = 0x52454344;
+    private static final int RECORD_HEADER_BYTES = 16;
+    private static final int INDEX_HEADER_BYTES = 12;
+    private static final int PAGE_COUNT_BITS = 20;
+    private static final long PAGE_COUNT_MASK = (1L << PAGE_COUNT_BITS) - 1;
+    private static final long MIN_COMPACT_PAGES = 256;
+
+    private final Path dataPath;
+    private final Path indexPath;
+    private final Map<String, Long> index = new HashMap<>();
+    private FileChannel data;
+    private FileChannel indexLog;
+    private long generation;
+    private long endPage;
+    private long livePages;
+
+    public PagedStore(Path dataPath) throws IOException {
+        this.dataPath = dataPath;
+        this.indexPath = dataPath.resolveSibling(dataPath.getFileName() + ".idx");
+        open();
+    }
+
+    public synchronized byte[] get(String key) throws IOException {
+        Long location = index.get(key);
+        return location == null ? null : readRecord(key, location);
+    }
+
+    public synchronized boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    public synchronized void put(String key, byte[] value) throws IOException {
+        putAll(Map.of(key, value));
+    }
+
+    /**
+     * Writes a batch of records with one fsync for the data and one for the index.
+     */
+    public synchronized void putAll(Map<String, byte[]> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        Map<String, Long> locations = new HashMap<>();
+        long page = endPage;
+        for (Map.Entry<String, byte[]> entry : records.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] value = entry.getValue();
+            int pages = pagesFor(key.length, value.length);
+            ByteBuffer record = ByteBuffer.allocate(pages * PAGE_SIZE);
+            record.putInt(RECORD_MAGIC).putInt(key.length).putInt(value.length).putInt(checksum(key, value));
+            record.put(key).put(value).clear();
+            writeFully(data, record, page * PAGE_SIZE);
+            locations.put(entry.getKey(), (page << PAGE_COUNT_BITS) | pages);
+            page += pages;
+        }
+        data.force(false);
+
+        for (Map.Entry<String, Long> entry : locations.entrySet()) {
+            appendIndex(indexLog, entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue());
+        }
+        indexLog.force(false);
+        for (Map.Entry<String, Long> entry : locations.entrySet()) {
+            Long previous = index.put(entry.getKey(), entry.getValue());
+            livePages += (entry.getValue() & PAGE_COUNT_MASK)
+                    - (previous == null ? 0 : previous & PAGE_COUNT_MASK);
+        }
+        endPage = page;
+        if (endPage > MIN_COMPACT_PAGES && endPage - 1 > 2 * livePages) {
+            compact();
+        }
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Pages in the data file, live or superseded, including the header page.
+     */
+    public synchronized long getFilePages() {
+        return endPage;
+    }
+
+    public synchronized long getLivePages() {
+        return livePages;
+    }
+
+    /**
+     * Reads every record in file order without keeping them, for one-off scans.
+     */
+    public void forEach(RecordConsumer consumer) throws IOException {
+        List<Map.Entry<String, Long>> entries;
+        synchronized (this) {
+            entries = new ArrayList<>(index.entrySet());
+        }
+        entries.sort(Map.Entry.comparingByValue());
+        for (Map.Entry<String, Long> entry : entries) {
+            byte[] value;
+            synchronized (this) {
+                Long location = index.get(entry.getKey());
+                value = location == null ? null : readRecord(entry.getKey(), location);
+            }
+            if (value != null) {
+                consumer.accept(entry.getKey(), value);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        data.close();
+        indexLog.close();
+    }
+
+    public interface RecordConsumer {
+        void accept(String key, byte[] value) throws IOException;
+    }
+
+    private void open() throws IOException {
+        data = FileChannel.open(dataPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (data.size() < PAGE_SIZE) {
+            generation = 1;
+            writeHeader(data, FILE_MAGIC, generation, PAGE_SIZE);
+            data.force(true);
+        } else {
+            ByteBuffer header = readFully(data, 0, 12);
+            if (header.getInt() != FILE_MAGIC) {
+                throw new IOException(dataPath + " is not a paged store");
+            }
+            generation = header.getLong();
+        }
+        endPage = (data.size() + PAGE_SIZE - 1) / PAGE_SIZE;
+        if (!replayIndex()) {
+            rebuildIndex();
+        }
+        indexLog = FileChannel.open(indexPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Loads the index log if it belongs to this generation of the data file, cutting
+     * off a torn last entry. Returns false if the index must be rebuilt.
+     */
+    private boolean replayIndex() throws IOException {
+        if (!Files.exists(indexPath)) {
+            return false;
+        }
+        ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(indexPath));
+        if (log.remaining() < INDEX_HEADER_BYTES || log.getInt() != INDEX_MAGIC || log.getLong() != generation) {
+            return false;
+        }
+        index.clear();
+        livePages = 0;
+        int end = log.position();
+        while (log.remaining() >= Integer.BYTES) {
+            int keyLength = log.getInt();
+            if (keyLength < 0 || log.remaining() < keyLength + Long.BYTES) {
+                break;
+            }
+            byte[] key = new byte[keyLength];
+            log.get(key);
+            long location = log.getLong();
+            if ((location >>> PAGE_COUNT_BITS) + (location & PAGE_COUNT_MASK) > endPage) {
+                break;
+            }
+            Long previous = index.put(new String(key, StandardCharsets.UTF_8), location);
+            livePages += (location & PAGE_COUNT_MASK)
+                    - (previous == null ? 0 : previous & PAGE_COUNT_MASK);
+            end = log.position();
+        }
+        if (end < log.limit()) {
+            try (FileChannel truncate = FileChannel.open(indexPath, StandardOpenOption.WRITE)) {
+                truncate.truncate(end);
+                truncate.force(true);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Scans the data file for valid records and writes a fresh index for them.
+     */
+    private void rebuildIndex() throws IOException {
+        index.clear();
+        livePages = 0;
+        long page = 1;
+        while (page < endPage) {
+            ByteBuffer header = readFully(data, page * PAGE_SIZE, RECORD_HEADER_BYTES);
+            int magic = header.getInt();
+            int keyLength = header.getInt();
+            int valueLength = header.getInt();
+            if (magic != RECORD_MAGIC || keyLength < 0 || valueLength < 0) {
+                page++;
+                continue;
+            }
+            int pages = pagesFor(keyLength, valueLength);
+            if (page + pages > endPage) {
+                break;
+            }
+            ByteBuffer record = readFully(data, page * PAGE_SIZE, pages * PAGE_SIZE);
+            String key = verify(record);
+            if (key == null) {
+                page++;
+                continue;
+            }
+            Long previous = index.put(key, (page << PAGE_COUNT_BITS) | pages);
+            livePages += pages - (previous == null ? 0 : previous & PAGE_COUNT_MASK);
+            page += pages;
+        }
+        Path temp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        writeIndex(temp, generation);
+        Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Copies the live records into a new generation of the data file and its index.
+     * The data file is swapped in first; a crash before the index follows leaves a
+     * generation mismatch, which the next open repairs by rebuilding the index.
+     */
+    private void compact() throws IOException {
+        Path tempData = dataPath.resolveSibling(dataPath.getFileName() + ".compact");
+        Path tempIndex = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        long nextGeneration = generation + 1;
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(index.entrySet());
+        entries.sort(Map.Entry.comparingByValue());
+        Map<String, Long> compacted = new HashMap<>();
+        try (FileChannel out = FileChannel.open(tempData, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(out, FILE_MAGIC, nextGeneration, PAGE_SIZE);
+            long page = 1;
+            for (Map.Entry<String, Long> entry : entries) {
+                long pages = entry.getValue() & PAGE_COUNT_MASK;
+                ByteBuffer record = readFully(data, (entry.getValue() >>> PAGE_COUNT_BITS) * PAGE_SIZE,
+                        (int) pages * PAGE_SIZE);
+                writeFully(out, record, page * PAGE_SIZE);
+                compacted.put(entry.getKey(), (page << PAGE_COUNT_BITS) | pages);
+                page += pages;
+            }
+            out.force(true);
+        }
+        index.clear();
+        index.putAll(compacted);
+        writeIndex(tempIndex, nextGeneration);
+        close();
+        Files.move(tempData, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(tempIndex, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        open();
+    }
+
+    private void writeIndex(Path path, long indexGeneration) throws IOException {
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(out, INDEX_MAGIC, indexGeneration, INDEX_HEADER_BYTES);
+            out.position(INDEX_HEADER_BYTES);
+            for (Map.Entry<String, Long> entry : index.entrySet()) {
+                appendIndex(out, entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue());
+            }
+            out.force(true);
+        }
+    }
+
+    private byte[] readRecord(String key, long location) throws IOException {
+        int pages = (int) (location & PAGE_COUNT_MASK);
+        ByteBuffer record = readFully(data, (location >>> PAGE_COUNT_BITS) * PAGE_SIZE, pages * PAGE_SIZE);
+        if (!key.equals(verify(record))) {
+            throw new IOException("Corrupt record for " + key + " in " + dataPath);
+        }
+        byte[] value = new byte[record.getInt(8)];
+        record.get(value);
+        return value;
+    }
+
+    /**
+     * Checks a record's header and checksum. Returns its key with the buffer positioned
+     * at the value, or null if the record is damaged.
+     */
+    private static String verify(ByteBuffer record) {
+        record.clear();
+        int magic = record.getInt();
+        int keyLength = record.getInt();
+        int valueLength = record.getInt();
+        int expected = record.getInt();
+        if (magic != RECORD_MAGIC || keyLength < 0 || valueLength < 0
+                || RECORD_HEADER_BYTES + (long) keyLength + valueLength > record.capacity()) {
+            return null;
+        }
+        byte[] key = new byte[keyLength];
+        record.get(key);
+        CRC32C crc = new CRC32C();
+        crc.update(key);
+        crc.update(record.array(), record.position(), valueLength);
+        return (int) crc.getValue() == expected ? new String(key, StandardCharsets.UTF_8) : null;
+    }
+
+    private static int checksum(byte[] key, byte[] value) {
+        CRC32C crc = new CRC32C();
+        crc.update(key);
+        crc.update(value);
+        return (int) crc.getValue();
+    }
+
+    private static int pagesFor(int keyLength, int valueLength) {
+        return (int) ((RECORD_HEADER_BYTES + (long) keyLength + valueLength + PAGE_SIZE - 1) / PAGE_SIZE);
+    }
+
+    private static void writeHeader(FileChannel channel, int magic, long generation, int size) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(size);
+        header.putInt(magic).putLong(generation).clear();
+        writeFully(channel, header, 0);
+    }
+
+    private static void appendIndex(FileChannel channel, byte[] key, long location) throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(Integer.BYTES + key.length + Long.BYTES);
+        entry.putInt(key.length).put(key).putLong(location).flip();
+        while (entry.hasRemaining()) {
+            channel.write(entry);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break; // past the end; the rest reads as zeros and fails verification
+            }
+        }
+        return buffer.clear();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
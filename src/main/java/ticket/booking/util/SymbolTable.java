@@ -0,0 +1,89 @@
+package ticket.booking.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Maps names to dense int ids so entities can hold ints instead of repeated strings.
+ * Ids are never reused or removed for the life of the process. A table may fold names
+ * to one form before interning or looking them up; station names are case-insensitive,
+ * so "Delhi" and "delhi" share one id wherever they come from.
+ */
+public class SymbolTable {
+
+    public static final SymbolTable STATIONS = new SymbolTable(SymbolTable::foldCase);
+    public static final SymbolTable TRAINS = new SymbolTable();
+
+    public static final int UNKNOWN = -1;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final UnaryOperator<String> normalizer;
+    private volatile String[] names = new String[64];
+    private int size;
+
+    public SymbolTable() {
+        this(UnaryOperator.identity());
+    }
+
+    public SymbolTable(UnaryOperator<String> normalizer) {
+        this.normalizer = normalizer;
+    }
+
+    /**
+     * Trimmed, lower-case form of a name.
+     */
+    public static String foldCase(String name) {
+        return name.trim().toLowerCase();
+    }
+
+    public int intern(String name) {
+        if (name == null) {
+            return UNKNOWN;
+        }
+        name = normalizer.apply(name);
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+            }
+            names[size] = name;
+            ids.put(name, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Returns the id of an already interned name without adding it.
+     */
+    public int lookup(String name) {
+        if (name == null) {
+            return UNKNOWN;
+        }
+        Integer id = ids.get(normalizer.apply(name));
+        return id == null ? UNKNOWN : id;
+    }
+
+    public String name(int id) {
+        String[] current = names;
+        return id < 0 || id >= current.length ? null : current[id];
+    }
+
+    /**
+     * Returns the shared instance of an interned name, so equal keys are stored once.
+     */
+    public String canonical(String name) {
+        return name(intern(name));
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
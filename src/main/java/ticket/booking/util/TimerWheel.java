@@ -0,0 +1,172 @@
+package ticket.booking.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical hashed timer wheel. Level 0 has one bucket per tick; each higher level
+ * has buckets wheelSize times wider. A timeout goes into the lowest level whose span
+ * covers its deadline and is cascaded down a level each time the level below wraps
+ * round to it, so scheduling and cancelling are O(1) and each timeout is touched at
+ * most once per level before it fires, however many are pending. Deadlines beyond the
+ * top level's span wait in the top level and are re-placed as it turns.
+ * Not thread-safe; callers synchronize.
+ */
+public class TimerWheel<T> {
+
+    public static final int DEFAULT_LEVELS = 4;
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final Timeout<T>[][] levels;
+    private long currentTick;
+    private int size;
+
+    public TimerWheel(long tickMillis, int wheelSize, long startMillis) {
+        this(tickMillis, wheelSize, DEFAULT_LEVELS, startMillis);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimerWheel(long tickMillis, int wheelSize, int levelCount, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 1 || levelCount <= 0) {
+            throw new IllegalArgumentException("Tick, wheel size and levels must be positive");
+        }
+        int buckets = Integer.highestOneBit(wheelSize - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.bits = Integer.numberOfTrailingZeros(buckets);
+        this.mask = buckets - 1;
+        this.levels = (Timeout<T>[][]) new Timeout[Math.min(levelCount, 63 / bits)][buckets];
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    public Timeout<T> schedule(T item, long deadlineMillis) {
+        long tick = Math.max(deadlineMillis / tickMillis, currentTick);
+        Timeout<T> timeout = new Timeout<>(item, tick);
+        link(timeout);
+        size++;
+        return timeout;
+    }
+
+    public boolean cancel(Timeout<T> timeout) {
+        if (timeout == null || timeout.bucket < 0) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel up to the given time and returns the items whose deadline passed.
+     */
+    public List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+        expireBucket(targetTick, expired);
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                currentTick = targetTick;
+                break;
+            }
+            currentTick++;
+            cascade();
+            expireBucket(targetTick, expired);
+        }
+        return expired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * When level 0 wraps, pulls the next bucket of each level above down into the
+     * levels below, as far up as the tick is a multiple of that level's width.
+     */
+    private void cascade() {
+        for (int level = 1; level < levels.length; level++) {
+            if ((currentTick & ((1L << (bits * level)) - 1)) != 0) {
+                return;
+            }
+            int bucket = (int) ((currentTick >>> (bits * level)) & mask);
+            Timeout<T> timeout = levels[level][bucket];
+            levels[level][bucket] = null;
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                timeout.prev = null;
+                timeout.next = null;
+                link(timeout);
+                timeout = next;
+            }
+        }
+    }
+
+    private void expireBucket(long targetTick, List<T> expired) {
+        int bucket = (int) (currentTick & mask);
+        Timeout<T> timeout = levels[0][bucket];
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            if (timeout.deadlineTick <= targetTick) {
+                unlink(timeout);
+                size--;
+                expired.add(timeout.item);
+            }
+            timeout = next;
+        }
+    }
+
+    private void link(Timeout<T> timeout) {
+        long delta = Math.max(timeout.deadlineTick - currentTick, 0);
+        int level = 0;
+        while (level < levels.length - 1 && delta >= (1L << (bits * (level + 1)))) {
+            level++;
+        }
+        long tick = Math.max(timeout.deadlineTick, currentTick);
+        int bucket = (int) ((tick >>> (bits * level)) & mask);
+        timeout.level = level;
+        timeout.bucket = bucket;
+        timeout.prev = null;
+        timeout.next = levels[level][bucket];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        levels[level][bucket] = timeout;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            levels[timeout.level][timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+    }
+
+    public static class Timeout<T> {
+        private final T item;
+        private final long deadlineTick;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private int level;
+        private int bucket = -1;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public boolean isPending() {
+            return bucket >= 0;
+        }
+    }
+}
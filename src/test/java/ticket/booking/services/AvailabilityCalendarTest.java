@@ -0,0 +1,153 @@
+package ticket.booking.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Test class for AvailabilityCalendar
+ * Tests free seats per day and segment from counters moved by tickets and holds
+ */
+public class AvailabilityCalendarTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.parse("2025-06-01");
+
+    private Train express;
+    private Train mail;
+    private AvailabilityCalendar calendar;
+
+    private static List<List<Integer>> seats(int rows, int columns) {
+        List<List<Integer>> seats = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+            seats.add(new ArrayList<>(Collections.nCopies(columns, Train.SEAT_FREE)));
+        }
+        return seats;
+    }
+
+    @BeforeEach
+    public void setUp() {
+        express = new Train("CAL1", "1", seats(2, 2), new HashMap<>(), Arrays.asList("bangalore", "delhi"));
+        mail = new Train("CAL2", "2", seats(1, 3), new HashMap<>(), Arrays.asList("bangalore", "delhi"));
+        calendar = new AvailabilityCalendar(10);
+        calendar.add(express, new Ticket("T1", "U1", "bangalore", "delhi", "2025-06-01", express));
+        calendar.add(express, new Ticket("T2", "U1", "bangalore", "delhi", "2025-06-01", express));
+        calendar.add(express, new Ticket("T3", "U2", "bangalore", "delhi", "2025-06-03", express));
+        calendar.add(express, new Ticket("T4", "U2", "bangalore", "delhi", "2025-05-20", express));
+        calendar.add(mail, new Ticket("T5", "U3", "bangalore", "delhi", "2025-06-01", mail));
+    }
+
+    @Test
+    @DisplayName("Test free seats per day for one train across the horizon")
+    public void testForTrain() {
+        // Act
+        AvailabilityCalendar.Availability availability = calendar.forTrain(express, FIRST_DAY);
+
+        // Assert
+        assertEquals(10, availability.getDays(), "Whole horizon expected");
+        assertEquals(2, availability.getFreeSeats(FIRST_DAY), "Two of four seats sold on the first day");
+        assertEquals(4, availability.getFreeSeats(FIRST_DAY.plusDays(1)), "Nothing sold on the second day");
+        assertEquals(3, availability.getFreeSeats(FIRST_DAY.plusDays(2)), "One seat sold on the third day");
+        assertEquals(4, availability.getFreeSeats(availability.getDays() - 1), "Last day should be free");
+        assertEquals(0, availability.getFreeSeats(FIRST_DAY.minusDays(1)), "Days before the horizon have no seats");
+        assertEquals(4, new AvailabilityCalendar().forTrain(express, FIRST_DAY).getFreeSeats(0),
+                "A train with nothing counted is all free");
+    }
+
+    @Test
+    @DisplayName("Test route availability sums trains and follows cancellations")
+    public void testForTrainsAndCancel() {
+        // Act
+        AvailabilityCalendar.Availability before = calendar.forTrains(Arrays.asList(express, mail), FIRST_DAY);
+        calendar.remove(express, new Ticket("T1", "U1", "bangalore", "delhi", "2025-06-01", express));
+        AvailabilityCalendar.Availability after = calendar.forTrains(Arrays.asList(express, mail), FIRST_DAY);
+
+        // Assert
+        assertEquals(4, before.getFreeSeats(0), "Two express and two mail seats free on the first day");
+        assertEquals(7, before.getFreeSeats(1), "All seven seats free on the second day");
+        assertEquals(5, after.getFreeSeats(0), "Cancelled seat should be free again");
+        assertEquals(Optional.of(FIRST_DAY.plusDays(1)), before.firstDayWith(6, FIRST_DAY), "Second day fits six");
+        assertTrue(before.firstDayWith(8, FIRST_DAY).isEmpty(), "No day has eight seats");
+    }
+
+    @Test
+    @DisplayName("Test availability is per segment and counts a seat once across legs")
+    public void testSegments() {
+        // Arrange
+        Train local = new Train("CAL3", "3", seats(1, 3), new HashMap<>(),
+                Arrays.asList("pune", "lonavala", "karjat", "mumbai"));
+        calendar.add(local, new Ticket("T6", "U4", "pune", "lonavala", "2025-06-01", local));
+        calendar.add(local, new Ticket("T7", "U5", "karjat", "mumbai", "2025-06-01", local));
+
+        // Act
+        AvailabilityCalendar.Availability middle = calendar.forTrain(local, "lonavala", "karjat", FIRST_DAY);
+        AvailabilityCalendar.Availability first = calendar.forTrain(local, "Pune", "karjat", FIRST_DAY);
+        AvailabilityCalendar.Availability whole = calendar.forTrain(local, FIRST_DAY);
+
+        // Assert
+        assertEquals(3, middle.getFreeSeats(0), "No ticket travels the middle leg");
+        assertEquals(2, first.getFreeSeats(0), "The first leg's seat is taken");
+        assertEquals(2, whole.getFreeSeats(0), "Seats sold on separate legs leave the busiest leg's count");
+        assertEquals(0, calendar.forTrain(local, "mumbai", "pune", FIRST_DAY).getFreeSeats(0),
+                "A train running the other way has no seats for the journey");
+    }
+
+    @Test
+    @DisplayName("Test undated tickets are not counted on any day")
+    public void testUndatedNotCounted() {
+        // Act
+        calendar.add(express, new Ticket("T8", "U6", "bangalore", "delhi", null, express));
+        calendar.add(express, new Ticket("T9", "U6", "bangalore", "delhi", "soon", express));
+
+        // Assert
+        assertEquals(4, calendar.forTrain(express, FIRST_DAY).getFreeSeats(1), "Undated tickets take no day's seat");
+    }
+
+    @Test
+    @DisplayName("Test dated bookings and holds through the booking service show in availability")
+    public void testFollowsBookingsAndHolds(@TempDir Path tempDir) throws IOException {
+        // Arrange
+        Path trainsFile = tempDir.resolve("trains.json");
+        Path usersFile = tempDir.resolve("users.json");
+        Files.writeString(trainsFile, "[]");
+        Files.writeString(usersFile, "[]");
+        TrainService trainService = new TrainService(trainsFile.toString());
+        trainService.addTrain(new Train("CAL4", "4", seats(2, 2), new HashMap<>(), Arrays.asList("agra", "kota")));
+        UserBookingService service = new UserBookingService(usersFile.toString(), trainService);
+        service.setUser(new User("asha", null, null, new ArrayList<>(), "U1"));
+        LocalDate today = LocalDate.now();
+        String tomorrow = today.plusDays(1).toString();
+        try {
+            assertEquals(4, service.getAvailability("agra", "kota").getFreeSeats(1), "Every seat starts free");
+
+            // Act
+            service.bookTrainSeat(trainService.getTrain("CAL4").orElseThrow(), "agra", "kota", tomorrow, 0, 0);
+            service.bookTrainSeat(trainService.getTrain("CAL4").orElseThrow(), 0, 1);
+            int afterBooking = service.getAvailability("agra", "kota").getFreeSeats(1);
+            SeatHoldManager.Hold hold = service.holdSeat(trainService.getTrain("CAL4").orElseThrow(), "agra", "kota",
+                    tomorrow, 1, 1, SeatHoldManager.DEFAULT_HOLD_MILLIS).orElseThrow();
+            AvailabilityCalendar.Availability whileHeld = service.getAvailability("AGRA", "kota");
+            service.releaseHold(hold.getHoldId());
+            int afterRelease = service.getAvailability("agra", "kota").getFreeSeats(1);
+
+            // Assert
+            assertEquals(3, afterBooking, "Only the dated booking takes a seat that day");
+            assertEquals(2, whileHeld.getFreeSeats(1), "Held seat should be taken on its day");
+            assertEquals(4, whileHeld.getFreeSeats(2), "Held seat should not be taken on other days");
+            assertEquals(3, afterRelease, "Released seat should be free again");
+        } finally {
+            service.getSeatHolds().close();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package ticket.booking.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ticket.booking.entities.Train;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Test class for AvailabilityFeed
+ * Tests delivery, coalescing, overrun and the incremental availability view
+ */
+public class AvailabilityFeedTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static class Recorder implements AvailabilityFeed.AvailabilityListener {
+        private final List<String> changes = new ArrayList<>();
+        private int overruns;
+
+        @Override
+        public void onChange(String trainId, int row, int column, boolean booked) {
+            changes.add(trainId + ":" + row + ":" + column + ":" + (booked ? "B" : "F"));
+        }
+
+        @Override
+        public void onOverrun() {
+            overruns++;
+        }
+    }
+
+    @Test
+    @DisplayName("Test changes are delivered in order from the subscription point")
+    public void testDelivery() {
+        // Arrange
+        AvailabilityFeed feed = new AvailabilityFeed(64);
+        feed.publish("F1", 0, 0, true);
+        Recorder recorder = new Recorder();
+        AvailabilityFeed.Subscription subscription = feed.subscribe(recorder);
+
+        // Act
+        feed.publish("F1", 1, 2, true);
+        feed.publish("F1", 1, 2, false);
+        int delivered = subscription.poll();
+
+        // Assert
+        assertEquals(2, delivered, "Only changes after subscribing should be delivered");
+        assertEquals(List.of("f1:1:2:B", "f1:1:2:F"), recorder.changes, "Changes should arrive in order");
+        assertEquals(0, subscription.poll(), "Nothing new to deliver");
+    }
+
+    @Test
+    @DisplayName("Test a large backlog is coalesced to the last state per seat")
+    public void testCoalescing() {
+        // Arrange
+        AvailabilityFeed feed = new AvailabilityFeed(4096);
+        Recorder recorder = new Recorder();
+        AvailabilityFeed.Subscription subscription = feed.subscribe(recorder);
+
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            feed.publish("F2", i % 4, 0, i % 2 == 0);
+        }
+        int delivered = subscription.poll();
+
+        // Assert
+        assertEquals(4, delivered, "Each seat should be delivered once");
+        assertTrue(recorder.changes.containsAll(List.of("f2:0:0:B", "f2:1:0:F", "f2:2:0:B", "f2:3:0:F")),
+                "Last state of each seat should win");
+    }
+
+    @Test
+    @DisplayName("Test a subscriber a full ring behind is told to reload")
+    public void testOverrun() {
+        // Arrange
+        AvailabilityFeed feed = new AvailabilityFeed(16);
+        Recorder recorder = new Recorder();
+        AvailabilityFeed.Subscription subscription = feed.subscribe(recorder);
+
+        // Act
+        for (int i = 0; i < 40; i++) {
+            feed.publish("F3", 0, i, true);
+        }
+        subscription.poll();
+        feed.publish("F3", 5, 5, true);
+        subscription.poll();
+
+        // Assert
+        assertEquals(1, recorder.overruns, "Overrun should be reported once");
+        assertEquals(List.of("f3:5:5:B"), recorder.changes, "Changes after the overrun should still arrive");
+    }
+
+    @Test
+    @DisplayName("Test concurrent publishers lose no changes")
+    public void testConcurrentPublishers() throws InterruptedException {
+        // Arrange
+        AvailabilityFeed feed = new AvailabilityFeed(1 << 16);
+        Recorder recorder = new Recorder();
+        AvailabilityFeed.Subscription subscription = feed.subscribe(recorder);
+        List<Thread> publishers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int row = t;
+            publishers.add(new Thread(() -> {
+                for (int column = 0; column < 200; column++) {
+                    feed.publish("F4", row, column, true);
+                }
+            }));
+        }
+
+        // Act
+        publishers.forEach(Thread::start);
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+        Set<String> seen = new HashSet<>();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (seen.size() < 800 && System.currentTimeMillis() < deadline) {
+            subscription.poll();
+            seen.addAll(recorder.changes);
+        }
+
+        // Assert
+        assertEquals(800, seen.size(), "Every seat change should be seen");
+        assertEquals(0, recorder.overruns, "Ring was large enough for no overrun");
+    }
+
+    @Test
+    @DisplayName("Test a subscriber racing publishers around a tiny ring never sees a change twice or out of order")
+    public void testWrapAroundStress() throws InterruptedException {
+        // Arrange
+        AvailabilityFeed feed = new AvailabilityFeed(8);
+        int[] lastSeen = {-1, -1, -1, -1};
+        boolean[] broken = new boolean[1];
+        int[] delivered = new int[1];
+        AvailabilityFeed.Subscription subscription = feed.subscribe(new AvailabilityFeed.AvailabilityListener() {
+            @Override
+            public void onChange(String trainId, int row, int column, boolean booked) {
+                // Each publisher counts up in its own row, so a slot read while being
+                // overwritten shows up as a repeated or backwards count.
+                broken[0] |= column <= lastSeen[row];
+                lastSeen[row] = column;
+                delivered[0]++;
+            }
+
+            @Override
+            public void onOverrun() {
+            }
+        });
+        List<Thread> publishers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int row = t;
+            publishers.add(new Thread(() -> {
+                for (int count = 0; count < 30_000; count++) {
+                    feed.publish("W1", row, count, true);
+                    Thread.yield(); // let the subscriber keep within a lap now and then
+                }
+            }));
+        }
+
+        // Act
+        publishers.forEach(Thread::start);
+        while (publishers.stream().anyMatch(Thread::isAlive)) {
+            subscription.poll();
+        }
+        subscription.poll();
+
+        // Assert
+        assertFalse(broken[0], "Every delivered change should be newer than the last from its publisher");
+        assertTrue(delivered[0] > 0, "Some changes should be delivered");
+        assertEquals(120_000, feed.getPublished(), "Every change should be published");
+    }
+
+    @Test
+    @DisplayName("Test bookings and cancels update the view incrementally")
+    public void testViewFollowsBookings() throws IOException, InterruptedException {
+        // Arrange
+        Path trainsFile = tempDir.resolve("trains.json");
+        Path usersFile = tempDir.resolve("users.json");
+        Files.writeString(trainsFile, "[]");
+        Files.writeString(usersFile, "[]");
+        TrainService trainService = new TrainService(trainsFile.toString());
+        List<List<Integer>> seats = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            seats.add(new ArrayList<>(Arrays.asList(0, 0, 0)));
+        }
+        trainService.addTrain(new Train("F5", "1", seats, new HashMap<>(), List.of("pune", "goa")));
+        UserBookingService service = new UserBookingService(usersFile.toString(), trainService);
+        AvailabilityView view = new AvailabilityView(trainService, service.getAvailabilityFeed());
+        AvailabilityFeed.Subscription subscription = view.getSubscription().start();
+
+        // Act
+        Train train = trainService.getTrain("F5").orElseThrow().copy();
+        service.bookTrainSeat(train, 1, 2);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!view.isBooked("F5", 1, 2) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        subscription.close();
+
+        // Assert
+        assertTrue(view.isBooked("F5", 1, 2), "Booked seat should show in the view");
+        assertEquals(5, view.getFreeSeats("F5"), "Free count should drop by one");
+    }
+
+    @Test
+    @DisplayName("Test the view keeps changes made while it loads and picks up trains added later")
+    public void testViewSubscribesBeforeLoading() throws IOException {
+        // Arrange
+        Path trainsFile = tempDir.resolve("trains.json");
+        Files.writeString(trainsFile, "[]");
+        TrainService trainService = new TrainService(trainsFile.toString());
+        trainService.addTrain(new Train("F6", "1", new ArrayList<>(List.of(new ArrayList<>(Arrays.asList(0, 0)))),
+                new HashMap<>(), List.of("pune", "goa")));
+        AvailabilityFeed feed = new AvailabilityFeed();
+        AvailabilityView view = new AvailabilityView(trainService, feed);
+
+        // Act
+        Train added = new Train("F7", "1", new ArrayList<>(List.of(new ArrayList<>(Arrays.asList(0, 0, 0)))),
+                new HashMap<>(), List.of("pune", "goa"));
+        trainService.addTrain(added);
+        feed.publish("F6", 0, 1, true);
+        feed.publish("F7", 0, 0, true);
+        view.getSubscription().poll();
+
+        // Assert
+        assertTrue(view.isBooked("F6", 0, 1), "Change after subscribing should reach the view");
+        assertTrue(view.isBooked("F7", 0, 0), "Train added after the load should be tracked");
+        assertEquals(2, view.getFreeSeats("F7"), "New train should count the booked seat once");
+    }
+}
@@ -0,0 +1,111 @@
+package ticket.booking.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ticket.booking.entities.Ticket;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Test class for BookingHistory
+ * Tests ordering, cursor paging and the upcoming segment
+ */
+public class BookingHistoryTest {
+
+    private static final long NOW = Instant.parse("2025-06-01T00:00:00Z").getEpochSecond();
+
+    private BookingHistory history;
+
+    @BeforeEach
+    public void setUp() {
+        List<Ticket> tickets = new ArrayList<>();
+        tickets.add(ticket("P1", "2025-01-10"));
+        tickets.add(ticket("U2", "2025-07-01T10:00:00Z"));
+        tickets.add(ticket("P2", "2025-03-05"));
+        tickets.add(ticket("U1", "2025-06-02"));
+        tickets.add(ticket("P3", "2024-12-25"));
+        history = new BookingHistory(tickets, NOW);
+    }
+
+    private Ticket ticket(String id, String date) {
+        return new Ticket(id, "U", "bangalore", "delhi", date, null);
+    }
+
+    private List<String> ids(BookingHistory.Page page) {
+        List<String> ids = new ArrayList<>();
+        for (Ticket ticket : page.tickets()) {
+            ids.add(ticket.getTicketId());
+        }
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Test upcoming trips come first, then past trips newest first")
+    public void testOrdering() {
+        // Act
+        BookingHistory.Page page = history.page(null, 10);
+
+        // Assert
+        assertEquals(Arrays.asList("U1", "U2", "P2", "P1", "P3"), ids(page), "Tickets should be in display order");
+        assertFalse(page.hasMore(), "Everything fits on one page");
+    }
+
+    @Test
+    @DisplayName("Test cursor walks through every ticket once")
+    public void testPaging() {
+        // Act
+        BookingHistory.Page first = history.page(null, 2);
+        BookingHistory.Page second = history.page(first.nextCursor(), 2);
+        BookingHistory.Page third = history.page(second.nextCursor(), 2);
+
+        // Assert
+        assertEquals(Arrays.asList("U1", "U2"), ids(first), "First page is the upcoming segment");
+        assertEquals(Arrays.asList("P2", "P1"), ids(second), "Second page continues into past trips");
+        assertEquals(List.of("P3"), ids(third), "Last page holds the remainder");
+        assertFalse(third.hasMore(), "Last page should have no cursor");
+    }
+
+    @Test
+    @DisplayName("Test cursor stays valid when a ticket is added")
+    public void testPagingAfterInsert() {
+        // Arrange
+        BookingHistory.Page first = history.page(null, 3);
+
+        // Act
+        history.add(ticket("P0", "2025-05-01"));
+        BookingHistory.Page second = history.page(first.nextCursor(), 10);
+
+        // Assert
+        assertEquals(Arrays.asList("U1", "U2", "P2"), ids(first), "First page before the insert");
+        assertEquals(Arrays.asList("P1", "P3"), ids(second), "Insert before the cursor should not repeat tickets");
+    }
+
+    @Test
+    @DisplayName("Test removed ticket disappears")
+    public void testRemove() {
+        // Act
+        boolean removed = history.remove("U2");
+
+        // Assert
+        assertTrue(removed, "Ticket should be removed");
+        assertEquals(4, history.size(), "Four tickets should remain");
+        assertEquals(List.of("U1"), ids(new BookingHistory.Page(history.upcoming(), null)),
+                "Only one upcoming trip should remain");
+    }
+
+    @Test
+    @DisplayName("Test started trips move to the past segment")
+    public void testAdvance() {
+        // Act
+        history.advanceTo(Instant.parse("2025-06-15T00:00:00Z").getEpochSecond());
+
+        // Assert
+        assertEquals(1, history.upcoming().size(), "Only the July trip is still upcoming");
+        assertEquals(Arrays.asList("U2", "U1", "P2"), ids(history.page(null, 3)),
+                "Started trip should lead the past segment");
+    }
+}
@@ -0,0 +1,117 @@
+package ticket.booking.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ticket.booking.entities.SeatClass;
+import ticket.booking.entities.Train;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test class for FareEngine
+ * Tests distance tables, class fare rules and surge caching
+ */
+public class FareEngineTest {
+
+    private FareEngine fareEngine;
+    private Train train;
+
+    @BeforeEach
+    public void setUp() {
+        fareEngine = new FareEngine();
+        List<List<Integer>> seats = new ArrayList<>();
+        seats.add(new ArrayList<>(Arrays.asList(0, 0, 0, 0)));
+        train = new Train("F001", "1", seats, new HashMap<>(),
+                Arrays.asList("bangalore", "hyderabad", "nagpur", "delhi"));
+        train.setSegmentDistances(Arrays.asList(570, 500, 1090));
+        fareEngine.register(train);
+    }
+
+    @Test
+    @DisplayName("Test distance between any two stations")
+    public void testDistance() {
+        // Assert
+        assertEquals(2160, fareEngine.distanceKm(train, 0, 3), "Full route distance");
+        assertEquals(500, fareEngine.distanceKm(train, 1, 2), "Single segment distance");
+        assertEquals(1590, fareEngine.distanceKm(train, 1, 3), "Partial route distance");
+    }
+
+    @Test
+    @DisplayName("Test fare applies class rate and reservation charge")
+    public void testBaseFare() {
+        // Arrange
+        FareEngine.FareRule rule = fareEngine.getRule(SeatClass.AC3);
+
+        // Act
+        long fare = fareEngine.baseFare(train, 0, 3, SeatClass.AC3);
+
+        // Assert
+        assertEquals(2160L * rule.paisePerKm() + rule.reservationCharge(), fare,
+                "Fare should be distance times rate plus reservation charge");
+        assertTrue(fareEngine.baseFare(train, 0, 3, SeatClass.AC2) > fare, "2A should cost more than 3A");
+    }
+
+    @Test
+    @DisplayName("Test minimum fare applies to short trips")
+    public void testMinimumFare() {
+        // Arrange
+        fareEngine.setRule(SeatClass.SL, new FareEngine.FareRule(1, 100_000, 0));
+
+        // Assert
+        assertEquals(100_000, fareEngine.baseFare(train, 1, 2, SeatClass.SL), "Minimum fare should apply");
+    }
+
+    @Test
+    @DisplayName("Test missing distances give no fare")
+    public void testNoDistanceNoFare() {
+        // Arrange
+        train.setSegmentDistances(null);
+        fareEngine.register(train);
+
+        // Assert
+        assertEquals(-1, fareEngine.distanceKm(train, 0, 3), "Distance should be unknown");
+        assertEquals(FareEngine.NO_FARE, fareEngine.baseFare(train, 0, 3, SeatClass.SL), "No base fare expected");
+        assertEquals(FareEngine.NO_FARE, fareEngine.fare(train, 0, 3, SeatClass.SL, "2025-10-15"), "No fare expected");
+        train.setSegmentDistances(Arrays.asList(570, 500));
+        fareEngine.register(train);
+        assertEquals(FareEngine.NO_FARE, fareEngine.baseFare(train, 0, 3, SeatClass.SL), "Short distance list gives no fare");
+    }
+
+    @Test
+    @DisplayName("Test surge multiplier is cached until the train changes")
+    public void testSurgeCache() {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        fareEngine.setSurgePolicy((t, seatClass, date) -> {
+            calls.incrementAndGet();
+            return 15_000;
+        });
+        long base = fareEngine.baseFare(train, 0, 3, SeatClass.SL);
+
+        // Act
+        long first = fareEngine.fare(train, 0, 3, SeatClass.SL, "2025-10-15");
+        fareEngine.fare(train, 0, 3, SeatClass.SL, "2025-10-15");
+        Train other = new Train("F002", "2", train.getSeats(), new HashMap<>(), train.getStations());
+        other.setSegmentDistances(train.getSegmentDistances());
+        fareEngine.fare(other, 0, 3, SeatClass.SL, "2025-10-15");
+        fareEngine.register(train);
+        fareEngine.fare(train, 0, 3, SeatClass.SL, "2025-10-15");
+        fareEngine.fare(other, 0, 3, SeatClass.SL, "2025-10-15");
+
+        // Assert
+        assertEquals(base * 3 / 2, first, "Surge should raise the fare by 50%");
+        assertEquals(3, calls.get(), "Policy should run once per train change, and only for the changed train");
+    }
+
+    @Test
+    @DisplayName("Test wrong direction is rejected")
+    public void testWrongDirection() {
+        // Assert
+        assertThrows(IllegalArgumentException.class, () -> fareEngine.distanceKm(train, 3, 0),
+                "Reverse direction should be rejected");
+    }
+}
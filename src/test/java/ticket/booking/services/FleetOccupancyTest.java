@@ -0,0 +1,113 @@
+package ticket.booking.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+/**
+ * Test class for FleetOccupancy
+ * Tests the occupancy report of a randomly booked fleet against a seat-by-seat count
+ * with both kernels, and the kernels against each other
+ */
+public class FleetOccupancyTest {
+
+    private static final int TRAINS = 5;
+    private static final int DAYS = 7;
+    private static final int COACHES = 3;
+    private static final int SEATS = 72;
+
+    private OffHeapSeatInventory inventory;
+    private int[][][] booked;
+
+    @BeforeEach
+    public void setUp() {
+        inventory = OffHeapSeatInventory.allocate(TRAINS, DAYS, COACHES, SEATS);
+        booked = new int[TRAINS][DAYS][COACHES];
+        Random random = new Random(7);
+        for (int train = 0; train < TRAINS; train++) {
+            for (int day = 0; day < DAYS; day++) {
+                for (int coach = 0; coach < COACHES; coach++) {
+                    for (int seat = 0; seat < SEATS; seat++) {
+                        if (random.nextBoolean() && inventory.tryBook(train, day, coach, seat)) {
+                            booked[train][day][coach]++;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        inventory.close();
+    }
+
+    private void assertMatchesSeatCount(FleetOccupancy.Report report) {
+        long fleetBooked = 0;
+        for (int train = 0; train < TRAINS; train++) {
+            long[] coachBooked = new long[COACHES];
+            for (int day = 0; day < DAYS; day++) {
+                int runBooked = 0;
+                for (int coach = 0; coach < COACHES; coach++) {
+                    runBooked += booked[train][day][coach];
+                    coachBooked[coach] += booked[train][day][coach];
+                }
+                assertEquals(COACHES * SEATS - runBooked, report.getFreeSeats(train, day),
+                        "Free seats should match for train " + train + " day " + day);
+            }
+            for (int coach = 0; coach < COACHES; coach++) {
+                fleetBooked += coachBooked[coach];
+                assertEquals((double) coachBooked[coach] / (DAYS * SEATS), report.getCoachUtilization(train, coach),
+                        1e-9, "Coach utilization should match for train " + train + " coach " + coach);
+            }
+        }
+        assertEquals((double) fleetBooked / (TRAINS * DAYS * COACHES * SEATS), report.getFleetLoadFactor(), 1e-9,
+                "Fleet load factor should match");
+    }
+
+    @Test
+    @DisplayName("Test scalar kernel report matches a seat-by-seat count")
+    public void testScalarReport() {
+        // Act
+        FleetOccupancy.Report report = new FleetOccupancy(new ScalarOccupancyKernel()).report(inventory);
+
+        // Assert
+        assertMatchesSeatCount(report);
+    }
+
+    @Test
+    @DisplayName("Test vector kernel report matches a seat-by-seat count")
+    public void testVectorReport() {
+        // Act
+        FleetOccupancy.Report report = new FleetOccupancy(new VectorOccupancyKernel()).report(inventory);
+
+        // Assert
+        assertMatchesSeatCount(report);
+    }
+
+    @Test
+    @DisplayName("Test scalar and vector kernels agree on the same fleet")
+    public void testKernelsAgree() {
+        // Act
+        FleetOccupancy.Report scalar = new FleetOccupancy(new ScalarOccupancyKernel()).report(inventory);
+        FleetOccupancy.Report vector = new FleetOccupancy(new VectorOccupancyKernel()).report(inventory);
+
+        // Assert
+        for (int train = 0; train < TRAINS; train++) {
+            for (int day = 0; day < DAYS; day++) {
+                assertEquals(scalar.getBookedSeats(train, day), vector.getBookedSeats(train, day),
+                        "Booked seats should agree for train " + train + " day " + day);
+            }
+            for (int coach = 0; coach < COACHES; coach++) {
+                assertEquals(scalar.getCoachUtilization(train, coach), vector.getCoachUtilization(train, coach),
+                        "Coach utilization should agree for train " + train + " coach " + coach);
+            }
+        }
+        assertEquals(scalar.getFleetLoadFactor(), vector.getFleetLoadFactor(), "Fleet load factor should agree");
+    }
+}
@@ -0,0 +1,160 @@
+package ticket.booking.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ticket.booking.entities.BookingEvent;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test class for idempotent booking requests
+ * Tests the dedupe cache and its persistence through the booking journal
+ */
+public class IdempotencyTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path usersFile;
+    private TrainService trainService;
+    private UserBookingService service;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Path trainsFile = tempDir.resolve("trains.json");
+        usersFile = tempDir.resolve("users.json");
+        Files.writeString(trainsFile, "[]");
+        Files.writeString(usersFile, "[]");
+        trainService = new TrainService(trainsFile.toString());
+        List<List<Integer>> seats = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            seats.add(new ArrayList<>(Arrays.asList(0, 0)));
+        }
+        trainService.addTrain(new Train("I1", "1", seats, new HashMap<>(), List.of("agra", "kota")));
+        service = new UserBookingService(usersFile.toString(), trainService);
+        service.setUser(new User("alice", null, null, new ArrayList<>(), "U1"));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        service.getSeatHolds().close();
+        service.getBookingJournal().close();
+    }
+
+    private Train train() {
+        return trainService.getTrain("I1").orElseThrow().copy();
+    }
+
+    @Test
+    @DisplayName("Test retry with the same key returns the original outcome without booking again")
+    public void testRetryReturnsOriginalOutcome() {
+        // Act
+        Boolean first = service.bookTrainSeat(train(), 0, 0, "k-1");
+        Boolean retry = service.bookTrainSeat(train(), 0, 0, "k-1");
+        Boolean otherKey = service.bookTrainSeat(train(), 0, 0, "k-2");
+
+        // Assert
+        assertTrue(first, "First attempt should book");
+        assertTrue(retry, "Retry should get the original success back");
+        assertFalse(otherKey, "A new request for the booked seat should fail");
+        assertEquals(1, service.getBookingJournal().getLastSequence(), "Seat should be booked once");
+        assertEquals(1, service.getIdempotencyCache().getHits(), "Retry should be answered from the cache");
+    }
+
+    @Test
+    @DisplayName("Test concurrent duplicates wait for the first attempt")
+    public void testConcurrentDuplicates() throws Exception {
+        // Arrange
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> service.bookTrainSeat(train(), 1, 1, "storm")));
+        }
+        pool.shutdown();
+
+        // Assert
+        for (Future<Boolean> result : results) {
+            assertTrue(result.get(), "Every duplicate should see the original success");
+        }
+        assertEquals(1, service.getBookingJournal().getLastSequence(), "Seat should be booked once");
+    }
+
+    @Test
+    @DisplayName("Test keys survive a restart through the journal file")
+    public void testDedupeSurvivesRestart() throws IOException {
+        // Arrange
+        assertTrue(service.bookTrainSeat(train(), 0, 1, "k-restart"), "First attempt should book");
+        service.getBookingJournal().close();
+
+        // Act
+        service = new UserBookingService(usersFile.toString(), trainService);
+        service.setUser(new User("alice", null, null, new ArrayList<>(), "U1"));
+        Boolean retry = service.bookTrainSeat(train(), 0, 1, "k-restart");
+
+        // Assert
+        assertTrue(retry, "Retry after restart should get the original success back");
+        assertEquals(1, service.getBookingJournal().getLastSequence(), "Journal should be replayed, not rebooked");
+        assertEquals("k-restart", service.getBookingJournal().getRetainedEvents().get(0).getIdempotencyKey(),
+                "Key should be persisted with the event");
+    }
+
+    @Test
+    @DisplayName("Test cancel retry is deduplicated and journaled once")
+    public void testCancelRetry() {
+        // Arrange
+        service.getUser().getTicketsBooked().add(new Ticket("T1", "U1", "agra", "kota", "2025-10-15", null));
+
+        // Act
+        Boolean first = service.cancelBooking("T1", "c-1");
+        Boolean retry = service.cancelBooking("T1", "c-1");
+
+        // Assert
+        assertTrue(first, "First cancel should succeed");
+        assertTrue(retry, "Retry should get the original success back");
+        List<BookingEvent> events = service.getBookingJournal().getRetainedEvents();
+        assertEquals(1, events.size(), "Cancel should be journaled once");
+        assertEquals(-1, events.get(0).getRow(), "Seatless cancel should have no row");
+    }
+
+    @Test
+    @DisplayName("Test cache forgets keys outside the window or beyond its size")
+    public void testEviction() {
+        // Arrange
+        AtomicLong now = new AtomicLong(1_000);
+        IdempotencyCache cache = new IdempotencyCache(100, 2, now::get);
+        AtomicInteger runs = new AtomicInteger();
+
+        // Act
+        cache.execute("a", () -> runs.incrementAndGet() > 0);
+        cache.execute("b", () -> runs.incrementAndGet() > 0);
+        cache.execute("c", () -> runs.incrementAndGet() > 0);
+        cache.execute("c", () -> runs.incrementAndGet() > 0);
+        cache.execute("a", () -> runs.incrementAndGet() > 0);
+        now.addAndGet(100);
+        cache.execute("a", () -> runs.incrementAndGet() > 0);
+        cache.record("old", Boolean.TRUE, 0);
+
+        // Assert
+        assertEquals(5, runs.get(), "Only the repeat of c should be served from the cache");
+        assertEquals(1, cache.getHits(), "One hit expected");
+        assertEquals(1, cache.size(), "Only the latest key should remain in the window");
+    }
+}
@@ -0,0 +1,130 @@
+package ticket.booking.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Test class for ManifestGenerator
+ * Tests seat-ordered charts written for many train runs
+ */
+public class ManifestGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Ticket seated(String ticketId, Train train, String date, int row, int column) {
+        Ticket ticket = new Ticket(ticketId, "U-" + ticketId, "bangalore", "delhi", date, train);
+        ticket.setCoachId("S1");
+        ticket.setSeatRow(row);
+        ticket.setSeatColumn(column);
+        return ticket;
+    }
+
+    @Test
+    @DisplayName("Test chart lists passengers in seat order")
+    public void testChartSeatOrder() throws IOException {
+        // Arrange
+        Train train = new Train("CHART1", "1", new ArrayList<>(), new HashMap<>(), Arrays.asList("bangalore", "delhi"));
+        TicketIndex index = new TicketIndex();
+        index.add(seated("T3", train, "2025-06-01", 1, 0));
+        index.add(seated("T1", train, "2025-06-01", 0, 2));
+        index.add(seated("T2", train, "2025-06-01", 0, 5));
+        index.add(seated("T9", train, "2025-06-02", 0, 0));
+        ManifestGenerator generator = new ManifestGenerator(index, 2);
+
+        // Act
+        long passengers = generator.generate(
+                List.of(new TicketIndex.Run("CHART1", LocalDate.parse("2025-06-01"))), tempDir);
+
+        // Assert
+        assertEquals(3, passengers, "Only the passengers of that run should be charted");
+        List<String> lines = Files.readAllLines(tempDir.resolve("CHART1_2025-06-01.tsv"));
+        assertEquals(5, lines.size(), "Header, column names and three passengers");
+        assertTrue(lines.get(2).contains("T1"), "Row 0 seat 2 comes first");
+        assertTrue(lines.get(3).contains("T2"), "Row 0 seat 5 comes second");
+        assertTrue(lines.get(4).contains("T3"), "Row 1 comes last");
+    }
+
+    @Test
+    @DisplayName("Test every indexed run gets its own chart")
+    public void testGenerateAllRuns() throws IOException {
+        // Arrange
+        TicketIndex index = new TicketIndex();
+        for (int t = 0; t < 50; t++) {
+            Train train = new Train("RUN" + t, "1", new ArrayList<>(), new HashMap<>(), Arrays.asList("a", "b"));
+            for (int day = 1; day <= 3; day++) {
+                index.add(seated("T" + t + "-" + day, train, "2025-06-0" + day, 0, day));
+            }
+        }
+
+        // Act
+        long passengers = new ManifestGenerator(index, 4).generateAll(tempDir.resolve("charts"));
+
+        // Assert
+        assertEquals(150, passengers, "Every passenger should be charted once");
+        try (var files = Files.list(tempDir.resolve("charts"))) {
+            assertEquals(150, files.count(), "One chart per train run");
+        }
+    }
+
+    @Test
+    @DisplayName("Test train ids that differ only in punctuation get different chart files")
+    public void testFileNamesDoNotCollide() {
+        // Arrange
+        LocalDate date = LocalDate.parse("2025-06-01");
+
+        // Act
+        String slash = ManifestGenerator.fileName(new TicketIndex.Run("a/b", date));
+        String underscore = ManifestGenerator.fileName(new TicketIndex.Run("a_b", date));
+
+        // Assert
+        assertEquals("CHART1_2025-06-01.tsv", ManifestGenerator.fileName(new TicketIndex.Run("CHART1", date)),
+                "Plain ids should stay readable");
+        assertEquals("a_2Fb_2025-06-01.tsv", slash, "Slash should be escaped");
+        assertEquals("a_5Fb_2025-06-01.tsv", underscore, "Underscore should be escaped too");
+    }
+
+    @Test
+    @DisplayName("Test a booked seat appears in the chart for its travel date")
+    public void testBookingReachesChart() throws IOException {
+        // Arrange
+        Path trainsFile = tempDir.resolve("trains.json");
+        Path usersFile = tempDir.resolve("users.json");
+        Files.writeString(trainsFile, "[]");
+        Files.writeString(usersFile, "[]");
+        TrainService trainService = new TrainService(trainsFile.toString());
+        List<List<Integer>> seats = new ArrayList<>();
+        seats.add(new ArrayList<>(Arrays.asList(0, 0)));
+        trainService.addTrain(new Train("CHART2", "2", seats, new HashMap<>(), Arrays.asList("agra", "bhopal", "kota")));
+        UserBookingService service = new UserBookingService(usersFile.toString(), trainService);
+        service.setUser(new User("asha", null, null, new ArrayList<>(), "U1"));
+
+        // Act
+        boolean booked = service.bookTrainSeat(trainService.getTrain("CHART2").orElseThrow().copy(),
+                "Agra", "bhopal", "2025-06-01", 0, 1);
+        StringWriter chart = new StringWriter();
+        int passengers = new ManifestGenerator(service.getTicketIndex())
+                .writeChart(new TicketIndex.Run("CHART2", LocalDate.parse("2025-06-01")), chart);
+
+        // Assert
+        assertTrue(booked, "Seat should book");
+        assertEquals(1, passengers, "The booking should be on that day's chart");
+        assertTrue(chart.toString().contains("\t0\t1\t"), "Chart should list the booked seat");
+        assertTrue(chart.toString().contains("agra\tbhopal"), "Chart should show the searched journey");
+        assertFalse(service.bookTrainSeat(trainService.getTrain("CHART2").orElseThrow().copy(),
+                "kota", "agra", "2025-06-01", 0, 0), "Train does not run from kota to agra");
+    }
+}
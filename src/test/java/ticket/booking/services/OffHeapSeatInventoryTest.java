@@ -0,0 +1,116 @@
+package ticket.booking.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Test class for OffHeapSeatInventory
+ * Tests lock-free booking, release, bounds checks and reopening a mapped file
+ */
+public class OffHeapSeatInventoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Test concurrent bookings of one seat have exactly one winner")
+    public void testConcurrentTryBook() throws Exception {
+        // Arrange
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try (OffHeapSeatInventory inventory = OffHeapSeatInventory.allocate(2, 3, 2, 72)) {
+            for (int round = 0; round < 200; round++) {
+                int seat = round % 72;
+                int coach = round % 2;
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> attempts = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    attempts.add(pool.submit(() -> {
+                        start.await();
+                        return inventory.tryBook(1, 2, coach, seat);
+                    }));
+                }
+
+                // Act
+                start.countDown();
+                int winners = 0;
+                for (Future<Boolean> attempt : attempts) {
+                    winners += attempt.get() ? 1 : 0;
+                }
+
+                // Assert
+                assertEquals(1, winners, "Exactly one booking should win seat " + seat);
+                assertTrue(inventory.release(1, 2, coach, seat), "Winner's seat should release");
+            }
+            assertEquals(0, inventory.bookedSeats(1, 2, 0), "Every seat should be free again");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Test release frees a seat and only once")
+    public void testRelease() {
+        // Arrange
+        try (OffHeapSeatInventory inventory = OffHeapSeatInventory.allocate(1, 1, 1, 100)) {
+            // Act
+            boolean booked = inventory.tryBook(0, 0, 0, 70);
+            boolean again = inventory.tryBook(0, 0, 0, 70);
+
+            // Assert
+            assertTrue(booked, "Free seat should book");
+            assertFalse(again, "Booked seat should not book twice");
+            assertTrue(inventory.isBooked(0, 0, 0, 70), "Seat should read as booked");
+            assertEquals(99, inventory.freeSeats(0, 0), "One seat taken");
+            assertTrue(inventory.release(0, 0, 0, 70), "Booked seat should release");
+            assertFalse(inventory.release(0, 0, 0, 70), "Free seat should not release again");
+            assertFalse(inventory.isBooked(0, 0, 0, 70), "Seat should read as free");
+        }
+    }
+
+    @Test
+    @DisplayName("Test out-of-range coordinates are rejected")
+    public void testBounds() {
+        // Arrange
+        try (OffHeapSeatInventory inventory = OffHeapSeatInventory.allocate(2, 3, 4, 72)) {
+            // Assert
+            assertThrows(IndexOutOfBoundsException.class, () -> inventory.tryBook(2, 0, 0, 0), "Train out of range");
+            assertThrows(IndexOutOfBoundsException.class, () -> inventory.tryBook(0, 3, 0, 0), "Day out of range");
+            assertThrows(IndexOutOfBoundsException.class, () -> inventory.tryBook(0, 0, 4, 0), "Coach out of range");
+            assertThrows(IndexOutOfBoundsException.class, () -> inventory.tryBook(0, 0, 0, 72), "Seat out of range");
+            assertThrows(IndexOutOfBoundsException.class, () -> inventory.release(0, 0, 0, -1), "Negative seat");
+            assertThrows(IllegalArgumentException.class, () -> OffHeapSeatInventory.allocate(0, 1, 1, 1),
+                    "Empty inventory should be refused");
+            assertEquals(0, inventory.bookedSeats(1, 2, 3), "Nothing should have been booked");
+        }
+    }
+
+    @Test
+    @DisplayName("Test a mapped inventory keeps its bookings across a reopen")
+    public void testMappedReopen() throws IOException {
+        // Arrange
+        Path file = tempDir.resolve("inventory.bin");
+        try (OffHeapSeatInventory inventory = OffHeapSeatInventory.mapped(file, 3, 5, 2, 72)) {
+            inventory.tryBook(2, 4, 1, 71);
+            inventory.tryBook(0, 0, 0, 0);
+            inventory.force();
+        }
+
+        // Act
+        try (OffHeapSeatInventory reopened = OffHeapSeatInventory.mapped(file, 3, 5, 2, 72)) {
+            // Assert
+            assertTrue(reopened.isBooked(2, 4, 1, 71), "Last seat booking should survive");
+            assertTrue(reopened.isBooked(0, 0, 0, 0), "First seat booking should survive");
+            assertEquals(143, reopened.freeSeats(2, 4), "Only one seat taken on that run");
+        }
+        assertThrows(IOException.class, () -> OffHeapSeatInventory.mapped(file, 3, 5, 2, 60),
+                "A different layout should be refused");
+    }
+}
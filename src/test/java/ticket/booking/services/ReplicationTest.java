@@ -0,0 +1,248 @@
+package ticket.booking.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ticket.booking.entities.BookingEvent;
+import ticket.booking.entities.Train;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test class for journal replication
+ * Runs a primary and a follower over loopback TCP in one JVM
+ */
+public class ReplicationTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ReplicationPrimary primary;
+    private ReplicationFollower follower;
+
+    private TrainService trainService(String name, Train... trains) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.writeString(file, "[]");
+        TrainService trainService = new TrainService(file.toString());
+        for (Train train : trains) {
+            trainService.addTrain(train);
+        }
+        return trainService;
+    }
+
+    private static Train train(String trainId, Integer... seats) {
+        List<List<Integer>> grid = new ArrayList<>();
+        grid.add(new ArrayList<>(List.of(seats)));
+        return new Train(trainId, "1", grid, new HashMap<>(), List.of("pune", "goa"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (follower != null) {
+            follower.close();
+        }
+        if (primary != null) {
+            primary.close();
+        }
+    }
+
+    private void awaitSequence(long sequence) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (follower.getLastAppliedSequence() < sequence && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @DisplayName("Test follower applies bookings and cancels in order")
+    public void testFollowerApplies() throws IOException, InterruptedException {
+        // Arrange
+        BookingJournal journal = new BookingJournal();
+        primary = new ReplicationPrimary(journal, 0, ReplicationPrimary.Mode.ASYNC, 100);
+        primary.start();
+        follower = new ReplicationFollower("localhost", primary.getPort(), new ReplicaInventory());
+        follower.start();
+
+        // Act
+        journal.append(new BookingEvent(BookingEvent.Type.BOOK, "R1", 0, 1, null, "U1"));
+        journal.append(new BookingEvent(BookingEvent.Type.BOOK, "R1", 2, 3, null, "U1"));
+        journal.append(new BookingEvent(BookingEvent.Type.CANCEL, "R1", 0, 1, "T1", "U1"));
+        awaitSequence(3);
+
+        // Assert
+        ReplicaInventory inventory = follower.promote();
+        assertEquals(3, inventory.getLastSequence(), "All events should be applied");
+        assertFalse(inventory.isBooked("R1", 0, 1), "Cancelled seat should be free");
+        assertTrue(inventory.isBooked("r1", 2, 3), "Booked seat should be held");
+    }
+
+    @Test
+    @DisplayName("Test late follower catches up from the retained backlog")
+    public void testCatchUp() throws IOException, InterruptedException {
+        // Arrange
+        BookingJournal journal = new BookingJournal();
+        for (int i = 0; i < 20; i++) {
+            journal.append(new BookingEvent(BookingEvent.Type.BOOK, "R2", 0, i, null, "U1"));
+        }
+        primary = new ReplicationPrimary(journal, 0, ReplicationPrimary.Mode.ASYNC, 100);
+        primary.start();
+
+        // Act
+        follower = new ReplicationFollower("localhost", primary.getPort(), new ReplicaInventory());
+        follower.start();
+        awaitSequence(20);
+
+        // Assert
+        assertEquals(20, follower.getInventory().bookedSeats("R2"), "Backlog should be replayed");
+    }
+
+    @Test
+    @DisplayName("Test semi-sync commit waits for the follower ack")
+    public void testSemiSyncAck() throws IOException, InterruptedException {
+        // Arrange
+        BookingJournal journal = new BookingJournal();
+        primary = new ReplicationPrimary(journal, 0, ReplicationPrimary.Mode.SEMI_SYNC, 2_000);
+        primary.start();
+        follower = new ReplicationFollower("localhost", primary.getPort(), new ReplicaInventory());
+        follower.start();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (primary.followerCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // Act
+        BookingEvent event = journal.append(new BookingEvent(BookingEvent.Type.BOOK, "R3", 1, 1, null, "U1"));
+
+        // Assert
+        assertTrue(primary.getAckedSequence() >= event.getSequence(), "Commit should return after the ack");
+        assertEquals(0, primary.getLag(), "Follower should have no lag");
+    }
+
+    @Test
+    @DisplayName("Test follower is told to resync when the backlog is gone")
+    public void testResyncRequired() throws IOException, InterruptedException {
+        // Arrange
+        BookingJournal journal = new BookingJournal(5);
+        for (int i = 0; i < 10; i++) {
+            journal.append(new BookingEvent(BookingEvent.Type.BOOK, "R4", 0, i, null, "U1"));
+        }
+        primary = new ReplicationPrimary(journal, 0, ReplicationPrimary.Mode.ASYNC, 100);
+        primary.start();
+
+        // Act
+        follower = new ReplicationFollower("localhost", primary.getPort(), new ReplicaInventory());
+        follower.start();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!follower.isResyncRequired() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // Assert
+        assertTrue(follower.isResyncRequired(), "Follower should need a snapshot");
+        assertEquals(0, follower.getLastAppliedSequence(), "Nothing should be applied");
+    }
+
+    @Test
+    @DisplayName("Test follower whose backlog is gone is seeded from the primary's snapshot")
+    public void testSnapshotResync() throws IOException, InterruptedException {
+        // Arrange
+        BookingJournal journal = new BookingJournal(5);
+        for (int i = 0; i < 10; i++) {
+            journal.append(new BookingEvent(BookingEvent.Type.BOOK, "R5", 0, i % 4, null, "U1"));
+        }
+        TrainService primaryTrains = trainService("primary.json",
+                train("R5", Train.SEAT_BOOKED, Train.SEAT_HELD, Train.SEAT_FREE, Train.SEAT_BOOKED));
+        primary = new ReplicationPrimary(journal, primaryTrains, 0, ReplicationPrimary.Mode.ASYNC, 100);
+        primary.start();
+
+        // Act
+        follower = new ReplicationFollower("localhost", primary.getPort(), new ReplicaInventory());
+        follower.start();
+        awaitSequence(10);
+        journal.append(new BookingEvent(BookingEvent.Type.CANCEL, "R5", 0, 0, "T1", "U1"));
+        journal.append(new BookingEvent(BookingEvent.Type.BOOK, "R5", 0, 2, null, "U1"));
+        awaitSequence(12);
+
+        // Assert
+        ReplicaInventory inventory = follower.promote();
+        assertFalse(follower.isResyncRequired(), "A snapshot should make a resync unnecessary");
+        assertTrue(inventory.isSeeded(), "Inventory should be seeded");
+        assertFalse(inventory.isBooked("R5", 0, 0), "Cancel after the snapshot should apply");
+        assertFalse(inventory.isBooked("R5", 0, 1), "Held seat should arrive free");
+        assertTrue(inventory.isBooked("R5", 0, 2), "Booking after the snapshot should apply");
+        assertTrue(inventory.isBooked("R5", 0, 3), "Snapshot booking should be kept");
+        assertEquals(2, inventory.bookedSeats("R5"), "Two seats booked in the end");
+    }
+
+    @Test
+    @DisplayName("Test takeover applies only replicated changes on top of the standby's grid")
+    public void testApplyToKeepsUntouchedSeats() throws IOException {
+        // Arrange
+        TrainService standby = trainService("standby.json",
+                train("R6", Train.SEAT_BOOKED, Train.SEAT_HELD, Train.SEAT_FREE, Train.SEAT_BOOKED));
+        BookingJournal journal = new BookingJournal();
+        ReplicaInventory inventory = new ReplicaInventory();
+        inventory.apply(journal.append(new BookingEvent(BookingEvent.Type.BOOK, "R6", 0, 2, null, "U1")));
+        inventory.apply(journal.append(new BookingEvent(BookingEvent.Type.CANCEL, "R6", 0, 0, "T1", "U1")));
+
+        // Act
+        inventory.applyTo(standby);
+
+        // Assert
+        assertEquals(List.of(Train.SEAT_FREE, Train.SEAT_HELD, Train.SEAT_BOOKED, Train.SEAT_BOOKED),
+                standby.getTrain("R6").orElseThrow().getSeats().get(0),
+                "Only replicated seats should change; sold and held seats stay");
+    }
+
+    @Test
+    @DisplayName("Test concurrent appends to a file journal are forced and delivered in order")
+    public void testGroupCommit() throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("journal.log");
+        List<Long> delivered = new CopyOnWriteArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try (BookingJournal journal = new BookingJournal(file, 50)) {
+            journal.addListener(event -> delivered.add(event.getSequence()));
+            List<Future<?>> appenders = new ArrayList<>();
+
+            // Act
+            for (int thread = 0; thread < 8; thread++) {
+                appenders.add(pool.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        BookingEvent event = journal.append(new BookingEvent(BookingEvent.Type.BOOK, "R7", 0, i, null, "U1"));
+                        assertTrue(journal.getLastSequence() >= event.getSequence(),
+                                "Append should return only once its event is committed");
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> appender : appenders) {
+                appender.get();
+            }
+
+            // Assert
+            assertEquals(400, journal.getLastSequence(), "Every event should be committed");
+        } finally {
+            pool.shutdown();
+        }
+        for (int i = 0; i < delivered.size(); i++) {
+            assertEquals(i + 1, delivered.get(i), "Listeners should see every event once, in sequence order");
+        }
+        assertEquals(400, delivered.size(), "Every event should reach the listener");
+        try (BookingJournal reopened = new BookingJournal(file, 50)) {
+            assertEquals(400, reopened.getLastSequence(), "Forced events should survive a reopen");
+        }
+    }
+}
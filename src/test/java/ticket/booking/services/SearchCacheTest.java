@@ -0,0 +1,111 @@
+package ticket.booking.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ticket.booking.entities.Train;
+import ticket.booking.util.SymbolTable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+/**
+ * Test class for SearchCache
+ * Tests LRU eviction, metrics and per station pair invalidation
+ */
+public class SearchCacheTest {
+
+    private static final int BANGALORE = SymbolTable.STATIONS.intern("bangalore");
+    private static final int CHENNAI = SymbolTable.STATIONS.intern("chennai");
+    private static final int JAIPUR = SymbolTable.STATIONS.intern("jaipur");
+    private static final int DELHI = SymbolTable.STATIONS.intern("delhi");
+
+    private SearchCache cache;
+    private Train southTrain;
+    private Train northTrain;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new SearchCache(2);
+        southTrain = new Train("T001", "111", new ArrayList<>(), new HashMap<>(),
+                Arrays.asList("bangalore", "chennai"));
+        northTrain = new Train("T002", "222", new ArrayList<>(), new HashMap<>(),
+                Arrays.asList("jaipur", "delhi"));
+    }
+
+    @Test
+    @DisplayName("Test cached result is returned and counted as a hit")
+    public void testHitAndMiss() {
+        // Act
+        int[] first = cache.get(BANGALORE, CHENNAI, null);
+        cache.put(BANGALORE, CHENNAI, null, List.of(southTrain));
+        int[] second = cache.get(BANGALORE, CHENNAI, null);
+
+        // Assert
+        assertNull(first, "First lookup should miss");
+        assertArrayEquals(new int[] {southTrain.getTrainKey()}, second, "Second lookup should return the cached train key");
+        assertEquals(1, cache.getHits(), "Should count one hit");
+        assertEquals(1, cache.getMisses(), "Should count one miss");
+        assertEquals(0.5, cache.getHitRate(), 0.0001, "Hit rate should be 50%");
+    }
+
+    @Test
+    @DisplayName("Test date is part of the cache key")
+    public void testDateIsPartOfKey() {
+        // Arrange
+        cache.put(BANGALORE, CHENNAI, "2025-10-15", List.of(southTrain));
+
+        // Assert
+        assertNull(cache.get(BANGALORE, CHENNAI, "2025-10-16"), "Other dates should miss");
+        assertNotNull(cache.get(BANGALORE, CHENNAI, "2025-10-15"), "Same date should hit");
+    }
+
+    @Test
+    @DisplayName("Test least recently used entry is evicted")
+    public void testLruEviction() {
+        // Arrange
+        cache.put(BANGALORE, CHENNAI, null, List.of(southTrain));
+        cache.put(JAIPUR, DELHI, null, List.of(northTrain));
+        cache.get(BANGALORE, CHENNAI, null);
+
+        // Act
+        cache.put(DELHI, JAIPUR, null, List.of());
+
+        // Assert
+        assertEquals(2, cache.size(), "Cache should stay within capacity");
+        assertEquals(1, cache.getEvictions(), "Should count one eviction");
+        assertNull(cache.get(JAIPUR, DELHI, null), "Least recently used pair should be evicted");
+        assertNotNull(cache.get(BANGALORE, CHENNAI, null), "Recently used pair should survive");
+    }
+
+    @Test
+    @DisplayName("Test invalidation only drops pairs served by the changed train")
+    public void testInvalidationIsPrecise() {
+        // Arrange
+        cache.put(BANGALORE, CHENNAI, null, List.of(southTrain));
+        cache.put(JAIPUR, DELHI, null, List.of(northTrain));
+
+        // Act
+        cache.invalidate(southTrain);
+
+        // Assert
+        assertNull(cache.get(BANGALORE, CHENNAI, null), "Served pair should be invalidated");
+        assertNotNull(cache.get(JAIPUR, DELHI, null), "Unrelated pair should stay cached");
+        assertEquals(1, cache.getInvalidations(), "Should count one invalidation");
+    }
+
+    @Test
+    @DisplayName("Test reverse direction is not invalidated")
+    public void testReverseDirectionNotInvalidated() {
+        // Arrange
+        cache.put(CHENNAI, BANGALORE, null, List.of());
+
+        // Act
+        cache.invalidate(southTrain);
+
+        // Assert
+        assertNotNull(cache.get(CHENNAI, BANGALORE, null),
+                "Train does not serve the reverse direction");
+    }
+}
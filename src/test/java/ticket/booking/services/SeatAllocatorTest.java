@@ -0,0 +1,177 @@
+package ticket.booking.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ticket.booking.entities.BerthType;
+import ticket.booking.entities.Coach;
+import ticket.booking.entities.SeatClass;
+import ticket.booking.entities.Train;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Test class for SeatAllocator
+ * Tests per-class free-seat indexes and allocation strategies
+ */
+public class SeatAllocatorTest {
+
+    private Train train;
+
+    @BeforeEach
+    public void setUp() {
+        List<List<Integer>> seats = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            seats.add(new ArrayList<>(Arrays.asList(0, 0, 0, 0, 0, 0, 0, 0)));
+        }
+        train = new Train("A001", "1", seats, new HashMap<>(), Arrays.asList("bangalore", "delhi"));
+        train.setCoaches(Arrays.asList(
+                new Coach("S1", SeatClass.SL, 0, 2),
+                new Coach("B1", SeatClass.AC3, 2, 2)));
+    }
+
+    @Test
+    @DisplayName("Test train without coaches maps to one default sleeper coach")
+    public void testDefaultLayout() {
+        // Arrange
+        train.setCoaches(null);
+
+        // Act
+        SeatAllocator allocator = new SeatAllocator(train);
+
+        // Assert
+        assertEquals(32, allocator.freeSeats(SeatClass.SL), "Whole grid should be sleeper");
+        assertEquals(0, allocator.freeSeats(SeatClass.AC3), "No other class should exist");
+    }
+
+    @Test
+    @DisplayName("Test free seats are counted per class")
+    public void testFreeSeatsPerClass() {
+        // Arrange
+        train.getSeats().get(0).set(0, 1);
+
+        // Act
+        SeatAllocator allocator = new SeatAllocator(train);
+
+        // Assert
+        assertEquals(15, allocator.freeSeats(SeatClass.SL), "One sleeper seat is booked");
+        assertEquals(16, allocator.freeSeats(SeatClass.AC3), "3A is untouched");
+    }
+
+    @Test
+    @DisplayName("Test lower berth preference is honoured")
+    public void testLowerBerthPreference() {
+        // Arrange
+        train.getSeats().get(2).set(0, 1);
+        SeatAllocator allocator = new SeatAllocator(train);
+
+        // Act
+        List<SeatAllocator.Seat> chosen = allocator.choose(SeatClass.AC3, BerthType.LOWER, 1);
+
+        // Assert
+        assertEquals(1, chosen.size(), "Should choose one seat");
+        assertEquals(BerthType.LOWER, chosen.get(0).berthType(), "Should pick a lower berth");
+        assertEquals("B1", chosen.get(0).coachId(), "Should pick from the 3A coach");
+        assertEquals(3, chosen.get(0).column(), "Should skip the booked lower berth");
+    }
+
+    @Test
+    @DisplayName("Test party is kept in one row")
+    public void testPartyKeptTogether() {
+        // Arrange
+        train.getSeats().get(0).set(0, 1);
+        train.getSeats().get(0).set(1, 1);
+        train.getSeats().get(0).set(2, 1);
+        SeatAllocator allocator = new SeatAllocator(train);
+
+        // Act
+        List<SeatAllocator.Seat> chosen = allocator.choose(SeatClass.SL, null, 6);
+
+        // Assert
+        assertEquals(6, chosen.size(), "Should seat the whole party");
+        assertTrue(chosen.stream().allMatch(seat -> seat.row() == 1), "Party should share the free row");
+    }
+
+    @Test
+    @DisplayName("Test party too large for the class gets nothing")
+    public void testNotEnoughSeats() {
+        // Act
+        SeatAllocator allocator = new SeatAllocator(train);
+
+        // Assert
+        assertTrue(allocator.choose(SeatClass.SL, null, 17).isEmpty(), "Should not split beyond capacity");
+        assertTrue(allocator.choose(SeatClass.CC, null, 1).isEmpty(), "Train has no chair car");
+    }
+
+    @Test
+    @DisplayName("Test marking seats booked updates the index and version")
+    public void testMarkBooked() {
+        // Arrange
+        SeatAllocator allocator = new SeatAllocator(train);
+        List<SeatAllocator.Seat> chosen = allocator.choose(SeatClass.SL, BerthType.LOWER, 1);
+
+        // Act
+        allocator.markBooked(chosen, 7);
+
+        // Assert
+        assertEquals(15, allocator.freeSeats(SeatClass.SL), "Booked seat should leave the index");
+        assertEquals(7, allocator.getVersion(), "Allocator should follow the train version");
+        assertNotEquals(chosen.get(0), allocator.choose(SeatClass.SL, BerthType.LOWER, 1).get(0),
+                "Booked seat should not be chosen again");
+    }
+
+    @Test
+    @DisplayName("Test marking seats from a version the index has moved past is ignored")
+    public void testMarkFromStaleVersion() {
+        // Arrange
+        SeatAllocator allocator = new SeatAllocator(train);
+        List<SeatAllocator.Seat> chosen = allocator.choose(SeatClass.SL, BerthType.LOWER, 1);
+        allocator.markBooked(chosen, 3);
+
+        // Act
+        boolean marked = allocator.markFree(chosen, 2, 4);
+
+        // Assert
+        assertFalse(marked, "Change from an older version should be refused");
+        assertEquals(3, allocator.getVersion(), "Version should not move");
+        assertEquals(15, allocator.freeSeats(SeatClass.SL), "Seat should stay booked");
+    }
+
+    @Test
+    @DisplayName("Test booking through a stale allocator does not double-book")
+    public void testBookSeatsRechecksGrid(@TempDir Path tempDir) throws IOException {
+        // Arrange
+        Path trainsFile = tempDir.resolve("trains.json");
+        Path usersFile = tempDir.resolve("users.json");
+        Files.writeString(trainsFile, "[]");
+        Files.writeString(usersFile, "[]");
+        TrainService trainService = new TrainService(trainsFile.toString());
+        List<List<Integer>> seats = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            seats.add(new ArrayList<>(Arrays.asList(0, 0)));
+        }
+        trainService.addTrain(new Train("A002", "2", seats, new HashMap<>(), Arrays.asList("agra", "kota")));
+        UserBookingService service = new UserBookingService(usersFile.toString(), trainService);
+        Train stored = trainService.getTrain("A002").orElseThrow();
+        assertTrue(service.bookTrainSeat(stored.copy(), 0, 0), "Seat should book");
+        stored = trainService.getTrain("A002").orElseThrow();
+        SeatAllocator allocator = trainService.getSeatAllocator(stored);
+        allocator.markFree(List.of(allocator.seatAt(0, 0)), stored.getVersion());
+
+        // Act
+        List<SeatAllocator.Seat> party = service.bookSeats(stored.copy(), SeatClass.SL, null, 4);
+        List<SeatAllocator.Seat> rest = service.bookSeats(stored.copy(), SeatClass.SL, null, 3);
+
+        // Assert
+        assertTrue(party.isEmpty(), "Only three seats are really free");
+        assertEquals(3, rest.size(), "The free seats should still book");
+        assertTrue(rest.stream().noneMatch(seat -> seat.row() == 0 && seat.column() == 0),
+                "The booked seat should not be handed out again");
+    }
+}
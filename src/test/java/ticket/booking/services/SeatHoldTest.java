@@ -0,0 +1,161 @@
+package ticket.booking.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ticket.booking.entities.SeatClass;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Test class for seat holds
+ * Tests hold, confirm, release and expiry through UserBookingService
+ */
+public class SeatHoldTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TrainService trainService;
+    private UserBookingService service;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Path trainsFile = tempDir.resolve("trains.json");
+        Path usersFile = tempDir.resolve("users.json");
+        Files.writeString(trainsFile, "[]");
+        Files.writeString(usersFile, "[]");
+        trainService = new TrainService(trainsFile.toString());
+        List<List<Integer>> seats = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            seats.add(new ArrayList<>(Arrays.asList(0, 0)));
+        }
+        trainService.addTrain(new Train("H1", "1", seats, new HashMap<>(), List.of("agra", "kota")));
+        service = new UserBookingService(usersFile.toString(), trainService);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.getSeatHolds().close();
+    }
+
+    private int seatState(int row, int column) {
+        return trainService.getTrain("H1").orElseThrow().getSeats().get(row).get(column);
+    }
+
+    private int freeInAllocator() {
+        Train train = trainService.getTrain("H1").orElseThrow();
+        return trainService.getSeatAllocator(train).freeSeats(SeatClass.SL);
+    }
+
+    @Test
+    @DisplayName("Test held seat cannot be booked and confirm books it")
+    public void testHoldThenConfirm() {
+        // Arrange
+        Train train = trainService.getTrain("H1").orElseThrow().copy();
+
+        // Act
+        Optional<SeatHoldManager.Hold> hold = service.holdSeat(train, 0, 1);
+
+        // Assert
+        assertTrue(hold.isPresent(), "Free seat should be held");
+        assertEquals(Train.SEAT_HELD, seatState(0, 1), "Seat should be marked held");
+        assertFalse(service.bookTrainSeat(train, 0, 1), "Held seat should not be bookable");
+        assertTrue(service.holdSeat(train, 0, 1).isEmpty(), "Held seat should not be held twice");
+        assertEquals(3, freeInAllocator(), "Allocator should not offer the held seat");
+        assertTrue(service.confirmHold(hold.get().getHoldId()), "Hold should confirm");
+        assertEquals(Train.SEAT_BOOKED, seatState(0, 1), "Seat should be booked");
+        assertFalse(service.confirmHold(hold.get().getHoldId()), "Hold cannot be confirmed twice");
+        assertEquals(1, service.getBookingJournal().getLastSequence(), "Confirm should be journaled");
+    }
+
+    @Test
+    @DisplayName("Test released hold frees the seat")
+    public void testRelease() {
+        // Arrange
+        Train train = trainService.getTrain("H1").orElseThrow().copy();
+        SeatHoldManager.Hold hold = service.holdSeat(train, 1, 0).orElseThrow();
+
+        // Act
+        boolean released = service.releaseHold(hold.getHoldId());
+
+        // Assert
+        assertTrue(released, "Hold should release");
+        assertEquals(Train.SEAT_FREE, seatState(1, 0), "Seat should be free again");
+        assertEquals(4, freeInAllocator(), "Seat should be back in the free index");
+        assertFalse(service.confirmHold(hold.getHoldId()), "Released hold cannot be confirmed");
+    }
+
+    @Test
+    @DisplayName("Test expired hold goes back to the free index")
+    public void testExpiry() throws InterruptedException {
+        // Arrange
+        Train train = trainService.getTrain("H1").orElseThrow().copy();
+        SeatHoldManager.Hold hold = service.holdSeat(train, 1, 1, 1).orElseThrow();
+        service.getSeatHolds().close();
+        Thread.sleep(5);
+
+        // Act
+        service.getSeatHolds().expireDue();
+
+        // Assert
+        assertEquals(Train.SEAT_FREE, seatState(1, 1), "Expired hold should free the seat");
+        assertEquals(4, freeInAllocator(), "Seat should be back in the free index");
+        assertEquals(0, service.getSeatHolds().pending(), "No hold should remain");
+        assertFalse(service.confirmHold(hold.getHoldId()), "Expired hold cannot be confirmed");
+    }
+
+    @Test
+    @DisplayName("Test a seat held when the service stopped is free after a restart")
+    public void testHeldSeatFreeAfterRestart() throws IOException {
+        // Arrange
+        Train train = trainService.getTrain("H1").orElseThrow().copy();
+        assertTrue(service.holdSeat(train, 1, 0).isPresent(), "Free seat should be held");
+        service.getSeatHolds().close();
+
+        // Act
+        TrainService restarted = new TrainService(tempDir.resolve("trains.json").toString());
+        UserBookingService restartedService = new UserBookingService(tempDir.resolve("users.json").toString(), restarted);
+        Train reloaded = restarted.getTrain("H1").orElseThrow();
+
+        // Assert
+        assertEquals(Train.SEAT_HELD, seatState(1, 0), "The old process still shows its hold");
+        assertEquals(Train.SEAT_FREE, reloaded.getSeats().get(1).get(0), "Orphaned hold should be released on load");
+        assertEquals(4, restarted.getSeatAllocator(reloaded).freeSeats(SeatClass.SL), "Seat should be bookable again");
+        assertTrue(restartedService.bookTrainSeat(reloaded.copy(), 1, 0), "Released seat should book");
+        restartedService.getSeatHolds().close();
+    }
+
+    @Test
+    @DisplayName("Test only the user holding a seat can confirm the hold")
+    public void testConfirmByOwnerOnly() {
+        // Arrange
+        User asha = new User("asha", null, null, new ArrayList<>(), "U1");
+        User ravi = new User("ravi", null, null, new ArrayList<>(), "U2");
+        service.setUser(asha);
+        SeatHoldManager.Hold hold = service.holdSeat(trainService.getTrain("H1").orElseThrow().copy(), 1, 0)
+                .orElseThrow();
+
+        // Act
+        service.setUser(ravi);
+        boolean byOther = service.confirmHold(hold.getHoldId());
+        service.setUser(asha);
+        boolean byOwner = service.confirmHold(hold.getHoldId());
+
+        // Assert
+        assertFalse(byOther, "Another user should not confirm the hold");
+        assertTrue(byOwner, "The holder should still be able to confirm");
+        assertEquals(Train.SEAT_BOOKED, seatState(1, 0), "Seat should be booked");
+        assertTrue(ravi.getTicketsBooked().isEmpty(), "No ticket should go to the other user");
+        assertEquals(1, asha.getTicketsBooked().size(), "The holder should get the ticket");
+    }
+}
@@ -0,0 +1,122 @@
+package ticket.booking.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ticket.booking.entities.Train;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+/**
+ * Test class for SegmentSeatAllocator
+ * Tests per-leg booking, best-fit selection and fragmentation reporting
+ */
+public class SegmentSeatAllocatorTest {
+
+    private Train train;
+
+    @BeforeEach
+    public void setUp() {
+        List<List<Integer>> seats = new ArrayList<>();
+        seats.add(new ArrayList<>(Arrays.asList(Train.SEAT_FREE, Train.SEAT_FREE, Train.SEAT_FREE)));
+        seats.add(new ArrayList<>(Arrays.asList(Train.SEAT_FREE, Train.SEAT_BOOKED)));
+        train = new Train("SEG1", "1", seats, new HashMap<>(),
+                Arrays.asList("bangalore", "chennai", "vijayawada", "nagpur", "delhi"));
+    }
+
+    @Test
+    @DisplayName("Test a seat booked on some legs stays free on the others")
+    public void testPerLegBooking() {
+        // Arrange
+        SegmentSeatAllocator allocator = new SegmentSeatAllocator(train);
+
+        // Act
+        boolean booked = allocator.book(0, 0, 0, 2);
+        boolean overlap = allocator.book(0, 0, 1, 3);
+
+        // Assert
+        assertEquals(4, allocator.getLegs(), "Five stations make four legs");
+        assertTrue(booked, "Free seat should book");
+        assertFalse(overlap, "Overlapping legs should be refused");
+        assertEquals(3, allocator.freeSeats(0, 2), "Booked-on-grid seat and the new booking are taken");
+        assertEquals(4, allocator.freeSeats(2, 4), "Seat should still be free after its booked legs");
+        allocator.release(0, 0, 0, 2);
+        assertEquals(4, allocator.freeSeats(0, 4), "Released seat should be free again");
+    }
+
+    @Test
+    @DisplayName("Test best fit takes the tightest gap and first fit the lowest seat")
+    public void testBestFit() {
+        // Arrange
+        SegmentSeatAllocator allocator = new SegmentSeatAllocator(train);
+        allocator.book(0, 0, 2, 4);
+        allocator.book(0, 1, 3, 4);
+        allocator.book(0, 2, 1, 4);
+        allocator.book(1, 0, 0, 1);
+
+        // Act
+        SegmentSeatAllocator.Pick best = allocator.choose("bangalore", "chennai");
+        SegmentSeatAllocator.Pick first = allocator.chooseFirstFit("bangalore", "chennai");
+
+        // Assert
+        assertEquals(0, best.row(), "Best fit row");
+        assertEquals(2, best.column(), "Seat free only on the first leg fits exactly");
+        assertEquals(1, best.gapLegs(), "Exact fit leaves no gap");
+        assertEquals(0, first.column(), "First fit takes the lowest free seat");
+        assertEquals(2, first.gapLegs(), "Lowest seat is free for two legs");
+        assertNull(allocator.choose("bangalore", "mumbai"), "Station off the route has no seat");
+        assertNull(allocator.choose("delhi", "bangalore"), "Reverse journey has no seat");
+    }
+
+    @Test
+    @DisplayName("Test best fit strands less inventory than first fit")
+    public void testFragmentation() {
+        // Arrange
+        SegmentSeatAllocator bestFit = new SegmentSeatAllocator(train);
+        SegmentSeatAllocator firstFit = new SegmentSeatAllocator(train);
+        int[][] requests = {{0, 1}, {0, 3}, {3, 4}, {0, 4}, {0, 4}, {1, 4}};
+
+        // Act
+        int bestSold = 0;
+        int firstSold = 0;
+        for (int[] request : requests) {
+            bestSold += sell(bestFit, bestFit.choose(request[0], request[1], true));
+            firstSold += sell(firstFit, firstFit.choose(request[0], request[1], false));
+        }
+
+        // Assert
+        assertTrue(bestSold > firstSold, "Best fit should sell more, sold " + bestSold + " vs " + firstSold);
+        SegmentSeatAllocator.Fragmentation best = bestFit.fragmentation(2);
+        SegmentSeatAllocator.Fragmentation first = firstFit.fragmentation(2);
+        assertTrue(best.strandedSeatLegs() < first.strandedSeatLegs(), "Best fit should strand fewer seat-legs");
+        assertEquals(best.freeSeatLegs() - best.strandedSeatLegs(), best.sellableSeatLegs(), "Sellable excludes stranded");
+    }
+
+    private static int sell(SegmentSeatAllocator allocator, SegmentSeatAllocator.Pick pick) {
+        if (pick == null || !allocator.book(pick.row(), pick.column(), pick.from(), pick.to())) {
+            return 0;
+        }
+        return pick.to() - pick.from();
+    }
+
+    @Test
+    @DisplayName("Test station names resolve through the station index like search does")
+    public void testResolvesAliases() {
+        // Arrange
+        StationIndex stationIndex = new StationIndex(train.getStations());
+        stationIndex.addAlias("madras", "chennai");
+        SegmentSeatAllocator allocator = new SegmentSeatAllocator(train, stationIndex);
+
+        // Act
+        SegmentSeatAllocator.Pick byAlias = allocator.choose("Bangalore", "MADRAS");
+        SegmentSeatAllocator.Pick unknown = allocator.choose("bangalore", "kolkata");
+
+        // Assert
+        assertNotNull(byAlias, "Alias and mixed case should resolve to route stations");
+        assertEquals(allocator.choose("bangalore", "chennai"), byAlias,
+                "Alias should pick the same seat as the station name");
+        assertNull(unknown, "A station off the route should find no seat");
+    }
+}
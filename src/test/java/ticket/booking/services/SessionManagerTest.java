@@ -0,0 +1,158 @@
+package ticket.booking.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+import ticket.booking.util.UserServiceUtil;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test class for SessionManager
+ * Tests token login, lookups and idle expiry with a manual clock
+ */
+public class SessionManagerTest {
+
+    private static final long IDLE_TIMEOUT = 60_000;
+
+    @TempDir
+    Path tempDir;
+
+    private AtomicLong clock;
+    private UserBookingService userBookingService;
+    private SessionManager sessionManager;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Path usersFile = tempDir.resolve("users.json");
+        Files.writeString(usersFile, "[]");
+        Path trainsFile = tempDir.resolve("trains.json");
+        Files.writeString(trainsFile, "[]");
+        TrainService trainService = new TrainService(trainsFile.toString());
+        trainService.addTrain(new Train("S001", "1", List.of(new ArrayList<>(List.of(Train.SEAT_FREE, Train.SEAT_FREE))),
+                new HashMap<>(), List.of("bangalore", "delhi")));
+        userBookingService = new UserBookingService(usersFile.toString(), trainService);
+        userBookingService.signUp(new User("asha", "secret", UserServiceUtil.hashPassword("secret"),
+                new ArrayList<>(), "U1"));
+        clock = new AtomicLong(1_000_000);
+        sessionManager = new SessionManager(userBookingService, IDLE_TIMEOUT, clock::get);
+    }
+
+    @Test
+    @DisplayName("Test login with correct password returns a token")
+    public void testLogin() {
+        // Act
+        Optional<String> token = sessionManager.login("asha", "secret");
+
+        // Assert
+        assertTrue(token.isPresent(), "Login should succeed");
+        assertEquals("U1", sessionManager.getSession(token.get()).orElseThrow().getUser().getUserId(),
+                "Session should hold the stored user");
+    }
+
+    @Test
+    @DisplayName("Test login with wrong password fails")
+    public void testLoginWrongPassword() {
+        // Assert
+        assertTrue(sessionManager.login("asha", "wrong").isEmpty(), "Wrong password should not log in");
+        assertTrue(sessionManager.login("nobody", "secret").isEmpty(), "Unknown user should not log in");
+        assertEquals(0, sessionManager.activeSessions(), "No session should be created");
+    }
+
+    @Test
+    @DisplayName("Test idle session is expired by the timer")
+    public void testIdleExpiry() {
+        // Arrange
+        String token = sessionManager.login("asha", "secret").orElseThrow();
+
+        // Act
+        clock.addAndGet(IDLE_TIMEOUT + 1_000);
+        sessionManager.expireIdle();
+
+        // Assert
+        assertEquals(0, sessionManager.activeSessions(), "Idle session should be evicted");
+        assertTrue(sessionManager.getSession(token).isEmpty(), "Expired token should not resolve");
+    }
+
+    @Test
+    @DisplayName("Test activity keeps the session alive")
+    public void testActivityExtendsSession() {
+        // Arrange
+        String token = sessionManager.login("asha", "secret").orElseThrow();
+
+        // Act
+        clock.addAndGet(IDLE_TIMEOUT / 2);
+        sessionManager.getSession(token);
+        clock.addAndGet(IDLE_TIMEOUT / 2 + 1_000);
+        sessionManager.expireIdle();
+
+        // Assert
+        assertTrue(sessionManager.getSession(token).isPresent(), "Recently used session should survive");
+    }
+
+    @Test
+    @DisplayName("Test ticket view is cached until invalidated")
+    public void testTicketViewCache() {
+        // Arrange
+        SessionManager.Session session = sessionManager.getSession(
+                sessionManager.login("asha", "secret").orElseThrow()).orElseThrow();
+
+        // Act
+        List<Ticket> first = session.getTickets();
+        session.getUser().getTicketsBooked().add(new Ticket("T1", "U1", "bangalore", "delhi", "2025-10-15", null));
+        List<Ticket> second = session.getTickets();
+        session.invalidateTickets();
+        List<Ticket> third = session.getTickets();
+
+        // Assert
+        assertSame(first, second, "View should be reused until invalidated");
+        assertEquals(1, third.size(), "View should be rebuilt after invalidation");
+    }
+
+    @Test
+    @DisplayName("Test booking and cancelling through the service refresh the session's tickets")
+    public void testBookingInvalidatesTicketView() {
+        // Arrange
+        SessionManager.Session session = sessionManager.getSession(
+                sessionManager.login("asha", "secret").orElseThrow()).orElseThrow();
+        userBookingService.setUser(session.getUser());
+        Train train = userBookingService.getTrains("bangalore", "delhi").get(0);
+        List<Ticket> before = session.getTickets();
+
+        // Act
+        boolean booked = userBookingService.bookTrainSeat(train, 0, 1);
+        List<Ticket> afterBooking = session.getTickets();
+        userBookingService.cancelBooking(afterBooking.get(0).getTicketId());
+        List<Ticket> afterCancel = session.getTickets();
+
+        // Assert
+        assertTrue(booked, "Free seat should book");
+        assertTrue(before.isEmpty(), "No tickets before booking");
+        assertEquals(1, afterBooking.size(), "Booked ticket should be visible through the session");
+        assertEquals(1, afterBooking.get(0).getSeatColumn(), "Ticket should record the booked seat");
+        assertTrue(afterCancel.isEmpty(), "Cancelled ticket should be gone from the session");
+    }
+
+    @Test
+    @DisplayName("Test logout removes the session")
+    public void testLogout() {
+        // Arrange
+        String token = sessionManager.login("asha", "secret").orElseThrow();
+
+        // Act
+        sessionManager.logout(token);
+
+        // Assert
+        assertTrue(sessionManager.getSession(token).isEmpty(), "Logged out token should not resolve");
+    }
+}
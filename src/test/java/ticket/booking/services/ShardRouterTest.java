@@ -0,0 +1,151 @@
+package ticket.booking.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Test class for ShardRouter
+ * Runs three booking nodes over loopback TCP in one JVM
+ */
+public class ShardRouterTest {
+
+    private static final int SHARDS = 3;
+    private static final int TRAINS = 12;
+
+    @TempDir
+    Path tempDir;
+
+    private final List<BookingNode> nodes = new ArrayList<>();
+    private ShardRouter router;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        List<Train> catalog = new ArrayList<>();
+        for (int i = 0; i < TRAINS; i++) {
+            catalog.add(newTrain("S" + i, "bangalore", "jaipur", "delhi"));
+        }
+        Path catalogPath = tempDir.resolve("catalog.json");
+        new ObjectMapper().writeValue(catalogPath.toFile(), catalog);
+
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            Path shardDir = Files.createDirectories(tempDir.resolve(ShardRouter.shardName(shard)));
+            Path trainsPath = shardDir.resolve("trains.json");
+            Path usersPath = shardDir.resolve("users.json");
+            BookingNode.writeShard(catalogPath.toString(), shard, SHARDS, trainsPath.toString());
+            Files.writeString(usersPath, "[]");
+            BookingNode node = new BookingNode(0, usersPath.toString(), new TrainService(trainsPath.toString()));
+            node.start();
+            nodes.add(node);
+            addresses.add(new InetSocketAddress("127.0.0.1", node.getPort()));
+        }
+        router = new ShardRouter(addresses);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        router.close();
+        nodes.forEach(BookingNode::close);
+    }
+
+    private Train newTrain(String trainId, String... stations) {
+        List<List<Integer>> seats = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            seats.add(new ArrayList<>(Arrays.asList(0, 0, 0, 0)));
+        }
+        Map<String, String> times = new HashMap<>();
+        for (String station : stations) {
+            times.put(station, "10:00:00");
+        }
+        return new Train(trainId, "1", seats, times, Arrays.asList(stations));
+    }
+
+    @Test
+    @DisplayName("Test every train lives on exactly one shard")
+    public void testPartition() {
+        // Arrange
+        Set<String> seen = new HashSet<>();
+
+        // Act
+        for (int shard = 0; shard < SHARDS; shard++) {
+            for (Train train : nodes.get(shard).getTrainService().getTrains()) {
+                assertTrue(seen.add(train.getTrainId()), "Train should not be on two shards");
+                assertEquals(ShardRouter.shardName(shard), router.shardFor(train.getTrainId()),
+                        "Router should route to the shard holding the train");
+            }
+        }
+
+        // Assert
+        assertEquals(TRAINS, seen.size(), "Every train should be on some shard");
+    }
+
+    @Test
+    @DisplayName("Test search gathers results from all shards")
+    public void testScatterGatherSearch() throws IOException {
+        // Act
+        List<Train> found = router.searchTrains("bangalore", "delhi", null);
+
+        // Assert
+        assertEquals(TRAINS, found.size(), "Search should return trains from every shard");
+        assertTrue(router.searchTrains("delhi", "bangalore", null).isEmpty(), "Reverse direction has no train");
+    }
+
+    @Test
+    @DisplayName("Test booking is routed to the owning shard and ticketed for the user there")
+    public void testRoutedBooking() throws IOException {
+        // Act
+        boolean first = router.bookSeat("U1", "S5", 1, 2, "k1");
+        boolean retry = router.bookSeat("U1", "S5", 1, 2, "k1");
+        boolean second = router.bookSeat("U2", "s5", 1, 2, "k2");
+
+        // Assert
+        assertTrue(first, "Free seat should be booked");
+        assertTrue(retry, "Retry with the same key should get the first outcome");
+        assertFalse(second, "Same seat should not be booked twice");
+        assertEquals(1, router.getTrain("S5").orElseThrow().getSeats().get(1).get(2), "Seat should show as booked");
+        BookingNode owner = nodes.get(Integer.parseInt(router.shardFor("S5").substring("shard-".length())));
+        List<Ticket> tickets = owner.getBookingService().getUserStore().get("U1").orElseThrow().getTicketsBooked();
+        assertEquals(1, tickets.size(), "The retry should not issue a second ticket");
+        assertEquals(2, tickets.get(0).getSeatColumn(), "Ticket should record the booked seat");
+        assertFalse(router.bookSeat(null, "S5", 0, 0, null), "Booking needs a user");
+        assertFalse(router.bookSeat("U1", "S99", 0, 0, null), "Unknown train cannot be booked");
+        assertTrue(router.getTrain("S99").isEmpty(), "Unknown train should not be found");
+    }
+
+    @Test
+    @DisplayName("Test a shard keeps bookings in its journal and replays them after a crash")
+    public void testJournalIsDurabilityPoint() throws IOException {
+        // Arrange
+        String shard = router.shardFor("S5");
+        Path shardDir = tempDir.resolve(shard);
+        assertTrue(router.bookSeat("U1", "S5", 0, 3, "k1"), "Free seat should be booked");
+
+        // Act
+        Train saved = new TrainService(shardDir.resolve("trains.json").toString()).getTrain("S5").orElseThrow();
+        BookingNode restarted = new BookingNode(0, shardDir.resolve("users.json").toString(),
+                new TrainService(shardDir.resolve("trains.json").toString()));
+        try {
+            Train replayed = restarted.getTrainService().getTrain("S5").orElseThrow();
+
+            // Assert
+            assertEquals(Train.SEAT_FREE, saved.getSeats().get(0).get(3), "Booking should not rewrite the trains file");
+            assertEquals(Train.SEAT_BOOKED, replayed.getSeats().get(0).get(3), "Restart should replay the journal");
+        } finally {
+            restarted.close();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ticket.booking.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+/**
+ * Test class for StationIndex
+ * Tests prefix autocomplete, aliases and fuzzy matching
+ */
+public class StationIndexTest {
+
+    private StationIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new StationIndex(Arrays.asList("bangalore", "bhopal", "jaipur", "delhi", "Dehradun"));
+    }
+
+    @Test
+    @DisplayName("Test prefix returns matching stations in order")
+    public void testPrefixSuggestions() {
+        // Act
+        List<String> suggestions = index.suggest("B", 10);
+
+        // Assert
+        assertEquals(Arrays.asList("bangalore", "bhopal"), suggestions,
+                "Should suggest stations starting with b in alphabetical order");
+    }
+
+    @Test
+    @DisplayName("Test suggestion limit is respected")
+    public void testSuggestionLimit() {
+        // Act
+        List<String> suggestions = index.suggest("de", 1);
+
+        // Assert
+        assertEquals(1, suggestions.size(), "Should return at most one suggestion");
+    }
+
+    @Test
+    @DisplayName("Test unknown prefix returns no suggestions")
+    public void testUnknownPrefix() {
+        // Assert
+        assertTrue(index.suggest("xyz", 5).isEmpty(), "Unknown prefix should return nothing");
+    }
+
+    @Test
+    @DisplayName("Test alias resolves to the station")
+    public void testAlias() {
+        // Arrange
+        index.addAlias("Bengaluru", "bangalore");
+
+        // Assert
+        assertEquals("bangalore", index.resolve("bengaluru"), "Alias should resolve to station");
+        assertEquals("bangalore", index.suggest("beng", 5).get(0), "Alias prefix should suggest station");
+        assertEquals("pune", index.resolve("Pune"), "Unknown names should only be normalized");
+    }
+
+    @Test
+    @DisplayName("Test typo is matched by edit distance")
+    public void testFuzzyMatch() {
+        // Act
+        List<String> matches = index.fuzzyMatch("dehli", 2, 5);
+
+        // Assert
+        assertFalse(matches.isEmpty(), "Typo should match a station");
+        assertEquals("delhi", matches.get(0), "Closest station should come first");
+    }
+
+    @Test
+    @DisplayName("Test fuzzy match respects the distance bound")
+    public void testFuzzyMatchBound() {
+        // Assert
+        assertTrue(index.fuzzyMatch("mumbai", 2, 5).isEmpty(), "Distant words should not match");
+        assertEquals(List.of("jaipur"), index.fuzzyMatch("jaipur", 0, 5), "Exact word should match at distance 0");
+    }
+}
@@ -0,0 +1,133 @@
+package ticket.booking.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Test class for TicketIndex
+ * Tests train run lookups and travel time range scans
+ */
+public class TicketIndexTest {
+
+    private Train express;
+    private Train mail;
+    private TicketIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        express = new Train("EXP1", "1", new ArrayList<>(), new HashMap<>(), Arrays.asList("bangalore", "delhi"));
+        mail = new Train("MAIL1", "2", new ArrayList<>(), new HashMap<>(), Arrays.asList("chennai", "mumbai"));
+        List<Ticket> ashaTickets = new ArrayList<>(Arrays.asList(
+                new Ticket("T1", "U1", "bangalore", "delhi", "2025-06-01T06:00:00Z", express),
+                new Ticket("T2", "U1", "chennai", "mumbai", "2025-06-01T22:00:00Z", mail)));
+        List<Ticket> raviTickets = new ArrayList<>(Arrays.asList(
+                new Ticket("T3", "U2", "bangalore", "delhi", "2025-06-01", express),
+                new Ticket("T4", "U2", "bangalore", "delhi", "2025-06-02", express)));
+        index = TicketIndex.build(Arrays.asList(
+                new User("asha", "p", "h", ashaTickets, "U1"),
+                new User("ravi", "p", "h", raviTickets, "U2")));
+    }
+
+    @Test
+    @DisplayName("Test tickets are found by train and travel date")
+    public void testTicketsForRun() {
+        // Act
+        List<Ticket> run = index.ticketsFor("exp1", LocalDate.parse("2025-06-01"));
+
+        // Assert
+        assertEquals(2, run.size(), "Two tickets travel on EXP1 that day");
+        assertTrue(index.ticketsFor("EXP1", LocalDate.parse("2025-06-03")).isEmpty(), "No tickets on other days");
+        assertTrue(index.ticketsFor("NONE", LocalDate.parse("2025-06-01")).isEmpty(), "Unknown train has no tickets");
+    }
+
+    @Test
+    @DisplayName("Test range scan returns tickets in travel order")
+    public void testTicketsBetween() {
+        // Arrange
+        long from = Instant.parse("2025-06-01T05:00:00Z").getEpochSecond();
+        long to = from + 24 * 3600;
+
+        // Act
+        List<Ticket> next24h = index.ticketsBetween(from, to);
+
+        // Assert
+        assertEquals(Arrays.asList("T1", "T2"),
+                Arrays.asList(next24h.get(0).getTicketId(), next24h.get(1).getTicketId()),
+                "Only tickets in the window, earliest first");
+    }
+
+    @Test
+    @DisplayName("Test removed ticket leaves both indexes")
+    public void testRemove() {
+        // Arrange
+        Ticket ticket = index.ticketsFor("EXP1", LocalDate.parse("2025-06-02")).get(0);
+
+        // Act
+        boolean removed = index.remove(ticket);
+
+        // Assert
+        assertTrue(removed, "Ticket should be removed");
+        assertEquals(3, index.size(), "Three tickets should remain");
+        assertTrue(index.ticketsFor("EXP1", LocalDate.parse("2025-06-02")).isEmpty(), "Run should be empty");
+        assertEquals(2, index.runs().size(), "Empty run should be dropped");
+    }
+
+    @Test
+    @DisplayName("Test runs carry the display train id, not the lowercase key")
+    public void testRunsKeepDisplayId() {
+        // Act
+        Set<String> trainIds = new HashSet<>();
+        for (TicketIndex.Run run : index.runs()) {
+            trainIds.add(run.trainId());
+        }
+
+        // Assert
+        assertEquals(Set.of("EXP1", "MAIL1"), trainIds, "Runs should keep the ids as written");
+        assertEquals("EXP1", express.getTrainId(), "Train should keep its id as given");
+    }
+
+    @Test
+    @DisplayName("Test ticket exposes travel date as epoch values")
+    public void testTicketEpochValues() {
+        // Arrange
+        Ticket ticket = new Ticket("T9", "U", "a", "b", "2025-06-01", null);
+
+        // Assert
+        assertEquals(LocalDate.parse("2025-06-01").toEpochDay(), ticket.getTravelEpochDay(), "Epoch day should match");
+        assertEquals(Ticket.UNKNOWN_TRAVEL_TIME, new Ticket("T0", "U", "a", "b", "soon", null).getTravelEpochSecond(),
+                "Unparseable dates should be unknown");
+    }
+
+    @Test
+    @DisplayName("Test index keeps compact copies and ignores a ticket added twice")
+    public void testCompactEntries() {
+        // Arrange
+        List<List<Integer>> seats = new ArrayList<>(List.of(new ArrayList<>(List.of(0, 1, 0))));
+        Train booked = new Train("EXP1", "1", seats, new HashMap<>(), Arrays.asList("bangalore", "delhi"));
+        Ticket ticket = new Ticket("T5", "U3", "bangalore", "delhi", "2025-06-05", booked);
+        ticket.setSeatRow(0);
+        ticket.setSeatColumn(1);
+
+        // Act
+        index.add(ticket);
+        index.add(ticket);
+        Ticket indexed = index.ticketsFor("EXP1", LocalDate.parse("2025-06-05")).get(0);
+
+        // Assert
+        assertEquals(5, index.size(), "A repeated add should not count twice");
+        assertNotSame(ticket, indexed, "Index should hold its own copy");
+        assertNull(indexed.getTrain().getSeats(), "Indexed copy should not carry the seat grid");
+        assertEquals("EXP1", indexed.getTrain().getTrainId(), "Indexed copy should keep the train id");
+        assertEquals(1, indexed.getSeatColumn(), "Indexed copy should keep the seat");
+    }
+}
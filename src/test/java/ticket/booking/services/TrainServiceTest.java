@@ -0,0 +1,508 @@
+package ticket.booking.services;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ticket.booking.entities.SeatClass;
+import ticket.booking.entities.Train;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Test class for TrainService
+ * Tests search and versioned train updates against a temporary trains file
+ */
+public class TrainServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TrainService trainService;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Path trainsFile = tempDir.resolve("trains.json");
+        Files.writeString(trainsFile, "[]");
+        trainService = new TrainService(trainsFile.toString());
+        trainService.addTrain(newTrain("T001", "bangalore", "jaipur", "delhi"));
+        trainService.addTrain(newTrain("T002", "chennai", "mumbai"));
+    }
+
+    private Train newTrain(String trainId, String... stations) {
+        List<List<Integer>> seats = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            seats.add(new ArrayList<>(Arrays.asList(0, 0, 0, 0)));
+        }
+        Map<String, String> times = new HashMap<>();
+        for (String station : stations) {
+            times.put(station, "10:00:00");
+        }
+        return new Train(trainId, "1", seats, times, Arrays.asList(stations));
+    }
+
+    @Test
+    @DisplayName("Test search finds trains in travel direction only")
+    public void testSearch() {
+        // Assert
+        assertEquals(1, trainService.searchTrains("Bangalore", "delhi").size(), "Should find T001");
+        assertTrue(trainService.searchTrains("delhi", "bangalore").isEmpty(), "Reverse direction has no train");
+        assertTrue(trainService.searchTrains("pune", "delhi").isEmpty(), "Unknown station has no train");
+    }
+
+    @Test
+    @DisplayName("Test seat changes keep cached searches but return the current train")
+    public void testSearchCacheSeesSeatChanges() {
+        // Arrange
+        trainService.searchTrains("bangalore", "delhi");
+        long invalidations = trainService.getSearchCache().getInvalidations();
+        Train copy = trainService.getTrain("T001").orElseThrow().copy();
+        copy.getSeats().get(0).set(0, Train.SEAT_BOOKED);
+        assertTrue(trainService.updateTrain(copy), "Seat update should succeed");
+
+        // Act
+        List<Train> result = trainService.searchTrains("bangalore", "delhi");
+
+        // Assert
+        assertEquals(invalidations, trainService.getSearchCache().getInvalidations(),
+                "A seat change should not invalidate the search cache");
+        assertEquals(Train.SEAT_BOOKED, result.get(0).getSeats().get(0).get(0), "Search should see the booked seat");
+    }
+
+    @Test
+    @DisplayName("Test update bumps the version")
+    public void testUpdateBumpsVersion() {
+        // Arrange
+        Train copy = trainService.getTrain("T001").orElseThrow().copy();
+        long before = copy.getVersion();
+
+        // Act
+        boolean updated = trainService.updateTrain(copy);
+
+        // Assert
+        assertTrue(updated, "Update from the current version should succeed");
+        assertEquals(before + 1, trainService.getTrain("t001").orElseThrow().getVersion(),
+                "Version should be bumped");
+    }
+
+    @Test
+    @DisplayName("Test update from a stale copy is rejected")
+    public void testStaleUpdateRejected() {
+        // Arrange
+        Train first = trainService.getTrain("T001").orElseThrow().copy();
+        Train stale = trainService.getTrain("T001").orElseThrow().copy();
+        first.getSeats().get(0).set(0, 1);
+        assertTrue(trainService.updateTrain(first), "First update should succeed");
+
+        // Act
+        stale.getSeats().get(1).set(1, 1);
+        boolean updated = trainService.updateTrain(stale);
+
+        // Assert
+        assertFalse(updated, "Stale copy should be rejected");
+        List<List<Integer>> seats = trainService.getTrain("T001").orElseThrow().getSeats();
+        assertEquals(1, seats.get(0).get(0), "First booking should not be lost");
+        assertEquals(0, seats.get(1).get(1), "Stale booking should not be applied");
+    }
+
+    @Test
+    @DisplayName("Test passing back the stored instance is rejected")
+    public void testStoredInstanceRejected() {
+        // Arrange
+        Train stored = trainService.getTrain("T001").orElseThrow();
+        long version = stored.getVersion();
+
+        // Act
+        boolean updated = trainService.updateTrain(stored);
+        boolean added = trainService.addTrain(stored);
+
+        // Assert
+        assertFalse(updated, "Stored instance should not pass the version check");
+        assertFalse(added, "Re-adding the stored instance should not replace it");
+        assertEquals(version, trainService.getTrain("T001").orElseThrow().getVersion(), "Version should not move");
+    }
+
+    @Test
+    @DisplayName("Test concurrent compare-and-swap updates lose nothing")
+    public void testConcurrentUpdates() throws Exception {
+        // Arrange
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 4; col++) {
+                int r = row;
+                int c = col;
+                tasks.add(() -> {
+                    while (true) {
+                        Train candidate = trainService.getTrain("T001").orElseThrow().copy();
+                        candidate.getSeats().get(r).set(c, 1);
+                        if (trainService.updateTrain(candidate)) {
+                            return true;
+                        }
+                    }
+                });
+            }
+        }
+
+        // Act
+        for (Future<Boolean> result : pool.invokeAll(tasks)) {
+            result.get();
+        }
+        pool.shutdown();
+
+        // Assert
+        for (List<Integer> row : trainService.getTrain("T001").orElseThrow().getSeats()) {
+            assertFalse(row.contains(0), "Every seat update should be kept");
+        }
+    }
+
+    @Test
+    @DisplayName("Test visitor search streams light result views")
+    public void testVisitorSearch() {
+        // Arrange
+        Train train = trainService.getTrain("T001").orElseThrow().copy();
+        train.getSeats().get(0).set(0, 1);
+        trainService.updateTrain(train);
+        List<String> seen = new ArrayList<>();
+
+        // Act
+        int visited = trainService.visitTrains("bangalore", "delhi", result ->
+                seen.add(result.getTrainId() + " " + result.getDepartureTime() + " " + result.getFreeSeats()));
+
+        // Assert
+        assertEquals(1, visited, "Should visit T001 only");
+        assertEquals(List.of("T001 10:00:00 15"), seen, "View should carry id, time and free seats");
+        assertEquals(0, trainService.visitTrains("delhi", "bangalore", result -> fail("No train runs that way")),
+                "Reverse direction has no train");
+    }
+
+    @Test
+    @DisplayName("Test search results carry the cheapest fare when distances are known")
+    public void testSearchResultFare() {
+        // Arrange
+        Train priced = trainService.getTrain("T001").orElseThrow().copy();
+        priced.setSegmentDistances(Arrays.asList(300, 270));
+        trainService.updateTrain(priced);
+        List<Long> fares = new ArrayList<>();
+
+        // Act
+        trainService.visitTrains("bangalore", "jaipur", result -> fares.add(result.getFare()));
+        trainService.visitTrains("chennai", "mumbai", result -> fares.add(result.getFare()));
+
+        // Assert
+        FareEngine.FareRule sleeper = trainService.getFareEngine().getRule(SeatClass.SL);
+        assertEquals(List.of(Math.max(300L * sleeper.paisePerKm(), sleeper.minimumFare()) + sleeper.reservationCharge(),
+                FareEngine.NO_FARE), fares, "Priced train gets its sleeper fare, the other none");
+    }
+
+    @Test
+    @DisplayName("Test search results stream as JSON")
+    public void testWriteSearchResults() throws IOException {
+        // Arrange
+        StringWriter out = new StringWriter();
+
+        // Act
+        try (JsonGenerator generator = new JsonFactory().createGenerator(out)) {
+            trainService.writeSearchResults("chennai", "mumbai", generator);
+        }
+
+        // Assert
+        assertEquals("[{\"train_id\":\"T002\",\"train_no\":\"1\",\"departure\":\"10:00:00\","
+                + "\"arrival\":\"10:00:00\",\"free_seats\":16}]", out.toString(), "Should write one result object");
+    }
+
+    @Test
+    @DisplayName("Test steady-state visitor search does not allocate")
+    public void testVisitorSearchDoesNotAllocate() {
+        // Arrange
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        int[] free = new int[1];
+        TrainSearchVisitor visitor = result -> free[0] += result.getFreeSeats();
+        for (int i = 0; i < 20_000; i++) {
+            trainService.visitTrains("bangalore", "delhi", visitor);
+        }
+
+        // Act
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10_000; i++) {
+            trainService.visitTrains("bangalore", "delhi", visitor);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // Assert
+        assertTrue(allocated < 10_000, "Searches should not allocate, allocated " + allocated + " bytes");
+    }
+
+    @Test
+    @DisplayName("Test bulk import adds, updates, dedupes and rejects in one save")
+    public void testImportTrains() throws IOException {
+        // Arrange
+        Train broken = newTrain("T900", "agra");
+        List<Train> batch = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            batch.add(newTrain(String.format("S%03d", i), "pune", "nagpur", "delhi"));
+        }
+        batch.add(newTrain("T002", "chennai", "bangalore", "mumbai"));
+        batch.add(newTrain("s007", "pune", "surat"));
+        batch.add(broken);
+
+        // Act
+        TimetableImport result = trainService.importTrains(batch);
+
+        // Assert
+        assertEquals(500, result.getAdded().size(), "New trains should be added");
+        assertEquals(List.of("T002"), result.getUpdated(), "Existing train should be updated");
+        assertEquals(List.of("s007"), result.getDuplicates(), "Repeated id should be skipped, case-insensitively");
+        assertEquals(Set.of(502), result.getInvalid().keySet(), "Single-station train should be rejected by position");
+        assertEquals(502, trainService.getTrains().size(), "Catalog should hold old and new trains once each");
+        assertEquals(1, trainService.getTrain("T002").orElseThrow().getVersion(), "Update should bump the version");
+        assertEquals(1, trainService.searchTrains("chennai", "bangalore").size(), "Search should see the new route");
+        assertEquals("nagpur", trainService.getStationIndex().lookup("nagpur"), "Station index should know new stations");
+        TrainService reloaded = new TrainService(tempDir.resolve("trains.json").toString());
+        assertEquals(502, reloaded.getTrains().size(), "Import should be persisted");
+    }
+
+    @Test
+    @DisplayName("Test re-importing a timetable keeps the stored seat state")
+    public void testImportKeepsSeats() throws IOException {
+        // Arrange
+        Train booked = trainService.getTrain("T002").orElseThrow().copy();
+        booked.getSeats().get(1).set(2, Train.SEAT_BOOKED);
+        trainService.updateTrain(booked);
+        Train timetable = newTrain("T002", "chennai", "bangalore", "mumbai");
+        timetable.setTrainNo("12658");
+
+        // Act
+        TimetableImport result = trainService.importTrains(List.of(timetable));
+
+        // Assert
+        Train stored = trainService.getTrain("T002").orElseThrow();
+        assertTrue(result.isSaved(), "Import should be saved");
+        assertEquals(List.of("chennai", "bangalore", "mumbai"), stored.getStations(), "Stations should be updated");
+        assertEquals("12658", stored.getTrainNo(), "Train number should be updated");
+        assertEquals(Train.SEAT_BOOKED, stored.getSeats().get(1).get(2), "Sold seat should stay sold");
+        assertEquals(2, stored.getVersion(), "Import should bump the version after the booking");
+    }
+
+    @Test
+    @DisplayName("Test import rejects held seats and reports every bad row")
+    public void testImportRejectsHeldSeatsByRow() {
+        // Arrange
+        Train held = newTrain("T900", "pune", "goa");
+        held.getSeats().get(0).set(0, Train.SEAT_HELD);
+        List<Train> batch = List.of(newTrain("T900", "agra"), held, newTrain("T901", "pune", "goa"));
+
+        // Act
+        TimetableImport result = trainService.importTrains(batch);
+
+        // Assert
+        assertEquals(Set.of(0, 1), result.getInvalid().keySet(), "Both bad rows should be reported");
+        assertEquals(List.of("has a held seat; holds cannot be imported"), result.getInvalid().get(1),
+                "Held seat should be the reason");
+        assertEquals(List.of("T901"), result.getAdded(), "Only the valid train should be added");
+    }
+
+    @Test
+    @DisplayName("Test an import that cannot be saved leaves the catalog unchanged")
+    public void testImportSaveFailureRollsBack() throws IOException {
+        // Arrange
+        Path blocker = Files.createDirectories(tempDir.resolve("trains.json.tmp"));
+        Files.writeString(blocker.resolve("keep"), "x");
+        Train stored = trainService.getTrain("T002").orElseThrow();
+        List<Train> batch = List.of(newTrain("T002", "chennai", "goa"), newTrain("T003", "pune", "surat"));
+
+        // Act
+        TimetableImport result = trainService.importTrains(batch);
+
+        // Assert
+        assertFalse(result.isSaved(), "Import should report it was not saved");
+        assertSame(stored, trainService.getTrain("T002").orElseThrow(), "Previous train should be back in place");
+        assertTrue(trainService.getTrain("T003").isEmpty(), "Unsaved train should not be listed");
+        assertEquals(2, trainService.getTrains().size(), "Catalog should hold only the original trains");
+        assertTrue(trainService.searchTrains("pune", "surat").isEmpty(), "Unsaved train should not be found");
+    }
+
+    @Test
+    @DisplayName("Test dry run reports the duplicate trains in the shipped catalog")
+    public void testImportDryRunFindsShippedDuplicates() throws IOException {
+        // Arrange
+        List<Train> shipped = new ObjectMapper().readValue(
+                Path.of("src/main/java/ticket/booking/localDb/trains.json").toFile(),
+                new TypeReference<List<Train>>() {});
+
+        // Act
+        TimetableImport result = trainService.importTrains(shipped, true);
+
+        // Assert
+        assertEquals(List.of("bacs"), result.getDuplicates(), "Second bacs entry should be caught");
+        assertEquals(List.of("bacs"), result.getAdded(), "First bacs entry would be added");
+        assertEquals(2, trainService.getTrains().size(), "Dry run should change nothing");
+    }
+
+    @Test
+    @DisplayName("Test changes since a catalog version return only the changed trains")
+    public void testChangesSince() throws IOException {
+        // Arrange
+        long before = trainService.getCatalogVersion();
+        Train t001 = trainService.getTrain("T001").orElseThrow().copy();
+        t001.getSeats().get(0).set(0, Train.SEAT_BOOKED);
+
+        // Act
+        trainService.updateTrain(t001);
+        trainService.addTrain(newTrain("T003", "pune", "surat"));
+        CatalogChanges changes = trainService.changesSince(before);
+
+        // Assert
+        assertEquals(2, before, "Two trains added in setUp");
+        assertFalse(changes.isSnapshot(), "Recent version should get deltas");
+        assertEquals(before + 2, changes.getVersion(), "Two more changes expected");
+        assertEquals(List.of("T001", "T003"), changes.getTrains().stream().map(Train::getTrainId).toList(),
+                "Only changed trains, in change order");
+        assertTrue(trainService.changesSince(changes.getVersion()).getTrains().isEmpty(), "Up to date caller gets nothing");
+        TrainService reloaded = new TrainService(tempDir.resolve("trains.json").toString());
+        assertEquals(before + 2, reloaded.getCatalogVersion(), "Version should survive a restart");
+        CatalogChanges afterRestart = reloaded.changesSince(before);
+        assertTrue(afterRestart.isSnapshot(), "Changes from before the restart need a snapshot");
+        assertEquals(3, afterRestart.getTrains().size(), "Snapshot holds the whole catalog");
+    }
+
+    @Test
+    @DisplayName("Test an add or import that cannot be saved is sent to delta clients as removed")
+    public void testChangesSinceListsRolledBackTrains() throws IOException {
+        // Arrange
+        long before = trainService.getCatalogVersion();
+        Path blocker = Files.createDirectories(tempDir.resolve("trains.json.tmp"));
+        Files.writeString(blocker.resolve("keep"), "x");
+
+        // Act
+        trainService.addTrain(newTrain("T003", "pune", "goa"));
+        trainService.importTrains(List.of(newTrain("T004", "pune", "surat"), newTrain("T002", "chennai", "goa")));
+        CatalogChanges changes = trainService.changesSince(before);
+
+        // Assert
+        assertFalse(changes.isSnapshot(), "Recent version should get deltas");
+        assertEquals(List.of("t003", "t004"), changes.getRemovedTrainIds(), "Rolled back adds should be removed");
+        assertEquals(List.of("T002"), changes.getTrains().stream().map(Train::getTrainId).toList(),
+                "Rolled back update should send the restored train");
+        assertSame(trainService.getTrain("T002").orElseThrow(), changes.getTrains().get(0),
+                "Restored train should be the stored one");
+    }
+
+    @Test
+    @DisplayName("Test a reader polling changes during updates never skips one")
+    public void testChangesSinceUnderConcurrentUpdates() throws Exception {
+        // Arrange
+        List<Train> batch = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            batch.add(newTrain(String.format("C%03d", i), "pune", "goa"));
+        }
+        trainService.importTrains(batch);
+        Map<String, Long> replica = new HashMap<>();
+        CatalogChanges initial = trainService.changesSince(0);
+        initial.getTrains().forEach(train -> replica.put(train.getTrainId(), train.getVersion()));
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> updates = new ArrayList<>();
+        for (int writer = 0; writer < 4; writer++) {
+            int first = writer;
+            updates.add(writers.submit(() -> {
+                start.await();
+                for (int i = first; i < 400; i += 4) {
+                    Train copy = trainService.getTrain(String.format("C%03d", i)).orElseThrow().copy();
+                    copy.getSeats().get(0).set(0, Train.SEAT_BOOKED);
+                    assertTrue(trainService.updateTrain(copy), "Uncontended update should succeed");
+                }
+                return null;
+            }));
+        }
+
+        // Act
+        long since = initial.getVersion();
+        start.countDown();
+        boolean writing = true;
+        while (writing) {
+            writing = updates.stream().anyMatch(update -> !update.isDone());
+            CatalogChanges changes = trainService.changesSince(since);
+            assertFalse(changes.isSnapshot(), "Reader should keep up with deltas");
+            changes.getTrains().forEach(train -> replica.put(train.getTrainId(), train.getVersion()));
+            since = changes.getVersion();
+        }
+        for (Future<?> update : updates) {
+            update.get();
+        }
+        writers.shutdown();
+
+        // Assert
+        for (Train train : trainService.getTrains()) {
+            assertEquals(train.getVersion(), replica.get(train.getTrainId()),
+                    "Reader should hold the latest version of " + train.getTrainId());
+        }
+    }
+
+    @Test
+    @DisplayName("Test a compacted change log falls back to a snapshot")
+    public void testCompactedLogFallsBackToSnapshot() {
+        // Arrange
+        CatalogChangeLog log = new CatalogChangeLog(10, 2);
+
+        // Act
+        log.record(1);
+        log.record(2);
+        log.record(1);
+        log.record(3);
+
+        // Assert
+        assertEquals(14, log.getVersion(), "Each change bumps the version");
+        assertEquals(2, log.size(), "Log keeps at most two trains");
+        assertEquals(12, log.getFloor(), "Floor moves to the dropped change");
+        assertNull(log.changedSince(11), "Versions behind the floor need a snapshot");
+        assertEquals(List.of(1, 3), log.changedSince(12), "Latest change per train, oldest first");
+        assertEquals(List.of(3), log.changedSince(13), "Only the newest change");
+    }
+
+    @Test
+    @DisplayName("Test an update or add that cannot be saved is rolled back")
+    public void testSaveFailureRollsBack() throws IOException {
+        // Arrange
+        Path blocker = Files.createDirectories(tempDir.resolve("trains.json.tmp"));
+        Files.writeString(blocker.resolve("keep"), "x");
+        Train stored = trainService.getTrain("T001").orElseThrow();
+        Train copy = stored.copy();
+        copy.getSeats().get(0).set(0, Train.SEAT_BOOKED);
+
+        // Act
+        boolean updated = trainService.updateTrain(copy);
+        boolean added = trainService.addTrain(newTrain("T003", "pune", "goa"));
+
+        // Assert
+        assertFalse(updated, "Unsaved update should be refused");
+        assertSame(stored, trainService.getTrain("T001").orElseThrow(), "Previous train should be back in place");
+        assertEquals(Train.SEAT_FREE, trainService.getTrain("T001").orElseThrow().getSeats().get(0).get(0),
+                "Seat should still be free");
+        assertFalse(added, "Unsaved add should be refused");
+        assertTrue(trainService.getTrain("T003").isEmpty(), "Unsaved train should not be listed");
+        assertTrue(trainService.searchTrains("pune", "goa").isEmpty(), "Unsaved train should not be found");
+
+        // Act
+        Files.delete(blocker.resolve("keep"));
+        Files.delete(blocker);
+        Train retry = trainService.getTrain("T001").orElseThrow().copy();
+        retry.getSeats().get(0).set(0, Train.SEAT_BOOKED);
+
+        // Assert
+        assertTrue(trainService.updateTrain(retry), "Update should succeed once the file can be written");
+    }
+}
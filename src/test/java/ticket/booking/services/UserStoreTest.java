@@ -0,0 +1,105 @@
+package ticket.booking.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ticket.booking.entities.User;
+import ticket.booking.util.UserServiceUtil;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Test class for UserStore
+ * Tests the size-bounded hot cache, pinning and seeding from users.json
+ */
+public class UserStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static User user(int i) {
+        return new User("user-" + i, null, "hash-" + i, new ArrayList<>(), "U" + i);
+    }
+
+    @Test
+    @DisplayName("Test cache stays within its byte budget and cold users load on demand")
+    public void testSizeBoundedCache() throws IOException {
+        // Arrange
+        try (UserStore store = new UserStore(tempDir.resolve("users.store"), 4_000)) {
+            for (int i = 0; i < 100; i++) {
+                store.put(user(i));
+            }
+
+            // Act
+            User cold = store.get("user-0").orElseThrow();
+
+            // Assert
+            assertEquals(100, store.size(), "Every user should be stored");
+            assertTrue(store.getCachedBytes() <= 4_000, "Cache should fit its budget, holds " + store.getCachedBytes());
+            assertTrue(store.getCachedUsers() < 20, "Only a few users should stay cached");
+            assertEquals("U0", cold.getUserId(), "Cold user should load from disk");
+            assertEquals(1, store.getColdLoads(), "One cold load expected");
+            assertSame(cold, store.get("user-0").orElseThrow(), "Second lookup should hit the cache");
+        }
+    }
+
+    @Test
+    @DisplayName("Test pinned users are never evicted")
+    public void testPinnedUsersStay() throws IOException {
+        // Arrange
+        try (UserStore store = new UserStore(tempDir.resolve("users.store"), 2_000)) {
+            User pinned = user(0);
+            store.put(pinned);
+            store.pin(pinned);
+
+            // Act
+            for (int i = 1; i < 50; i++) {
+                store.put(user(i));
+            }
+
+            // Assert
+            assertSame(pinned, store.get("user-0").orElseThrow(), "Pinned user should stay the same instance");
+            assertEquals(0, store.getColdLoads(), "Pinned user should not be reloaded");
+            store.unpin(pinned);
+            for (int i = 50; i < 60; i++) {
+                store.put(user(i));
+            }
+            store.get("user-0");
+            assertEquals(1, store.getColdLoads(), "Unpinned user may be evicted and reloaded");
+        }
+    }
+
+    @Test
+    @DisplayName("Test booking service seeds the store from users.json once and signs up through it")
+    public void testSeedFromUsersFile() throws IOException {
+        // Arrange
+        Path usersFile = tempDir.resolve("users.json");
+        Path trainsFile = tempDir.resolve("trains.json");
+        Files.writeString(trainsFile, "[]");
+        User seed = new User("asha", null, UserServiceUtil.hashPassword("secret"), new ArrayList<>(), "U1");
+        Files.write(usersFile, new ObjectMapper().writeValueAsBytes(List.of(seed)));
+        UserBookingService service = new UserBookingService(usersFile.toString(), new TrainService(trainsFile.toString()));
+
+        // Act
+        Boolean duplicate = service.signUp(new User("asha", null, "other", new ArrayList<>(), "U9"));
+        Boolean added = service.signUp(new User("ravi", null, UserServiceUtil.hashPassword("pw"), new ArrayList<>(), "U2"));
+
+        // Assert
+        assertTrue(service.authenticate("asha", "secret").isPresent(), "Seeded user should log in");
+        assertFalse(duplicate, "Name already taken should be refused");
+        assertTrue(added, "New user should sign up");
+        assertEquals(2, service.getUserStore().size(), "Store should hold both users");
+        service.getUserStore().close();
+        service.getBookingJournal().close();
+        UserBookingService restarted = new UserBookingService(usersFile.toString(), new TrainService(trainsFile.toString()));
+        assertTrue(restarted.authenticate("ravi", "pw").isPresent(), "Signed-up user should survive a restart");
+        restarted.getUserStore().close();
+        restarted.getBookingJournal().close();
+    }
+}
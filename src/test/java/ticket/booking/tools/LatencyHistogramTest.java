@@ -0,0 +1,43 @@
+package ticket.booking.tools;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for LatencyHistogram
+ * Tests percentile accuracy and bucket boundaries
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Test percentiles are within bucket precision")
+    public void testPercentiles() {
+        // Arrange
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // Act
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        // Assert
+        assertEquals(100_000, histogram.count(), "Every value should be counted");
+        assertEquals(50_000_000, histogram.percentile(0.50), 50_000_000 * 0.04, "p50 should be near 50 ms");
+        assertEquals(99_000_000, histogram.percentile(0.99), 99_000_000 * 0.04, "p99 should be near 99 ms");
+        assertEquals(99_900_000, histogram.percentile(0.999), 99_900_000 * 0.04, "p999 should be near 99.9 ms");
+        assertEquals(100_000_000, histogram.max(), "Max should be exact");
+    }
+
+    @Test
+    @DisplayName("Test every value falls in a bucket whose bound covers it")
+    public void testBuckets() {
+        for (long value : new long[] {0, 1, 31, 32, 33, 63, 64, 65, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(LatencyHistogram.upperBound(bucket) >= value, "Bound should cover " + value);
+            assertTrue(bucket == 0 || LatencyHistogram.upperBound(bucket - 1) < value, "Bucket should be tight for " + value);
+        }
+        assertEquals(0, new LatencyHistogram().percentile(0.99), "Empty histogram reports zero");
+    }
+}
@@ -0,0 +1,50 @@
+package ticket.booking.tools;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+
+/**
+ * Test class for LoadGenerator
+ * Runs a short open-loop load against a small synthetic fleet
+ */
+public class LoadGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Test every scheduled request is run and measured")
+    public void testShortRun() throws Exception {
+        // Arrange
+        LoadGenerator.Config config = LoadGenerator.Config.parse(new String[] {
+                "--rate=200", "--duration=1", "--threads=4", "--trains=10", "--users=20", "--stations=8",
+                "--arrivals=poisson", "--mix=search:50,login:10,book:25,cancel:15"});
+        LoadGenerator generator = new LoadGenerator(config, tempDir);
+
+        // Act
+        LoadGenerator.Report report = generator.run();
+
+        // Assert
+        assertEquals(200, report.getAllResponseTimes().count(), "Every scheduled request should complete");
+        assertEquals(0, report.getErrors(), "No request should throw");
+        assertTrue(report.getResponseTimes(LoadGenerator.Operation.BOOK).count() > 0, "Mix should include bookings");
+        for (LoadGenerator.Operation operation : LoadGenerator.Operation.values()) {
+            assertTrue(report.getResponseTimes(operation).percentile(0.99)
+                    >= report.getServiceTimes(operation).percentile(0.50), "Queueing can only add latency");
+        }
+        assertTrue(report.getThroughput() > 0, "Throughput should be reported");
+    }
+
+    @Test
+    @DisplayName("Test unknown options are rejected")
+    public void testParse() {
+        // Assert
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.Config.parse(new String[] {"--bogus=1"}),
+                "Unknown option should be rejected");
+    }
+}
@@ -0,0 +1,83 @@
+package ticket.booking.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Test class for ConsistentHashRing
+ * Tests key placement, balance and movement when nodes join
+ */
+public class ConsistentHashRingTest {
+
+    private ConsistentHashRing<String> ringOf(int nodes) {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>();
+        for (int i = 0; i < nodes; i++) {
+            ring.addNode("node-" + i);
+        }
+        return ring;
+    }
+
+    @Test
+    @DisplayName("Test placement is deterministic")
+    public void testDeterministic() {
+        // Arrange
+        ConsistentHashRing<String> first = ringOf(4);
+        ConsistentHashRing<String> second = ringOf(4);
+
+        // Assert
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(first.nodeFor("train-" + i), second.nodeFor("train-" + i),
+                    "Rings with the same nodes should agree on every key");
+        }
+        assertNull(new ConsistentHashRing<String>().nodeFor("train-1"), "Empty ring owns nothing");
+    }
+
+    @Test
+    @DisplayName("Test keys spread evenly across nodes")
+    public void testBalance() {
+        // Arrange
+        ConsistentHashRing<String> ring = ringOf(4);
+        Map<String, Integer> counts = new HashMap<>();
+
+        // Act
+        for (int i = 0; i < 40_000; i++) {
+            counts.merge(ring.nodeFor("train-" + i), 1, Integer::sum);
+        }
+
+        // Assert
+        assertEquals(4, counts.size(), "Every node should own some keys");
+        for (int count : counts.values()) {
+            assertTrue(count > 7_000 && count < 13_000, "Node share should be near a quarter, was " + count);
+        }
+    }
+
+    @Test
+    @DisplayName("Test adding a node only moves keys onto it")
+    public void testMinimalMovement() {
+        // Arrange
+        ConsistentHashRing<String> ring = ringOf(4);
+        Map<String, String> before = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            before.put("train-" + i, ring.nodeFor("train-" + i));
+        }
+
+        // Act
+        ring.addNode("node-4");
+
+        // Assert
+        int moved = 0;
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            String owner = ring.nodeFor(entry.getKey());
+            if (!owner.equals(entry.getValue())) {
+                assertEquals("node-4", owner, "Keys should only move to the new node");
+                moved++;
+            }
+        }
+        assertTrue(moved > 1_000 && moved < 3_000, "About a fifth of the keys should move, moved " + moved);
+    }
+}
@@ -0,0 +1,141 @@
+package ticket.booking.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Test class for DurableFile
+ * Tests atomic replacement, checksum verification and recovery after damage
+ */
+public class DurableFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path target;
+    private DurableFile file;
+
+    @BeforeEach
+    public void setUp() {
+        target = tempDir.resolve("trains.json");
+        file = new DurableFile(target);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] large(char fill) {
+        byte[] data = new byte[DurableFile.BLOCK_SIZE * 3 + 100];
+        Arrays.fill(data, (byte) fill);
+        return data;
+    }
+
+    @Test
+    @DisplayName("Test write then read round trips and leaves no temp files")
+    public void testRoundTrip() throws IOException {
+        // Act
+        file.write(bytes("[1,2,3]"));
+
+        // Assert
+        assertArrayEquals(bytes("[1,2,3]"), new DurableFile(target).read(), "Should read back what was written");
+        assertTrue(Files.exists(tempDir.resolve("trains.json.crc")), "Checksums should be written");
+        assertFalse(Files.exists(tempDir.resolve("trains.json.tmp")), "Temp data should be renamed away");
+    }
+
+    @Test
+    @DisplayName("Test file without a sidecar is read as is")
+    public void testLegacyFile() throws IOException {
+        // Arrange
+        Files.writeString(target, "[]");
+
+        // Assert
+        assertArrayEquals(bytes("[]"), file.read(), "Seed data without checksums should load");
+    }
+
+    @Test
+    @DisplayName("Test torn tail is detected and the last good snapshot is used")
+    public void testTornTailRecovers() throws IOException {
+        // Arrange
+        file.write(large('a'));
+        file.write(large('b'));
+        byte[] torn = Arrays.copyOf(large('b'), DurableFile.BLOCK_SIZE * 2 + 10);
+        Files.write(target, torn);
+        DurableFile reopened = new DurableFile(target);
+
+        // Act
+        byte[] recovered = reopened.read();
+
+        // Assert
+        assertEquals(2, reopened.firstBadBlock(torn), "Damage should be located at the cut block");
+        assertArrayEquals(large('a'), recovered, "Should recover the previous good version");
+    }
+
+    @Test
+    @DisplayName("Test flipped byte is detected")
+    public void testCorruptBlockRecovers() throws IOException {
+        // Arrange
+        file.write(bytes("first"));
+        file.write(large('c'));
+        byte[] corrupt = large('c');
+        corrupt[DurableFile.BLOCK_SIZE + 5] = 'x';
+        Files.write(target, corrupt);
+        DurableFile reopened = new DurableFile(target);
+
+        // Act
+        byte[] recovered = reopened.read();
+
+        // Assert
+        assertEquals(1, reopened.firstBadBlock(corrupt), "Second block should be reported");
+        assertArrayEquals(bytes("first"), recovered, "Should recover the previous good version");
+    }
+
+    @Test
+    @DisplayName("Test write interrupted before the sidecar rename keeps the new data")
+    public void testInterruptedCommit() throws IOException {
+        // Arrange
+        file.write(bytes("old"));
+        byte[] pending = bytes("new");
+        Files.write(target, pending);
+        Files.write(tempDir.resolve("trains.json.crc.tmp"), DurableFile.encodeChecksums(pending));
+
+        // Assert
+        assertArrayEquals(pending, new DurableFile(target).read(), "Data matching the pending sidecar is intact");
+    }
+
+    @Test
+    @DisplayName("Test recovered file does not overwrite the good snapshot")
+    public void testRecoveryKeepsBackup() throws IOException {
+        // Arrange
+        file.write(bytes("good"));
+        file.write(bytes("newer"));
+        Files.write(target, bytes("junk!"));
+        DurableFile reopened = new DurableFile(target);
+        assertArrayEquals(bytes("good"), reopened.read(), "Should recover the snapshot");
+
+        // Act
+        reopened.write(bytes("fixed"));
+
+        // Assert
+        assertArrayEquals(bytes("fixed"), new DurableFile(target).read(), "New write should be readable");
+        assertArrayEquals(bytes("good"), Files.readAllBytes(tempDir.resolve("trains.json.bak")),
+                "Corrupt data should not replace the snapshot");
+    }
+
+    @Test
+    @DisplayName("Test missing file is reported")
+    public void testMissingFile() {
+        // Assert
+        assertThrows(IOException.class, () -> file.read(), "Missing file should throw");
+    }
+}
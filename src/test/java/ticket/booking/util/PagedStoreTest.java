@@ -0,0 +1,98 @@
+package ticket.booking.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Test class for PagedStore
+ * Tests paged records, reopening, index recovery and compaction
+ */
+public class PagedStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Test records survive a reopen and the latest version wins")
+    public void testPutGetReopen() throws IOException {
+        // Arrange
+        Path file = tempDir.resolve("users.store");
+        byte[] large = new byte[3 * PagedStore.PAGE_SIZE];
+        Arrays.fill(large, (byte) 'x');
+        try (PagedStore store = new PagedStore(file)) {
+            store.put("asha", bytes("v1"));
+            store.put("ravi", large);
+            store.put("asha", bytes("v2"));
+        }
+
+        // Act
+        try (PagedStore reopened = new PagedStore(file)) {
+            // Assert
+            assertEquals("v2", new String(reopened.get("asha"), StandardCharsets.UTF_8), "Latest version should win");
+            assertArrayEquals(large, reopened.get("ravi"), "Multi-page record should read back whole");
+            assertNull(reopened.get("nobody"), "Unknown key should read as null");
+            assertEquals(2, reopened.size(), "Two keys expected");
+        }
+    }
+
+    @Test
+    @DisplayName("Test a lost or torn index is rebuilt from the data file")
+    public void testIndexRecovery() throws IOException {
+        // Arrange
+        Path file = tempDir.resolve("users.store");
+        Path index = tempDir.resolve("users.store.idx");
+        try (PagedStore store = new PagedStore(file)) {
+            store.put("asha", bytes("v1"));
+            store.put("asha", bytes("v2"));
+            store.put("ravi", bytes("r1"));
+        }
+        byte[] log = Files.readAllBytes(index);
+        Files.write(index, Arrays.copyOf(log, log.length - 3));
+
+        // Act & Assert
+        try (PagedStore torn = new PagedStore(file)) {
+            assertNull(torn.get("ravi"), "Entry cut from the index log should be dropped");
+            torn.put("ravi", bytes("r2"));
+        }
+        Files.delete(index);
+        try (PagedStore rebuilt = new PagedStore(file)) {
+            assertEquals("v2", new String(rebuilt.get("asha"), StandardCharsets.UTF_8), "Scan should keep the latest asha");
+            assertEquals("r2", new String(rebuilt.get("ravi"), StandardCharsets.UTF_8), "Scan should keep the latest ravi");
+        }
+    }
+
+    @Test
+    @DisplayName("Test superseded pages are compacted away")
+    public void testCompaction() throws IOException {
+        // Arrange
+        Path file = tempDir.resolve("users.store");
+        try (PagedStore store = new PagedStore(file)) {
+            // Act
+            for (int i = 0; i < 1_000; i++) {
+                store.put("user-" + (i % 10), bytes("version " + i));
+            }
+
+            // Assert
+            assertEquals(10, store.getLivePages(), "One page per live user");
+            assertTrue(store.getFilePages() < 300, "File should have been compacted, has " + store.getFilePages() + " pages");
+            assertEquals("version 999", new String(store.get("user-9"), StandardCharsets.UTF_8), "Latest value expected");
+        }
+        try (PagedStore reopened = new PagedStore(file)) {
+            assertEquals("version 990", new String(reopened.get("user-0"), StandardCharsets.UTF_8),
+                    "Compacted store should reopen");
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ticket.booking.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for SymbolTable
+ * Tests dense id assignment and reverse lookup
+ */
+public class SymbolTableTest {
+
+    @Test
+    @DisplayName("Test interning assigns dense ids")
+    public void testInternAssignsDenseIds() {
+        // Arrange
+        SymbolTable table = new SymbolTable();
+
+        // Act
+        int first = table.intern("bangalore");
+        int second = table.intern("delhi");
+
+        // Assert
+        assertEquals(0, first, "First name should get id 0");
+        assertEquals(1, second, "Second name should get id 1");
+        assertEquals(2, table.size(), "Table should hold two names");
+    }
+
+    @Test
+    @DisplayName("Test interning the same name returns the same id")
+    public void testInternIsIdempotent() {
+        // Arrange
+        SymbolTable table = new SymbolTable();
+
+        // Act
+        int first = table.intern("jaipur");
+        int again = table.intern(new String("jaipur"));
+
+        // Assert
+        assertEquals(first, again, "Same name should map to the same id");
+        assertSame(table.canonical("jaipur"), table.name(first), "Canonical instance should be shared");
+    }
+
+    @Test
+    @DisplayName("Test lookup does not add unknown names")
+    public void testLookupUnknown() {
+        // Arrange
+        SymbolTable table = new SymbolTable();
+
+        // Assert
+        assertEquals(SymbolTable.UNKNOWN, table.lookup("pune"), "Unknown name should not be found");
+        assertEquals(0, table.size(), "Lookup should not intern");
+        assertNull(table.name(SymbolTable.UNKNOWN), "Unknown id has no name");
+    }
+
+    @Test
+    @DisplayName("Test table grows past its initial capacity")
+    public void testGrowth() {
+        // Arrange
+        SymbolTable table = new SymbolTable();
+
+        // Act
+        for (int i = 0; i < 500; i++) {
+            table.intern("station" + i);
+        }
+
+        // Assert
+        assertEquals(500, table.size(), "Should hold all names");
+        assertEquals("station499", table.name(499), "Last name should be readable");
+    }
+
+    @Test
+    @DisplayName("Test station names are case-insensitive")
+    public void testStationsFoldCase() {
+        // Arrange
+        SymbolTable table = new SymbolTable(SymbolTable::foldCase);
+
+        // Act
+        int lower = table.intern("delhi");
+        int mixed = table.intern(" Delhi");
+
+        // Assert
+        assertEquals(lower, mixed, "Case and padding should not change the id");
+        assertEquals(lower, table.lookup("DELHI"), "Lookup should fold case too");
+        assertEquals("delhi", table.name(mixed), "Names are stored folded");
+        assertEquals(SymbolTable.STATIONS.intern("Mumbai"), SymbolTable.STATIONS.lookup("mumbai"),
+                "Shared station table should fold case");
+    }
+}
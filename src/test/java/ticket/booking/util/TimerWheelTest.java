@@ -0,0 +1,96 @@
+package ticket.booking.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+/**
+ * Test class for TimerWheel
+ * Tests expiry timing across wheel levels, cancellation and large timer counts
+ */
+public class TimerWheelTest {
+
+    @Test
+    @DisplayName("Test timeouts fire at their tick on every level")
+    public void testFiresOnTimeAcrossLevels() {
+        // Arrange
+        TimerWheel<Long> wheel = new TimerWheel<>(1, 4, 3, 0);
+        List<Long> deadlines = List.of(0L, 1L, 3L, 4L, 5L, 15L, 16L, 17L, 63L, 64L, 200L, 1000L);
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+
+        // Act
+        Map<Long, Long> firedAt = new HashMap<>();
+        for (long now = 0; now <= 1000; now++) {
+            for (long item : wheel.advance(now)) {
+                firedAt.put(item, now);
+            }
+        }
+
+        // Assert
+        for (long deadline : deadlines) {
+            assertEquals(deadline, firedAt.get(deadline), "Timeout should fire exactly at " + deadline);
+        }
+        assertEquals(0, wheel.size(), "Nothing should remain");
+    }
+
+    @Test
+    @DisplayName("Test a large jump expires everything due and nothing else")
+    public void testJump() {
+        // Arrange
+        TimerWheel<Integer> wheel = new TimerWheel<>(10, 8, 0);
+        for (int i = 0; i < 1000; i++) {
+            wheel.schedule(i, i * 100L);
+        }
+
+        // Act
+        List<Integer> expired = wheel.advance(50_000);
+
+        // Assert
+        assertEquals(501, expired.size(), "Deadlines up to 50000 should expire");
+        assertEquals(499, wheel.size(), "Later deadlines should stay");
+        assertEquals(499, wheel.advance(1_000_000).size(), "The rest should expire later");
+    }
+
+    @Test
+    @DisplayName("Test cancelled timeouts never fire")
+    public void testCancel() {
+        // Arrange
+        TimerWheel<String> wheel = new TimerWheel<>(1, 16, 0);
+        TimerWheel.Timeout<String> kept = wheel.schedule("kept", 500);
+        TimerWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 500);
+
+        // Act
+        assertTrue(wheel.cancel(cancelled), "Pending timeout should cancel");
+        List<String> expired = wheel.advance(500);
+
+        // Assert
+        assertEquals(List.of("kept"), expired, "Only the kept timeout should fire");
+        assertFalse(kept.isPending(), "Fired timeout is no longer pending");
+        assertFalse(wheel.cancel(cancelled), "Cancelling twice should fail");
+    }
+
+    @Test
+    @DisplayName("Test a million timeouts expire without scanning")
+    public void testManyTimeouts() {
+        // Arrange
+        TimerWheel<Integer> wheel = new TimerWheel<>(100, 256, 0);
+        Random random = new Random(7);
+        for (int i = 0; i < 1_000_000; i++) {
+            wheel.schedule(i, random.nextInt(600_000));
+        }
+
+        // Act
+        int expired = 0;
+        for (long now = 0; now <= 600_000; now += 100) {
+            expired += wheel.advance(now).size();
+        }
+
+        // Assert
+        assertEquals(1_000_000, expired, "Every timeout should expire once");
+    }
+}